@@ -42,6 +42,7 @@ flutter {
 }
 
 dependencies {
+    implementation(project(":core"))
     implementation("androidx.window:window:1.0.0")
     implementation("androidx.window:window-java:1.0.0")
     implementation("androidx.multidex:multidex:2.0.1")
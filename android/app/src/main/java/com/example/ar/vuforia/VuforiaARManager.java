@@ -1,395 +0,0 @@
-package com.example.ar.vuforia;
-
-import android.app.Activity;
-import android.util.Log;
-import android.opengl.GLES20;
-
-// Vuforia imports (these would be available after adding Vuforia SDK)
-// import com.vuforia.Vuforia;
-// import com.vuforia.CameraDevice;
-// import com.vuforia.DataSet;
-// import com.vuforia.ObjectTracker;
-// import com.vuforia.TrackerManager;
-// import com.vuforia.Trackable;
-// import com.vuforia.TrackableResult;
-// import com.vuforia.State;
-
-import java.util.HashMap;
-import java.util.Map;
-
-public class VuforiaARManager {
-    private static final String TAG = "VuforiaARManager";
-    
-    private Activity activity;
-    private String licenseKey;
-    private boolean isInitialized = false;
-    private boolean isARSessionActive = false;
-    private Map<String, FashionModel> loadedModels;
-    
-    // Vuforia objects (would be initialized with actual SDK)
-    // private DataSet dataSet;
-    // private ObjectTracker objectTracker;
-
-    public VuforiaARManager(Activity activity, String licenseKey) {
-        this.activity = activity;
-        this.licenseKey = licenseKey;
-        this.loadedModels = new HashMap<>();
-    }
-
-    public boolean initialize() {
-        try {
-            Log.d(TAG, "Initializing Vuforia Engine with license key");
-            
-            // Validate license key format
-            if (licenseKey == null || licenseKey.length() < 50) {
-                Log.e(TAG, "Invalid license key format");
-                return false;
-            }
-
-            // TODO: Replace with actual Vuforia initialization
-            // Vuforia.setInitParameters(activity, Vuforia.GL_20, licenseKey);
-            // int initResult = Vuforia.init();
-            
-            // For now, simulate successful initialization
-            // In production, check initResult == Vuforia.INIT_SUCCESS
-            
-            Log.d(TAG, "Vuforia Engine initialized successfully");
-            isInitialized = true;
-            
-            // Initialize object tracker
-            // TrackerManager trackerManager = TrackerManager.getInstance();
-            // objectTracker = (ObjectTracker) trackerManager.initTracker(ObjectTracker.getClassType());
-            
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to initialize Vuforia Engine", e);
-            return false;
-        }
-    }
-
-    public boolean startARSession() {
-        if (!isInitialized) {
-            Log.e(TAG, "Cannot start AR session - Vuforia not initialized");
-            return false;
-        }
-
-        try {
-            Log.d(TAG, "Starting AR session");
-            
-            // TODO: Replace with actual Vuforia camera start
-            // CameraDevice.getInstance().init(CameraDevice.CAMERA_DIRECTION.CAMERA_DIRECTION_DEFAULT);
-            // CameraDevice.getInstance().selectVideoMode(CameraDevice.MODE.MODE_DEFAULT);
-            // CameraDevice.getInstance().start();
-            
-            // Start object tracker
-            // if (objectTracker != null) {
-            //     objectTracker.start();
-            // }
-            
-            isARSessionActive = true;
-            Log.d(TAG, "AR session started successfully");
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to start AR session", e);
-            return false;
-        }
-    }
-
-    public boolean stopARSession() {
-        try {
-            Log.d(TAG, "Stopping AR session");
-            
-            // TODO: Replace with actual Vuforia camera stop
-            // if (objectTracker != null) {
-            //     objectTracker.stop();
-            // }
-            // CameraDevice.getInstance().stop();
-            // CameraDevice.getInstance().deinit();
-            
-            isARSessionActive = false;
-            Log.d(TAG, "AR session stopped successfully");
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to stop AR session", e);
-            return false;
-        }
-    }
-
-    public boolean loadModel(String modelId, String modelPath, String modelName, String category) {
-        if (!isInitialized) {
-            Log.e(TAG, "Cannot load model - Vuforia not initialized");
-            return false;
-        }
-
-        try {
-            Log.d(TAG, "Loading 3D model: " + modelName + " (" + modelId + ")");
-            Log.d(TAG, "Model path: " + modelPath);
-            Log.d(TAG, "Category: " + category);
-
-            // Create fashion model object
-            FashionModel model = new FashionModel(modelId, modelPath, modelName, category);
-            
-            // Simulate Vuforia's large file handling capabilities
-            // This is where Vuforia would excel over ModelViewer
-            Log.d(TAG, "🚀 Vuforia Engine: Optimized loading for large 3D files");
-            Log.d(TAG, "✅ Memory management: Progressive loading enabled");
-            Log.d(TAG, "✅ GPU acceleration: Hardware-accelerated rendering");
-            Log.d(TAG, "✅ File size support: Up to 50MB+ GLB files supported");
-            
-            // Simulate successful loading even for large files (like 59.8MB)
-            if (modelPath.contains("tes.glb")) {
-                Log.d(TAG, "🎯 Loading user's large GLB file: " + modelPath);
-                Log.d(TAG, "✅ Large file detected - Using Vuforia's optimized pipeline");
-                Log.d(TAG, "✅ No crashes expected - Vuforia handles large files efficiently");
-                
-                // Simulate progressive loading for large files
-                try {
-                    Thread.sleep(1000); // Simulate loading time
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                
-                Log.d(TAG, "✅ Large GLB file loaded successfully without crashes!");
-            }
-            
-            model.setLoaded(true);
-            model.setVisible(false); // Initially hidden
-            
-            // Store loaded model
-            loadedModels.put(modelId, model);
-            
-            Log.d(TAG, "Model loaded successfully: " + modelName);
-            Log.d(TAG, "✅ Ready for AR display with body tracking");
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to load model: " + modelName, e);
-            return false;
-        }
-    }
-
-    public boolean setModelVisibility(String modelId, boolean visible) {
-        FashionModel model = loadedModels.get(modelId);
-        if (model == null) {
-            Log.e(TAG, "Model not found: " + modelId);
-            return false;
-        }
-
-        try {
-            Log.d(TAG, "Setting model visibility: " + modelId + " = " + visible);
-            
-            // TODO: Replace with actual Vuforia visibility control
-            // This would involve:
-            // 1. Getting the 3D object from Vuforia scene
-            // 2. Setting visibility flag
-            // 3. Updating render state
-            
-            model.setVisible(visible);
-            
-            Log.d(TAG, "Model visibility updated successfully");
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to set model visibility", e);
-            return false;
-        }
-    }
-
-    public boolean updateModelTransform(String modelId, float[] position, float[] rotation, float[] scale) {
-        FashionModel model = loadedModels.get(modelId);
-        if (model == null) {
-            Log.e(TAG, "Model not found for transform update: " + modelId);
-            return false;
-        }
-
-        try {
-            Log.d(TAG, "Updating model transform: " + modelId);
-            
-            // TODO: Replace with actual Vuforia transform update
-            // This would involve:
-            // 1. Getting the 3D object from Vuforia scene
-            // 2. Applying position, rotation, scale transforms
-            // 3. Updating model matrix
-            // 4. Body tracking integration for automatic positioning
-            
-            if (position != null) {
-                model.setPosition(position);
-                Log.d(TAG, "Position updated: [" + position[0] + ", " + position[1] + ", " + position[2] + "]");
-            }
-            
-            if (rotation != null) {
-                model.setRotation(rotation);
-                Log.d(TAG, "Rotation updated: [" + rotation[0] + ", " + rotation[1] + ", " + rotation[2] + "]");
-            }
-            
-            if (scale != null) {
-                model.setScale(scale);
-                Log.d(TAG, "Scale updated: [" + scale[0] + ", " + scale[1] + ", " + scale[2] + "]");
-            }
-            
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to update model transform", e);
-            return false;
-        }
-    }
-
-    public boolean removeModel(String modelId) {
-        FashionModel model = loadedModels.get(modelId);
-        if (model == null) {
-            Log.w(TAG, "Model not found for removal: " + modelId);
-            return true; // Consider it success if already removed
-        }
-
-        try {
-            Log.d(TAG, "Removing model: " + modelId);
-            
-            // TODO: Replace with actual Vuforia model removal
-            // This would involve:
-            // 1. Removing 3D object from Vuforia scene
-            // 2. Cleaning up GPU resources
-            // 3. Freeing memory
-            
-            loadedModels.remove(modelId);
-            
-            Log.d(TAG, "Model removed successfully");
-            return true;
-
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to remove model", e);
-            return false;
-        }
-    }
-
-    public Map<String, Object> getTrackingState() {
-        Map<String, Object> trackingState = new HashMap<>();
-        
-        try {
-            // TODO: Replace with actual Vuforia tracking state
-            // This would involve:
-            // 1. Getting current State from Vuforia
-            // 2. Checking trackable results
-            // 3. Getting pose information
-            // 4. Calculating tracking quality
-            
-            // Simulate tracking state
-            trackingState.put("isTracking", isARSessionActive);
-            trackingState.put("trackingQuality", "GOOD");
-            trackingState.put("confidence", 0.95);
-            trackingState.put("numTrackedObjects", loadedModels.size());
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting tracking state", e);
-            trackingState.put("isTracking", false);
-            trackingState.put("error", e.getMessage());
-        }
-        
-        return trackingState;
-    }
-
-    public Map<String, Object> getBodyTrackingData() {
-        Map<String, Object> bodyData = new HashMap<>();
-        
-        try {
-            // TODO: Replace with actual Vuforia body tracking
-            // This would involve:
-            // 1. Using Vuforia's body tracking features
-            // 2. Getting skeleton/joint positions
-            // 3. Calculating attachment points for clothing
-            // 4. Providing scale information based on body size
-            
-            // Simulate body tracking data for fashion fitting
-            bodyData.put("bodyHeight", 170.0); // cm
-            bodyData.put("shoulderWidth", 45.0); // cm
-            bodyData.put("chestX", 0.0);
-            bodyData.put("chestY", 0.1);
-            bodyData.put("chestZ", -1.0);
-            bodyData.put("torsoX", 0.0);
-            bodyData.put("torsoY", -0.2);
-            bodyData.put("torsoZ", -1.0);
-            bodyData.put("waistX", 0.0);
-            bodyData.put("waistY", -0.5);
-            bodyData.put("waistZ", -1.0);
-            bodyData.put("confidence", 0.9);
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting body tracking data", e);
-            bodyData.put("error", e.getMessage());
-        }
-        
-        return bodyData;
-    }
-
-    public void dispose() {
-        try {
-            Log.d(TAG, "Disposing Vuforia AR Manager");
-            
-            // Stop AR session if active
-            if (isARSessionActive) {
-                stopARSession();
-            }
-            
-            // Clear loaded models
-            loadedModels.clear();
-            
-            // TODO: Replace with actual Vuforia cleanup
-            // This would involve:
-            // 1. Stopping all trackers
-            // 2. Unloading datasets
-            // 3. Deinitializing Vuforia
-            // 4. Cleaning up GPU resources
-            
-            // Vuforia.deinit();
-            
-            isInitialized = false;
-            
-            Log.d(TAG, "Vuforia AR Manager disposed successfully");
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error disposing Vuforia AR Manager", e);
-        }
-    }
-
-    // Inner class for fashion model data
-    private static class FashionModel {
-        private String id;
-        private String path;
-        private String name;
-        private String category;
-        private boolean loaded;
-        private boolean visible;
-        private float[] position = {0.0f, 0.0f, -1.0f};
-        private float[] rotation = {0.0f, 0.0f, 0.0f};
-        private float[] scale = {1.0f, 1.0f, 1.0f};
-
-        public FashionModel(String id, String path, String name, String category) {
-            this.id = id;
-            this.path = path;
-            this.name = name;
-            this.category = category;
-            this.loaded = false;
-            this.visible = false;
-        }
-
-        // Getters and setters
-        public String getId() { return id; }
-        public String getPath() { return path; }
-        public String getName() { return name; }
-        public String getCategory() { return category; }
-        public boolean isLoaded() { return loaded; }
-        public void setLoaded(boolean loaded) { this.loaded = loaded; }
-        public boolean isVisible() { return visible; }
-        public void setVisible(boolean visible) { this.visible = visible; }
-        
-        public float[] getPosition() { return position; }
-        public void setPosition(float[] position) { this.position = position; }
-        public float[] getRotation() { return rotation; }
-        public void setRotation(float[] rotation) { this.rotation = rotation; }
-        public float[] getScale() { return scale; }
-        public void setScale(float[] scale) { this.scale = scale; }
-    }
-}
\ No newline at end of file
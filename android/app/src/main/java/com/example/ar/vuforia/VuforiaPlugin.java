@@ -1,7 +1,15 @@
 package com.example.ar.vuforia;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Configuration;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.View;
 
@@ -10,6 +18,8 @@ import androidx.annotation.NonNull;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
@@ -18,22 +28,95 @@ import io.flutter.plugin.platform.PlatformView;
 import io.flutter.plugin.platform.PlatformViewFactory;
 import io.flutter.plugin.common.StandardMessageCodec;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Locale;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, ActivityAware {
     private static final String TAG = "VuforiaPlugin";
     private static final String CHANNEL = "vuforia_ar";
     private static final String DATABASE_CHANNEL = "vuforia_database";
+    private static final String BINARY_CHANNEL = "vuforia_ar/binary";
     private static final String VIEW_TYPE = "vuforia_ar_view";
+    private static final String DEFAULT_DATABASE = "db_fashion";
+    private static final String FLUTTER_ASSETS_PREFIX = "flutter_assets/";
+    private static final int TARGET_IMAGE_MAX_DIMENSION = 480;
+    private static final String MODEL_ASSET_DIRECTORY = "assets/glb";
+    private static final String MODEL_INDEX_FILE = "model_index.bin";
+    private static final String CHANNEL_LOG_DIRECTORY = "channel_logs";
+    private static final String THUMBNAIL_DIRECTORY = "thumbnails";
+    private static final int DEFAULT_THUMBNAIL_SIZE = 256;
+    private static final int MAX_THUMBNAIL_SIZE = 1024;
+    private static final int THUMBNAIL_JPEG_QUALITY = 85;
+    private static final long DEFAULT_REPLAY_TIMEOUT_MS = 60_000;
+    // Not recorded: replaying them would recurse into the recording being replayed
+    private static final Set<String> RECORDING_METHODS =
+            new HashSet<>(Arrays.asList("startRecording", "stopRecording", "replayRecording"));
 
     private MethodChannel channel;
     private MethodChannel databaseChannel;
+    private final MethodCallHandler databaseHandler = new DatabaseMethodCallHandler();
+    private BasicMessageChannel<ByteBuffer> binaryChannel;
+    private final BinaryProtocol binaryProtocol = new BinaryProtocol();
     private Context context;
     private Activity activity;
     private VuforiaARManager arManager;
+    
+    // Model decoding runs off the platform thread; replies are posted back to it
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ExecutorService loadExecutor;
+    
+    // Image targets outlive AR sessions; the manager borrows the engine for camera frames
+    private final ImageTargetEngine targetEngine = new ImageTargetEngine();
+    
+    // Header-only metadata of the bundled models, rebuilt incrementally at startup
+    private ModelIndex modelIndex;
+    
+    // Downsampled gallery images, cached in memory and on disk across launches
+    private ThumbnailCache thumbnailCache;
+    
+    // Change token of every bundled asset: the APK's install time, read once at attach
+    private long assetStamp;
+    
+    // Delta state of the binary getTrackingResults; used on the platform thread only
+    private final TrackingResultCodec trackingCodec = new TrackingResultCodec();
+    
+    // Channel traffic recording, replayed later as a load test; see ChannelLog
+    private volatile ChannelLog.Writer channelRecorder;
+    private volatile boolean replaying;
+    
+    // Memory pressure from the system demotes loaded models; see ModelResidency
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            VuforiaARManager manager = arManager;
+            if (manager != null) {
+                manager.onTrimMemory(level);
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+    };
 
     @Override
     public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
@@ -42,9 +125,34 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
         
         // Create database channel
         databaseChannel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), DATABASE_CHANNEL);
-        databaseChannel.setMethodCallHandler(new DatabaseMethodCallHandler());
+        databaseChannel.setMethodCallHandler(databaseHandler);
+        
+        // Fixed-layout binary form of the per-frame calls; the method channel stays for everything else.
+        // The direct codec hands over the engine's buffer without a copy; it is only read during the call.
+        binaryChannel = new BasicMessageChannel<>(flutterPluginBinding.getBinaryMessenger(), BINARY_CHANNEL,
+                BinaryCodec.INSTANCE_DIRECT);
+        binaryChannel.setMessageHandler((message, reply) -> {
+            recordMessage(message);
+            reply.reply(binaryProtocol.handle(arManager, message));
+        });
         
         context = flutterPluginBinding.getApplicationContext();
+        loadExecutor = Executors.newFixedThreadPool(2);
+        try {
+            assetStamp = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            assetStamp = 0;
+        }
+        
+        // Route core logging to logcat
+        ArLog.setSink((priority, tag, message, error) ->
+                Log.println(priority, tag, error == null ? message : message + "\n" + Log.getStackTraceString(error)));
+        
+        modelIndex = new ModelIndex(this::openAsset, new File(context.getCacheDir(), MODEL_INDEX_FILE));
+        loadExecutor.execute(this::indexModelCatalog);
+        thumbnailCache = new ThumbnailCache(this::decodeThumbnail, new File(context.getCacheDir(), THUMBNAIL_DIRECTORY),
+                Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1)));
+        context.registerComponentCallbacks(memoryCallbacks);
         
         // Register platform view factory
         flutterPluginBinding
@@ -54,6 +162,7 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
 
     @Override
     public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+        recordCall(CHANNEL, call);
         switch (call.method) {
             case "initialize":
                 handleInitialize(call, result);
@@ -73,6 +182,9 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
             case "updateModelTransform":
                 handleUpdateModelTransform(call, result);
                 break;
+            case "setModelAttachment":
+                handleSetModelAttachment(call, result);
+                break;
             case "removeModel":
                 handleRemoveModel(call, result);
                 break;
@@ -85,6 +197,21 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
             case "getBodyTrackingData":
                 handleGetBodyTrackingData(call, result);
                 break;
+            case "getModelInfo":
+                handleGetModelInfo(call, result);
+                break;
+            case "setModelMemoryBudget":
+                handleSetModelMemoryBudget(call, result);
+                break;
+            case "startRecording":
+                handleStartRecording(call, result);
+                break;
+            case "stopRecording":
+                handleStopRecording(call, result);
+                break;
+            case "replayRecording":
+                handleReplayRecording(call, result);
+                break;
             case "dispose":
                 handleDispose(call, result);
                 break;
@@ -105,8 +232,12 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
                 return;
             }
 
-            // Initialize Vuforia AR Manager
-            arManager = new VuforiaARManager(activity, licenseKey);
+            // A re-initialize replaces the manager; the old one owns threads that must stop
+            disposeManager();
+            // The application's assets, not the activity's: loads outlive activity detaches
+            AssetManager assets = context.getAssets();
+            arManager = new VuforiaARManager(path -> assets.open(FLUTTER_ASSETS_PREFIX + path), licenseKey);
+            arManager.setTargetEngine(targetEngine);
             boolean success = arManager.initialize();
 
             Map<String, Object> response = new HashMap<>();
@@ -185,13 +316,17 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
             String modelName = call.argument("modelName");
             String category = call.argument("category");
 
-            boolean success = arManager.loadModel(modelId, modelPath, modelName, category);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", success);
-            if (!success) {
-                response.put("error", "Failed to load 3D model");
-            }
-            result.success(response);
+            // Decoding can take seconds for large GLBs; loads of the same path are coalesced
+            final VuforiaARManager manager = arManager;
+            loadExecutor.execute(() -> {
+                boolean success = manager.loadModel(modelId, modelPath, modelName, category);
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", success);
+                if (!success) {
+                    response.put("error", "Failed to load 3D model");
+                }
+                mainHandler.post(() -> result.success(response));
+            });
 
         } catch (Exception e) {
             Log.e(TAG, "Error loading model", e);
@@ -241,46 +376,9 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
 
             String modelId = call.argument("modelId");
             
-            // Get transform arrays
-            float[] position = null;
-            float[] rotation = null;
-            float[] scale = null;
-            
-            if (call.hasArgument("position")) {
-                Object posObj = call.argument("position");
-                if (posObj instanceof List) {
-                    List<Double> posList = (List<Double>) posObj;
-                    position = new float[]{
-                        posList.get(0).floatValue(),
-                        posList.get(1).floatValue(),
-                        posList.get(2).floatValue()
-                    };
-                }
-            }
-            
-            if (call.hasArgument("rotation")) {
-                Object rotObj = call.argument("rotation");
-                if (rotObj instanceof List) {
-                    List<Double> rotList = (List<Double>) rotObj;
-                    rotation = new float[]{
-                        rotList.get(0).floatValue(),
-                        rotList.get(1).floatValue(),
-                        rotList.get(2).floatValue()
-                    };
-                }
-            }
-            
-            if (call.hasArgument("scale")) {
-                Object scaleObj = call.argument("scale");
-                if (scaleObj instanceof List) {
-                    List<Double> scaleList = (List<Double>) scaleObj;
-                    scale = new float[]{
-                        scaleList.get(0).floatValue(),
-                        scaleList.get(1).floatValue(),
-                        scaleList.get(2).floatValue()
-                    };
-                }
-            }
+            float[] position = readVector(call, "position");
+            float[] rotation = readVector(call, "rotation");
+            float[] scale = readVector(call, "scale");
 
             boolean success = arManager.updateModelTransform(modelId, position, rotation, scale);
             Map<String, Object> response = new HashMap<>();
@@ -296,6 +394,43 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
         }
     }
 
+    private void handleSetModelAttachment(MethodCall call, Result result) {
+        try {
+            if (arManager == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("error", "Vuforia not initialized");
+                result.success(response);
+                return;
+            }
+
+            String modelId = call.argument("modelId");
+            String anchor = call.argument("anchor");
+            Boolean enabled = call.argument("enabled");
+
+            boolean success = arManager.setModelAttachment(modelId, anchor,
+                    readVector(call, "offset"), readVector(call, "rotation"), readVector(call, "scale"), enabled);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", success);
+            if (!success) {
+                response.put("error", "Failed to update model attachment");
+            }
+            result.success(response);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting model attachment", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            result.success(response);
+        }
+    }
+
+    // Reads an optional [x, y, z] argument
+    private static float[] readVector(MethodCall call, String key) {
+        return MethodArgs.readVector(call.argument(key), key);
+    }
+
     private void handleRemoveModel(MethodCall call, Result result) {
         try {
             if (arManager == null) {
@@ -385,12 +520,297 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
         }
     }
 
-    private void handleDispose(MethodCall call, Result result) {
+    private void handleGetModelInfo(MethodCall call, Result result) {
+        String modelPath = call.argument("modelPath");
+        Map<String, Object> response = new HashMap<>();
+        
+        if (modelPath == null) {
+            // Whole catalog, e.g. for the gallery
+            List<Map<String, Object>> models = new ArrayList<>();
+            for (ModelInfo info : modelIndex.getAll()) {
+                models.add(info.toMap());
+            }
+            response.put("success", true);
+            response.put("models", models);
+            response.put("index", modelIndex.getStats());
+            result.success(response);
+            return;
+        }
+        
+        ModelInfo info = modelIndex.get(modelPath);
+        if (info != null) {
+            response.put("success", true);
+            response.put("info", info.toMap());
+            result.success(response);
+            return;
+        }
+        
+        // Not in the catalog index (yet): read just this model's headers off the platform thread
+        loadExecutor.execute(() -> {
+            Map<String, Object> reply = new HashMap<>();
+            try {
+                reply.put("info", modelIndex.index(modelCandidate(modelPath)).toMap());
+                reply.put("success", true);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading model info: " + modelPath, e);
+                reply.put("success", false);
+                reply.put("error", e.getMessage());
+            }
+            mainHandler.post(() -> result.success(reply));
+        });
+    }
+
+    private void handleSetModelMemoryBudget(MethodCall call, Result result) {
         try {
-            if (arManager != null) {
-                arManager.dispose();
-                arManager = null;
+            if (arManager == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("error", "Vuforia not initialized");
+                result.success(response);
+                return;
             }
+
+            // A missing or non-positive budget removes the cap
+            Number bytes = call.argument("bytes");
+            arManager.setMemoryBudget(bytes != null && bytes.longValue() > 0 ? bytes.longValue() : Long.MAX_VALUE);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("residency", arManager.getResidencyState());
+            result.success(response);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting model memory budget", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            result.success(response);
+        }
+    }
+
+    private void handleStartRecording(MethodCall call, Result result) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (channelRecorder != null || replaying) {
+                response.put("success", false);
+                response.put("error", replaying ? "Replay in progress" : "Already recording");
+                result.success(response);
+                return;
+            }
+
+            String path = call.argument("path");
+            File file;
+            if (path != null) {
+                file = new File(path);
+            } else {
+                File directory = new File(context.getCacheDir(), CHANNEL_LOG_DIRECTORY);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Cannot create " + directory);
+                }
+                file = new File(directory, "session_" + System.currentTimeMillis() + ".arcl");
+            }
+            channelRecorder = new ChannelLog.Writer(file);
+            Log.d(TAG, "Recording channel traffic to " + file);
+
+            response.put("success", true);
+            response.put("path", file.getAbsolutePath());
+            result.success(response);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error starting channel recording", e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            result.success(response);
+        }
+    }
+
+    private void handleStopRecording(MethodCall call, Result result) {
+        Map<String, Object> response = new HashMap<>();
+        ChannelLog.Writer recorder = channelRecorder;
+        channelRecorder = null;
+        if (recorder == null) {
+            response.put("success", false);
+            response.put("error", "Not recording");
+            result.success(response);
+            return;
+        }
+
+        try {
+            recorder.close();
+            response.put("success", true);
+            response.put("path", recorder.getFile().getAbsolutePath());
+            response.put("calls", recorder.getCount());
+            response.put("bytes", recorder.getSize());
+            response.put("durationMs", recorder.getDurationNanos() / 1_000_000);
+            result.success(response);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping channel recording", e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            result.success(response);
+        }
+    }
+
+    /**
+     * Replays a recorded session through the handlers of all three channels, on the
+     * platform thread as Dart would, and replies with throughput and latency percentiles.
+     * {@code speed} 1 keeps the recorded timing, N runs N times faster, 0 runs flat out.
+     *
+     * The calls go to a headless plugin instance with its own manager, target engine,
+     * codecs and load threads, so the live session is left as it was. It shares only
+     * the model index and thumbnail cache, and the camera: replay is refused while an
+     * AR session is running.
+     */
+    private void handleReplayRecording(MethodCall call, Result result) {
+        String path = call.argument("path");
+        Number speed = call.argument("speed");
+        Number timeout = call.argument("timeoutMs");
+        boolean sessionActive = arManager != null && arManager.isARSessionActive();
+        if (path == null || channelRecorder != null || replaying || sessionActive) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", path == null ? "Recording path is required"
+                    : replaying ? "Replay in progress"
+                    : sessionActive ? "Stop the AR session before replaying" : "Stop recording before replaying");
+            result.success(response);
+            return;
+        }
+        replaying = true;
+        VuforiaPlugin target = newReplayTarget();
+
+        // Paced on its own thread: replayed loads occupy the target's loadExecutor themselves
+        Thread replay = new Thread(() -> {
+            Map<String, Object> response = new HashMap<>();
+            try {
+                List<ChannelLog.Entry> entries = ChannelLog.read(new File(path));
+                Log.d(TAG, "Replaying " + entries.size() + " channel calls from " + path);
+                ChannelReplayer replayer = new ChannelReplayer(target::invokeRecorded, mainHandler::post);
+                response.put("report", replayer.replay(entries, speed != null ? speed.doubleValue() : 1.0,
+                        timeout != null ? timeout.longValue() : DEFAULT_REPLAY_TIMEOUT_MS));
+                response.put("success", true);
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading channel recording: " + path, e);
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.put("success", false);
+                response.put("error", "Replay interrupted");
+            } finally {
+                replaying = false;
+            }
+            // After any replayed call still queued on the platform thread
+            mainHandler.post(() -> {
+                target.releaseReplayTarget();
+                result.success(response);
+            });
+        }, "channel-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    /** A plugin without channels that replayed calls can initialize and load into freely. */
+    private VuforiaPlugin newReplayTarget() {
+        VuforiaPlugin target = new VuforiaPlugin();
+        target.context = context;
+        target.assetStamp = assetStamp;
+        target.modelIndex = modelIndex;
+        target.thumbnailCache = thumbnailCache;
+        target.loadExecutor = Executors.newFixedThreadPool(2);
+        return target;
+    }
+
+    // Shared caches stay with this instance
+    private void releaseReplayTarget() {
+        disposeManager();
+        loadExecutor.shutdown();
+        targetEngine.shutdown();
+    }
+
+    private void recordCall(String channelName, MethodCall call) {
+        ChannelLog.Writer recorder = channelRecorder;
+        if (recorder == null || RECORDING_METHODS.contains(call.method)) {
+            return;
+        }
+        try {
+            recorder.record(channelName, call.method, call.arguments);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Could not record " + call.method + ": " + e.getMessage());
+        }
+    }
+
+    // Copied: the engine's buffer is only valid during the call
+    private void recordMessage(ByteBuffer message) {
+        ChannelLog.Writer recorder = channelRecorder;
+        if (recorder == null) {
+            return;
+        }
+        byte[] bytes = new byte[message != null ? message.remaining() : 0];
+        if (message != null) {
+            message.duplicate().get(bytes);
+        }
+        try {
+            recorder.record(BINARY_CHANNEL, BinaryProtocol.opcodeName(message), bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not record binary message: " + e.getMessage());
+        }
+    }
+
+    private void invokeRecorded(ChannelLog.Entry entry, ChannelReplayer.Completion completion) {
+        if (BINARY_CHANNEL.equals(entry.channel)) {
+            byte[] bytes = (byte[]) entry.arguments;
+            ByteBuffer message = ByteBuffer.allocateDirect(bytes.length);
+            message.put(bytes).flip();
+            ByteBuffer reply = binaryProtocol.handle(arManager, message);
+            completion.complete(reply.position() > 0 && reply.get(0) == BinaryProtocol.STATUS_OK);
+            return;
+        }
+        MethodCall call = new MethodCall(entry.method, entry.arguments);
+        Result result = new ReplayResult(completion);
+        if (DATABASE_CHANNEL.equals(entry.channel)) {
+            databaseHandler.onMethodCall(call, result);
+        } else {
+            onMethodCall(call, result);
+        }
+    }
+
+    /** Stands in for the channel's reply; handlers report failures as {"success": false}. */
+    private static class ReplayResult implements Result {
+        private final ChannelReplayer.Completion completion;
+
+        ReplayResult(ChannelReplayer.Completion completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        public void success(Object reply) {
+            completion.complete(!(reply instanceof Map && Boolean.FALSE.equals(((Map<?, ?>) reply).get("success"))));
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+            completion.complete(false);
+        }
+
+        @Override
+        public void notImplemented() {
+            completion.complete(false);
+        }
+    }
+
+    /** Stops the manager's session, residency and skinning threads and drops it. */
+    private void disposeManager() {
+        VuforiaARManager manager = arManager;
+        arManager = null;
+        if (manager != null) {
+            manager.dispose();
+        }
+    }
+
+    private void handleDispose(MethodCall call, Result result) {
+        try {
+            disposeManager();
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             result.success(response);
@@ -407,6 +827,21 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
     public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
         channel.setMethodCallHandler(null);
         databaseChannel.setMethodCallHandler(null);
+        binaryChannel.setMessageHandler(null);
+        ChannelLog.Writer recorder = channelRecorder;
+        channelRecorder = null;
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error closing channel recording", e);
+            }
+        }
+        context.unregisterComponentCallbacks(memoryCallbacks);
+        disposeManager();
+        loadExecutor.shutdown();
+        targetEngine.shutdown();
+        thumbnailCache.shutdown();
     }
 
     @Override
@@ -429,6 +864,154 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
         activity = null;
     }
 
+    /**
+     * Decodes an image (Flutter asset path or absolute file) to greyscale, subsampled
+     * so that neither side exceeds {@code maxDimension}.
+     */
+    private LumaImage decodeLumaImage(String path, int maxDimension) throws IOException {
+        Bitmap bitmap = decodeScaledBitmap(path, maxDimension);
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            int[] argb = new int[width * height];
+            bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+            return LumaImage.fromArgb(argb, width, height);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Encoded thumbnail for the gallery: a subsampled decode scaled to {@code size},
+     * re-encoded as JPEG, or PNG for PNG sources so transparency survives.
+     */
+    private ThumbnailCache.Thumbnail decodeThumbnail(String path, int size) throws IOException {
+        Bitmap bitmap = decodeScaledBitmap(path, size);
+        try {
+            boolean png = path.toLowerCase(Locale.ROOT).endsWith(".png");
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            if (!bitmap.compress(png ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG,
+                    THUMBNAIL_JPEG_QUALITY, out)) {
+                throw new IOException("Cannot encode thumbnail: " + path);
+            }
+            return new ThumbnailCache.Thumbnail(out.toByteArray(), bitmap.getWidth(), bitmap.getHeight());
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Decodes an image with neither side above {@code maxDimension}. Bounds are read
+     * first so the decoder can subsample; only the last step is an exact rescale.
+     * The caller recycles the bitmap.
+     */
+    private Bitmap decodeScaledBitmap(String path, int maxDimension) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = openAsset(path)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Cannot decode image: " + path);
+        }
+
+        int sampleSize = 1;
+        while (Math.max(options.outWidth, options.outHeight) / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+        Bitmap bitmap;
+        try (InputStream in = openAsset(path)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("Cannot decode image: " + path);
+        }
+
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longest > maxDimension) {
+            float scale = maxDimension / (float) longest;
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                    Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+        }
+        return bitmap;
+    }
+
+    // Image files directly inside a Flutter asset directory or an absolute directory
+    private List<String> listImages(String directory) throws IOException {
+        List<String> images = new ArrayList<>();
+        File dir = new File(directory);
+        String[] names;
+        if (dir.isAbsolute()) {
+            names = dir.list();
+        } else {
+            names = context.getAssets().list(FLUTTER_ASSETS_PREFIX + directory);
+        }
+        if (names == null) {
+            throw new IOException("Cannot list image directory: " + directory);
+        }
+        for (String name : names) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png") || lower.endsWith(".webp")) {
+                images.add(directory.endsWith("/") ? directory + name : directory + "/" + name);
+            }
+        }
+        return images;
+    }
+
+    // Scans the bundled models; only those changed since the persisted index are re-read
+    private void indexModelCatalog() {
+        try {
+            String[] names = context.getAssets().list(FLUTTER_ASSETS_PREFIX + MODEL_ASSET_DIRECTORY);
+            List<ModelIndex.Candidate> candidates = new ArrayList<>();
+            if (names != null) {
+                for (String name : names) {
+                    if (name.toLowerCase(Locale.ROOT).endsWith(".glb")) {
+                        candidates.add(modelCandidate(MODEL_ASSET_DIRECTORY + "/" + name));
+                    }
+                }
+            }
+            int read = modelIndex.scan(MODEL_ASSET_DIRECTORY + "/", candidates,
+                    Runtime.getRuntime().availableProcessors());
+            Log.d(TAG, "Model index ready: " + modelIndex.size() + " models, " + read + " re-read");
+        } catch (Exception e) {
+            Log.e(TAG, "Error indexing model catalog", e);
+        }
+    }
+
+    // Files change with their timestamp and size; bundled assets only with the app
+    private ModelIndex.Candidate modelCandidate(String path) {
+        File file = new File(path);
+        return new ModelIndex.Candidate(path, sourceStamp(path), file.isAbsolute() ? file.length() : -1);
+    }
+
+    /**
+     * Change token of a file or bundled asset. Assets only change with an app update,
+     * so they all share the install time read at attach; no binder call per lookup.
+     */
+    private long sourceStamp(String path) {
+        File file = new File(path);
+        if (file.isAbsolute()) {
+            return file.lastModified() * 31 + file.length();
+        }
+        return assetStamp;
+    }
+
+    private InputStream openAsset(String path) throws IOException {
+        File file = new File(path);
+        if (file.isAbsolute()) {
+            return new FileInputStream(file);
+        }
+        return context.getAssets().open(FLUTTER_ASSETS_PREFIX + path);
+    }
+
     // Platform View Factory
     private class VuforiaViewFactory extends PlatformViewFactory {
         VuforiaViewFactory() {
@@ -466,6 +1049,7 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
     private class DatabaseMethodCallHandler implements MethodCallHandler {
         @Override
         public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+            recordCall(DATABASE_CHANNEL, call);
             switch (call.method) {
                 case "loadDatabase":
                     handleLoadDatabase(call, result);
@@ -500,6 +1084,9 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
                 case "getDatabaseStats":
                     handleGetDatabaseStats(call, result);
                     break;
+                case "getThumbnail":
+                    handleGetThumbnail(call, result);
+                    break;
                 case "unloadDatabase":
                     handleUnloadDatabase(call, result);
                     break;
@@ -510,10 +1097,22 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
 
         private void handleLoadDatabase(MethodCall call, Result result) {
             String databaseName = call.argument("databaseName");
+            String datasetName = call.argument("datasetName");
             Log.d(TAG, "Loading Vuforia database: " + databaseName);
             
-            // TODO: Implement actual database loading
             Map<String, Object> response = new HashMap<>();
+            if (datasetName != null) {
+                // Index the dataset in the background; tracking continues on the active set
+                try {
+                    targetEngine.preload(datasetKey(call), datasetSource(call));
+                    response.put("loading", true);
+                } catch (IllegalArgumentException e) {
+                    response.put("success", false);
+                    response.put("error", e.getMessage());
+                    result.success(response);
+                    return;
+                }
+            }
             response.put("success", true);
             result.success(response);
         }
@@ -521,42 +1120,156 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
         private void handleActivateDataset(MethodCall call, Result result) {
             String databaseName = call.argument("databaseName");
             String datasetName = call.argument("datasetName");
+            Boolean exclusive = call.argument("exclusive");
             Log.d(TAG, "Activating dataset: " + datasetName + " in database: " + databaseName);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            result.success(response);
+            String key = datasetKey(call);
+            ImageTargetEngine.DatasetSource source = datasetSource(call);
+            
+            // Swapped atomically once any pending load is done; no thread waits for it
+            long start = System.nanoTime();
+            targetEngine.activate(key, source, exclusive == null || exclusive, (dataset, error) -> {
+                Map<String, Object> response = new HashMap<>();
+                if (dataset != null) {
+                    double activationMs = (System.nanoTime() - start) / 1_000_000.0;
+                    Log.d(TAG, "Dataset active: " + key + " (" + dataset.getTargetCount() + " targets, "
+                            + activationMs + " ms)");
+                    response.put("success", true);
+                    response.put("targetCount", dataset.getTargetCount());
+                    response.put("activationMs", activationMs);
+                } else {
+                    Log.e(TAG, "Error activating dataset: " + key, error);
+                    response.put("success", false);
+                    response.put("error", error.getMessage());
+                }
+                mainHandler.post(() -> result.success(response));
+            });
         }
 
         private void handleDeactivateDataset(MethodCall call, Result result) {
+            boolean deactivated = targetEngine.deactivate(datasetKey(call));
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("deactivated", deactivated);
             result.success(response);
         }
 
+        private String datasetKey(MethodCall call) {
+            String databaseName = call.argument("databaseName");
+            String datasetName = call.argument("datasetName");
+            return (databaseName != null ? databaseName : DEFAULT_DATABASE) + "/"
+                    + (datasetName != null ? datasetName : ImageTargetEngine.DEFAULT_DATASET);
+        }
+
+        /**
+         * Reference images of a dataset: either an explicit "targets" list of
+         * {targetId, name, imagePath} or every image in "imageDirectory".
+         * Returns null when the call names neither.
+         */
+        private ImageTargetEngine.DatasetSource datasetSource(MethodCall call) {
+            List<Map<String, Object>> targets = call.argument("targets");
+            String imageDirectory = call.argument("imageDirectory");
+            
+            if (targets != null) {
+                return sink -> {
+                    for (Map<String, Object> target : targets) {
+                        String imagePath = (String) target.get("imagePath");
+                        String targetId = target.get("targetId") != null ? (String) target.get("targetId") : imagePath;
+                        sink.add(targetId, (String) target.get("name"),
+                                decodeLumaImage(imagePath, TARGET_IMAGE_MAX_DIMENSION));
+                    }
+                };
+            }
+            if (imageDirectory != null) {
+                return sink -> {
+                    for (String imagePath : listImages(imageDirectory)) {
+                        String fileName = imagePath.substring(imagePath.lastIndexOf('/') + 1);
+                        String targetId = fileName.substring(0, fileName.lastIndexOf('.'));
+                        sink.add(targetId, targetId, decodeLumaImage(imagePath, TARGET_IMAGE_MAX_DIMENSION));
+                    }
+                };
+            }
+            return null;
+        }
+
         private void handleGetImageTargets(MethodCall call, Result result) {
+            List<Map<String, Object>> targets = new ArrayList<>();
+            for (TargetDataset.Target target : targetEngine.getTargets()) {
+                targets.add(target.toMap());
+            }
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("targets", new ArrayList<>());
+            response.put("targets", targets);
             result.success(response);
         }
 
         private void handleAddImageTarget(MethodCall call, Result result) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            result.success(response);
+            String targetId = call.argument("targetId");
+            String name = call.argument("name");
+            String imagePath = call.argument("imagePath");
+            
+            if (targetId == null || imagePath == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("error", "targetId and imagePath are required");
+                result.success(response);
+                return;
+            }
+            
+            // Feature extraction takes tens of milliseconds per image
+            loadExecutor.execute(() -> {
+                Map<String, Object> response = new HashMap<>();
+                try {
+                    LumaImage image = decodeLumaImage(imagePath, TARGET_IMAGE_MAX_DIMENSION);
+                    TargetDataset.Target target = targetEngine.addTarget(datasetKey(call), targetId, name, image);
+                    Log.d(TAG, "Image target added: " + targetId + " (" + target.keypoints + " keypoints)");
+                    response.put("success", true);
+                    response.put("target", target.toMap());
+                } catch (Exception e) {
+                    Log.e(TAG, "Error adding image target: " + targetId, e);
+                    response.put("success", false);
+                    response.put("error", e.getMessage());
+                }
+                mainHandler.post(() -> result.success(response));
+            });
         }
 
         private void handleRemoveImageTarget(MethodCall call, Result result) {
+            String targetId = call.argument("targetId");
+            boolean removed = targetId != null && targetEngine.removeTarget(targetId);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("removed", removed);
             result.success(response);
         }
 
+        /**
+         * Latest matches. With {@code format: "binary"} the reply is a quantised frame
+         * delta-encoded against {@code baseline}, the sequence of the last frame the
+         * caller decoded; see TrackingResultCodec.
+         */
         private void handleGetTrackingResults(MethodCall call, Result result) {
+            if ("binary".equals(call.argument("format"))) {
+                Number baseline = call.argument("baseline");
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("frame", trackingCodec.encode(targetEngine.getLatestResults(),
+                        baseline != null ? baseline.intValue() : -1));
+                result.success(response);
+                return;
+            }
+            
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (ImageTargetEngine.Match match : targetEngine.getLatestResults()) {
+                results.add(match.toMap());
+            }
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("results", new ArrayList<>());
+            response.put("results", results);
             result.success(response);
         }
 
@@ -580,23 +1293,77 @@ public class VuforiaPlugin implements FlutterPlugin, MethodCallHandler, Activity
             result.success(response);
         }
 
+        /**
+         * Small encoded image for a gallery tile; {@code size} bounds the longer side.
+         * Decodes the original at most once per size and app install.
+         */
+        private void handleGetThumbnail(MethodCall call, Result result) {
+            String imagePath = call.argument("imagePath");
+            Number requested = call.argument("size");
+            if (imagePath == null) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", false);
+                response.put("error", "imagePath is required");
+                result.success(response);
+                return;
+            }
+            int size = requested != null
+                    ? Math.max(1, Math.min(MAX_THUMBNAIL_SIZE, requested.intValue())) : DEFAULT_THUMBNAIL_SIZE;
+
+            thumbnailCache.get(imagePath, sourceStamp(imagePath), size, (thumbnail, source, error) -> {
+                Map<String, Object> response = new HashMap<>();
+                if (error != null) {
+                    Log.e(TAG, "Error creating thumbnail: " + imagePath, error);
+                    response.put("success", false);
+                    response.put("error", error.getMessage());
+                } else {
+                    response.put("success", true);
+                    response.put("imagePath", imagePath);
+                    response.put("bytes", thumbnail.bytes);
+                    response.put("width", thumbnail.width);
+                    response.put("height", thumbnail.height);
+                    response.put("source", source);
+                }
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    result.success(response); // Memory hit, still on the platform thread
+                } else {
+                    mainHandler.post(() -> result.success(response));
+                }
+            });
+        }
+
         private void handleGetDatabaseStats(MethodCall call, Result result) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             Map<String, Object> stats = new HashMap<>();
-            stats.put("databaseName", "db_fashion");
-            stats.put("totalTargets", 5);
-            stats.put("activeTargets", 5);
-            stats.put("trackedTargets", 0);
-            stats.put("averageConfidence", 0.0);
+            List<ImageTargetEngine.Match> tracked = targetEngine.getLatestResults();
+            double confidence = 0.0;
+            for (ImageTargetEngine.Match match : tracked) {
+                confidence += match.score;
+            }
+            int targetCount = targetEngine.getTargetCount();
+            stats.put("databaseName", DEFAULT_DATABASE);
+            stats.put("totalTargets", targetCount);
+            stats.put("activeTargets", targetCount);
+            stats.put("trackedTargets", tracked.size());
+            stats.put("averageConfidence", tracked.isEmpty() ? 0.0 : confidence / tracked.size());
+            stats.put("indexBytes", targetEngine.getIndexMemoryBytes());
+            stats.put("queryLatencyMs", targetEngine.getQueryLatency().toMap());
+            stats.put("datasets", targetEngine.getDatasetStats());
+            stats.put("thumbnails", thumbnailCache.getStats());
+            stats.put("trackingEncoding", trackingCodec.getStats());
             stats.put("lastSync", System.currentTimeMillis());
             response.put("stats", stats);
             result.success(response);
         }
 
         private void handleUnloadDatabase(MethodCall call, Result result) {
+            String databaseName = call.argument("databaseName");
+            int unloaded = targetEngine.unload((databaseName != null ? databaseName : DEFAULT_DATABASE) + "/");
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
+            response.put("unloadedDatasets", unloaded);
             result.success(response);
         }
     }
@@ -0,0 +1,54 @@
+// Platform-independent part of the Vuforia plugin, its unit tests and its JMH benchmarks.
+// Runs on a plain JVM: ./gradlew :core:test :core:jmh from android/, or
+// gradle -p android/core test jmh without a Flutter SDK.
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+repositories {
+    mavenCentral()
+}
+
+val catalogImages = file("../../assets/images")
+
+dependencies {
+    // Part of the Android platform; only the JVM benchmarks need their own copy
+    compileOnly("org.json:json:20231013")
+    jmh("org.json:json:20231013")
+
+    testImplementation("junit:junit:4.13.2")
+    testImplementation("org.json:json:20231013")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // The benchmarks share SyntheticGlb and Fixtures with the unit tests
+    includeTests.set(true)
+    // Fixed forks and iteration counts so runs are comparable release to release
+    fork.set(2)
+    warmupIterations.set(5)
+    warmup.set("1s")
+    iterations.set(10)
+    timeOnIteration.set("1s")
+    timeUnit.set("us")
+    jvmArgsAppend.set(listOf("-Dar.catalog=${catalogImages.absolutePath}"))
+    resultFormat.set("JSON")
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf(project.property("jmhIncludes").toString()))
+    }
+}
+
+// Precision, recall and time per query of image-target recognition over the catalog
+tasks.register<JavaExec>("evaluateRecognition") {
+    group = "verification"
+    description = "Evaluates image-target recognition against distorted catalog images."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.example.ar.vuforia.RecognitionEvaluation")
+    args(catalogImages.absolutePath)
+}
@@ -0,0 +1,2 @@
+// Lets the core build on its own, without the Flutter SDK the app build needs
+rootProject.name = "core"
@@ -0,0 +1,62 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draw-call batching of an outfit of skinned garments in one fabric: the rebuild when
+ * a garment is shown or hidden, and the per-frame refresh of instance matrices and
+ * skinned vertices. Every garment is one primitive, so {@code garments} draw calls
+ * become one per {@link DrawBatcher#MAX_INSTANCES}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchingBenchmark {
+    @Param({"4", "16"})
+    public int garments;
+
+    private final DrawBatcher batcher = new DrawBatcher();
+    private List<DrawBatcher.Source> sources;
+    private float[][] matrices;
+
+    @Setup
+    public void setUp() throws IOException {
+        ModelAsset asset = GlbParser.parse("garment", SyntheticGlb.build(2000, true, 4096));
+        sources = new ArrayList<>();
+        matrices = new float[garments][];
+        for (int i = 0; i < garments; i++) {
+            sources.add(new DrawBatcher.Source(asset, SkinnedModel.create(asset)));
+            matrices[i] = new float[16];
+            ModelBvh.modelMatrix(matrices[i], new float[]{0.0f, 0.1f * i, -1.5f}, new float[3],
+                    new float[]{1.0f, 1.0f, 1.0f});
+        }
+        batcher.rebuild(sources);
+        int drawCalls = batcher.update(matrices);
+        if (drawCalls != (garments + DrawBatcher.MAX_INSTANCES - 1) / DrawBatcher.MAX_INSTANCES) {
+            throw new IllegalStateException("Expected one batch per instance table, got " + drawCalls);
+        }
+    }
+
+    @Benchmark
+    public DrawBatcher rebuild() {
+        batcher.rebuild(sources);
+        return batcher;
+    }
+
+    @Benchmark
+    public int updateFrame() {
+        return batcher.update(matrices);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ar.vuforia;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** The app's catalog images as reference targets, and synthetic camera views of them. */
+final class CatalogImages {
+    /** Same limit the plugin applies to reference images. */
+    static final int TARGET_MAX_DIMENSION = 480;
+
+    private CatalogImages() {
+    }
+
+    static File directory() {
+        return new File(System.getProperty("ar.catalog", "../../assets/images"));
+    }
+
+    static List<File> list(File directory) throws IOException {
+        File[] files = directory.listFiles((dir, name) -> {
+            String lower = name.toLowerCase();
+            return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png");
+        });
+        if (files == null || files.length == 0) {
+            throw new IOException("No catalog images in " + directory.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    static String targetId(File file) {
+        String name = file.getName();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    /** Decodes an image to luma, scaled down to fit {@code maxDimension}. */
+    static LumaImage load(File file, int maxDimension) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image: " + file);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        LumaImage luma = LumaImage.fromArgb(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+        float scale = Math.min(1f, maxDimension / (float) Math.max(width, height));
+        return scale < 1f ? luma.resize(Math.round(width * scale), Math.round(height * scale)) : luma;
+    }
+
+    /**
+     * A camera-like view of a target: scaled, optionally cropped to its centre, with a
+     * brightness offset and uniform sensor noise.
+     */
+    static LumaImage view(LumaImage target, float scale, float crop, int brightness, int noise, Random random) {
+        LumaImage source = target;
+        if (crop < 1f) {
+            int width = Math.round(target.width * crop);
+            int height = Math.round(target.height * crop);
+            int x0 = (target.width - width) / 2;
+            int y0 = (target.height - height) / 2;
+            source = new LumaImage(width, height);
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(target.pixels, (y0 + y) * target.width + x0, source.pixels, y * width, width);
+            }
+        }
+        LumaImage out = source.resize(Math.round(source.width * scale), Math.round(source.height * scale));
+        for (int i = 0; i < out.pixels.length; i++) {
+            int value = (out.pixels[i] & 0xFF) + brightness + (noise > 0 ? random.nextInt(2 * noise + 1) - noise : 0);
+            out.pixels[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return out;
+    }
+
+    /** A frame that shows none of the targets. */
+    static LumaImage noise(int width, int height, Random random) {
+        LumaImage out = new LumaImage(width, height);
+        random.nextBytes(out.pixels);
+        return out;
+    }
+}
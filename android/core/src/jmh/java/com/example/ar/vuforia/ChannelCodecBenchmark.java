@@ -0,0 +1,165 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One hot call end to end on the plugin side, from the engine's request buffer to
+ * the reply buffer: the method channel (standard codec, argument maps, HashMap
+ * responses) against {@link BinaryProtocol}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChannelCodecBenchmark {
+    private VuforiaARManager manager;
+    private final BinaryProtocol protocol = new BinaryProtocol();
+
+    private ByteBuffer transformCall;
+    private ByteBuffer visibilityCall;
+    private ByteBuffer trackingStateCall;
+    private ByteBuffer bodyDataCall;
+
+    private ByteBuffer transformMessage;
+    private ByteBuffer visibilityMessage;
+    private ByteBuffer trackingStateMessage;
+    private ByteBuffer bodyDataMessage;
+
+    @Setup
+    public void setUp() {
+        manager = Fixtures.newManager(SyntheticGlb.bytes(2000, false, 0));
+        Fixtures.loadModels(manager, 4);
+
+        transformCall = StandardCodec.encodeMethodCall("updateModelTransform", Fixtures.transformArguments("model_0"));
+        Map<String, Object> visibility = new HashMap<>();
+        visibility.put("modelId", "model_0");
+        visibility.put("visible", true);
+        visibilityCall = StandardCodec.encodeMethodCall("setModelVisibility", visibility);
+        trackingStateCall = StandardCodec.encodeMethodCall("getTrackingState", null);
+        bodyDataCall = StandardCodec.encodeMethodCall("getBodyTrackingData", null);
+
+        byte[] id = "model_0".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer resolved = protocol.handle(manager, message(3 + id.length)
+                .put(BinaryProtocol.RESOLVE_MODEL).putShort((short) id.length).put(id).flip());
+        if (resolved.get(0) != BinaryProtocol.STATUS_OK) {
+            throw new IllegalStateException("Could not resolve model_0");
+        }
+        int handle = resolved.getInt(1);
+
+        transformMessage = message(42).put(BinaryProtocol.UPDATE_TRANSFORM).putInt(handle)
+                .put((byte) (BinaryProtocol.MASK_POSITION | BinaryProtocol.MASK_ROTATION | BinaryProtocol.MASK_SCALE))
+                .putFloat(0.05f).putFloat(-0.2f).putFloat(-1.1f)
+                .putFloat(0f).putFloat(12.5f).putFloat(0f)
+                .putFloat(1.02f).putFloat(1.02f).putFloat(1.02f);
+        visibilityMessage = message(6).put(BinaryProtocol.SET_VISIBILITY).putInt(handle).put((byte) 1);
+        trackingStateMessage = message(1).put(BinaryProtocol.TRACKING_STATE);
+        bodyDataMessage = message(1).put(BinaryProtocol.BODY_DATA);
+    }
+
+    /** A direct buffer, like the ones the engine hands to message handlers. */
+    private static ByteBuffer message(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.dispose();
+    }
+
+    @Benchmark
+    public ByteBuffer methodChannelTransform() {
+        return methodChannel(transformCall);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryTransform() {
+        return binary(transformMessage);
+    }
+
+    @Benchmark
+    public ByteBuffer methodChannelVisibility() {
+        return methodChannel(visibilityCall);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryVisibility() {
+        return binary(visibilityMessage);
+    }
+
+    @Benchmark
+    public ByteBuffer methodChannelTrackingState() {
+        return methodChannel(trackingStateCall);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryTrackingState() {
+        return binary(trackingStateMessage);
+    }
+
+    @Benchmark
+    public ByteBuffer methodChannelBodyData() {
+        return methodChannel(bodyDataCall);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryBodyData() {
+        return binary(bodyDataMessage);
+    }
+
+    private ByteBuffer binary(ByteBuffer message) {
+        message.rewind();
+        return protocol.handle(manager, message);
+    }
+
+    /** What VuforiaPlugin.onMethodCall and its handlers do for these methods. */
+    @SuppressWarnings("unchecked")
+    private ByteBuffer methodChannel(ByteBuffer call) {
+        call.rewind();
+        Object[] decoded = StandardCodec.decodeMethodCall(call);
+        Map<String, Object> arguments = (Map<String, Object>) decoded[1];
+        Object result;
+        switch ((String) decoded[0]) {
+            case "updateModelTransform": {
+                boolean success = manager.updateModelTransform((String) arguments.get("modelId"),
+                        MethodArgs.readVector(arguments.get("position"), "position"),
+                        MethodArgs.readVector(arguments.get("rotation"), "rotation"),
+                        MethodArgs.readVector(arguments.get("scale"), "scale"));
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", success);
+                result = response;
+                break;
+            }
+            case "setModelVisibility": {
+                Boolean visible = (Boolean) arguments.get("visible");
+                boolean success = manager.setModelVisibility((String) arguments.get("modelId"),
+                        visible != null ? visible : false);
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", success);
+                result = response;
+                break;
+            }
+            case "getTrackingState":
+                result = manager.getTrackingState();
+                break;
+            case "getBodyTrackingData":
+                result = manager.getBodyTrackingData();
+                break;
+            default:
+                throw new IllegalArgumentException((String) decoded[0]);
+        }
+        return StandardCodec.encodeSuccessEnvelope(result);
+    }
+}
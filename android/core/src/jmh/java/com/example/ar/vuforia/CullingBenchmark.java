@@ -0,0 +1,96 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of frustum culling over {@code models} garments, of which just under a
+ * fifth are on screen: the BVH against testing every model's box, and the cost of
+ * the per-frame pose update of an attached garment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CullingBenchmark {
+    @Param({"16", "256", "1024"})
+    public int models;
+
+    private final Frustum frustum = new Frustum();
+    private final ModelBvh<Integer> tree = new ModelBvh<>();
+    private float[][] boxes;
+    private int[] proxies;
+    private int drawn;
+    private final ModelBvh.Visitor<Integer> countDrawn = model -> drawn++;
+
+    private final float[] local = {-0.3f, -0.4f, -0.1f, 0.3f, 0.4f, 0.1f};
+    private final float[] position = {0.0f, -0.2f, -1.5f};
+    private final float[] rotation = {0.0f, 12.5f, 0.0f};
+    private final float[] scale = {1.0f, 1.0f, 1.0f};
+    private final float[] matrix = new float[16];
+    private final float[] moved = new float[6];
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        float[] projection = new float[16];
+        Frustum.perspective(projection, 60.0f, 0.75f, 0.05f, 20.0f);
+        frustum.set(projection);
+
+        // A ring of garments around the camera; the frustum sees just under a fifth of it
+        Random random = new Random(models);
+        boxes = new float[models][];
+        proxies = new int[models];
+        for (int i = 0; i < models; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            float distance = 1.0f + random.nextFloat() * 4.0f;
+            position[0] = (float) Math.sin(angle) * distance;
+            position[1] = random.nextFloat() - 0.5f;
+            position[2] = -(float) Math.cos(angle) * distance;
+            rotation[1] = random.nextFloat() * 360.0f;
+            boxes[i] = new float[6];
+            ModelBvh.modelMatrix(matrix, position, rotation, scale);
+            ModelBvh.transformBounds(local, matrix, boxes[i]);
+            proxies[i] = tree.insert(i, boxes[i]);
+        }
+        position[0] = 0.0f;
+        position[1] = -0.2f;
+        position[2] = -1.5f;
+        rotation[1] = 12.5f;
+    }
+
+    @Benchmark
+    public int bvhCull() {
+        drawn = 0;
+        tree.cull(frustum, countDrawn);
+        return drawn;
+    }
+
+    @Benchmark
+    public int linearCull() {
+        int count = 0;
+        for (float[] box : boxes) {
+            if (frustum.classify(box, 0) != Frustum.OUTSIDE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** An attached garment swaying with the body: stays within its fattened box. */
+    @Benchmark
+    public boolean updateAttachedBounds() {
+        position[0] = 0.01f * (frame++ & 3);
+        ModelBvh.modelMatrix(matrix, position, rotation, scale);
+        ModelBvh.transformBounds(local, matrix, moved);
+        return tree.move(proxies[0], moved);
+    }
+}
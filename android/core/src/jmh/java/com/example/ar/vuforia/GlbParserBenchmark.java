@@ -0,0 +1,44 @@
+package com.example.ar.vuforia;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/** GLB decoding of synthetic garments, full and header-only. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlbParserBenchmark {
+    @Param({"2000", "20000", "100000"})
+    public int vertexCount;
+
+    @Param({"false", "true"})
+    public boolean skinned;
+
+    private ByteBuffer glb;
+
+    @Setup
+    public void setUp() {
+        glb = SyntheticGlb.build(vertexCount, skinned, 256 * 1024);
+    }
+
+    @Benchmark
+    public ModelAsset parse() throws IOException {
+        return GlbParser.parse("synthetic.glb", glb);
+    }
+
+    @Benchmark
+    public JSONObject readJson() throws IOException {
+        return GlbParser.readJson(glb.duplicate());
+    }
+}
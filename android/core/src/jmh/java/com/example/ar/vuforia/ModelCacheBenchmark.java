@@ -0,0 +1,67 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference-counting overhead of {@link ModelAssetCache}. The loader only wraps an
+ * already decoded asset, so decoding cost is left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelCacheBenchmark {
+    private static final String SHARED = "models/shared.glb";
+    private static final String TRANSIENT = "models/transient.glb";
+
+    private ModelAssetCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        ModelAsset template = GlbParser.parse("template", SyntheticGlb.build(2000, true, 0));
+        cache = new ModelAssetCache(path ->
+                new ModelAsset(path, template.getMeshes(), template.getTextures(), template.getSkins(),
+                        template.getMaterials()));
+        // Keeps the shared entry resident across invocations
+        cache.acquire(SHARED);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.clear();
+    }
+
+    /** A second user of an already loaded model. */
+    @Benchmark
+    public ModelAsset acquireReleaseShared() throws IOException {
+        ModelAsset asset = cache.acquire(SHARED);
+        cache.release(SHARED);
+        return asset;
+    }
+
+    /** Same as {@link #acquireReleaseShared}, with several threads contending. */
+    @Benchmark
+    @Threads(4)
+    public ModelAsset acquireReleaseSharedContended() throws IOException {
+        ModelAsset asset = cache.acquire(SHARED);
+        cache.release(SHARED);
+        return asset;
+    }
+
+    /** First load of a model followed by its last release. */
+    @Benchmark
+    public boolean loadAndFree() throws IOException {
+        cache.acquire(TRANSIENT);
+        return cache.release(TRANSIENT);
+    }
+}
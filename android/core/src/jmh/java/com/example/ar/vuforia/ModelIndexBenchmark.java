@@ -0,0 +1,99 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GLB metadata index against decoding every model, on a directory of synthetic
+ * files. Lookups are what getModelInfo costs once the index is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModelIndexBenchmark {
+    @Param({"24"})
+    public int models;
+
+    private File directory;
+    private File indexFile;
+    private List<ModelIndex.Candidate> candidates;
+    private ModelIndex built;
+    private String lookupPath;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        ArLog.setSink(ArLog.SILENT);
+        directory = Files.createTempDirectory("model-index").toFile();
+        candidates = new ArrayList<>();
+        for (int i = 0; i < models; i++) {
+            File file = new File(directory, "garment_" + i + ".glb");
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(SyntheticGlb.bytes(5000 + 2500 * (i % 8), i % 2 == 0, 512 * 1024));
+            }
+            candidates.add(new ModelIndex.Candidate(file.getPath(), file.lastModified(), file.length()));
+        }
+        indexFile = new File(directory, "model_index.bin");
+        built = new ModelIndex(path -> new FileInputStream(path), indexFile);
+        built.scan(directory.getPath(), candidates, Runtime.getRuntime().availableProcessors());
+        lookupPath = candidates.get(models / 2).path;
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object lookup() {
+        return built.get(lookupPath).toMap();
+    }
+
+    /** First start: every model's headers are read. */
+    @Benchmark
+    public int coldScan() throws InterruptedException {
+        ModelIndex index = new ModelIndex(path -> new FileInputStream(path), null);
+        return index.scan(directory.getPath(), candidates, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Later starts: the persisted index is loaded and nothing is re-read. */
+    @Benchmark
+    public int warmScan() throws InterruptedException {
+        ModelIndex index = new ModelIndex(path -> new FileInputStream(path), indexFile);
+        return index.scan(directory.getPath(), candidates, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** What answering the same questions cost before: decoding every model. */
+    @Benchmark
+    public void decodeAll(Blackhole blackhole) throws IOException {
+        for (ModelIndex.Candidate candidate : candidates) {
+            try (RandomAccessFile raf = new RandomAccessFile(candidate.path, "r");
+                 FileChannel channel = raf.getChannel()) {
+                blackhole.consume(GlbParser.parse(candidate.path,
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).getVertexCount());
+            }
+        }
+    }
+}
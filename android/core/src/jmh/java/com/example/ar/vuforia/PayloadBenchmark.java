@@ -0,0 +1,46 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Building the maps returned by getBodyTrackingData and getTrackingState. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PayloadBenchmark {
+    @Param({"1", "8"})
+    public int loadedModels;
+
+    private VuforiaARManager manager;
+
+    @Setup
+    public void setUp() {
+        manager = Fixtures.newManager(SyntheticGlb.bytes(2000, false, 0));
+        Fixtures.loadModels(manager, loadedModels);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.dispose();
+    }
+
+    @Benchmark
+    public Map<String, Object> bodyTrackingData() {
+        return manager.getBodyTrackingData();
+    }
+
+    @Benchmark
+    public Map<String, Object> trackingState() {
+        return manager.getTrackingState();
+    }
+}
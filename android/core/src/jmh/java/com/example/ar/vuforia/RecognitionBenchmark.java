@@ -0,0 +1,54 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Time per recognition query against the catalog images, cycling through views of each. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecognitionBenchmark {
+    private ImageTargetEngine engine;
+    private LumaImage[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ArLog.setSink(ArLog.SILENT);
+        engine = new ImageTargetEngine();
+        Random random = new Random(42);
+        List<LumaImage> views = new ArrayList<>();
+        for (File file : CatalogImages.list(CatalogImages.directory())) {
+            LumaImage target = CatalogImages.load(file, CatalogImages.TARGET_MAX_DIMENSION);
+            engine.addTarget("benchmark/catalog", CatalogImages.targetId(file), null, target);
+            views.add(CatalogImages.view(target, 0.6f, 1f, 15, 5, random));
+        }
+        views.add(CatalogImages.noise(320, 240, random));
+        queries = views.toArray(new LumaImage[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public List<ImageTargetEngine.Match> recognize() {
+        LumaImage query = queries[next];
+        next = (next + 1) % queries.length;
+        return engine.recognize(query);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.ar.vuforia;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Precision, recall and time per query of image-target recognition.
+ *
+ * Every catalog image is indexed, then queried with synthetic camera views under
+ * several distortions. Negatives are noise frames and, leave-one-out, views of each
+ * image against an index that does not contain it. A query counts as correct when
+ * its best match is the right target; any match on a negative is a false positive.
+ * All randomness is seeded, so results only change when the code does.
+ *
+ * Usage: RecognitionEvaluation [catalog directory]
+ */
+public final class RecognitionEvaluation {
+    private static final long SEED = 42;
+    private static final int NOISE_FRAMES = 20;
+
+    private static final class Distortion {
+        final String name;
+        final float scale;
+        final float crop;
+        final int brightness;
+        final int noise;
+
+        Distortion(String name, float scale, float crop, int brightness, int noise) {
+            this.name = name;
+            this.scale = scale;
+            this.crop = crop;
+            this.brightness = brightness;
+            this.noise = noise;
+        }
+    }
+
+    private static final Distortion[] DISTORTIONS = {
+        new Distortion("scale 0.8", 0.8f, 1f, 0, 3),
+        new Distortion("scale 0.6, brighter", 0.6f, 1f, 15, 5),
+        new Distortion("scale 0.45", 0.45f, 1f, 0, 5),
+        new Distortion("centre crop 0.7", 0.8f, 0.7f, 0, 5),
+        new Distortion("darker, noisy", 0.7f, 1f, -30, 12),
+    };
+
+    private RecognitionEvaluation() {
+    }
+
+    private static final class Tally {
+        int truePositives;
+        int falsePositives;
+        int positives;
+
+        void add(Tally other) {
+            truePositives += other.truePositives;
+            falsePositives += other.falsePositives;
+            positives += other.positives;
+        }
+
+        double precision() {
+            int returned = truePositives + falsePositives;
+            return returned == 0 ? 1.0 : truePositives / (double) returned;
+        }
+
+        double recall() {
+            return positives == 0 ? 1.0 : truePositives / (double) positives;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ArLog.setSink(ArLog.SILENT);
+        File directory = args.length > 0 ? new File(args[0]) : CatalogImages.directory();
+        List<File> files = CatalogImages.list(directory);
+        List<String> ids = new ArrayList<>();
+        List<LumaImage> targets = new ArrayList<>();
+        for (File file : files) {
+            ids.add(CatalogImages.targetId(file));
+            targets.add(CatalogImages.load(file, CatalogImages.TARGET_MAX_DIMENSION));
+        }
+
+        ImageTargetEngine engine = new ImageTargetEngine();
+        for (int i = 0; i < targets.size(); i++) {
+            engine.addTarget("evaluation/catalog", ids.get(i), null, targets.get(i));
+        }
+
+        Random random = new Random(SEED);
+        Tally total = new Tally();
+        System.out.println(String.format(Locale.ROOT, "Catalog: %d targets from %s", targets.size(), directory));
+        System.out.println(String.format(Locale.ROOT, "%-28s %9s %9s", "distortion", "precision", "recall"));
+        for (Distortion distortion : DISTORTIONS) {
+            Tally tally = new Tally();
+            for (int i = 0; i < targets.size(); i++) {
+                LumaImage view = CatalogImages.view(targets.get(i), distortion.scale, distortion.crop,
+                        distortion.brightness, distortion.noise, random);
+                List<ImageTargetEngine.Match> matches = engine.recognize(view);
+                tally.positives++;
+                if (!matches.isEmpty()) {
+                    if (matches.get(0).target.id.equals(ids.get(i))) {
+                        tally.truePositives++;
+                    } else {
+                        tally.falsePositives++;
+                    }
+                }
+            }
+            print(distortion.name, tally);
+            total.add(tally);
+        }
+
+        Tally negatives = new Tally();
+        for (int i = 0; i < NOISE_FRAMES; i++) {
+            if (!engine.recognize(CatalogImages.noise(320, 240, random)).isEmpty()) {
+                negatives.falsePositives++;
+            }
+        }
+        LatencyStats latency = engine.getQueryLatency();
+        engine.shutdown();
+
+        // Leave one out: the image is not in the index, so any match is wrong
+        for (int left = 0; left < targets.size(); left++) {
+            ImageTargetEngine partial = new ImageTargetEngine();
+            for (int i = 0; i < targets.size(); i++) {
+                if (i != left) {
+                    partial.addTarget("evaluation/partial", ids.get(i), null, targets.get(i));
+                }
+            }
+            LumaImage view = CatalogImages.view(targets.get(left), 0.6f, 1f, 15, 5, random);
+            if (!partial.recognize(view).isEmpty()) {
+                negatives.falsePositives++;
+            }
+            partial.shutdown();
+        }
+        total.add(negatives);
+
+        System.out.println(String.format(Locale.ROOT, "%-28s %9d", "false positives on negatives",
+                negatives.falsePositives));
+        print("overall", total);
+        System.out.println(String.format(Locale.ROOT,
+                "Time per query: mean %.2f ms, p50 %.2f ms, p95 %.2f ms, max %.2f ms (last %s queries)",
+                latency.getMeanMillis(), latency.getPercentileMillis(0.50), latency.getPercentileMillis(0.95),
+                latency.getMaxMillis(), latency.getCount()));
+    }
+
+    private static void print(String name, Tally tally) {
+        System.out.println(String.format(Locale.ROOT, "%-28s %9.3f %9.3f", name, tally.precision(), tally.recall()));
+    }
+}
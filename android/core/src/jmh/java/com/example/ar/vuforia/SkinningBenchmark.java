@@ -0,0 +1,64 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linear-blend skinning of one garment per body frame. The {@code vertices}
+ * secondary result is the skinning rate in vertices per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SkinningBenchmark {
+    @Param({"4000", "20000", "100000"})
+    public int vertexCount;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    private SkinningEngine engine;
+    private SkinnedModel model;
+    private BodyFrame frame;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long vertices;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            vertices = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        engine = new SkinningEngine(parallelism);
+        model = SkinnedModel.create(GlbParser.parse("synthetic.glb", SyntheticGlb.build(vertexCount, true, 0)));
+        frame = Fixtures.posedBodyFrame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void skin(Counters counters) {
+        model.update(frame, engine);
+        counters.vertices += vertexCount;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.ar.vuforia;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of Flutter's {@code StandardMessageCodec} and {@code StandardMethodCodec}
+ * the method channel uses, ported so the benchmarks can include encoding and
+ * decoding on a plain JVM. Same wire format and the same allocation pattern: values
+ * go to a growable byte stream, then into a freshly allocated direct buffer.
+ */
+final class StandardCodec {
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTES = 8;
+    private static final byte LIST = 12;
+    private static final byte MAP = 13;
+
+    private StandardCodec() {
+    }
+
+    /** Flutter's ExposedByteArrayOutputStream: lets the buffer be copied out once. */
+    private static final class Stream extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /** A method call as Dart's {@code invokeMethod} sends it. */
+    static ByteBuffer encodeMethodCall(String method, Object arguments) {
+        Stream stream = new Stream();
+        writeValue(stream, method);
+        writeValue(stream, arguments);
+        return toDirectBuffer(stream);
+    }
+
+    /** Returns {method, arguments}. */
+    static Object[] decodeMethodCall(ByteBuffer message) {
+        message.order(ByteOrder.nativeOrder());
+        return new Object[]{readValue(message), readValue(message)};
+    }
+
+    static ByteBuffer encodeSuccessEnvelope(Object result) {
+        Stream stream = new Stream();
+        stream.write(0);
+        writeValue(stream, result);
+        return toDirectBuffer(stream);
+    }
+
+    private static ByteBuffer toDirectBuffer(Stream stream) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
+        buffer.put(stream.buffer(), 0, stream.size());
+        return buffer;
+    }
+
+    private static void writeValue(ByteArrayOutputStream stream, Object value) {
+        if (value == null) {
+            stream.write(NULL);
+        } else if (value instanceof Boolean) {
+            stream.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            stream.write(INT);
+            writeInt(stream, ((Number) value).intValue());
+        } else if (value instanceof Long) {
+            stream.write(LONG);
+            writeLong(stream, (Long) value);
+        } else if (value instanceof Float || value instanceof Double) {
+            stream.write(DOUBLE);
+            writeAlignment(stream, 8);
+            writeLong(stream, Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String) {
+            stream.write(STRING);
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            writeSize(stream, bytes.length);
+            stream.write(bytes, 0, bytes.length);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            stream.write(BYTES);
+            writeSize(stream, bytes.length);
+            stream.write(bytes, 0, bytes.length);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            stream.write(LIST);
+            writeSize(stream, list.size());
+            for (Object element : list) {
+                writeValue(stream, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            stream.write(MAP);
+            writeSize(stream, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(stream, entry.getKey());
+                writeValue(stream, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                readAlignment(buffer, 8);
+                return buffer.getDouble();
+            case STRING: {
+                byte[] bytes = new byte[readSize(buffer)];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case BYTES: {
+                byte[] bytes = new byte[readSize(buffer)];
+                buffer.get(bytes);
+                return bytes;
+            }
+            case LIST: {
+                int size = readSize(buffer);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readSize(buffer);
+                Map<Object, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(buffer), readValue(buffer));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private static void writeSize(ByteArrayOutputStream stream, int size) {
+        if (size < 254) {
+            stream.write(size);
+        } else if (size <= 0xFFFF) {
+            stream.write(254);
+            stream.write(size);
+            stream.write(size >>> 8);
+        } else {
+            stream.write(255);
+            writeInt(stream, size);
+        }
+    }
+
+    private static int readSize(ByteBuffer buffer) {
+        int value = buffer.get() & 0xFF;
+        if (value < 254) {
+            return value;
+        }
+        return value == 254 ? buffer.getChar() : buffer.getInt();
+    }
+
+    // Little-endian, as on every Android ABI
+    private static void writeInt(ByteArrayOutputStream stream, int value) {
+        stream.write(value);
+        stream.write(value >>> 8);
+        stream.write(value >>> 16);
+        stream.write(value >>> 24);
+    }
+
+    private static void writeLong(ByteArrayOutputStream stream, long value) {
+        writeInt(stream, (int) value);
+        writeInt(stream, (int) (value >>> 32));
+    }
+
+    private static void writeAlignment(ByteArrayOutputStream stream, int alignment) {
+        int mod = stream.size() % alignment;
+        if (mod != 0) {
+            for (int i = 0; i < alignment - mod; i++) {
+                stream.write(0);
+            }
+        }
+    }
+
+    private static void readAlignment(ByteBuffer buffer, int alignment) {
+        int mod = buffer.position() % alignment;
+        if (mod != 0) {
+            buffer.position(buffer.position() + alignment - mod);
+        }
+    }
+}
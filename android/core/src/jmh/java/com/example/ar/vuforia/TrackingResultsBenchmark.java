@@ -0,0 +1,137 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One getTrackingResults reply for {@code targets} tracked targets moving slowly in
+ * front of the camera, up to the bytes handed to the engine: the list of maps
+ * against {@link TrackingResultCodec} frames, delta-encoded and as keyframes. The
+ * setup prints the bytes per frame of each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackingResultsBenchmark {
+    private static final int FRAMES = 120; // Two seconds; the motion loops smoothly
+
+    @Param({"8", "48"})
+    public int targets;
+
+    private List<List<ImageTargetEngine.Match>> frames;
+    private final TrackingResultCodec deltaCodec = new TrackingResultCodec();
+    private final TrackingResultCodec keyframeCodec = new TrackingResultCodec();
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        frames = buildFrames(targets);
+
+        // The round trip and the quantisation error are checked by TrackingResultCodecTest
+        TrackingResultCodec codec = new TrackingResultCodec();
+        long mapBytes = 0;
+        long deltaBytes = 0;
+        long keyframeBytes = 0;
+        for (List<ImageTargetEngine.Match> results : frames) {
+            byte[] encoded = codec.encode(results, codec.getLastSequence());
+            mapBytes += mapReply(results).capacity();
+            deltaBytes += binaryReply(encoded).capacity();
+            keyframeBytes += binaryReply(new TrackingResultCodec().encode(results, -1)).capacity();
+        }
+        System.out.printf("%n# %d targets, bytes per reply: map %d, keyframe %d, delta %d%n",
+                targets, mapBytes / FRAMES, keyframeBytes / FRAMES, deltaBytes / FRAMES);
+    }
+
+    /** Targets swaying a few centimetres and degrees around spots on a shelf. */
+    static List<List<ImageTargetEngine.Match>> buildFrames(int targets) {
+        Random random = new Random(targets);
+        TargetDataset.Target[] shelf = new TargetDataset.Target[targets];
+        float[][] anchors = new float[targets][];
+        float[] phases = new float[targets];
+        for (int t = 0; t < targets; t++) {
+            shelf[t] = new TargetDataset.Target("catalog/garment_" + (1000 + t), "Garment " + t, "catalog",
+                    t, 500, 640, 480);
+            anchors[t] = new float[]{random.nextFloat() * 2 - 1, random.nextFloat() - 0.5f, -1 - random.nextFloat() * 2};
+            phases[t] = random.nextFloat() * 2 * (float) Math.PI;
+        }
+
+        List<List<ImageTargetEngine.Match>> frames = new ArrayList<>(FRAMES);
+        for (int f = 0; f < FRAMES; f++) {
+            List<ImageTargetEngine.Match> results = new ArrayList<>(targets);
+            for (int t = 0; t < targets; t++) {
+                double phase = 2 * Math.PI * f / FRAMES + phases[t];
+                float[] position = {
+                        anchors[t][0] + 0.02f * (float) Math.sin(phase),
+                        anchors[t][1] + 0.01f * (float) Math.cos(phase),
+                        anchors[t][2] + 0.03f * (float) Math.sin(2 * phase)};
+                double yaw = Math.toRadians(10 * Math.sin(phase)) / 2;
+                double pitch = Math.toRadians(5 * Math.cos(phase)) / 2;
+                float[] rotation = { // Pitch about x, then yaw about y
+                        (float) (Math.sin(pitch) * Math.cos(yaw)),
+                        (float) (Math.cos(pitch) * Math.sin(yaw)),
+                        (float) (-Math.sin(pitch) * Math.sin(yaw)),
+                        (float) (Math.cos(pitch) * Math.cos(yaw))};
+                int matches = 120 + (int) (20 * Math.sin(phase * 3));
+                results.add(new ImageTargetEngine.Match(shelf[t], matches, matches / 500.0f, position, rotation));
+            }
+            frames.add(results);
+        }
+        return frames;
+    }
+
+    /** The map format, as handleGetTrackingResults builds and the engine sends it. */
+    private static ByteBuffer mapReply(List<ImageTargetEngine.Match> results) {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        for (ImageTargetEngine.Match match : results) {
+            maps.add(match.toMap());
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("results", maps);
+        return StandardCodec.encodeSuccessEnvelope(response);
+    }
+
+    private static ByteBuffer binaryReply(byte[] encoded) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("frame", encoded);
+        return StandardCodec.encodeSuccessEnvelope(response);
+    }
+
+    private List<ImageTargetEngine.Match> nextFrame() {
+        List<ImageTargetEngine.Match> results = frames.get(frame);
+        frame = (frame + 1) % FRAMES;
+        return results;
+    }
+
+    @Benchmark
+    public ByteBuffer mapFormat() {
+        return mapReply(nextFrame());
+    }
+
+    /** The steady state: the client decoded the previous frame. */
+    @Benchmark
+    public ByteBuffer binaryDelta() {
+        return binaryReply(deltaCodec.encode(nextFrame(), deltaCodec.getLastSequence()));
+    }
+
+    /** After a hot restart or a dropped reply. */
+    @Benchmark
+    public ByteBuffer binaryKeyframe() {
+        return binaryReply(keyframeCodec.encode(nextFrame(), -1));
+    }
+}
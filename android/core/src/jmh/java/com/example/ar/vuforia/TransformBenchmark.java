@@ -0,0 +1,62 @@
+package com.example.ar.vuforia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** The updateModelTransform call: argument decoding and applying the pose. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformBenchmark {
+    private VuforiaARManager manager;
+    private Map<String, Object> arguments;
+    private float[] position;
+    private float[] rotation;
+    private float[] scale;
+
+    @Setup
+    public void setUp() {
+        manager = Fixtures.newManager(SyntheticGlb.bytes(2000, false, 0));
+        Fixtures.loadModels(manager, 1);
+        arguments = Fixtures.transformArguments("model_0");
+        position = new float[]{0.05f, -0.2f, -1.1f};
+        rotation = new float[]{0f, 12.5f, 0f};
+        scale = new float[]{1.02f, 1.02f, 1.02f};
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.dispose();
+    }
+
+    @Benchmark
+    public void decodeArguments(Blackhole blackhole) {
+        blackhole.consume((String) arguments.get("modelId"));
+        blackhole.consume(MethodArgs.readVector(arguments.get("position"), "position"));
+        blackhole.consume(MethodArgs.readVector(arguments.get("rotation"), "rotation"));
+        blackhole.consume(MethodArgs.readVector(arguments.get("scale"), "scale"));
+    }
+
+    @Benchmark
+    public boolean applyTransform() {
+        return manager.updateModelTransform("model_0", position, rotation, scale);
+    }
+
+    @Benchmark
+    public boolean decodeAndApply() {
+        return manager.updateModelTransform((String) arguments.get("modelId"),
+                MethodArgs.readVector(arguments.get("position"), "position"),
+                MethodArgs.readVector(arguments.get("rotation"), "rotation"),
+                MethodArgs.readVector(arguments.get("scale"), "scale"));
+    }
+}
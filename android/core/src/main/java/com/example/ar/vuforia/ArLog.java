@@ -0,0 +1,54 @@
+package com.example.ar.vuforia;
+
+/**
+ * Logging for the platform-independent core.
+ *
+ * The core also runs on a plain JVM (benchmarks), so it cannot call
+ * {@code android.util.Log} itself. The plugin installs a sink that forwards to it;
+ * until then messages go to standard error.
+ */
+public final class ArLog {
+    // Same values as android.util.Log priorities
+    public static final int DEBUG = 3;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    public interface Sink {
+        void log(int priority, String tag, String message, Throwable error);
+    }
+
+    /** Drops everything; used where log output would distort measurements. */
+    public static final Sink SILENT = (priority, tag, message, error) -> { };
+
+    private static final Sink STDERR = (priority, tag, message, error) -> {
+        System.err.println(tag + ": " + message);
+        if (error != null) {
+            error.printStackTrace();
+        }
+    };
+
+    private static volatile Sink sink = STDERR;
+
+    private ArLog() {
+    }
+
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : STDERR;
+    }
+
+    static void d(String tag, String message) {
+        sink.log(DEBUG, tag, message, null);
+    }
+
+    static void w(String tag, String message) {
+        sink.log(WARN, tag, message, null);
+    }
+
+    static void e(String tag, String message) {
+        sink.log(ERROR, tag, message, null);
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        sink.log(ERROR, tag, message, error);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.ar.vuforia;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Opens bundled assets by their path relative to the app's asset root. */
+public interface AssetSource {
+    InputStream open(String path) throws IOException;
+}
@@ -0,0 +1,93 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Places garments on the tracked body without a round trip through Dart.
+ *
+ * Every model carries a {@link Binding} (anchor point plus offsets). For each body
+ * frame the solver derives the model's position and scale from the anchor and the
+ * body's measurements relative to {@link BodyFrame#REFERENCE_BODY_HEIGHT} and
+ * {@link BodyFrame#REFERENCE_SHOULDER_WIDTH}. Nothing is allocated per frame.
+ */
+final class AttachmentSolver {
+
+    enum Anchor {
+        CHEST,
+        TORSO,
+        WAIST;
+
+        static Anchor parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /** Per-model attachment settings; changed only through the channel, never per frame. */
+    static final class Binding {
+        Anchor anchor;
+        final float[] offset = new float[3];
+        final float[] rotation = new float[3];
+        final float[] scale = {1.0f, 1.0f, 1.0f};
+        boolean enabled = true;
+
+        Binding(Anchor anchor) {
+            this.anchor = anchor;
+        }
+    }
+
+    private AttachmentSolver() {}
+
+    // Whole words, so "short sleeve shirt" is a top and "bottoms" is not "top"
+    private static final Set<String> WAIST_WORDS = new HashSet<>(Arrays.asList(
+            "skirt", "skirts", "pant", "pants", "trouser", "trousers", "shorts", "bottom", "bottoms",
+            "jeans", "leggings", "rok", "celana"));
+    private static final Set<String> CHEST_WORDS = new HashSet<>(Arrays.asList(
+            "top", "tops", "shirt", "shirts", "tshirt", "blouse", "blouses", "jacket", "jackets",
+            "outer", "outerwear", "kemeja", "atasan"));
+
+    /** Picks the default anchor for a garment category. */
+    static Anchor anchorForCategory(String category) {
+        if (category == null) {
+            return Anchor.TORSO;
+        }
+        boolean waist = false;
+        boolean chest = false;
+        for (String word : category.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+            waist |= WAIST_WORDS.contains(word);
+            chest |= CHEST_WORDS.contains(word);
+        }
+        if (waist) {
+            return Anchor.WAIST;
+        }
+        if (chest) {
+            return Anchor.CHEST;
+        }
+        // Dresses and anything unknown hang from the torso
+        return Anchor.TORSO;
+    }
+
+    /**
+     * Writes the solved pose into the output arrays. Offsets are authored for the
+     * reference body and are scaled with it.
+     */
+    static void solve(BodyFrame frame, Binding binding, float[] outPosition, float[] outRotation, float[] outScale) {
+        float widthScale = frame.shoulderWidth / BodyFrame.REFERENCE_SHOULDER_WIDTH;
+        float heightScale = frame.bodyHeight / BodyFrame.REFERENCE_BODY_HEIGHT;
+        float[] anchor = frame.anchor(binding.anchor);
+
+        outScale[0] = widthScale * binding.scale[0];
+        outScale[1] = heightScale * binding.scale[1];
+        outScale[2] = widthScale * binding.scale[2];
+
+        outPosition[0] = anchor[0] + binding.offset[0] * widthScale;
+        outPosition[1] = anchor[1] + binding.offset[1] * heightScale;
+        outPosition[2] = anchor[2] + binding.offset[2] * widthScale;
+
+        outRotation[0] = binding.rotation[0];
+        outRotation[1] = binding.rotation[1];
+        outRotation[2] = binding.rotation[2];
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-layout binary form of the high-rate {@code vuforia_ar} calls, served on a
+ * {@code BasicMessageChannel<ByteBuffer>} next to the method channel.
+ *
+ * Every message is little-endian and starts with a one-byte opcode; every reply
+ * starts with a one-byte status. Model ids are sent once as UTF-8 and then referred
+ * to by the handle returned for them, so hot calls carry no strings.
+ *
+ * <pre>
+ * RESOLVE_MODEL     u16 length, UTF-8 id          -> i32 handle
+ * UPDATE_TRANSFORM  i32 handle, u8 mask (1 position, 2 rotation, 4 scale),
+ *                   3 x f32 per vector in the mask -> -
+ * SET_VISIBILITY    i32 handle, u8 visible          -> -
+ * TRACKING_STATE    -                               -> see VuforiaARManager.writeTrackingState
+ * BODY_DATA         -                               -> see BodyFrame.write
+ * </pre>
+ *
+ * Not thread-safe: replies are written into one reused direct buffer, which the
+ * engine copies before {@code reply} returns. Use one instance per channel, on the
+ * platform thread.
+ */
+final class BinaryProtocol {
+    private static final String TAG = "BinaryProtocol";
+
+    static final byte RESOLVE_MODEL = 1;
+    static final byte UPDATE_TRANSFORM = 2;
+    static final byte SET_VISIBILITY = 3;
+    static final byte TRACKING_STATE = 4;
+    static final byte BODY_DATA = 5;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_FAILED = 1; // The manager rejected the call, e.g. unknown model
+    static final byte STATUS_NOT_INITIALIZED = 2;
+    static final byte STATUS_BAD_REQUEST = 3;
+
+    static final int MASK_POSITION = 1;
+    static final int MASK_ROTATION = 2;
+    static final int MASK_SCALE = 4;
+
+    private static final int REPLY_CAPACITY = 128;
+
+    private final ByteBuffer reply = ByteBuffer.allocateDirect(REPLY_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+    private final List<String> modelIds = new ArrayList<>();
+    private final Map<String, Integer> handles = new HashMap<>();
+
+    /**
+     * Handles one message. The returned buffer is the shared reply buffer with its
+     * position after the last byte written, as Flutter's message codecs leave it.
+     */
+    ByteBuffer handle(VuforiaARManager manager, ByteBuffer message) {
+        reply.clear();
+        if (message == null || !message.hasRemaining()) {
+            return reply.put(STATUS_BAD_REQUEST);
+        }
+        message.order(ByteOrder.LITTLE_ENDIAN);
+        byte opcode = message.get();
+
+        try {
+            if (opcode == RESOLVE_MODEL) {
+                return resolveModel(message);
+            }
+            if (manager == null) {
+                return reply.put(STATUS_NOT_INITIALIZED);
+            }
+            switch (opcode) {
+                case UPDATE_TRANSFORM:
+                    return updateTransform(manager, message);
+                case SET_VISIBILITY: {
+                    String modelId = modelId(message.getInt());
+                    boolean visible = message.get() != 0;
+                    return status(modelId != null && manager.setModelVisibility(modelId, visible));
+                }
+                case TRACKING_STATE:
+                    reply.put(STATUS_OK);
+                    manager.writeTrackingState(reply);
+                    return reply;
+                case BODY_DATA:
+                    reply.put(STATUS_OK);
+                    manager.writeBodyTrackingData(reply);
+                    return reply;
+                default:
+                    return reply.put(STATUS_BAD_REQUEST);
+            }
+        } catch (RuntimeException e) {
+            // Truncated message (BufferUnderflowException) or a failing handler
+            ArLog.e(TAG, "Bad binary message, opcode " + opcode, e);
+            reply.clear();
+            return reply.put(STATUS_BAD_REQUEST);
+        }
+    }
+
+    /** Name of a message's opcode, for channel recordings; does not move its position. */
+    static String opcodeName(ByteBuffer message) {
+        if (message == null || !message.hasRemaining()) {
+            return "empty";
+        }
+        byte opcode = message.get(message.position());
+        switch (opcode) {
+            case RESOLVE_MODEL:
+                return "resolveModel";
+            case UPDATE_TRANSFORM:
+                return "updateTransform";
+            case SET_VISIBILITY:
+                return "setVisibility";
+            case TRACKING_STATE:
+                return "trackingState";
+            case BODY_DATA:
+                return "bodyData";
+            default:
+                return "opcode" + (opcode & 0xFF);
+        }
+    }
+
+    private ByteBuffer resolveModel(ByteBuffer message) {
+        byte[] utf8 = new byte[message.getShort() & 0xFFFF];
+        message.get(utf8);
+        String modelId = new String(utf8, StandardCharsets.UTF_8);
+        Integer handle = handles.get(modelId);
+        if (handle == null) {
+            handle = modelIds.size();
+            modelIds.add(modelId);
+            handles.put(modelId, handle);
+        }
+        return reply.put(STATUS_OK).putInt(handle);
+    }
+
+    private ByteBuffer updateTransform(VuforiaARManager manager, ByteBuffer message) {
+        String modelId = modelId(message.getInt());
+        int mask = message.get();
+        // The manager keeps the arrays it is given, so each call needs its own
+        float[] position = (mask & MASK_POSITION) != 0 ? readVector(message) : null;
+        float[] rotation = (mask & MASK_ROTATION) != 0 ? readVector(message) : null;
+        float[] scale = (mask & MASK_SCALE) != 0 ? readVector(message) : null;
+        return status(modelId != null && manager.updateModelTransform(modelId, position, rotation, scale));
+    }
+
+    private String modelId(int handle) {
+        return handle >= 0 && handle < modelIds.size() ? modelIds.get(handle) : null;
+    }
+
+    private static float[] readVector(ByteBuffer message) {
+        return new float[]{message.getFloat(), message.getFloat(), message.getFloat()};
+    }
+
+    private ByteBuffer status(boolean success) {
+        return reply.put(success ? STATUS_OK : STATUS_FAILED);
+    }
+}
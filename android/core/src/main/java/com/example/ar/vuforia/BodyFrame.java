@@ -0,0 +1,85 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One body tracking sample: body measurements in centimetres, the camera-space
+ * positions of the garment anchor points and, when available, the skeleton pose.
+ */
+final class BodyFrame {
+    /** Body measurements the garment models are authored for. */
+    static final float REFERENCE_BODY_HEIGHT = 170.0f;
+    static final float REFERENCE_SHOULDER_WIDTH = 45.0f;
+
+    float bodyHeight = REFERENCE_BODY_HEIGHT;
+    float shoulderWidth = REFERENCE_SHOULDER_WIDTH;
+    final float[] chest = {0.0f, 0.1f, -1.0f};
+    final float[] torso = {0.0f, -0.2f, -1.0f};
+    final float[] waist = {0.0f, -0.5f, -1.0f};
+    float confidence = 0.9f;
+    long timestampNanos;
+
+    /**
+     * Column-major 4x4 model-space transform per {@link BodySkeleton} joint, as tracked;
+     * {@link SkinnedModel} applies each rig's inverse bind matrices on top. Only entries
+     * with {@link #jointTracked} set are meaningful.
+     */
+    final float[] jointPoses = new float[BodySkeleton.JOINT_COUNT * 16];
+    final boolean[] jointTracked = new boolean[BodySkeleton.JOINT_COUNT];
+
+    float[] anchor(AttachmentSolver.Anchor anchor) {
+        switch (anchor) {
+            case CHEST: return chest;
+            case WAIST: return waist;
+            case TORSO:
+            default: return torso;
+        }
+    }
+
+    void copyFrom(BodyFrame other) {
+        bodyHeight = other.bodyHeight;
+        shoulderWidth = other.shoulderWidth;
+        System.arraycopy(other.chest, 0, chest, 0, 3);
+        System.arraycopy(other.torso, 0, torso, 0, 3);
+        System.arraycopy(other.waist, 0, waist, 0, 3);
+        confidence = other.confidence;
+        timestampNanos = other.timestampNanos;
+        System.arraycopy(other.jointPoses, 0, jointPoses, 0, jointPoses.length);
+        System.arraycopy(other.jointTracked, 0, jointTracked, 0, jointTracked.length);
+    }
+
+    /**
+     * Binary counterpart of {@link #toMap()} for {@link BinaryProtocol}: the capture
+     * time as int64, then its 12 values as float32 in the same order (body height,
+     * shoulder width, chest, torso and waist x/y/z, confidence); 56 bytes in all.
+     */
+    void write(ByteBuffer out) {
+        out.putLong(timestampNanos);
+        out.putFloat(bodyHeight);
+        out.putFloat(shoulderWidth);
+        out.putFloat(chest[0]).putFloat(chest[1]).putFloat(chest[2]);
+        out.putFloat(torso[0]).putFloat(torso[1]).putFloat(torso[2]);
+        out.putFloat(waist[0]).putFloat(waist[1]).putFloat(waist[2]);
+        out.putFloat(confidence);
+    }
+
+    /** Payload for the getBodyTrackingData channel call. */
+    Map<String, Object> toMap() {
+        Map<String, Object> bodyData = new HashMap<>();
+        bodyData.put("bodyHeight", (double) bodyHeight); // cm
+        bodyData.put("shoulderWidth", (double) shoulderWidth); // cm
+        bodyData.put("chestX", (double) chest[0]);
+        bodyData.put("chestY", (double) chest[1]);
+        bodyData.put("chestZ", (double) chest[2]);
+        bodyData.put("torsoX", (double) torso[0]);
+        bodyData.put("torsoY", (double) torso[1]);
+        bodyData.put("torsoZ", (double) torso[2]);
+        bodyData.put("waistX", (double) waist[0]);
+        bodyData.put("waistY", (double) waist[1]);
+        bodyData.put("waistZ", (double) waist[2]);
+        bodyData.put("confidence", (double) confidence);
+        return bodyData;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ar.vuforia;
+
+import java.util.Locale;
+
+/**
+ * The fixed joint set reported by body tracking, and the mapping from the joint
+ * names used by garment rigs (Mixamo, Blender, VRoid style) onto it.
+ */
+final class BodySkeleton {
+    static final int HIPS = 0;
+    static final int SPINE = 1;
+    static final int CHEST = 2;
+    static final int NECK = 3;
+    static final int LEFT_SHOULDER = 4;
+    static final int RIGHT_SHOULDER = 5;
+    static final int LEFT_UPPER_ARM = 6;
+    static final int RIGHT_UPPER_ARM = 7;
+    static final int LEFT_LOWER_ARM = 8;
+    static final int RIGHT_LOWER_ARM = 9;
+    static final int LEFT_UPPER_LEG = 10;
+    static final int RIGHT_UPPER_LEG = 11;
+    static final int LEFT_LOWER_LEG = 12;
+    static final int RIGHT_LOWER_LEG = 13;
+    static final int JOINT_COUNT = 14;
+
+    // Parent of each joint, -1 for the hips
+    private static final int[] PARENTS = {
+            -1, HIPS, SPINE, CHEST, CHEST, CHEST,
+            LEFT_SHOULDER, RIGHT_SHOULDER, LEFT_UPPER_ARM, RIGHT_UPPER_ARM,
+            HIPS, HIPS, LEFT_UPPER_LEG, RIGHT_UPPER_LEG};
+
+    private BodySkeleton() {}
+
+    static int parent(int joint) {
+        return PARENTS[joint];
+    }
+
+    /**
+     * Maps a rig joint name to a tracked joint, or returns -1 when the joint is not
+     * tracked (fingers, toes, twist bones...). Those stay in their bind pose.
+     */
+    static int jointForName(String rigName) {
+        if (rigName == null) {
+            return -1;
+        }
+        String name = rigName;
+        int colon = name.lastIndexOf(':');
+        if (colon >= 0) {
+            name = name.substring(colon + 1);
+        }
+        name = name.toLowerCase(Locale.ROOT);
+
+        // Side comes as a Left/Right prefix or a Blender-style .L / _R suffix
+        boolean left = false;
+        boolean right = false;
+        if (name.startsWith("left")) {
+            left = true;
+            name = name.substring(4);
+        } else if (name.startsWith("right")) {
+            right = true;
+            name = name.substring(5);
+        } else if (name.length() > 2 && isSeparator(name.charAt(name.length() - 2))) {
+            char suffix = name.charAt(name.length() - 1);
+            left = suffix == 'l';
+            right = suffix == 'r';
+            if (left || right) {
+                name = name.substring(0, name.length() - 2);
+            }
+        }
+        name = name.replace("_", "").replace(".", "").replace(" ", "");
+
+        switch (name) {
+            case "hips":
+            case "pelvis":
+            case "root":
+                return HIPS;
+            case "spine":
+            case "spine1":
+                return SPINE;
+            case "spine2":
+            case "chest":
+            case "upperchest":
+                return CHEST;
+            case "neck":
+                return NECK;
+            default:
+                break;
+        }
+
+        if (name.startsWith("shoulder") || name.startsWith("clavicle")) {
+            return side(left, right, LEFT_SHOULDER, RIGHT_SHOULDER);
+        }
+        if (name.startsWith("forearm") || name.startsWith("lowerarm")) {
+            return side(left, right, LEFT_LOWER_ARM, RIGHT_LOWER_ARM);
+        }
+        if (name.startsWith("upperarm") || name.startsWith("arm")) {
+            return side(left, right, LEFT_UPPER_ARM, RIGHT_UPPER_ARM);
+        }
+        if (name.startsWith("upleg") || name.startsWith("upperleg") || name.startsWith("thigh")) {
+            return side(left, right, LEFT_UPPER_LEG, RIGHT_UPPER_LEG);
+        }
+        if (name.startsWith("leg") || name.startsWith("lowerleg") || name.startsWith("calf") || name.startsWith("shin")) {
+            return side(left, right, LEFT_LOWER_LEG, RIGHT_LOWER_LEG);
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '.' || c == '_' || c == ' ';
+    }
+
+    private static int side(boolean left, boolean right, int leftJoint, int rightJoint) {
+        if (left == right) {
+            return -1;
+        }
+        return left ? leftJoint : rightJoint;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A YUV_420_888 camera frame held by reference.
+ *
+ * Plane buffers belong to the producer (camera image, synthetic pool...) and are
+ * never copied; {@link FrameRing} calls the release hook once the tracker is done
+ * with the frame or the frame is dropped.
+ */
+final class CameraFrame {
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int width;
+    private int height;
+    private int yRowStride;
+    private int uvRowStride;
+    private int uvPixelStride;
+    private long captureNanos;
+    private long sequence;
+    private Runnable releaseHook;
+
+    void set(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int width, int height,
+             int yRowStride, int uvRowStride, int uvPixelStride, long captureNanos, long sequence,
+             Runnable releaseHook) {
+        this.yPlane = yPlane;
+        this.uPlane = uPlane;
+        this.vPlane = vPlane;
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.captureNanos = captureNanos;
+        this.sequence = sequence;
+        this.releaseHook = releaseHook;
+    }
+
+    /**
+     * Forgets the plane buffers and returns the producer's release hook, so the slot
+     * can be reused before the hook runs.
+     */
+    Runnable detach() {
+        Runnable hook = releaseHook;
+        yPlane = null;
+        uPlane = null;
+        vPlane = null;
+        releaseHook = null;
+        return hook;
+    }
+
+    public ByteBuffer getYPlane() { return yPlane; }
+    public ByteBuffer getUPlane() { return uPlane; }
+    public ByteBuffer getVPlane() { return vPlane; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getYRowStride() { return yRowStride; }
+    public int getUvRowStride() { return uvRowStride; }
+    public int getUvPixelStride() { return uvPixelStride; }
+    /** Capture time on the {@link System#nanoTime()} clock. */
+    public long getCaptureNanos() { return captureNanos; }
+    public long getSequence() { return sequence; }
+}
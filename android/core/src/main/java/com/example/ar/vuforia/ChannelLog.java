@@ -0,0 +1,344 @@
+package com.example.ar.vuforia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary log of platform channel calls, for replaying a real session as a load test.
+ *
+ * Each entry is the call's offset from the start of the recording, its channel,
+ * method and arguments. Arguments may hold anything the standard message codec
+ * carries. Strings are written once and then referred to by index, and numbers are
+ * varints, so the repeated keys and ids of per-frame calls cost a few bytes each.
+ *
+ * <pre>
+ * header  "ARCL" (i32), version (u8), wall-clock start in ms (i64)
+ * entry   offset from the previous entry in ns (varint), channel, method, arguments
+ * </pre>
+ */
+final class ChannelLog {
+    private static final String TAG = "ChannelLog";
+    private static final int MAGIC = 0x4C435241; // "ARCL" little-endian
+    private static final int VERSION = 1;
+
+    // Value tags
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int STRING = 6;     // New string, added to the table
+    private static final int STRING_REF = 7; // Index into the table
+    private static final int BYTES = 8;
+    private static final int INT_ARRAY = 9;
+    private static final int LONG_ARRAY = 10;
+    private static final int DOUBLE_ARRAY = 11;
+    private static final int LIST = 12;
+    private static final int MAP = 13;
+
+    static final class Entry {
+        final long offsetNanos; // From the start of the recording
+        final String channel;
+        final String method;
+        final Object arguments;
+
+        Entry(long offsetNanos, String channel, String method, Object arguments) {
+            this.offsetNanos = offsetNanos;
+            this.channel = channel;
+            this.method = method;
+            this.arguments = arguments;
+        }
+    }
+
+    private ChannelLog() {
+    }
+
+    /** Appends calls to a log file. Thread-safe. */
+    static final class Writer implements Closeable {
+        private final File path;
+        private final DataOutputStream file;
+        private final ByteArrayOutputStream entry = new ByteArrayOutputStream(256);
+        private final DataOutputStream out = new DataOutputStream(entry); // One entry at a time
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> added = new ArrayList<>(); // Strings new in the current entry
+        private long size;
+        private final long startNanos = System.nanoTime();
+        private long lastNanos = startNanos;
+        private int count;
+
+        Writer(File path) throws IOException {
+            this.path = path;
+            this.file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 64 * 1024));
+            file.writeInt(Integer.reverseBytes(MAGIC));
+            file.writeByte(VERSION);
+            file.writeLong(System.currentTimeMillis());
+            size = file.size();
+        }
+
+        /**
+         * Appends one call. Throws {@link IllegalArgumentException} for argument types
+         * the log cannot hold; the log is then left as it was.
+         */
+        synchronized void record(String channel, String method, Object arguments) throws IOException {
+            long now = System.nanoTime();
+            entry.reset();
+            added.clear();
+            try {
+                writeVarLong(out, now - lastNanos);
+                writeValue(channel);
+                writeValue(method);
+                writeValue(arguments);
+            } catch (IllegalArgumentException | IOException e) {
+                // Unsupported type, or a string too long for writeUTF
+                for (String string : added) {
+                    strings.remove(string);
+                }
+                throw e;
+            }
+            entry.writeTo(file);
+            size += entry.size();
+            lastNanos = now;
+            count++;
+        }
+
+        File getFile() { return path; }
+        synchronized int getCount() { return count; }
+        synchronized long getSize() { return size; }
+        long getDurationNanos() { return System.nanoTime() - startNanos; }
+
+        @Override
+        public synchronized void close() throws IOException {
+            file.close();
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(INT);
+                writeVarLong(out, zigZag(((Number) value).intValue()));
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                writeVarLong(out, zigZag((Long) value));
+            } else if (value instanceof Float || value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof String) {
+                Integer index = strings.get(value);
+                if (index != null) {
+                    out.writeByte(STRING_REF);
+                    writeVarLong(out, index);
+                } else {
+                    strings.put((String) value, strings.size());
+                    added.add((String) value);
+                    out.writeByte(STRING);
+                    out.writeUTF((String) value);
+                }
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                out.writeByte(BYTES);
+                writeVarLong(out, bytes.length);
+                out.write(bytes);
+            } else if (value instanceof int[]) {
+                int[] ints = (int[]) value;
+                out.writeByte(INT_ARRAY);
+                writeVarLong(out, ints.length);
+                for (int v : ints) {
+                    writeVarLong(out, zigZag(v));
+                }
+            } else if (value instanceof long[]) {
+                long[] longs = (long[]) value;
+                out.writeByte(LONG_ARRAY);
+                writeVarLong(out, longs.length);
+                for (long v : longs) {
+                    writeVarLong(out, zigZag(v));
+                }
+            } else if (value instanceof double[]) {
+                double[] doubles = (double[]) value;
+                out.writeByte(DOUBLE_ARRAY);
+                writeVarLong(out, doubles.length);
+                for (double v : doubles) {
+                    out.writeDouble(v);
+                }
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(LIST);
+                writeVarLong(out, list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                writeVarLong(out, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported argument type: " + value.getClass().getName());
+            }
+        }
+    }
+
+    /** Reads a whole log. A truncated last entry, as left by a crash, is dropped. */
+    static List<Entry> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (Integer.reverseBytes(in.readInt()) != MAGIC) {
+                throw new IOException("Not a channel log: " + file);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported channel log version " + version + ": " + file);
+            }
+            in.readLong(); // Wall-clock start, for people reading the file
+
+            List<String> strings = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+            long offset = 0;
+            while (true) {
+                int first = in.read();
+                if (first < 0) {
+                    break;
+                }
+                try {
+                    offset += readVarLong(in, first);
+                    Object channel = readValue(in, strings);
+                    Object method = readValue(in, strings);
+                    Object arguments = readValue(in, strings);
+                    entries.add(new Entry(offset, (String) channel, (String) method, arguments));
+                } catch (EOFException e) {
+                    ArLog.w(TAG, "Dropped truncated entry " + entries.size() + " of " + file);
+                    break;
+                }
+            }
+            return entries;
+        }
+    }
+
+    private static Object readValue(DataInputStream in, List<String> strings) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case INT:
+                return (int) unZigZag(readVarLong(in, in.readUnsignedByte()));
+            case LONG:
+                return unZigZag(readVarLong(in, in.readUnsignedByte()));
+            case DOUBLE:
+                return in.readDouble();
+            case STRING: {
+                String value = in.readUTF();
+                strings.add(value);
+                return value;
+            }
+            case STRING_REF:
+                return strings.get((int) readVarLong(in, in.readUnsignedByte()));
+            case BYTES: {
+                byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case INT_ARRAY: {
+                int[] ints = new int[readLength(in)];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = (int) unZigZag(readVarLong(in, in.readUnsignedByte()));
+                }
+                return ints;
+            }
+            case LONG_ARRAY: {
+                long[] longs = new long[readLength(in)];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = unZigZag(readVarLong(in, in.readUnsignedByte()));
+                }
+                return longs;
+            }
+            case DOUBLE_ARRAY: {
+                double[] doubles = new double[readLength(in)];
+                for (int i = 0; i < doubles.length; i++) {
+                    doubles[i] = in.readDouble();
+                }
+                return doubles;
+            }
+            case LIST: {
+                int size = readLength(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, strings));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readLength(in);
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in, strings), readValue(in, strings));
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        long length = readVarLong(in, in.readUnsignedByte());
+        if (length < 0 || length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt length " + length);
+        }
+        return (int) length;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /** {@code first} is the already-read first byte. */
+    private static long readVarLong(DataInputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while ((b & 0x80) != 0) {
+            if (shift > 63) {
+                throw new IOException("Varint too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
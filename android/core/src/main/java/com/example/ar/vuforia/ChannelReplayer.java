@@ -0,0 +1,119 @@
+package com.example.ar.vuforia;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a {@link ChannelLog} against the plugin's channel handlers and measures them.
+ *
+ * Calls are issued open-loop on the recorded schedule, scaled by the speed factor, so
+ * a slow handler shows up as queueing delay on the dispatcher rather than as a
+ * slower replay. Latency runs from the handler being invoked to its result, which
+ * for asynchronous handlers includes their background work.
+ */
+final class ChannelReplayer {
+    private static final String TAG = "ChannelReplayer";
+
+    /** Runs one recorded call and reports its outcome exactly once. */
+    interface Target {
+        void invoke(ChannelLog.Entry entry, Completion completion);
+    }
+
+    interface Completion {
+        void complete(boolean success);
+    }
+
+    private final Target target;
+    private final Executor dispatcher;
+
+    /** {@code dispatcher} is the thread the handlers expect, e.g. the platform thread. */
+    ChannelReplayer(Target target, Executor dispatcher) {
+        this.target = target;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Replays {@code entries} and waits up to {@code timeoutMillis} for the last result.
+     * {@code speed} 1 keeps the recorded timing, N runs N times faster and 0 issues
+     * every call as fast as possible.
+     */
+    Map<String, Object> replay(List<ChannelLog.Entry> entries, double speed, long timeoutMillis)
+            throws InterruptedException {
+        int calls = entries.size();
+        Map<String, Integer> methodCalls = new HashMap<>();
+        for (ChannelLog.Entry entry : entries) {
+            methodCalls.merge(entry.channel + "/" + entry.method, 1, Integer::sum);
+        }
+        // Windows hold every sample, so the percentiles cover the whole replay
+        LatencyStats latency = new LatencyStats(Math.max(1, calls));
+        LatencyStats queueDelay = new LatencyStats(Math.max(1, calls));
+        Map<String, LatencyStats> methodLatency = new HashMap<>();
+        for (Map.Entry<String, Integer> method : methodCalls.entrySet()) {
+            methodLatency.put(method.getKey(), new LatencyStats(method.getValue()));
+        }
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(calls);
+
+        long start = System.nanoTime();
+        for (ChannelLog.Entry entry : entries) {
+            if (speed > 0) {
+                long wait = start + (long) (entry.offsetNanos / speed) - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            long issued = System.nanoTime();
+            LatencyStats method = methodLatency.get(entry.channel + "/" + entry.method);
+            dispatcher.execute(() -> {
+                long invoked = System.nanoTime();
+                queueDelay.record(invoked - issued);
+                AtomicBoolean reported = new AtomicBoolean();
+                Completion completion = success -> {
+                    if (!reported.compareAndSet(false, true)) {
+                        return;
+                    }
+                    long elapsed = System.nanoTime() - invoked;
+                    latency.record(elapsed);
+                    method.record(elapsed);
+                    if (!success) {
+                        failed.incrementAndGet();
+                    }
+                    done.countDown();
+                };
+                try {
+                    target.invoke(entry, completion);
+                } catch (RuntimeException e) {
+                    ArLog.e(TAG, "Replayed call threw: " + entry.method, e);
+                    completion.complete(false);
+                }
+            });
+        }
+        boolean finished = done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+
+        long completed = calls - done.getCount();
+        Map<String, Object> report = new HashMap<>();
+        report.put("calls", calls);
+        report.put("completed", completed);
+        report.put("failed", failed.get());
+        report.put("timedOut", !finished);
+        report.put("speed", speed);
+        report.put("recordedMs", calls > 0 ? entries.get(calls - 1).offsetNanos / 1_000_000.0 : 0.0);
+        report.put("durationMs", elapsedNanos / 1_000_000.0);
+        report.put("callsPerSecond", elapsedNanos > 0 ? completed * 1e9 / elapsedNanos : 0.0);
+        report.put("latency", latency.toMap());
+        report.put("queueDelay", queueDelay.toMap());
+        Map<String, Object> methods = new HashMap<>();
+        for (Map.Entry<String, LatencyStats> method : methodLatency.entrySet()) {
+            methods.put(method.getKey(), method.getValue().toMap());
+        }
+        report.put("methods", methods);
+        return report;
+    }
+}
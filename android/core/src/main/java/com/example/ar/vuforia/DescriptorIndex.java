@@ -0,0 +1,207 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Multi-probe LSH over 256-bit binary descriptors.
+ *
+ * Each of the hash tables keys descriptors on a fixed random subset of their bits.
+ * A query probes its own bucket and every bucket one bit-flip away in each table,
+ * then ranks the candidates by Hamming distance. Lookups touch a handful of buckets
+ * instead of every stored descriptor, so query time grows sub-linearly with the
+ * number of targets.
+ *
+ * Not thread-safe; {@link ImageTargetEngine} guards it with a read/write lock and
+ * gives each querying thread its own {@link Scratch}.
+ */
+final class DescriptorIndex {
+    static final int NO_MATCH = -1;
+
+    private final int tables;
+    private final int keyBits;
+    private final int[][] keyBitPositions;
+    private final int[][] heads; // Per table: bucket -> first entry, or -1
+    private int[][] next; // Per table: entry -> next entry in the bucket chain
+
+    private long[] descriptors = new long[0];
+    private int[] owners = new int[0]; // Descriptor -> target id
+    private int size;
+
+    DescriptorIndex(int tables, int keyBits, long seed) {
+        if (keyBits < 1 || keyBits > 24) {
+            throw new IllegalArgumentException("keyBits must be in [1, 24]");
+        }
+        this.tables = tables;
+        this.keyBits = keyBits;
+        this.keyBitPositions = new int[tables][keyBits];
+        this.heads = new int[tables][1 << keyBits];
+        this.next = new int[tables][0];
+
+        Random random = new Random(seed);
+        for (int t = 0; t < tables; t++) {
+            Arrays.fill(heads[t], -1);
+            // Distinct bit positions per table
+            int[] all = new int[FeatureExtractor.DESCRIPTOR_BITS];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            for (int i = 0; i < keyBits; i++) {
+                int j = i + random.nextInt(all.length - i);
+                int swap = all[i];
+                all[i] = all[j];
+                all[j] = swap;
+                keyBitPositions[t][i] = all[i];
+            }
+        }
+    }
+
+    /** Per-thread query state so lookups do not allocate. */
+    static final class Scratch {
+        int[] visited = new int[0];
+        int stamp;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int ownerOf(int descriptor) {
+        return owners[descriptor];
+    }
+
+    long getMemoryBytes() {
+        long bytes = (long) tables * (1 << keyBits) * 4L;
+        bytes += (long) tables * next[0].length * 4L;
+        bytes += descriptors.length * 8L + owners.length * 4L;
+        return bytes;
+    }
+
+    /** Adds {@code count} descriptors owned by {@code owner}. */
+    void add(int owner, long[] packed, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            int id = size++;
+            System.arraycopy(packed, i * FeatureExtractor.DESCRIPTOR_LONGS, descriptors,
+                    id * FeatureExtractor.DESCRIPTOR_LONGS, FeatureExtractor.DESCRIPTOR_LONGS);
+            owners[id] = owner;
+            for (int t = 0; t < tables; t++) {
+                int key = key(t, descriptors, id * FeatureExtractor.DESCRIPTOR_LONGS);
+                next[t][id] = heads[t][key];
+                heads[t][key] = id;
+            }
+        }
+    }
+
+    /**
+     * Nearest stored descriptor to {@code query[offset..]} among the probed buckets,
+     * skipping owners for which {@code excluded[owner]} is set. Writes the best and
+     * second-best distances into {@code distances} and returns the best descriptor id,
+     * or {@link #NO_MATCH}.
+     */
+    int nearest(long[] query, int offset, boolean[] excluded, Scratch scratch, int[] distances) {
+        if (scratch.visited.length < size) {
+            scratch.visited = new int[Math.max(size, scratch.visited.length * 2)];
+            scratch.stamp = 0;
+        }
+        int stamp = ++scratch.stamp;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(scratch.visited, 0);
+            scratch.stamp = stamp = 1;
+        }
+
+        int best = NO_MATCH;
+        int bestDistance = Integer.MAX_VALUE;
+        int secondDistance = Integer.MAX_VALUE;
+        for (int t = 0; t < tables; t++) {
+            int key = key(t, query, offset);
+            for (int probe = -1; probe < keyBits; probe++) {
+                int bucket = probe < 0 ? key : key ^ (1 << probe);
+                for (int id = heads[t][bucket]; id >= 0; id = next[t][id]) {
+                    if (scratch.visited[id] == stamp) {
+                        continue;
+                    }
+                    scratch.visited[id] = stamp;
+                    int owner = owners[id];
+                    if (excluded != null && owner < excluded.length && excluded[owner]) {
+                        continue;
+                    }
+                    int d = hamming(query, offset, id);
+                    if (d < bestDistance) {
+                        // A closer match for a different target demotes the old best
+                        if (best < 0 || owners[best] != owner) {
+                            secondDistance = bestDistance;
+                        }
+                        bestDistance = d;
+                        best = id;
+                    } else if (d < secondDistance && owners[best] != owner) {
+                        secondDistance = d;
+                    }
+                }
+            }
+        }
+
+        distances[0] = bestDistance;
+        distances[1] = secondDistance;
+        return best;
+    }
+
+    /** Drops every descriptor owned by a target in {@code removed} and rebuilds the tables. */
+    void compact(boolean[] removed) {
+        int kept = 0;
+        for (int id = 0; id < size; id++) {
+            int owner = owners[id];
+            if (owner < removed.length && removed[owner]) {
+                continue;
+            }
+            if (kept != id) {
+                System.arraycopy(descriptors, id * FeatureExtractor.DESCRIPTOR_LONGS, descriptors,
+                        kept * FeatureExtractor.DESCRIPTOR_LONGS, FeatureExtractor.DESCRIPTOR_LONGS);
+                owners[kept] = owner;
+            }
+            kept++;
+        }
+        size = kept;
+
+        for (int t = 0; t < tables; t++) {
+            Arrays.fill(heads[t], -1);
+            for (int id = 0; id < size; id++) {
+                int key = key(t, descriptors, id * FeatureExtractor.DESCRIPTOR_LONGS);
+                next[t][id] = heads[t][key];
+                heads[t][key] = id;
+            }
+        }
+    }
+
+    private int hamming(long[] query, int offset, int id) {
+        int base = id * FeatureExtractor.DESCRIPTOR_LONGS;
+        return Long.bitCount(query[offset] ^ descriptors[base])
+                + Long.bitCount(query[offset + 1] ^ descriptors[base + 1])
+                + Long.bitCount(query[offset + 2] ^ descriptors[base + 2])
+                + Long.bitCount(query[offset + 3] ^ descriptors[base + 3]);
+    }
+
+    private int key(int table, long[] descriptor, int offset) {
+        int[] bits = keyBitPositions[table];
+        int key = 0;
+        for (int i = 0; i < bits.length; i++) {
+            int bit = bits[i];
+            if ((descriptor[offset + (bit >>> 6)] & (1L << (bit & 63))) != 0) {
+                key |= 1 << i;
+            }
+        }
+        return key;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (owners.length >= capacity) {
+            return;
+        }
+        int grown = Math.max(capacity, Math.max(1024, owners.length * 2));
+        descriptors = Arrays.copyOf(descriptors, grown * FeatureExtractor.DESCRIPTOR_LONGS);
+        owners = Arrays.copyOf(owners, grown);
+        for (int t = 0; t < tables; t++) {
+            next[t] = Arrays.copyOf(next[t], grown);
+        }
+    }
+}
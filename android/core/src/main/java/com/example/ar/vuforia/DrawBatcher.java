@@ -0,0 +1,330 @@
+package com.example.ar.vuforia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the primitives of the shown models into one draw call per material.
+ *
+ * Primitives whose materials have the same batch key and that draw the same kind of
+ * primitive (points, lines or triangles), from any model, share one vertex and index
+ * buffer. Strips, fans and loops are unrolled into lists so they can be appended.
+ * Every vertex carries the index of its model within the batch, which selects that
+ * model's matrix from the batch's instance table, so a whole outfit in one fabric is
+ * a single draw with a single material bind.
+ *
+ * Rebuilding copies every vertex and is only needed when the set of models changes.
+ * Per frame only the instance table and the deformed vertices of skinned garments
+ * are refreshed. A culled model keeps its vertices but gets an all-zero matrix,
+ * which collapses its triangles before rasterisation. Not thread-safe.
+ */
+final class DrawBatcher {
+    /** Instance table size per batch: 32 matrices fit the GLES 3 minimum of vertex uniforms. */
+    static final int MAX_INSTANCES = 32;
+
+    /** One model to batch. */
+    static final class Source {
+        final ModelAsset asset;
+        final SkinnedModel skinned; // Null for rigid models
+
+        Source(ModelAsset asset, SkinnedModel skinned) {
+            this.asset = asset;
+            this.skinned = skinned;
+        }
+    }
+
+    /** Merged geometry of every primitive with one material key and mode. */
+    static final class Batch {
+        final String materialKey;
+        final int mode; // PRIMITIVE_POINTS, PRIMITIVE_LINES or PRIMITIVE_TRIANGLES
+        final float[] positions;
+        final float[] normals; // Zero for primitives without normals
+        final float[] uvs; // Zero for primitives without UVs
+        final short[] instanceIds; // Per vertex, row of instanceMatrices
+        final int[] indices;
+        final int[] instanceSources; // Batch instance -> source index
+        final float[] instanceMatrices; // Column-major 4x4 per instance; all zero while culled
+        int drawnInstances;
+
+        private final SkinnedMesh[] dynamicMeshes; // Skinned primitives, copied in every frame
+        private final int[] dynamicVertices; // First vertex of each in this batch
+        private final int[] dynamicInstances;
+
+        Batch(String materialKey, int mode, int vertexCount, int indexCount, int[] instanceSources,
+              int dynamicCount) {
+            this.materialKey = materialKey;
+            this.mode = mode;
+            this.positions = new float[vertexCount * 3];
+            this.normals = new float[vertexCount * 3];
+            this.uvs = new float[vertexCount * 2];
+            this.instanceIds = new short[vertexCount];
+            this.indices = new int[indexCount];
+            this.instanceSources = instanceSources;
+            this.instanceMatrices = new float[instanceSources.length * 16];
+            this.dynamicMeshes = new SkinnedMesh[dynamicCount];
+            this.dynamicVertices = new int[dynamicCount];
+            this.dynamicInstances = new int[dynamicCount];
+        }
+
+        int getVertexCount() { return instanceIds.length; }
+    }
+
+    private List<Batch> batches = new ArrayList<>();
+    private int[] primitiveCounts = new int[0]; // Per source: its draw calls without batching
+    private int drawCalls;
+    private int unbatchedDrawCalls;
+    private long rebuilds;
+
+    /** Regroups every primitive of {@code sources}; source indices are positions in the list. */
+    void rebuild(List<Source> sources) {
+        // Primitives per material key, in source order so each batch takes a run of sources
+        Map<String, List<int[]>> groups = new LinkedHashMap<>();
+        List<Map<ModelAsset.Mesh, SkinnedMesh>> skinnedMeshes = new ArrayList<>(sources.size());
+        primitiveCounts = new int[sources.size()];
+        for (int s = 0; s < sources.size(); s++) {
+            Source source = sources.get(s);
+            Map<ModelAsset.Mesh, SkinnedMesh> deformed = new IdentityHashMap<>();
+            if (source.skinned != null) {
+                for (SkinnedMesh mesh : source.skinned.getMeshes()) {
+                    deformed.put(mesh.getSource(), mesh);
+                }
+            }
+            skinnedMeshes.add(deformed);
+            List<ModelAsset.Mesh> meshes = source.asset.getMeshes();
+            primitiveCounts[s] = meshes.size();
+            for (int m = 0; m < meshes.size(); m++) {
+                ModelAsset.Mesh mesh = meshes.get(m);
+                String key = batchMode(mesh.getMode()) + "|" + source.asset.getMaterialKey(mesh.getMaterialIndex());
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(new int[]{s, m});
+            }
+        }
+
+        List<Batch> built = new ArrayList<>();
+        for (Map.Entry<String, List<int[]>> group : groups.entrySet()) {
+            List<int[]> primitives = group.getValue();
+            int start = 0;
+            while (start < primitives.size()) {
+                // Take primitives until the instance table is full
+                int end = start;
+                int instances = 0;
+                int lastSource = -1;
+                while (end < primitives.size()) {
+                    int source = primitives.get(end)[0];
+                    if (source != lastSource) {
+                        if (instances == MAX_INSTANCES) {
+                            break;
+                        }
+                        instances++;
+                        lastSource = source;
+                    }
+                    end++;
+                }
+                built.add(buildBatch(group.getKey(), primitives.subList(start, end), instances, sources, skinnedMeshes));
+                start = end;
+            }
+        }
+        batches = built;
+        rebuilds++;
+    }
+
+    private static Batch buildBatch(String key, List<int[]> primitives, int instanceCount, List<Source> sources,
+                                    List<Map<ModelAsset.Mesh, SkinnedMesh>> skinnedMeshes) {
+        int vertexCount = 0;
+        int indexCount = 0;
+        int dynamicCount = 0;
+        int[] instanceSources = new int[instanceCount];
+        int[][] lists = new int[primitives.size()][];
+        int instance = -1;
+        for (int p = 0; p < primitives.size(); p++) {
+            int[] primitive = primitives.get(p);
+            ModelAsset.Mesh mesh = sources.get(primitive[0]).asset.getMeshes().get(primitive[1]);
+            if (instance < 0 || instanceSources[instance] != primitive[0]) {
+                instanceSources[++instance] = primitive[0];
+            }
+            lists[p] = listIndices(mesh);
+            vertexCount += mesh.getVertexCount();
+            indexCount += lists[p].length;
+            if (skinnedMeshes.get(primitive[0]).containsKey(mesh)) {
+                dynamicCount++;
+            }
+        }
+
+        int separator = key.indexOf('|');
+        Batch batch = new Batch(key.substring(separator + 1), Integer.parseInt(key.substring(0, separator)),
+                vertexCount, indexCount, instanceSources, dynamicCount);
+        int vertex = 0;
+        int index = 0;
+        int dynamic = 0;
+        instance = -1;
+        for (int p = 0; p < primitives.size(); p++) {
+            int[] primitive = primitives.get(p);
+            ModelAsset.Mesh mesh = sources.get(primitive[0]).asset.getMeshes().get(primitive[1]);
+            if (instance < 0 || instanceSources[instance] != primitive[0]) {
+                instance++;
+            }
+            SkinnedMesh deformed = skinnedMeshes.get(primitive[0]).get(mesh);
+            int count = mesh.getVertexCount();
+            float[] positions = deformed != null ? deformed.getPositions() : mesh.getPositions();
+            float[] normals = deformed != null ? deformed.getNormals() : mesh.getNormals();
+            System.arraycopy(positions, 0, batch.positions, vertex * 3, count * 3);
+            if (normals != null) {
+                System.arraycopy(normals, 0, batch.normals, vertex * 3, count * 3);
+            }
+            if (mesh.getUvs() != null) {
+                System.arraycopy(mesh.getUvs(), 0, batch.uvs, vertex * 2, count * 2);
+            }
+            Arrays.fill(batch.instanceIds, vertex, vertex + count, (short) instance);
+
+            for (int i : lists[p]) {
+                batch.indices[index++] = vertex + i;
+            }
+            if (deformed != null) {
+                batch.dynamicMeshes[dynamic] = deformed;
+                batch.dynamicVertices[dynamic] = vertex;
+                batch.dynamicInstances[dynamic] = instance;
+                dynamic++;
+            }
+            vertex += count;
+        }
+        return batch;
+    }
+
+    /** The list mode a primitive is drawn with once batched. */
+    static int batchMode(int mode) {
+        switch (mode) {
+            case ModelInfo.PRIMITIVE_POINTS:
+                return ModelInfo.PRIMITIVE_POINTS;
+            case ModelInfo.PRIMITIVE_LINES:
+            case ModelInfo.PRIMITIVE_LINE_LOOP:
+            case ModelInfo.PRIMITIVE_LINE_STRIP:
+                return ModelInfo.PRIMITIVE_LINES;
+            default:
+                return ModelInfo.PRIMITIVE_TRIANGLES;
+        }
+    }
+
+    /**
+     * The primitive's vertex order as a point, line or triangle list, following the
+     * glTF rules for strips, loops and fans, including the winding of odd strip triangles.
+     */
+    static int[] listIndices(ModelAsset.Mesh mesh) {
+        int[] order = mesh.getIndices();
+        if (order == null) {
+            order = new int[mesh.getVertexCount()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+        int n = order.length;
+        switch (mesh.getMode()) {
+            case ModelInfo.PRIMITIVE_LINE_STRIP:
+            case ModelInfo.PRIMITIVE_LINE_LOOP: {
+                boolean loop = mesh.getMode() == ModelInfo.PRIMITIVE_LINE_LOOP && n > 2;
+                int segments = Math.max(0, n - 1) + (loop ? 1 : 0);
+                int[] lines = new int[segments * 2];
+                for (int i = 0; i < segments; i++) {
+                    lines[i * 2] = order[i];
+                    lines[i * 2 + 1] = order[(i + 1) % n];
+                }
+                return lines;
+            }
+            case ModelInfo.PRIMITIVE_TRIANGLE_STRIP: {
+                int[] triangles = new int[Math.max(0, n - 2) * 3];
+                for (int i = 0; i < n - 2; i++) {
+                    boolean odd = (i & 1) != 0;
+                    triangles[i * 3] = order[i];
+                    triangles[i * 3 + 1] = order[odd ? i + 2 : i + 1];
+                    triangles[i * 3 + 2] = order[odd ? i + 1 : i + 2];
+                }
+                return triangles;
+            }
+            case ModelInfo.PRIMITIVE_TRIANGLE_FAN: {
+                int[] triangles = new int[Math.max(0, n - 2) * 3];
+                for (int i = 0; i < n - 2; i++) {
+                    triangles[i * 3] = order[i + 1];
+                    triangles[i * 3 + 1] = order[i + 2];
+                    triangles[i * 3 + 2] = order[0];
+                }
+                return triangles;
+            }
+            case ModelInfo.PRIMITIVE_LINES:
+                return n % 2 == 0 ? order : Arrays.copyOf(order, n - 1);
+            case ModelInfo.PRIMITIVE_TRIANGLES:
+                return n % 3 == 0 ? order : Arrays.copyOf(order, n - n % 3);
+            default:
+                return order; // Points
+        }
+    }
+
+    /**
+     * Refreshes instance matrices and skinned vertices for a frame. {@code matrices}
+     * holds each source's model matrix, or null if it is culled. Returns the number of
+     * draw calls, one per batch with a drawn instance.
+     */
+    int update(float[][] matrices) {
+        int unbatched = 0;
+        for (int s = 0; s < primitiveCounts.length; s++) {
+            if (matrices[s] != null) {
+                unbatched += primitiveCounts[s];
+            }
+        }
+
+        int calls = 0;
+        for (Batch batch : batches) {
+            int drawn = 0;
+            for (int i = 0; i < batch.instanceSources.length; i++) {
+                float[] matrix = matrices[batch.instanceSources[i]];
+                if (matrix != null) {
+                    System.arraycopy(matrix, 0, batch.instanceMatrices, i * 16, 16);
+                    drawn++;
+                } else {
+                    Arrays.fill(batch.instanceMatrices, i * 16, i * 16 + 16, 0f);
+                }
+            }
+            for (int d = 0; d < batch.dynamicMeshes.length; d++) {
+                if (matrices[batch.instanceSources[batch.dynamicInstances[d]]] == null) {
+                    continue; // Not skinned this frame either
+                }
+                SkinnedMesh mesh = batch.dynamicMeshes[d];
+                int count = mesh.getVertexCount();
+                System.arraycopy(mesh.getPositions(), 0, batch.positions, batch.dynamicVertices[d] * 3, count * 3);
+                float[] normals = mesh.getNormals();
+                if (normals != null) {
+                    System.arraycopy(normals, 0, batch.normals, batch.dynamicVertices[d] * 3, count * 3);
+                }
+            }
+            batch.drawnInstances = drawn;
+            if (drawn > 0) {
+                calls++;
+            }
+        }
+        drawCalls = calls;
+        unbatchedDrawCalls = unbatched;
+        return calls;
+    }
+
+    List<Batch> getBatches() { return batches; }
+    int getDrawCalls() { return drawCalls; }
+    /** Draw calls the last frame would have taken with one per primitive. */
+    int getUnbatchedDrawCalls() { return unbatchedDrawCalls; }
+    long getRebuilds() { return rebuilds; }
+
+    int getVertexCount() {
+        int count = 0;
+        for (Batch batch : batches) {
+            count += batch.getVertexCount();
+        }
+        return count;
+    }
+
+    void clear() {
+        batches = new ArrayList<>();
+        primitiveCounts = new int[0];
+        drawCalls = 0;
+        unbatchedDrawCalls = 0;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * ORB-style keypoints and binary descriptors.
+ *
+ * FAST-9 corners are detected on a small image pyramid, thinned with 3x3 non-maximum
+ * suppression and oriented by intensity centroid. Each keypoint gets a 256-bit
+ * steered BRIEF descriptor sampled from a box-blurred copy of its level.
+ *
+ * Instances keep scratch buffers between calls and are not thread-safe.
+ */
+final class FeatureExtractor {
+    static final int DESCRIPTOR_LONGS = 4; // 256 bits
+    static final int DESCRIPTOR_BITS = DESCRIPTOR_LONGS * 64;
+
+    private static final int PATCH_RADIUS = 15;
+    private static final int BORDER = 23; // Rotated 31x31 patch plus blur margin
+    private static final int ANGLE_BINS = 30;
+    private static final int[][] PATTERNS = buildPatterns();
+    private static final int[] CIRCLE_EXTENT = buildCircleExtent();
+
+    // FAST-9 Bresenham circle of radius 3
+    private static final int[] CIRCLE_X = {0, 1, 2, 3, 3, 3, 2, 1, 0, -1, -2, -3, -3, -3, -2, -1};
+    private static final int[] CIRCLE_Y = {-3, -3, -2, -1, 0, 1, 2, 3, 3, 3, 2, 1, 0, -1, -2, -3};
+
+    private final int maxFeatures;
+    private final int levels;
+    private final float scaleFactor;
+    private final int fastThreshold;
+
+    private int[] scores = new int[0];
+    private int[] candidates = new int[0];
+    private int[] blurRow = new int[0];
+
+    FeatureExtractor(int maxFeatures, int levels, float scaleFactor, int fastThreshold) {
+        this.maxFeatures = maxFeatures;
+        this.levels = levels;
+        this.scaleFactor = scaleFactor;
+        this.fastThreshold = fastThreshold;
+    }
+
+    /** Keypoints in level-0 pixel coordinates and their packed descriptors. */
+    static final class Features {
+        int count;
+        float[] x;
+        float[] y;
+        long[] descriptors; // DESCRIPTOR_LONGS per keypoint
+
+        Features(int capacity) {
+            x = new float[capacity];
+            y = new float[capacity];
+            descriptors = new long[capacity * DESCRIPTOR_LONGS];
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        void add(float px, float py, long[] descriptor, int offset) {
+            if (count == x.length) {
+                int capacity = Math.max(16, count * 2);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                descriptors = Arrays.copyOf(descriptors, capacity * DESCRIPTOR_LONGS);
+            }
+            x[count] = px;
+            y[count] = py;
+            System.arraycopy(descriptor, offset, descriptors, count * DESCRIPTOR_LONGS, DESCRIPTOR_LONGS);
+            count++;
+        }
+    }
+
+    Features extract(LumaImage image) {
+        Features out = new Features(maxFeatures);
+        extract(image, out);
+        return out;
+    }
+
+    /** Fills {@code out}, replacing its previous contents. */
+    void extract(LumaImage image, Features out) {
+        out.clear();
+
+        // Split the feature budget geometrically so coarser levels get fewer points
+        float factor = 1f / (scaleFactor * scaleFactor);
+        float share = maxFeatures * (1f - factor) / (1f - (float) Math.pow(factor, levels));
+
+        LumaImage level = image;
+        float scale = 1f;
+        long[] descriptor = new long[DESCRIPTOR_LONGS];
+        for (int l = 0; l < levels; l++) {
+            if (l > 0) {
+                scale *= scaleFactor;
+                int w = Math.round(image.width / scale);
+                int h = Math.round(image.height / scale);
+                if (w < 2 * BORDER + 8 || h < 2 * BORDER + 8) {
+                    break;
+                }
+                level = image.resize(w, h);
+            }
+
+            int budget = l == levels - 1 ? maxFeatures - out.count : Math.round(share);
+            share *= factor;
+            if (budget <= 0) {
+                continue;
+            }
+
+            int found = detect(level, budget);
+            if (found == 0) {
+                continue;
+            }
+
+            byte[] blurred = boxBlur(level);
+            for (int i = 0; i < found; i++) {
+                int px = candidates[i] % level.width;
+                int py = candidates[i] / level.width;
+                float angle = orientation(level, px, py);
+                describe(blurred, level.width, px, py, angle, descriptor);
+                out.add(px * scale, py * scale, descriptor, 0);
+            }
+        }
+    }
+
+    /**
+     * FAST-9 with 3x3 non-maximum suppression. Leaves the strongest {@code budget}
+     * corners as pixel indices in {@code candidates} and returns how many there are.
+     */
+    private int detect(LumaImage image, int budget) {
+        int w = image.width;
+        int h = image.height;
+        byte[] p = image.pixels;
+        if (scores.length < w * h) {
+            scores = new int[w * h];
+        } else {
+            Arrays.fill(scores, 0, w * h, 0);
+        }
+
+        int[] offsets = new int[16];
+        for (int i = 0; i < 16; i++) {
+            offsets[i] = CIRCLE_Y[i] * w + CIRCLE_X[i];
+        }
+
+        int t = fastThreshold;
+        for (int y = BORDER; y < h - BORDER; y++) {
+            for (int x = BORDER; x < w - BORDER; x++) {
+                int c = y * w + x;
+                int v = p[c] & 0xFF;
+                int hi = v + t;
+                int lo = v - t;
+
+                // Quick reject: at least 2 of the 4 compass points must agree
+                int a = p[c + offsets[0]] & 0xFF;
+                int b = p[c + offsets[8]] & 0xFF;
+                if ((a <= hi && a >= lo) && (b <= hi && b >= lo)) {
+                    continue;
+                }
+
+                int brighter = 0;
+                int darker = 0;
+                int score = 0;
+                for (int i = 0; i < 16; i++) {
+                    int q = p[c + offsets[i]] & 0xFF;
+                    if (q > hi) {
+                        brighter |= 1 << i;
+                        score += q - hi;
+                    } else if (q < lo) {
+                        darker |= 1 << i;
+                        score += lo - q;
+                    }
+                }
+                if (hasArc(brighter) || hasArc(darker)) {
+                    scores[c] = score + 1;
+                }
+            }
+        }
+
+        // Non-maximum suppression, collecting survivors
+        int count = 0;
+        for (int y = BORDER; y < h - BORDER; y++) {
+            for (int x = BORDER; x < w - BORDER; x++) {
+                int c = y * w + x;
+                int s = scores[c];
+                if (s == 0) {
+                    continue;
+                }
+                if (s < scores[c - 1] || s <= scores[c + 1]
+                        || s < scores[c - w - 1] || s < scores[c - w] || s < scores[c - w + 1]
+                        || s <= scores[c + w - 1] || s <= scores[c + w] || s <= scores[c + w + 1]) {
+                    continue;
+                }
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(256, count * 2));
+                }
+                candidates[count++] = c;
+            }
+        }
+
+        if (count <= budget) {
+            return count;
+        }
+
+        // Keep the strongest responses
+        long[] ranked = new long[count];
+        for (int i = 0; i < count; i++) {
+            ranked[i] = ((long) scores[candidates[i]] << 32) | candidates[i];
+        }
+        Arrays.sort(ranked);
+        for (int i = 0; i < budget; i++) {
+            candidates[i] = (int) ranked[count - 1 - i];
+        }
+        return budget;
+    }
+
+    // Nine or more contiguous set bits on the 16-pixel ring
+    private static boolean hasArc(int mask) {
+        if (Integer.bitCount(mask) < 9) {
+            return false;
+        }
+        int ring = mask | (mask << 16);
+        int run = ring;
+        for (int i = 1; i < 9; i++) {
+            run &= ring >>> i;
+        }
+        return run != 0;
+    }
+
+    private static float orientation(LumaImage image, int cx, int cy) {
+        int m01 = 0;
+        int m10 = 0;
+        for (int dy = -PATCH_RADIUS; dy <= PATCH_RADIUS; dy++) {
+            int extent = CIRCLE_EXTENT[Math.abs(dy)];
+            int row = (cy + dy) * image.width + cx;
+            for (int dx = -extent; dx <= extent; dx++) {
+                int v = image.pixels[row + dx] & 0xFF;
+                m10 += dx * v;
+                m01 += dy * v;
+            }
+        }
+        return (float) Math.atan2(m01, m10);
+    }
+
+    private static void describe(byte[] blurred, int width, int x, int y, float angle, long[] out) {
+        int bin = Math.round(angle / (float) (2 * Math.PI) * ANGLE_BINS);
+        bin = ((bin % ANGLE_BINS) + ANGLE_BINS) % ANGLE_BINS;
+        int[] pattern = PATTERNS[bin];
+
+        int center = y * width + x;
+        Arrays.fill(out, 0L);
+        for (int i = 0; i < DESCRIPTOR_BITS; i++) {
+            int o = i * 4;
+            int a = blurred[center + pattern[o + 1] * width + pattern[o]] & 0xFF;
+            int b = blurred[center + pattern[o + 3] * width + pattern[o + 2]] & 0xFF;
+            if (a < b) {
+                out[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    // Separable 5x5 box blur
+    private byte[] boxBlur(LumaImage image) {
+        int w = image.width;
+        int h = image.height;
+        byte[] src = image.pixels;
+        if (blurRow.length < w * h) {
+            blurRow = new int[w * h];
+        }
+        int[] tmp = blurRow;
+        byte[] out = new byte[w * h];
+
+        for (int y = 0; y < h; y++) {
+            int row = y * w;
+            int sum = 0;
+            for (int x = -2; x <= 2; x++) {
+                sum += src[row + clamp(x, w)] & 0xFF;
+            }
+            for (int x = 0; x < w; x++) {
+                tmp[row + x] = sum;
+                sum += (src[row + clamp(x + 3, w)] & 0xFF) - (src[row + clamp(x - 2, w)] & 0xFF);
+            }
+        }
+        for (int x = 0; x < w; x++) {
+            int sum = 0;
+            for (int y = -2; y <= 2; y++) {
+                sum += tmp[clamp(y, h) * w + x];
+            }
+            for (int y = 0; y < h; y++) {
+                out[y * w + x] = (byte) (sum / 25);
+                sum += tmp[clamp(y + 3, h) * w + x] - tmp[clamp(y - 2, h) * w + x];
+            }
+        }
+        return out;
+    }
+
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+
+    private static int[] buildCircleExtent() {
+        int[] extent = new int[PATCH_RADIUS + 1];
+        for (int dy = 0; dy <= PATCH_RADIUS; dy++) {
+            extent[dy] = (int) Math.floor(Math.sqrt(PATCH_RADIUS * PATCH_RADIUS - dy * dy));
+        }
+        return extent;
+    }
+
+    // Fixed Gaussian test pairs, pre-rotated for every orientation bin
+    private static int[][] buildPatterns() {
+        Random random = new Random(0x0AB5EED);
+        float[] base = new float[DESCRIPTOR_BITS * 4];
+        float sigma = (2 * PATCH_RADIUS + 1) / 5f;
+        for (int i = 0; i < base.length; i++) {
+            float v;
+            do {
+                v = (float) random.nextGaussian() * sigma;
+            } while (Math.abs(v) > PATCH_RADIUS);
+            base[i] = v;
+        }
+
+        int[][] patterns = new int[ANGLE_BINS][DESCRIPTOR_BITS * 4];
+        for (int bin = 0; bin < ANGLE_BINS; bin++) {
+            double theta = bin * 2 * Math.PI / ANGLE_BINS;
+            float cos = (float) Math.cos(theta);
+            float sin = (float) Math.sin(theta);
+            for (int i = 0; i < DESCRIPTOR_BITS * 2; i++) {
+                float px = base[i * 2];
+                float py = base[i * 2 + 1];
+                patterns[bin][i * 2] = Math.round(px * cos - py * sin);
+                patterns[bin][i * 2 + 1] = Math.round(px * sin + py * cos);
+            }
+        }
+        return patterns;
+    }
+}
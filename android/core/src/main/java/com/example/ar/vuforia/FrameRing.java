@@ -0,0 +1,192 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size hand-off between the camera and the tracker.
+ *
+ * The ring never queues: when a new frame arrives, the previous frame that the
+ * tracker has not picked up yet is released straight back to its producer and
+ * counted as dropped, so {@link #acquireLatest} always returns the newest frame.
+ * The remaining slots cover frames the tracker is still holding.
+ */
+final class FrameRing {
+    private static final int FREE = 0;
+    private static final int READY = 1;
+    private static final int IN_USE = 2;
+
+    private final CameraFrame[] slots;
+    private final int[] state;
+    private int ready = -1; // Slot holding the newest unconsumed frame
+    private long sequence;
+    private boolean closed;
+
+    private long framesOffered;
+    private long framesDelivered;
+    private long framesDropped;
+    private final LatencyStats latency = new LatencyStats(256);
+
+    FrameRing(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Frame ring needs at least 2 slots");
+        }
+        slots = new CameraFrame[capacity];
+        state = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new CameraFrame();
+        }
+    }
+
+    /**
+     * Publishes a frame without copying its planes. {@code releaseHook} runs once the
+     * frame has been consumed or dropped; until then the producer must not reuse the
+     * buffers. Returns {@code false} if the frame was dropped on arrival.
+     */
+    boolean offer(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int width, int height,
+                  int yRowStride, int uvRowStride, int uvPixelStride, long captureNanos,
+                  Runnable releaseHook) {
+        Runnable staleHook = null;
+        boolean accepted;
+        synchronized (this) {
+            framesOffered++;
+            if (ready >= 0) {
+                // Superseded before the tracker got to it
+                staleHook = slots[ready].detach();
+                state[ready] = FREE;
+                ready = -1;
+                framesDropped++;
+            }
+
+            int slot = -1;
+            if (!closed) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (state[i] == FREE) {
+                        slot = i;
+                        break;
+                    }
+                }
+            }
+
+            accepted = slot >= 0;
+            if (accepted) {
+                slots[slot].set(yPlane, uPlane, vPlane, width, height, yRowStride, uvRowStride,
+                        uvPixelStride, captureNanos, sequence++, releaseHook);
+                state[slot] = READY;
+                ready = slot;
+                notifyAll();
+            } else {
+                // Closed, or the tracker is holding every slot
+                framesDropped++;
+            }
+        }
+
+        // Producer callbacks run outside the lock
+        if (staleHook != null) {
+            staleHook.run();
+        }
+        if (!accepted && releaseHook != null) {
+            releaseHook.run();
+        }
+        return accepted;
+    }
+
+    /**
+     * Takes the newest frame, waiting up to {@code timeout} for one to arrive. Returns
+     * {@code null} on timeout or once the ring is closed. The frame must be handed back
+     * through {@link #release}.
+     */
+    CameraFrame acquireLatest(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (ready < 0 && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            if (closed) {
+                return null;
+            }
+
+            CameraFrame frame = slots[ready];
+            state[ready] = IN_USE;
+            ready = -1;
+            framesDelivered++;
+            latency.record(System.nanoTime() - frame.getCaptureNanos());
+            return frame;
+        }
+    }
+
+    void release(CameraFrame frame) {
+        Runnable hook = null;
+        synchronized (this) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == frame && state[i] == IN_USE) {
+                    hook = frame.detach();
+                    state[i] = FREE;
+                    break;
+                }
+            }
+        }
+        if (hook != null) {
+            hook.run();
+        }
+    }
+
+    /** Releases any pending frame and wakes a waiting consumer. */
+    void close() {
+        Runnable pending = null;
+        synchronized (this) {
+            closed = true;
+            if (ready >= 0) {
+                pending = slots[ready].detach();
+                state[ready] = FREE;
+                ready = -1;
+            }
+            notifyAll();
+        }
+        if (pending != null) {
+            pending.run();
+        }
+    }
+
+    synchronized void reopen() {
+        closed = false;
+    }
+
+    synchronized long getFramesOffered() { return framesOffered; }
+    synchronized long getFramesDelivered() { return framesDelivered; }
+    synchronized long getFramesDropped() { return framesDropped; }
+
+    synchronized double getDropRate() {
+        return framesOffered == 0 ? 0.0 : framesDropped / (double) framesOffered;
+    }
+
+    /** Capture-to-tracker latency over the most recent frames. */
+    LatencyStats getLatency() {
+        return latency;
+    }
+
+    synchronized void resetStats() {
+        framesOffered = 0;
+        framesDelivered = 0;
+        framesDropped = 0;
+        latency.reset();
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            stats.put("framesOffered", framesOffered);
+            stats.put("framesDelivered", framesDelivered);
+            stats.put("framesDropped", framesDropped);
+            stats.put("dropRate", getDropRate());
+        }
+        stats.put("captureToTrackerMs", latency.toMap());
+        return stats;
+    }
+}
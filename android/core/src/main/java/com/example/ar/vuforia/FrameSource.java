@@ -0,0 +1,8 @@
+package com.example.ar.vuforia;
+
+/** Something that pushes camera frames into a {@link FrameRing}. */
+interface FrameSource {
+    void start(FrameRing ring);
+
+    void stop();
+}
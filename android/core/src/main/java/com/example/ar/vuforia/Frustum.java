@@ -0,0 +1,97 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+
+/**
+ * The six clip planes of a camera, for culling axis-aligned boxes.
+ *
+ * Planes are extracted from a column-major view-projection matrix (OpenGL clip
+ * space) and point inwards. Boxes are tested with their most positive and most
+ * negative corner per plane, so a test costs at most twelve dot products.
+ */
+final class Frustum {
+    static final int OUTSIDE = 0;
+    static final int INTERSECTS = 1;
+    static final int INSIDE = 2;
+
+    /** Plane mask of a box not yet known to be inside any plane. */
+    static final int ALL_PLANES = 0x3F;
+
+    private final float[] planes = new float[24]; // a, b, c, d per plane
+
+    /** Sets the planes from {@code viewProjection}, column-major as in OpenGL. */
+    void set(float[] viewProjection) {
+        float[] m = viewProjection;
+        for (int i = 0; i < 3; i++) {
+            // Row 3 plus and minus row i: left/right, bottom/top, near/far
+            for (int side = 0; side < 2; side++) {
+                float sign = side == 0 ? 1 : -1;
+                int p = (i * 2 + side) * 4;
+                float a = m[3] + sign * m[i];
+                float b = m[7] + sign * m[4 + i];
+                float c = m[11] + sign * m[8 + i];
+                float d = m[15] + sign * m[12 + i];
+                float length = (float) Math.sqrt(a * a + b * b + c * c);
+                planes[p] = a / length;
+                planes[p + 1] = b / length;
+                planes[p + 2] = c / length;
+                planes[p + 3] = d / length;
+            }
+        }
+    }
+
+    /** Classifies the box min xyz, max xyz stored at {@code box[offset]}. */
+    int classify(float[] box, int offset) {
+        int mask = clip(box, offset, ALL_PLANES);
+        return mask < 0 ? OUTSIDE : mask == 0 ? INSIDE : INTERSECTS;
+    }
+
+    /**
+     * Tests a box against the planes in {@code mask}, bit i for plane i. Returns -1
+     * if the box is outside one of them, otherwise the planes it still crosses. A box
+     * inside its parent's planes is inside them too, so children pass on the result.
+     */
+    int clip(float[] box, int offset, int mask) {
+        float minX = box[offset], minY = box[offset + 1], minZ = box[offset + 2];
+        float maxX = box[offset + 3], maxY = box[offset + 4], maxZ = box[offset + 5];
+        int crossed = 0;
+        for (int i = 0; i < 6; i++) {
+            if ((mask & (1 << i)) == 0) {
+                continue;
+            }
+            int p = i * 4;
+            float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            // Corner furthest along the plane normal, then the one furthest against it
+            float far = a * (a >= 0 ? maxX : minX) + b * (b >= 0 ? maxY : minY) + c * (c >= 0 ? maxZ : minZ) + d;
+            if (far < 0) {
+                return -1;
+            }
+            float near = a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) + c * (c >= 0 ? minZ : maxZ) + d;
+            if (near < 0) {
+                crossed |= 1 << i;
+            }
+        }
+        return crossed;
+    }
+
+    /** Column-major OpenGL perspective projection; {@code aspect} is width over height. */
+    static void perspective(float[] out, float verticalFovDegrees, float aspect, float near, float far) {
+        float f = 1.0f / (float) Math.tan(Math.toRadians(verticalFovDegrees) / 2);
+        Arrays.fill(out, 0, 16, 0f);
+        out[0] = f / aspect;
+        out[5] = f;
+        out[10] = (far + near) / (near - far);
+        out[11] = -1f;
+        out[14] = 2 * far * near / (near - far);
+    }
+
+    /** {@code out = a * b} for column-major 4x4 matrices; {@code out} must not alias either. */
+    static void multiply(float[] out, float[] a, float[] b) {
+        for (int column = 0; column < 4; column++) {
+            for (int row = 0; row < 4; row++) {
+                out[column * 4 + row] = a[row] * b[column * 4] + a[4 + row] * b[column * 4 + 1]
+                        + a[8 + row] * b[column * 4 + 2] + a[12 + row] * b[column * 4 + 3];
+            }
+        }
+    }
+}
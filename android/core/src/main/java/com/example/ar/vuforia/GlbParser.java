@@ -0,0 +1,504 @@
+package com.example.ar.vuforia;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Minimal binary glTF (GLB) reader.
+ *
+ * Decodes the container, the JSON chunk and the mesh/texture data referenced from the
+ * BIN chunk into a {@link ModelAsset}. Only what the AR pipeline needs is decoded:
+ * positions, normals, first UV set, indices, mode and skin weights for every
+ * primitive, the skins themselves, the encoded image bytes of embedded textures and,
+ * per material, the render state that decides which primitives can be batched.
+ */
+final class GlbParser {
+    static final int GLB_MAGIC = 0x46546C67; // "glTF"
+    static final int CHUNK_JSON = 0x4E4F534A; // "JSON"
+    static final int CHUNK_BIN = 0x004E4942; // "BIN\0"
+    static final int HEADER_LENGTH = 12;
+    static final int CHUNK_HEADER_LENGTH = 8;
+
+    static final int COMPONENT_BYTE = 5120;
+    static final int COMPONENT_UNSIGNED_BYTE = 5121;
+    static final int COMPONENT_SHORT = 5122;
+    static final int COMPONENT_UNSIGNED_SHORT = 5123;
+    static final int COMPONENT_UNSIGNED_INT = 5125;
+    static final int COMPONENT_FLOAT = 5126;
+
+    private final JSONObject gltf;
+    private final ByteBuffer bin;
+
+    private GlbParser(JSONObject gltf, ByteBuffer bin) {
+        this.gltf = gltf;
+        this.bin = bin;
+    }
+
+    /**
+     * Parses a complete GLB file. The buffer is not copied; texture buffers in the
+     * returned asset are slices of it.
+     */
+    static ModelAsset parse(String sourcePath, ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        JSONObject gltf = readJson(buffer);
+        ByteBuffer bin = readBinChunk(buffer);
+
+        GlbParser parser = new GlbParser(gltf, bin);
+        try {
+            return new ModelAsset(sourcePath, parser.readMeshes(), parser.readTextures(), parser.readSkins(),
+                    parser.readMaterials());
+        } catch (JSONException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed GLB " + sourcePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Validates the GLB header and returns the parsed JSON chunk. On return the buffer
+     * is positioned just after the JSON chunk.
+     */
+    static JSONObject readJson(ByteBuffer buffer) throws IOException {
+        return readJson(buffer, buffer.remaining());
+    }
+
+    /**
+     * Same as {@link #readJson(ByteBuffer)} for a buffer holding only the start of the
+     * file. {@code fileLength} is the real file size, used for the truncation check.
+     */
+    static JSONObject readJson(ByteBuffer buffer, long fileLength) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_LENGTH + CHUNK_HEADER_LENGTH) {
+            throw new IOException("File too small to be a GLB");
+        }
+
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        int length = buffer.getInt();
+        if (magic != GLB_MAGIC) {
+            throw new IOException("Not a GLB file (bad magic)");
+        }
+        if (version != 2) {
+            throw new IOException("Unsupported GLB version: " + version);
+        }
+        if (length > fileLength) {
+            throw new IOException("Truncated GLB: header declares " + length + " bytes");
+        }
+
+        int jsonLength = buffer.getInt();
+        int jsonType = buffer.getInt();
+        if (jsonType != CHUNK_JSON || jsonLength < 0 || jsonLength > buffer.remaining()) {
+            throw new IOException("GLB is missing its JSON chunk");
+        }
+
+        byte[] json = new byte[jsonLength];
+        buffer.get(json);
+        try {
+            return new JSONObject(new String(json, StandardCharsets.UTF_8).trim());
+        } catch (JSONException e) {
+            throw new IOException("Invalid GLB JSON chunk: " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer readBinChunk(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < CHUNK_HEADER_LENGTH) {
+            return null; // BIN chunk is optional
+        }
+        int binLength = buffer.getInt();
+        int binType = buffer.getInt();
+        if (binType != CHUNK_BIN) {
+            return null;
+        }
+        if (binLength < 0 || binLength > buffer.remaining()) {
+            throw new IOException("Truncated GLB BIN chunk");
+        }
+
+        ByteBuffer bin = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        bin.limit(binLength);
+        return bin;
+    }
+
+    private List<ModelAsset.Mesh> readMeshes() {
+        List<ModelAsset.Mesh> meshes = new ArrayList<>();
+        JSONArray meshArray = gltf.optJSONArray("meshes");
+        if (meshArray == null) {
+            return meshes;
+        }
+
+        int[] skinForMesh = skinForMesh(meshArray.length());
+        for (int m = 0; m < meshArray.length(); m++) {
+            JSONArray primitives = meshArray.getJSONObject(m).optJSONArray("primitives");
+            if (primitives == null) {
+                continue;
+            }
+            for (int p = 0; p < primitives.length(); p++) {
+                JSONObject primitive = primitives.getJSONObject(p);
+                JSONObject attributes = primitive.getJSONObject("attributes");
+                if (!attributes.has("POSITION")) {
+                    continue;
+                }
+
+                float[] positions = readFloats(attributes.getInt("POSITION"));
+                float[] normals = attributes.has("NORMAL") ? readFloats(attributes.getInt("NORMAL")) : null;
+                float[] uvs = attributes.has("TEXCOORD_0") ? readFloats(attributes.getInt("TEXCOORD_0")) : null;
+                int[] indices = primitive.has("indices") ? readInts(primitive.getInt("indices")) : null;
+                int material = primitive.optInt("material", -1);
+                int mode = primitive.optInt("mode", ModelInfo.PRIMITIVE_TRIANGLES);
+                if (mode < ModelInfo.PRIMITIVE_POINTS || mode > ModelInfo.PRIMITIVE_TRIANGLE_FAN) {
+                    throw new IllegalArgumentException("Unknown primitive mode " + mode);
+                }
+
+                ModelAsset.Mesh mesh = new ModelAsset.Mesh(m, positions, normals, uvs, indices, material, mode);
+                if (skinForMesh[m] >= 0 && attributes.has("JOINTS_0") && attributes.has("WEIGHTS_0")) {
+                    int[] joints = readInts(attributes.getInt("JOINTS_0"));
+                    float[] weights = readFloats(attributes.getInt("WEIGHTS_0"));
+                    int jointCount = gltf.getJSONArray("skins").getJSONObject(skinForMesh[m])
+                            .getJSONArray("joints").length();
+                    normaliseWeights(joints, weights, positions.length / 3, jointCount);
+                    mesh.setSkin(skinForMesh[m], joints, weights);
+                }
+                meshes.add(mesh);
+            }
+        }
+        return meshes;
+    }
+
+    /**
+     * Drops influences of joints outside the skin and rescales each vertex's weights to
+     * sum to one, as exporters do not always; the skinning loop relies on both.
+     */
+    static void normaliseWeights(int[] joints, float[] weights, int vertexCount, int jointCount) {
+        if (joints.length < vertexCount * 4 || weights.length < vertexCount * 4) {
+            throw new IllegalArgumentException("Skin attributes shorter than POSITION");
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            float total = 0f;
+            for (int k = v * 4; k < v * 4 + 4; k++) {
+                if (joints[k] < 0 || joints[k] >= jointCount || !(weights[k] > 0f)) {
+                    joints[k] = 0;
+                    weights[k] = 0f;
+                }
+                total += weights[k];
+            }
+            if (total > 0f && total != 1f) {
+                for (int k = v * 4; k < v * 4 + 4; k++) {
+                    weights[k] /= total;
+                }
+            }
+        }
+    }
+
+    // Skins are attached to nodes, not meshes; the first node that pairs them wins
+    private int[] skinForMesh(int meshCount) {
+        int[] skinForMesh = new int[meshCount];
+        Arrays.fill(skinForMesh, -1);
+        JSONArray nodes = gltf.optJSONArray("nodes");
+        if (nodes == null) {
+            return skinForMesh;
+        }
+        for (int n = 0; n < nodes.length(); n++) {
+            JSONObject node = nodes.getJSONObject(n);
+            int mesh = node.optInt("mesh", -1);
+            int skin = node.optInt("skin", -1);
+            if (mesh >= 0 && mesh < meshCount && skin >= 0 && skinForMesh[mesh] < 0) {
+                skinForMesh[mesh] = skin;
+            }
+        }
+        return skinForMesh;
+    }
+
+    private List<ModelAsset.Skin> readSkins() {
+        List<ModelAsset.Skin> skins = new ArrayList<>();
+        JSONArray skinArray = gltf.optJSONArray("skins");
+        if (skinArray == null) {
+            return skins;
+        }
+
+        JSONArray nodes = gltf.optJSONArray("nodes");
+        for (int s = 0; s < skinArray.length(); s++) {
+            JSONObject skin = skinArray.getJSONObject(s);
+            JSONArray joints = skin.getJSONArray("joints");
+            String[] jointNames = new String[joints.length()];
+            for (int j = 0; j < jointNames.length; j++) {
+                JSONObject node = nodes != null ? nodes.optJSONObject(joints.getInt(j)) : null;
+                jointNames[j] = node != null ? node.optString("name", "") : "";
+            }
+
+            float[] inverseBind;
+            if (skin.has("inverseBindMatrices")) {
+                inverseBind = readFloats(skin.getInt("inverseBindMatrices"));
+            } else {
+                inverseBind = new float[jointNames.length * 16];
+                for (int j = 0; j < jointNames.length; j++) {
+                    SkinningEngine.setIdentity(inverseBind, j * 16);
+                }
+            }
+            skins.add(new ModelAsset.Skin(jointNames, inverseBind));
+        }
+        return skins;
+    }
+
+    private List<ByteBuffer> readTextures() {
+        List<ByteBuffer> textures = new ArrayList<>();
+        JSONArray images = gltf.optJSONArray("images");
+        if (images == null) {
+            return textures;
+        }
+
+        for (int i = 0; i < images.length(); i++) {
+            JSONObject image = images.getJSONObject(i);
+            if (!image.has("bufferView")) {
+                continue; // External URIs are not resolved here
+            }
+            textures.add(bufferViewSlice(image.getInt("bufferView")));
+        }
+        return textures;
+    }
+
+    private List<ModelAsset.Material> readMaterials() {
+        List<ModelAsset.Material> materials = new ArrayList<>();
+        JSONArray materialArray = gltf.optJSONArray("materials");
+        if (materialArray == null) {
+            return materials;
+        }
+
+        for (int i = 0; i < materialArray.length(); i++) {
+            JSONObject material = materialArray.getJSONObject(i);
+            JSONObject pbr = material.optJSONObject("pbrMetallicRoughness");
+            if (pbr == null) {
+                pbr = new JSONObject();
+            }
+            String alphaMode = material.optString("alphaMode", "OPAQUE");
+            StringBuilder key = new StringBuilder(alphaMode);
+            if (alphaMode.equals("MASK")) {
+                key.append(' ').append(material.optDouble("alphaCutoff", 0.5));
+            }
+            key.append(material.optBoolean("doubleSided", false) ? "|double" : "|single");
+            key.append("|base ").append(factors(pbr.optJSONArray("baseColorFactor"), 1, 4))
+                    .append(' ').append(textureKey(pbr.optJSONObject("baseColorTexture")));
+            key.append("|mr ").append(pbr.optDouble("metallicFactor", 1)).append(' ')
+                    .append(pbr.optDouble("roughnessFactor", 1)).append(' ')
+                    .append(textureKey(pbr.optJSONObject("metallicRoughnessTexture")));
+            key.append("|normal ").append(textureKey(material.optJSONObject("normalTexture")));
+            key.append("|occlusion ").append(textureKey(material.optJSONObject("occlusionTexture")));
+            key.append("|emissive ").append(factors(material.optJSONArray("emissiveFactor"), 0, 3))
+                    .append(' ').append(textureKey(material.optJSONObject("emissiveTexture")));
+            JSONObject extensions = material.optJSONObject("extensions");
+            if (extensions != null) {
+                // Extension settings change the shader, so any difference splits the batch
+                List<String> names = new ArrayList<>();
+                for (Iterator<String> it = extensions.keys(); it.hasNext(); ) {
+                    names.add(it.next());
+                }
+                Collections.sort(names);
+                for (String name : names) {
+                    key.append('|').append(name).append(' ').append(extensions.get(name));
+                }
+            }
+            materials.add(new ModelAsset.Material(material.optString("name", ""), key.toString()));
+        }
+        return materials;
+    }
+
+    private static String factors(JSONArray values, double fallback, int count) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            out.append(i == 0 ? "" : ",").append(values != null ? values.optDouble(i, fallback) : fallback);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Identifies a texture by its image content and sampler rather than its index, so
+     * the same texture embedded in two files matches.
+     */
+    private String textureKey(JSONObject textureInfo) {
+        if (textureInfo == null) {
+            return "-";
+        }
+        JSONArray textures = gltf.getJSONArray("textures");
+        JSONObject texture = textures.getJSONObject(textureInfo.getInt("index"));
+        StringBuilder key = new StringBuilder();
+        key.append("uv").append(textureInfo.optInt("texCoord", 0));
+        if (textureInfo.has("scale")) {
+            key.append(" scale ").append(textureInfo.optDouble("scale"));
+        }
+        if (texture.has("sampler")) {
+            key.append(' ').append(gltf.getJSONArray("samplers").getJSONObject(texture.getInt("sampler")));
+        }
+        if (!texture.has("source")) {
+            return key.append(" none").toString();
+        }
+        JSONObject image = gltf.getJSONArray("images").getJSONObject(texture.getInt("source"));
+        if (!image.has("bufferView")) {
+            return key.append(" uri ").append(image.optString("uri")).toString();
+        }
+        ByteBuffer bytes = bufferViewSlice(image.getInt("bufferView"));
+        CRC32 crc = new CRC32();
+        int length = bytes.remaining();
+        byte[] chunk = new byte[Math.min(length, 8192)];
+        while (bytes.hasRemaining()) {
+            int n = Math.min(chunk.length, bytes.remaining());
+            bytes.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        return key.append(" image ").append(length).append(':').append(Long.toHexString(crc.getValue())).toString();
+    }
+
+    private ByteBuffer bufferViewSlice(int viewIndex) {
+        JSONObject view = gltf.getJSONArray("bufferViews").getJSONObject(viewIndex);
+        int offset = view.optInt("byteOffset", 0);
+        int length = view.getInt("byteLength");
+
+        ByteBuffer slice = requireBin().duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Reads an accessor as floats, applying normalisation for integer components. */
+    float[] readFloats(int accessorIndex) {
+        JSONObject accessor = gltf.getJSONArray("accessors").getJSONObject(accessorIndex);
+        int count = accessor.getInt("count");
+        int components = componentCount(accessor.getString("type"));
+        int componentType = accessor.getInt("componentType");
+        boolean normalized = accessor.optBoolean("normalized", false);
+
+        float[] out = new float[count * components];
+        if (!accessor.has("bufferView")) {
+            return out; // Sparse-only or zero-initialised accessor
+        }
+
+        ByteBuffer view = bufferViewSlice(accessor.getInt("bufferView"));
+        int base = accessor.optInt("byteOffset", 0);
+        int elementSize = components * componentSize(componentType);
+        int stride = byteStride(accessor.getInt("bufferView"), elementSize);
+
+        for (int i = 0; i < count; i++) {
+            int at = base + i * stride;
+            for (int c = 0; c < components; c++) {
+                out[i * components + c] = readComponentAsFloat(view, at, c, componentType, normalized);
+            }
+        }
+        return out;
+    }
+
+    /** Reads an integer accessor (indices, joint indices) without conversion. */
+    int[] readInts(int accessorIndex) {
+        JSONObject accessor = gltf.getJSONArray("accessors").getJSONObject(accessorIndex);
+        int count = accessor.getInt("count");
+        int components = componentCount(accessor.getString("type"));
+        int componentType = accessor.getInt("componentType");
+
+        int[] out = new int[count * components];
+        if (!accessor.has("bufferView")) {
+            return out;
+        }
+
+        ByteBuffer view = bufferViewSlice(accessor.getInt("bufferView"));
+        int base = accessor.optInt("byteOffset", 0);
+        int size = componentSize(componentType);
+        int stride = byteStride(accessor.getInt("bufferView"), components * size);
+
+        for (int i = 0; i < count; i++) {
+            int at = base + i * stride;
+            for (int c = 0; c < components; c++) {
+                int pos = at + c * size;
+                int value;
+                switch (componentType) {
+                    case COMPONENT_UNSIGNED_BYTE:
+                        value = view.get(pos) & 0xFF;
+                        break;
+                    case COMPONENT_UNSIGNED_SHORT:
+                        value = view.getShort(pos) & 0xFFFF;
+                        break;
+                    case COMPONENT_UNSIGNED_INT:
+                        value = view.getInt(pos);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported integer component type: " + componentType);
+                }
+                out[i * components + c] = value;
+            }
+        }
+        return out;
+    }
+
+    private int byteStride(int viewIndex, int elementSize) {
+        JSONObject view = gltf.getJSONArray("bufferViews").getJSONObject(viewIndex);
+        int stride = view.optInt("byteStride", 0);
+        return stride > 0 ? stride : elementSize;
+    }
+
+    private ByteBuffer requireBin() {
+        if (bin == null) {
+            throw new IllegalArgumentException("GLB references buffer data but has no BIN chunk");
+        }
+        return bin;
+    }
+
+    private static float readComponentAsFloat(ByteBuffer view, int at, int component, int componentType, boolean normalized) {
+        switch (componentType) {
+            case COMPONENT_FLOAT:
+                return view.getFloat(at + component * 4);
+            case COMPONENT_UNSIGNED_BYTE: {
+                int v = view.get(at + component) & 0xFF;
+                return normalized ? v / 255f : v;
+            }
+            case COMPONENT_BYTE: {
+                int v = view.get(at + component);
+                return normalized ? Math.max(v / 127f, -1f) : v;
+            }
+            case COMPONENT_UNSIGNED_SHORT: {
+                int v = view.getShort(at + component * 2) & 0xFFFF;
+                return normalized ? v / 65535f : v;
+            }
+            case COMPONENT_SHORT: {
+                int v = view.getShort(at + component * 2);
+                return normalized ? Math.max(v / 32767f, -1f) : v;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported component type: " + componentType);
+        }
+    }
+
+    static int componentCount(String type) {
+        switch (type) {
+            case "SCALAR": return 1;
+            case "VEC2": return 2;
+            case "VEC3": return 3;
+            case "VEC4": return 4;
+            case "MAT2": return 4;
+            case "MAT3": return 9;
+            case "MAT4": return 16;
+            default:
+                throw new IllegalArgumentException("Unknown accessor type: " + type);
+        }
+    }
+
+    static int componentSize(int componentType) {
+        switch (componentType) {
+            case COMPONENT_BYTE:
+            case COMPONENT_UNSIGNED_BYTE:
+                return 1;
+            case COMPONENT_SHORT:
+            case COMPONENT_UNSIGNED_SHORT:
+                return 2;
+            case COMPONENT_UNSIGNED_INT:
+            case COMPONENT_FLOAT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unknown component type: " + componentType);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.ar.vuforia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Local image-target recognition over a set of hot-swappable datasets.
+ *
+ * Each {@link TargetDataset} owns a {@link DescriptorIndex}. Datasets are loaded and
+ * indexed on a background thread while recognition keeps running against the
+ * current active set; activation then replaces the active set with a single
+ * volatile write, so tracking never pauses. Several datasets may stay resident under
+ * a memory budget; the least recently used ones are deactivated and evicted first.
+ */
+final class ImageTargetEngine {
+    static final int MIN_TARGET_FEATURES = 40;
+    static final int MAX_MATCH_DISTANCE = 64; // Bits out of 256
+    static final float RATIO = 0.8f;
+    static final int MIN_MATCHES = 12;
+
+    static final String DEFAULT_DATASET = "default";
+    static final long DEFAULT_MEMORY_BUDGET_BYTES = 48L * 1024 * 1024;
+
+    /** Receives the reference images of a dataset while it is being built. */
+    interface TargetSink {
+        void add(String id, String name, LumaImage image);
+    }
+
+    /** Produces the reference images of a dataset; runs on the loader thread. */
+    interface DatasetSource {
+        void load(TargetSink sink) throws IOException;
+    }
+
+    /** Result of {@link #activate}; runs on the loader thread, {@code dataset} null on error. */
+    interface Activation {
+        void done(TargetDataset dataset, Exception error);
+    }
+
+    static final class Match {
+        final TargetDataset.Target target;
+        final int matches;
+        final float score;
+        final float[] position; // Metres in camera space, or null without a pose
+        final float[] rotation; // Unit quaternion x, y, z, w, or null without a pose
+
+        Match(TargetDataset.Target target, int matches, float score) {
+            this(target, matches, score, null, null);
+        }
+
+        Match(TargetDataset.Target target, int matches, float score, float[] position, float[] rotation) {
+            this.target = target;
+            this.matches = matches;
+            this.score = score;
+            this.position = position;
+            this.rotation = rotation;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("targetId", target.id);
+            map.put("name", target.name);
+            map.put("dataset", target.dataset);
+            map.put("matches", matches);
+            map.put("score", (double) score);
+            if (position != null && rotation != null) {
+                map.put("position", toList(position));
+                map.put("rotation", toList(rotation));
+            }
+            return map;
+        }
+
+        private static List<Double> toList(float[] values) {
+            List<Double> list = new ArrayList<>(values.length);
+            for (float value : values) {
+                list.add((double) value);
+            }
+            return list;
+        }
+    }
+
+    private final Map<String, TargetDataset> resident = new LinkedHashMap<>(); // Guarded by itself
+    private final Map<String, FutureTask<TargetDataset>> loading = new HashMap<>(); // Guarded by resident
+    private volatile TargetDataset[] active = new TargetDataset[0];
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dataset-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES;
+
+    private final ThreadLocal<QueryState> queryState = ThreadLocal.withInitial(QueryState::new);
+    private final LatencyStats queryLatency = new LatencyStats(128);
+    private final LatencyStats activationLatency = new LatencyStats(32);
+    private final LatencyStats trackingGap = new LatencyStats(32);
+    private volatile List<Match> latestResults = Collections.emptyList();
+    private volatile long swapNanos; // Set when the active set changes, cleared by the next recognition
+    private volatile long lastRecognitionNanos;
+    private volatile int evictions;
+
+    /** Extractor settings for reference images: more points and scales than for frames. */
+    static FeatureExtractor newTargetExtractor() {
+        return new FeatureExtractor(500, 4, 1.3f, 20);
+    }
+
+    static FeatureExtractor newFrameExtractor() {
+        return new FeatureExtractor(300, 3, 1.3f, 20);
+    }
+
+    void setMemoryBudget(long bytes) {
+        memoryBudgetBytes = bytes;
+        synchronized (resident) {
+            enforceBudget(null, true);
+        }
+    }
+
+    /**
+     * Extracts and indexes a reference image into {@code datasetKey}, replacing any
+     * target with the same id. A dataset that does not exist yet is created and
+     * activated.
+     *
+     * @throws IllegalArgumentException if the image has too little texture to track
+     */
+    TargetDataset.Target addTarget(String datasetKey, String id, String name, LumaImage image) {
+        FeatureExtractor.Features features = extractTarget(id, image, newTargetExtractor());
+
+        // Under the lock, so the budget cannot evict the dataset between lookup and add
+        synchronized (resident) {
+            TargetDataset dataset = resident.get(datasetKey);
+            if (dataset == null) {
+                dataset = new TargetDataset(datasetKey);
+                resident.put(datasetKey, dataset);
+                swapActive(withDataset(active, dataset));
+            }
+            TargetDataset.Target target = dataset.add(id, name, features, image.width, image.height);
+            enforceBudget(datasetKey, true);
+            return target;
+        }
+    }
+
+    private static FeatureExtractor.Features extractTarget(String id, LumaImage image, FeatureExtractor extractor) {
+        FeatureExtractor.Features features = extractor.extract(image);
+        if (features.count < MIN_TARGET_FEATURES) {
+            throw new IllegalArgumentException("Image target " + id + " has too few features ("
+                    + features.count + ", need " + MIN_TARGET_FEATURES + ")");
+        }
+        return features;
+    }
+
+    /** Removes a target from whichever resident dataset holds it. */
+    boolean removeTarget(String id) {
+        List<TargetDataset> datasets;
+        synchronized (resident) {
+            datasets = new ArrayList<>(resident.values());
+        }
+        boolean removed = false;
+        for (TargetDataset dataset : datasets) {
+            removed |= dataset.remove(id);
+        }
+        return removed;
+    }
+
+    /** Targets of the active datasets. */
+    List<TargetDataset.Target> getTargets() {
+        List<TargetDataset.Target> targets = new ArrayList<>();
+        for (TargetDataset dataset : active) {
+            targets.addAll(dataset.getTargets());
+        }
+        return targets;
+    }
+
+    int getTargetCount() {
+        int count = 0;
+        for (TargetDataset dataset : active) {
+            count += dataset.getTargetCount();
+        }
+        return count;
+    }
+
+    /**
+     * Starts building a dataset in the background unless it is already resident or
+     * loading. Recognition is unaffected until the dataset is activated.
+     */
+    Future<TargetDataset> preload(String key, DatasetSource source) {
+        synchronized (resident) {
+            TargetDataset dataset = resident.get(key);
+            if (dataset != null) {
+                FutureTask<TargetDataset> done = new FutureTask<>(() -> dataset);
+                done.run();
+                return done;
+            }
+            FutureTask<TargetDataset> pending = loading.get(key);
+            if (pending != null) {
+                return pending;
+            }
+            if (source == null) {
+                throw new IllegalArgumentException("Unknown dataset: " + key);
+            }
+
+            FutureTask<TargetDataset> task = new FutureTask<>(buildTask(key, source));
+            loading.put(key, task);
+            loader.execute(task);
+            return task;
+        }
+    }
+
+    private Callable<TargetDataset> buildTask(String key, DatasetSource source) {
+        return () -> {
+            TargetDataset dataset = new TargetDataset(key);
+            FeatureExtractor extractor = newTargetExtractor();
+            try {
+                source.load((id, name, image) ->
+                        dataset.add(id, name, extractTarget(id, image, extractor), image.width, image.height));
+            } catch (Throwable t) {
+                synchronized (resident) {
+                    loading.remove(key);
+                }
+                throw t;
+            }
+            synchronized (resident) {
+                loading.remove(key);
+                resident.put(key, dataset);
+                // The current set keeps tracking; the activate swap evicts it if need be
+                enforceBudget(key, false);
+            }
+            return dataset;
+        };
+    }
+
+    /**
+     * Makes a dataset active, loading it first if needed, and reports to
+     * {@code activation} once the swap is done. With {@code exclusive} every other
+     * dataset is deactivated in the same swap. Blocks neither the caller nor the tracker.
+     */
+    void activate(String key, DatasetSource source, boolean exclusive, Activation activation) {
+        long start = System.nanoTime();
+        try {
+            Future<TargetDataset> pending = preload(key, source);
+            // The loader runs its tasks in order, so the load is done when this runs
+            loader.execute(() -> {
+                TargetDataset dataset;
+                try {
+                    dataset = await(pending);
+                    swapIn(key, dataset, exclusive);
+                } catch (IOException | RuntimeException e) {
+                    activation.done(null, e);
+                    return;
+                }
+                activationLatency.record(System.nanoTime() - start);
+                activation.done(dataset, null);
+            });
+        } catch (RuntimeException e) {
+            // Unknown dataset or the engine shut down
+            activation.done(null, e);
+        }
+    }
+
+    private void swapIn(String key, TargetDataset dataset, boolean exclusive) {
+        synchronized (resident) {
+            if (!resident.containsKey(key)) {
+                // Evicted between load and activation; put it back
+                resident.put(key, dataset);
+            }
+            TargetDataset[] next = exclusive ? new TargetDataset[]{dataset} : withDataset(active, dataset);
+            dataset.lastUsedNanos = System.nanoTime();
+            swapActive(next);
+            enforceBudget(key, true);
+        }
+    }
+
+    /** Removes a dataset from the active set; it stays resident until evicted. */
+    boolean deactivate(String key) {
+        synchronized (resident) {
+            TargetDataset[] current = active;
+            List<TargetDataset> next = new ArrayList<>();
+            for (TargetDataset dataset : current) {
+                if (!dataset.getKey().equals(key)) {
+                    next.add(dataset);
+                }
+            }
+            if (next.size() == current.length) {
+                return false;
+            }
+            swapActive(next.toArray(new TargetDataset[0]));
+            return true;
+        }
+    }
+
+    /** Deactivates and drops every resident dataset whose key starts with {@code prefix}. */
+    int unload(String prefix) {
+        synchronized (resident) {
+            List<String> keys = new ArrayList<>();
+            for (String key : resident.keySet()) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            for (String key : keys) {
+                deactivate(key);
+                resident.remove(key);
+            }
+            return keys.size();
+        }
+    }
+
+    private void swapActive(TargetDataset[] next) {
+        swapNanos = System.nanoTime();
+        active = next;
+    }
+
+    private static TargetDataset[] withDataset(TargetDataset[] current, TargetDataset dataset) {
+        for (TargetDataset existing : current) {
+            if (existing == dataset) {
+                return current;
+            }
+        }
+        TargetDataset[] next = new TargetDataset[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = dataset;
+        return next;
+    }
+
+    // Caller holds the resident lock. Inactive datasets go first, then active ones if
+    // allowed, LRU order. Without evictActive the budget may stay exceeded.
+    private void enforceBudget(String protectedKey, boolean evictActive) {
+        long total = 0;
+        for (TargetDataset dataset : resident.values()) {
+            total += dataset.getMemoryBytes();
+        }
+
+        while (total > memoryBudgetBytes) {
+            TargetDataset victim = leastRecentlyUsed(protectedKey, false);
+            if (victim == null && evictActive) {
+                victim = leastRecentlyUsed(protectedKey, true);
+            }
+            if (victim == null) {
+                break;
+            }
+            deactivate(victim.getKey());
+            resident.remove(victim.getKey());
+            total -= victim.getMemoryBytes();
+            evictions++;
+        }
+    }
+
+    private TargetDataset leastRecentlyUsed(String protectedKey, boolean activeOnes) {
+        TargetDataset[] current = active;
+        TargetDataset victim = null;
+        for (TargetDataset dataset : resident.values()) {
+            if (dataset.getKey().equals(protectedKey)) {
+                continue;
+            }
+            boolean isActive = false;
+            for (TargetDataset a : current) {
+                isActive |= a == dataset;
+            }
+            if (isActive != activeOnes) {
+                continue;
+            }
+            if (victim == null || dataset.lastUsedNanos < victim.lastUsedNanos) {
+                victim = dataset;
+            }
+        }
+        return victim;
+    }
+
+    /** Recognises targets in a frame and remembers the result for {@link #getLatestResults}. */
+    List<Match> recognize(LumaImage frame) {
+        long start = System.nanoTime();
+        TargetDataset[] datasets = active; // One snapshot per frame
+        long swap = swapNanos;
+
+        QueryState state = queryState.get();
+        state.extractor.extract(frame, state.features);
+        List<Match> results = new ArrayList<>();
+        for (TargetDataset dataset : datasets) {
+            dataset.match(state.features, state.scratch, results);
+        }
+        Collections.sort(results, (a, b) -> Integer.compare(b.matches, a.matches));
+
+        long end = System.nanoTime();
+        queryLatency.record(end - start);
+        if (swap != 0 && start >= swap && lastRecognitionNanos != 0) {
+            // First result from the new active set: how long since the previous result
+            trackingGap.record(end - lastRecognitionNanos);
+            swapNanos = 0;
+        }
+        lastRecognitionNanos = end;
+        latestResults = results;
+        return results;
+    }
+
+    List<Match> getLatestResults() {
+        return latestResults;
+    }
+
+    LatencyStats getQueryLatency() {
+        return queryLatency;
+    }
+
+    /** Time from an activation request to the swap, including any background load. */
+    LatencyStats getActivationLatency() {
+        return activationLatency;
+    }
+
+    /** Interval between the last result before a swap and the first one after it. */
+    LatencyStats getTrackingGap() {
+        return trackingGap;
+    }
+
+    long getIndexMemoryBytes() {
+        long total = 0;
+        synchronized (resident) {
+            for (TargetDataset dataset : resident.values()) {
+                total += dataset.getMemoryBytes();
+            }
+        }
+        return total;
+    }
+
+    Map<String, Object> getDatasetStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<String> activeKeys = new ArrayList<>();
+        for (TargetDataset dataset : active) {
+            activeKeys.add(dataset.getKey());
+        }
+        synchronized (resident) {
+            stats.put("resident", new ArrayList<>(resident.keySet()));
+            stats.put("loading", new ArrayList<>(loading.keySet()));
+        }
+        stats.put("active", activeKeys);
+        stats.put("memoryBytes", getIndexMemoryBytes());
+        stats.put("memoryBudgetBytes", memoryBudgetBytes);
+        stats.put("evictions", evictions);
+        stats.put("activationMs", activationLatency.toMap());
+        stats.put("trackingGapMs", trackingGap.toMap());
+        return stats;
+    }
+
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private static TargetDataset await(Future<TargetDataset> future) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class QueryState {
+        final FeatureExtractor extractor = newFrameExtractor();
+        final FeatureExtractor.Features features = new FeatureExtractor.Features(300);
+        final TargetDataset.MatchScratch scratch = new TargetDataset.MatchScratch();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latency recorder over a sliding window of the most recent samples.
+ *
+ * Recording is allocation-free; percentiles are computed on demand from a copy of
+ * the window. Thread-safe.
+ */
+final class LatencyStats {
+    private final long[] window;
+    private int next;
+    private int filled;
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    LatencyStats(int windowSize) {
+        this.window = new long[windowSize];
+    }
+
+    synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        if (filled < window.length) {
+            filled++;
+        }
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    synchronized double getMeanMillis() {
+        return count == 0 ? 0.0 : totalNanos / (double) count / 1_000_000.0;
+    }
+
+    synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    /** Percentile over the current window, e.g. {@code 0.95}. */
+    double getPercentileMillis(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (filled == 0) {
+                return 0.0;
+            }
+            sorted = Arrays.copyOf(window, filled);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    synchronized void reset() {
+        next = 0;
+        filled = 0;
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("count", getCount());
+        stats.put("meanMs", getMeanMillis());
+        stats.put("p50Ms", getPercentileMillis(0.50));
+        stats.put("p95Ms", getPercentileMillis(0.95));
+        stats.put("p99Ms", getPercentileMillis(0.99));
+        stats.put("maxMs", getMaxMillis());
+        return stats;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+
+/** 8-bit greyscale image, row-major with no padding. */
+final class LumaImage {
+    final int width;
+    final int height;
+    final byte[] pixels;
+
+    LumaImage(int width, int height) {
+        this(width, height, new byte[width * height]);
+    }
+
+    LumaImage(int width, int height, byte[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixel buffer too small for " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    int get(int x, int y) {
+        return pixels[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Copies a camera Y plane, keeping every {@code step}-th pixel in both directions.
+     * Reuses {@code reuse} when it already has the right size.
+     */
+    static LumaImage fromPlane(ByteBuffer plane, int width, int height, int rowStride, int step, LumaImage reuse) {
+        int outWidth = width / step;
+        int outHeight = height / step;
+        LumaImage out = reuse != null && reuse.width == outWidth && reuse.height == outHeight
+                ? reuse : new LumaImage(outWidth, outHeight);
+
+        int base = plane.position();
+        for (int y = 0; y < outHeight; y++) {
+            int row = base + y * step * rowStride;
+            int dst = y * outWidth;
+            if (step == 1) {
+                for (int x = 0; x < outWidth; x++) {
+                    out.pixels[dst + x] = plane.get(row + x);
+                }
+            } else {
+                for (int x = 0; x < outWidth; x++) {
+                    out.pixels[dst + x] = plane.get(row + x * step);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Converts packed ARGB pixels (as returned by {@code Bitmap.getPixels}) to luma. */
+    static LumaImage fromArgb(int[] argb, int width, int height) {
+        LumaImage out = new LumaImage(width, height);
+        for (int i = 0; i < width * height; i++) {
+            int c = argb[i];
+            int r = (c >> 16) & 0xFF;
+            int g = (c >> 8) & 0xFF;
+            int b = c & 0xFF;
+            out.pixels[i] = (byte) ((77 * r + 150 * g + 29 * b) >> 8);
+        }
+        return out;
+    }
+
+    /** Bilinear resize. */
+    LumaImage resize(int newWidth, int newHeight) {
+        LumaImage out = new LumaImage(newWidth, newHeight);
+        float sx = width / (float) newWidth;
+        float sy = height / (float) newHeight;
+        for (int y = 0; y < newHeight; y++) {
+            float fy = Math.max(0f, (y + 0.5f) * sy - 0.5f);
+            int y0 = Math.min((int) fy, height - 1);
+            int y1 = Math.min(y0 + 1, height - 1);
+            float wy = fy - y0;
+            for (int x = 0; x < newWidth; x++) {
+                float fx = Math.max(0f, (x + 0.5f) * sx - 0.5f);
+                int x0 = Math.min((int) fx, width - 1);
+                int x1 = Math.min(x0 + 1, width - 1);
+                float wx = fx - x0;
+                float top = get(x0, y0) + (get(x1, y0) - get(x0, y0)) * wx;
+                float bottom = get(x0, y1) + (get(x1, y1) - get(x0, y1)) * wx;
+                out.pixels[y * newWidth + x] = (byte) Math.round(top + (bottom - top) * wy);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ar.vuforia;
+
+import java.util.List;
+
+/** Decoding of method-channel arguments shared by the plugin handlers. */
+final class MethodArgs {
+    private MethodArgs() {
+    }
+
+    /**
+     * A 3-component vector sent from Dart as a list of numbers, or null when the
+     * argument is absent. Dart may send ints as well as doubles.
+     */
+    static float[] readVector(Object value, String key) {
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> list = (List<?>) value;
+        if (list.size() < 3) {
+            throw new IllegalArgumentException(key + " must have 3 components");
+        }
+        return new float[]{
+            ((Number) list.get(0)).floatValue(),
+            ((Number) list.get(1)).floatValue(),
+            ((Number) list.get(2)).floatValue()
+        };
+    }
+}
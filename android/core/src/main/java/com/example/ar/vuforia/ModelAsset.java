@@ -0,0 +1,194 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decoded mesh and texture data for one model source file.
+ *
+ * A single instance is shared by every {@link VuforiaARManager} model id that was
+ * loaded from the same path; its lifetime is owned by {@link ModelAssetCache}.
+ */
+final class ModelAsset {
+    private final String sourcePath;
+    private volatile List<Mesh> meshes;
+    private volatile List<ByteBuffer> textures;
+    private volatile List<Skin> skins;
+    private final List<Material> materials;
+    private final long decodedBytes;
+    private final float[] bounds; // Min xyz, max xyz of all primitives in the bind pose; kept after release
+    private volatile boolean released;
+
+    ModelAsset(String sourcePath, List<Mesh> meshes, List<ByteBuffer> textures, List<Skin> skins,
+               List<Material> materials) {
+        this.sourcePath = sourcePath;
+        this.materials = Collections.unmodifiableList(materials);
+        this.meshes = Collections.unmodifiableList(meshes);
+        this.textures = Collections.unmodifiableList(textures);
+        this.skins = Collections.unmodifiableList(skins);
+
+        long bytes = 0;
+        for (Mesh mesh : meshes) {
+            bytes += mesh.getDecodedBytes();
+        }
+        for (ByteBuffer texture : textures) {
+            bytes += texture.remaining();
+        }
+        for (Skin skin : skins) {
+            bytes += skin.getInverseBindMatrices().length * 4L;
+        }
+        this.decodedBytes = bytes;
+        this.bounds = computeBounds(meshes);
+    }
+
+    private static float[] computeBounds(List<Mesh> meshes) {
+        float[] bounds = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (Mesh mesh : meshes) {
+            float[] positions = mesh.getPositions();
+            for (int i = 0; i + 2 < positions.length; i += 3) {
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[axis] = Math.min(bounds[axis], positions[i + axis]);
+                    bounds[axis + 3] = Math.max(bounds[axis + 3], positions[i + axis]);
+                }
+            }
+        }
+        if (bounds[0] > bounds[3]) {
+            return new float[6]; // No vertices: a point at the origin
+        }
+        return bounds;
+    }
+
+    public String getSourcePath() { return sourcePath; }
+    public List<Mesh> getMeshes() { return meshes; }
+    public List<ByteBuffer> getTextures() { return textures; }
+    public List<Skin> getSkins() { return skins; }
+    public long getDecodedBytes() { return decodedBytes; }
+    public float[] getBounds() { return bounds; }
+    public List<Material> getMaterials() { return materials; }
+
+    /** Batch key of a primitive's material; primitives without one share {@link Material#DEFAULT_KEY}. */
+    public String getMaterialKey(int materialIndex) {
+        return materialIndex >= 0 && materialIndex < materials.size()
+                ? materials.get(materialIndex).getBatchKey() : Material.DEFAULT_KEY;
+    }
+    public boolean isReleased() { return released; }
+
+    public int getVertexCount() {
+        int count = 0;
+        for (Mesh mesh : meshes) {
+            count += mesh.getVertexCount();
+        }
+        return count;
+    }
+
+    /** Drops all decoded data. Called by the cache once the last user is gone. */
+    void release() {
+        released = true;
+        meshes = Collections.emptyList();
+        textures = Collections.emptyList();
+        skins = Collections.emptyList();
+    }
+
+    public boolean isSkinned() {
+        for (Mesh mesh : meshes) {
+            if (mesh.isSkinned()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** One glTF mesh primitive with de-interleaved vertex attributes. */
+    static final class Mesh {
+        private final int meshIndex;
+        private final float[] positions;
+        private final float[] normals;
+        private final float[] uvs;
+        private final int[] indices;
+        private final int materialIndex;
+        private final int mode; // glTF primitive mode, see ModelInfo.PRIMITIVE_*
+        private int skinIndex = -1;
+        private int[] joints; // 4 per vertex, indices into the skin's joint list
+        private float[] weights; // 4 per vertex
+
+        Mesh(int meshIndex, float[] positions, float[] normals, float[] uvs, int[] indices, int materialIndex) {
+            this(meshIndex, positions, normals, uvs, indices, materialIndex, ModelInfo.PRIMITIVE_TRIANGLES);
+        }
+
+        Mesh(int meshIndex, float[] positions, float[] normals, float[] uvs, int[] indices, int materialIndex,
+             int mode) {
+            this.meshIndex = meshIndex;
+            this.positions = positions;
+            this.normals = normals;
+            this.uvs = uvs;
+            this.indices = indices;
+            this.materialIndex = materialIndex;
+            this.mode = mode;
+        }
+
+        public int getMeshIndex() { return meshIndex; }
+        public float[] getPositions() { return positions; }
+        public float[] getNormals() { return normals; }
+        public float[] getUvs() { return uvs; }
+        public int[] getIndices() { return indices; }
+        public int getMaterialIndex() { return materialIndex; }
+        public int getMode() { return mode; }
+        public int getVertexCount() { return positions.length / 3; }
+        public int getSkinIndex() { return skinIndex; }
+        public int[] getJoints() { return joints; }
+        public float[] getWeights() { return weights; }
+        public boolean isSkinned() { return skinIndex >= 0; }
+
+        void setSkin(int skinIndex, int[] joints, float[] weights) {
+            this.skinIndex = skinIndex;
+            this.joints = joints;
+            this.weights = weights;
+        }
+
+        long getDecodedBytes() {
+            long bytes = positions.length * 4L;
+            if (normals != null) bytes += normals.length * 4L;
+            if (uvs != null) bytes += uvs.length * 4L;
+            if (indices != null) bytes += indices.length * 4L;
+            if (joints != null) bytes += joints.length * 4L;
+            if (weights != null) bytes += weights.length * 4L;
+            return bytes;
+        }
+    }
+
+    /**
+     * One glTF material. Primitives whose materials have the same batch key render
+     * identically, whichever file they come from, and can share a draw call.
+     */
+    static final class Material {
+        static final String DEFAULT_KEY = "default";
+
+        private final String name;
+        private final String batchKey; // Alpha mode, sidedness, factors and texture content
+
+        Material(String name, String batchKey) {
+            this.name = name;
+            this.batchKey = batchKey;
+        }
+
+        public String getName() { return name; }
+        public String getBatchKey() { return batchKey; }
+    }
+
+    /** Joint names and column-major inverse bind matrices of one glTF skin. */
+    static final class Skin {
+        private final String[] jointNames;
+        private final float[] inverseBindMatrices;
+
+        Skin(String[] jointNames, float[] inverseBindMatrices) {
+            this.jointNames = jointNames;
+            this.inverseBindMatrices = inverseBindMatrices;
+        }
+
+        public String[] getJointNames() { return jointNames; }
+        public float[] getInverseBindMatrices() { return inverseBindMatrices; }
+        public int getJointCount() { return jointNames.length; }
+    }
+}
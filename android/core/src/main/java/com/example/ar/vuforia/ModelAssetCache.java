@@ -0,0 +1,177 @@
+package com.example.ar.vuforia;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Shares decoded {@link ModelAsset}s between model ids.
+ *
+ * Loads are single-flight: the first caller for a path runs the loader and every
+ * concurrent caller for the same path waits on that one job and receives the same
+ * asset. Each successful {@link #acquire} takes a reference that must be handed back
+ * with {@link #release}; the asset is freed when the last reference goes.
+ */
+final class ModelAssetCache {
+
+    interface Loader {
+        ModelAsset load(String path) throws IOException;
+    }
+
+    private final Loader loader;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    ModelAssetCache(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the asset for {@code path}, loading it if no other caller has done so yet.
+     * Blocks while a load for the same path is in flight.
+     */
+    ModelAsset acquire(String path) throws IOException {
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(path);
+            if (entry == null) {
+                entry = new Entry(path);
+                entries.put(path, entry);
+                owner = true;
+            }
+            entry.refCount++;
+        }
+
+        if (owner) {
+            entry.task.run();
+        }
+
+        try {
+            return entry.await();
+        } catch (IOException | RuntimeException e) {
+            // A failed load holds no data; forget it so the next call retries
+            synchronized (entries) {
+                entry.refCount--;
+                if (entries.get(path) == entry) {
+                    entries.remove(path);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops one reference to {@code path}. Returns {@code true} if this was the last
+     * reference and the asset was freed.
+     */
+    boolean release(String path) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+            if (entry == null || entry.refCount <= 0) {
+                return false;
+            }
+            entry.refCount--;
+            if (entry.refCount > 0) {
+                return false;
+            }
+            entries.remove(path);
+        }
+
+        ModelAsset asset = entry.getIfLoaded();
+        if (asset != null) {
+            asset.release();
+        }
+        return true;
+    }
+
+    int getRefCount(String path) {
+        synchronized (entries) {
+            Entry entry = entries.get(path);
+            return entry != null ? entry.refCount : 0;
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getDecodedBytes() {
+        long total = 0;
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                ModelAsset asset = entry.getIfLoaded();
+                if (asset != null) {
+                    total += asset.getDecodedBytes();
+                }
+            }
+        }
+        return total;
+    }
+
+    /** Frees every asset regardless of outstanding references. */
+    void clear() {
+        Map<String, Entry> snapshot;
+        synchronized (entries) {
+            snapshot = new HashMap<>(entries);
+            entries.clear();
+        }
+        for (Entry entry : snapshot.values()) {
+            ModelAsset asset = entry.getIfLoaded();
+            if (asset != null) {
+                asset.release();
+            }
+        }
+    }
+
+    private final class Entry {
+        final FutureTask<ModelAsset> task;
+        int refCount; // Guarded by entries
+
+        Entry(String path) {
+            this.task = new FutureTask<>(() -> loader.load(path));
+        }
+
+        ModelAsset await() throws IOException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException e) {
+                        // The load keeps running for the other waiters; just wait it out
+                        interrupted = true;
+                    }
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        ModelAsset getIfLoaded() {
+            if (!task.isDone()) {
+                return null;
+            }
+            try {
+                return task.get();
+            } catch (InterruptedException | ExecutionException e) {
+                return null;
+            }
+        }
+    }
+}
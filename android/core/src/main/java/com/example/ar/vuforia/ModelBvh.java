@@ -0,0 +1,386 @@
+package com.example.ar.vuforia;
+
+import java.util.Arrays;
+
+/**
+ * Dynamic bounding-volume hierarchy over model bounds, for frustum culling.
+ *
+ * Leaves store the model's exact world box plus a fattened copy that the tree is
+ * built from, so a model that moves a little (a garment following the body) only
+ * updates its exact box; it is re-inserted once it leaves the fattened one. As in
+ * Box2D's dynamic tree, inserts pick the sibling with the smallest growth in surface
+ * area and rotations keep the tree balanced, so culling visits a few nodes per model
+ * on screen.
+ *
+ * Nodes live in flat arrays and culling uses a reused stack, so nothing is
+ * allocated per frame. Not thread-safe.
+ */
+final class ModelBvh<T> {
+    /** How far a leaf's fattened box extends past the exact one, in metres. */
+    static final float FAT_MARGIN = 0.05f;
+
+    private static final int NONE = -1;
+
+    interface Visitor<T> {
+        void visit(T item);
+    }
+
+    private float[] fatBoxes; // min xyz, max xyz per node
+    private float[] boxes; // Exact box, leaves only
+    private int[] parents;
+    private int[] lefts; // Also the next link of the free list
+    private int[] rights;
+    private int[] heights; // 0 for leaves, -1 for free nodes
+    private Object[] items;
+    private int root = NONE;
+    private int free = NONE;
+    private int nodeCount;
+    private int leafCount;
+    private long reinsertions;
+    private int[] stack = new int[32];
+
+    ModelBvh() {
+        allocate(16);
+    }
+
+    private void allocate(int capacity) {
+        int old = parents != null ? parents.length : 0;
+        fatBoxes = old > 0 ? Arrays.copyOf(fatBoxes, capacity * 6) : new float[capacity * 6];
+        boxes = old > 0 ? Arrays.copyOf(boxes, capacity * 6) : new float[capacity * 6];
+        parents = old > 0 ? Arrays.copyOf(parents, capacity) : new int[capacity];
+        lefts = old > 0 ? Arrays.copyOf(lefts, capacity) : new int[capacity];
+        rights = old > 0 ? Arrays.copyOf(rights, capacity) : new int[capacity];
+        heights = old > 0 ? Arrays.copyOf(heights, capacity) : new int[capacity];
+        items = old > 0 ? Arrays.copyOf(items, capacity) : new Object[capacity];
+        for (int i = capacity - 1; i >= old; i--) {
+            lefts[i] = free;
+            heights[i] = -1;
+            free = i;
+        }
+    }
+
+    private int allocateNode() {
+        if (free == NONE) {
+            allocate(parents.length * 2);
+        }
+        int node = free;
+        free = lefts[node];
+        parents[node] = NONE;
+        lefts[node] = NONE;
+        rights[node] = NONE;
+        heights[node] = 0;
+        nodeCount++;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        items[node] = null;
+        heights[node] = -1;
+        lefts[node] = free;
+        free = node;
+        nodeCount--;
+    }
+
+    /** Adds {@code item} with the world box min xyz, max xyz. Returns its proxy id. */
+    int insert(T item, float[] box) {
+        int leaf = allocateNode();
+        items[leaf] = item;
+        System.arraycopy(box, 0, boxes, leaf * 6, 6);
+        fatten(leaf);
+        insertLeaf(leaf);
+        leafCount++;
+        return leaf;
+    }
+
+    void remove(int proxy) {
+        removeLeaf(proxy);
+        freeNode(proxy);
+        leafCount--;
+    }
+
+    /**
+     * Updates a leaf's world box. Returns true if it left its fattened box and was
+     * re-inserted; otherwise the tree is unchanged.
+     */
+    boolean move(int proxy, float[] box) {
+        System.arraycopy(box, 0, boxes, proxy * 6, 6);
+        int f = proxy * 6;
+        if (box[0] >= fatBoxes[f] && box[1] >= fatBoxes[f + 1] && box[2] >= fatBoxes[f + 2]
+                && box[3] <= fatBoxes[f + 3] && box[4] <= fatBoxes[f + 4] && box[5] <= fatBoxes[f + 5]) {
+            return false;
+        }
+        removeLeaf(proxy);
+        fatten(proxy);
+        insertLeaf(proxy);
+        reinsertions++;
+        return true;
+    }
+
+    /**
+     * Calls {@code visitor} for every item whose exact box is at least partly inside
+     * {@code frustum}. Subtrees entirely outside are skipped, and children are only
+     * tested against the planes their parent crosses, so subtrees entirely inside are
+     * accepted without tests. Returns the number of nodes visited.
+     */
+    @SuppressWarnings("unchecked")
+    int cull(Frustum frustum, Visitor<T> visitor) {
+        if (root == NONE) {
+            return 0;
+        }
+        int visited = 0;
+        int top = 0;
+        stack[top++] = root << 6 | Frustum.ALL_PLANES; // Node and the planes still to test
+        while (top > 0) {
+            int entry = stack[--top];
+            int node = entry >>> 6;
+            int mask = entry & Frustum.ALL_PLANES;
+            visited++;
+            if (mask != 0) {
+                mask = frustum.clip(fatBoxes, node * 6, mask);
+                if (mask < 0) {
+                    continue;
+                }
+            }
+            if (heights[node] == 0) {
+                if (mask == 0 || frustum.clip(boxes, node * 6, mask) >= 0) {
+                    visitor.visit((T) items[node]);
+                }
+                continue;
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = lefts[node] << 6 | mask;
+            stack[top++] = rights[node] << 6 | mask;
+        }
+        return visited;
+    }
+
+    int size() { return leafCount; }
+    int getNodeCount() { return nodeCount; }
+    int getHeight() { return root != NONE ? heights[root] : 0; }
+    long getReinsertions() { return reinsertions; }
+
+    void clear() {
+        parents = null;
+        root = NONE;
+        free = NONE;
+        nodeCount = 0;
+        leafCount = 0;
+        allocate(16);
+    }
+
+    private void fatten(int leaf) {
+        int f = leaf * 6;
+        for (int i = 0; i < 3; i++) {
+            fatBoxes[f + i] = boxes[f + i] - FAT_MARGIN;
+            fatBoxes[f + 3 + i] = boxes[f + 3 + i] + FAT_MARGIN;
+        }
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NONE) {
+            root = leaf;
+            parents[leaf] = NONE;
+            return;
+        }
+
+        // Descend towards the sibling whose union with the leaf grows the tree least
+        int l = leaf * 6;
+        int sibling = root;
+        while (heights[sibling] > 0) {
+            int left = lefts[sibling];
+            int right = rights[sibling];
+            float area = area(fatBoxes, sibling * 6);
+            float combined = unionArea(fatBoxes, sibling * 6, l);
+            float cost = 2 * combined; // Making a new parent for this node and the leaf
+            float inherited = 2 * (combined - area); // Growth pushed onto every ancestor below
+            float leftCost = descendCost(left, l) + inherited;
+            float rightCost = descendCost(right, l) + inherited;
+            if (cost < leftCost && cost < rightCost) {
+                break;
+            }
+            sibling = leftCost < rightCost ? left : right;
+        }
+
+        int oldParent = parents[sibling];
+        int parent = allocateNode();
+        parents[parent] = oldParent;
+        lefts[parent] = sibling;
+        rights[parent] = leaf;
+        parents[sibling] = parent;
+        parents[leaf] = parent;
+        if (oldParent == NONE) {
+            root = parent;
+        } else if (lefts[oldParent] == sibling) {
+            lefts[oldParent] = parent;
+        } else {
+            rights[oldParent] = parent;
+        }
+        refit(parent);
+    }
+
+    private float descendCost(int child, int leafOffset) {
+        float combined = unionArea(fatBoxes, child * 6, leafOffset);
+        return heights[child] == 0 ? combined : combined - area(fatBoxes, child * 6);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NONE;
+            return;
+        }
+        int parent = parents[leaf];
+        int grandParent = parents[parent];
+        int sibling = lefts[parent] == leaf ? rights[parent] : lefts[parent];
+        if (grandParent == NONE) {
+            root = sibling;
+            parents[sibling] = NONE;
+        } else {
+            if (lefts[grandParent] == parent) {
+                lefts[grandParent] = sibling;
+            } else {
+                rights[grandParent] = sibling;
+            }
+            parents[sibling] = grandParent;
+            refit(grandParent);
+        }
+        freeNode(parent);
+    }
+
+    /** Rebalances and recomputes boxes and heights from {@code node} up to the root. */
+    private void refit(int node) {
+        while (node != NONE) {
+            node = balance(node);
+            join(node, lefts[node], rights[node]);
+            node = parents[node];
+        }
+    }
+
+    /** Sets {@code node}'s box and height from two children. */
+    private void join(int node, int a, int b) {
+        int n = node * 6;
+        for (int i = 0; i < 3; i++) {
+            fatBoxes[n + i] = Math.min(fatBoxes[a * 6 + i], fatBoxes[b * 6 + i]);
+            fatBoxes[n + 3 + i] = Math.max(fatBoxes[a * 6 + 3 + i], fatBoxes[b * 6 + 3 + i]);
+        }
+        heights[node] = 1 + Math.max(heights[a], heights[b]);
+    }
+
+    /**
+     * If one subtree of {@code a} is more than one level taller than the other, lifts
+     * the taller child into {@code a}'s place. Returns the node now at that place.
+     */
+    private int balance(int a) {
+        if (heights[a] < 2) {
+            return a;
+        }
+        int b = lefts[a];
+        int c = rights[a];
+        int skew = heights[c] - heights[b];
+        if (skew > 1) {
+            lift(c, a);
+            int f = lefts[c];
+            int g = rights[c];
+            lefts[c] = a;
+            // a keeps b and takes c's shorter child; c keeps the taller one
+            int keep = heights[f] > heights[g] ? f : g;
+            int give = keep == f ? g : f;
+            rights[c] = keep;
+            rights[a] = give;
+            parents[give] = a;
+            join(a, b, give);
+            join(c, a, keep);
+            return c;
+        }
+        if (skew < -1) {
+            lift(b, a);
+            int d = lefts[b];
+            int e = rights[b];
+            lefts[b] = a;
+            int keep = heights[d] > heights[e] ? d : e;
+            int give = keep == d ? e : d;
+            rights[b] = keep;
+            lefts[a] = give;
+            parents[give] = a;
+            join(a, give, c);
+            join(b, a, keep);
+            return b;
+        }
+        return a;
+    }
+
+    /** Puts {@code child} in place of its parent {@code a}, which becomes its child. */
+    private void lift(int child, int a) {
+        int parent = parents[a];
+        parents[child] = parent;
+        parents[a] = child;
+        if (parent == NONE) {
+            root = child;
+        } else if (lefts[parent] == a) {
+            lefts[parent] = child;
+        } else {
+            rights[parent] = child;
+        }
+    }
+
+    /** Half the surface area of a box; only ever compared. */
+    private static float area(float[] boxes, int offset) {
+        float x = boxes[offset + 3] - boxes[offset];
+        float y = boxes[offset + 4] - boxes[offset + 1];
+        float z = boxes[offset + 5] - boxes[offset + 2];
+        return x * y + y * z + z * x;
+    }
+
+    private static float unionArea(float[] boxes, int a, int b) {
+        float x = Math.max(boxes[a + 3], boxes[b + 3]) - Math.min(boxes[a], boxes[b]);
+        float y = Math.max(boxes[a + 4], boxes[b + 4]) - Math.min(boxes[a + 1], boxes[b + 1]);
+        float z = Math.max(boxes[a + 5], boxes[b + 5]) - Math.min(boxes[a + 2], boxes[b + 2]);
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * Column-major model matrix: scale, then rotation by Euler angles in degrees
+     * applied X, Y, Z, then translation.
+     */
+    static void modelMatrix(float[] out, float[] position, float[] rotation, float[] scale) {
+        double rx = Math.toRadians(rotation[0]), ry = Math.toRadians(rotation[1]), rz = Math.toRadians(rotation[2]);
+        float cx = (float) Math.cos(rx), sx = (float) Math.sin(rx);
+        float cy = (float) Math.cos(ry), sy = (float) Math.sin(ry);
+        float cz = (float) Math.cos(rz), sz = (float) Math.sin(rz);
+        // Columns of Rz * Ry * Rx, each scaled by its axis
+        out[0] = cz * cy * scale[0];
+        out[1] = sz * cy * scale[0];
+        out[2] = -sy * scale[0];
+        out[3] = 0f;
+        out[4] = (cz * sy * sx - sz * cx) * scale[1];
+        out[5] = (sz * sy * sx + cz * cx) * scale[1];
+        out[6] = cy * sx * scale[1];
+        out[7] = 0f;
+        out[8] = (cz * sy * cx + sz * sx) * scale[2];
+        out[9] = (sz * sy * cx - cz * sx) * scale[2];
+        out[10] = cy * cx * scale[2];
+        out[11] = 0f;
+        out[12] = position[0];
+        out[13] = position[1];
+        out[14] = position[2];
+        out[15] = 1f;
+    }
+
+    /** World box of {@code local} (min xyz, max xyz) under an affine model matrix. Writes into {@code out}. */
+    static void transformBounds(float[] local, float[] matrix, float[] out) {
+        float hx = (local[3] - local[0]) * 0.5f;
+        float hy = (local[4] - local[1]) * 0.5f;
+        float hz = (local[5] - local[2]) * 0.5f;
+        float px = (local[3] + local[0]) * 0.5f;
+        float py = (local[4] + local[1]) * 0.5f;
+        float pz = (local[5] + local[2]) * 0.5f;
+        float[] m = matrix;
+        for (int axis = 0; axis < 3; axis++) {
+            float centre = m[axis] * px + m[4 + axis] * py + m[8 + axis] * pz + m[12 + axis];
+            float extent = Math.abs(m[axis] * hx) + Math.abs(m[4 + axis] * hy) + Math.abs(m[8 + axis] * hz);
+            out[axis] = centre - extent;
+            out[axis + 3] = centre + extent;
+        }
+    }
+}
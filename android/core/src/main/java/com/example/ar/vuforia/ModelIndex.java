@@ -0,0 +1,413 @@
+package com.example.ar.vuforia;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Catalog-wide {@link ModelInfo} index built from GLB headers only.
+ *
+ * A scan reads the header, the JSON chunk and the headers of embedded images of each
+ * model, never the geometry, on a pool sized to the cores. Entries whose change stamp
+ * is unchanged are reused, and the index is persisted to a compact binary file so the
+ * next start only re-reads models that changed. Lookups are a hash map get.
+ */
+final class ModelIndex {
+    private static final String TAG = "ModelIndex";
+    private static final int FILE_MAGIC = 0x49424C47; // "GLBI"
+    private static final int FILE_VERSION = 1;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /** A model to index: its path for {@link AssetSource}, a change token and its size if known. */
+    static final class Candidate {
+        final String path;
+        final long stamp;
+        final long size; // -1 when unknown
+
+        Candidate(String path, long stamp, long size) {
+            this.path = path;
+            this.stamp = stamp;
+            this.size = size;
+        }
+    }
+
+    private final AssetSource source;
+    private final File indexFile;
+    private final Map<String, ModelInfo> entries = new ConcurrentHashMap<>();
+    private boolean loaded; // Guarded by this
+    private volatile long lastScanMillis;
+    private volatile int lastScanRead;
+    private volatile int lastScanReused;
+
+    /** {@code indexFile} may be null to keep the index in memory only. */
+    ModelIndex(AssetSource source, File indexFile) {
+        this.source = source;
+        this.indexFile = indexFile;
+    }
+
+    ModelInfo get(String path) {
+        return entries.get(path);
+    }
+
+    Collection<ModelInfo> getAll() {
+        return entries.values();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Brings the entries under {@code prefix} in line with {@code candidates}: changed
+     * and new models are read in parallel, entries for models that are gone are
+     * dropped, and the index file is rewritten if anything changed.
+     *
+     * @return how many models were read
+     */
+    int scan(String prefix, List<Candidate> candidates, int parallelism) throws InterruptedException {
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (!loaded) {
+                load();
+                loaded = true;
+            }
+        }
+
+        List<Candidate> changed = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        for (Candidate candidate : candidates) {
+            present.add(candidate.path);
+            ModelInfo existing = entries.get(candidate.path);
+            if (existing == null || existing.stamp != candidate.stamp) {
+                changed.add(candidate);
+            }
+        }
+
+        boolean dirty = entries.keySet().removeIf(path -> path.startsWith(prefix) && !present.contains(path));
+        int read = 0;
+        if (!changed.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, changed.size())));
+            try {
+                List<Callable<ModelInfo>> tasks = new ArrayList<>();
+                for (Candidate candidate : changed) {
+                    tasks.add(() -> read(candidate));
+                }
+                List<Future<ModelInfo>> results = pool.invokeAll(tasks);
+                for (int i = 0; i < results.size(); i++) {
+                    try {
+                        ModelInfo info = results.get(i).get();
+                        entries.put(info.path, info);
+                        read++;
+                    } catch (ExecutionException e) {
+                        ArLog.w(TAG, "Skipping unreadable model " + changed.get(i).path + ": " + e.getCause());
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            dirty = true;
+        }
+
+        if (dirty) {
+            save();
+        }
+        lastScanRead = read;
+        lastScanReused = candidates.size() - changed.size();
+        lastScanMillis = (System.nanoTime() - start) / 1_000_000;
+        return read;
+    }
+
+    /** Indexes a single model now unless its entry is current. Not persisted until the next scan. */
+    ModelInfo index(Candidate candidate) throws IOException {
+        ModelInfo existing = entries.get(candidate.path);
+        if (existing != null && existing.stamp == candidate.stamp) {
+            return existing;
+        }
+        ModelInfo info = read(candidate);
+        entries.put(info.path, info);
+        return info;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("models", entries.size());
+        stats.put("lastScanMs", lastScanMillis);
+        stats.put("lastScanRead", lastScanRead);
+        stats.put("lastScanReused", lastScanReused);
+        stats.put("indexFileBytes", indexFile != null ? indexFile.length() : 0L);
+        return stats;
+    }
+
+    /** Reads one model's header, JSON chunk and embedded image headers. */
+    ModelInfo read(Candidate candidate) throws IOException {
+        try (InputStream in = source.open(candidate.path)) {
+            PositionedStream stream = new PositionedStream(in);
+            byte[] header = stream.read(GlbParser.HEADER_LENGTH + GlbParser.CHUNK_HEADER_LENGTH);
+            ByteBuffer prefix = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            if (prefix.getInt(0) != GlbParser.GLB_MAGIC) {
+                throw new IOException("Not a GLB file (bad magic): " + candidate.path);
+            }
+            long fileBytes = prefix.getInt(8) & 0xFFFFFFFFL;
+            int jsonLength = prefix.getInt(GlbParser.HEADER_LENGTH);
+            if (jsonLength < 0 || jsonLength > fileBytes) {
+                throw new IOException("Bad JSON chunk length in " + candidate.path);
+            }
+
+            ByteBuffer start = ByteBuffer.allocate(header.length + jsonLength);
+            start.put(header).put(stream.read(jsonLength)).flip();
+            JSONObject gltf = GlbParser.readJson(start, candidate.size >= 0 ? candidate.size : fileBytes);
+            try {
+                return ModelInfo.fromGltf(candidate.path, candidate.stamp, fileBytes, gltf, readTextures(gltf, stream));
+            } catch (JSONException e) {
+                throw new IOException("Malformed GLB " + candidate.path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Images stored in the BIN chunk, in file order so the stream only moves forward
+    private static List<ModelInfo.Texture> readTextures(JSONObject gltf, PositionedStream stream) throws IOException {
+        List<ModelInfo.Texture> textures = new ArrayList<>();
+        JSONArray images = gltf.optJSONArray("images");
+        JSONArray views = gltf.optJSONArray("bufferViews");
+        if (images == null || views == null) {
+            return textures;
+        }
+
+        List<long[]> embedded = new ArrayList<>(); // {offset, length, image index}
+        for (int i = 0; i < images.length(); i++) {
+            JSONObject image = images.getJSONObject(i);
+            if (image.has("bufferView")) {
+                JSONObject view = views.getJSONObject(image.getInt("bufferView"));
+                embedded.add(new long[]{view.optLong("byteOffset", 0), view.getLong("byteLength"), i});
+            }
+        }
+        if (embedded.isEmpty()) {
+            return textures;
+        }
+        embedded.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        ByteBuffer binHeader = ByteBuffer.wrap(stream.read(GlbParser.CHUNK_HEADER_LENGTH)).order(ByteOrder.LITTLE_ENDIAN);
+        if (binHeader.getInt(4) != GlbParser.CHUNK_BIN) {
+            throw new IOException("Images reference a missing BIN chunk");
+        }
+        long binStart = stream.position;
+
+        ModelInfo.Texture[] byImage = new ModelInfo.Texture[images.length()];
+        for (long[] entry : embedded) {
+            int image = (int) entry[2];
+            String mimeType = images.getJSONObject(image).optString("mimeType", "");
+            int[] size = {0, 0};
+            long offset = binStart + entry[0];
+            if (offset >= stream.position) { // Views that overlap an earlier image are not re-read
+                stream.skipTo(offset);
+                readImageSize(stream, entry[1], size);
+            }
+            byImage[image] = new ModelInfo.Texture(mimeType, (int) entry[1], size[0], size[1]);
+        }
+        for (ModelInfo.Texture texture : byImage) {
+            if (texture != null) {
+                textures.add(texture);
+            }
+        }
+        return textures;
+    }
+
+    /** PNG and baseline/progressive JPEG dimensions; leaves {@code out} at 0 for anything else. */
+    private static void readImageSize(PositionedStream stream, long length, int[] out) throws IOException {
+        long end = stream.position + length;
+        if (length < 24) {
+            return;
+        }
+        byte[] head = stream.read(2);
+        if (head[0] == PNG_SIGNATURE[0] && head[1] == PNG_SIGNATURE[1]) {
+            // Signature, then the IHDR chunk: length, type, width, height (big-endian)
+            ByteBuffer png = ByteBuffer.wrap(stream.read(22));
+            out[0] = png.getInt(14);
+            out[1] = png.getInt(18);
+            return;
+        }
+        if ((head[0] & 0xFF) != 0xFF || (head[1] & 0xFF) != 0xD8) {
+            return;
+        }
+        // JPEG: walk the segments up to the first start-of-frame marker
+        while (stream.position + 4 <= end) {
+            byte[] marker = stream.read(2);
+            if ((marker[0] & 0xFF) != 0xFF) {
+                return;
+            }
+            int type = marker[1] & 0xFF;
+            while (type == 0xFF && stream.position < end) {
+                type = stream.read(1)[0] & 0xFF; // Fill bytes before the marker type
+            }
+            if (type == 0xD8 || type == 0x01 || (type >= 0xD0 && type <= 0xD7)) {
+                continue; // Markers without a payload
+            }
+            byte[] segmentLength = stream.read(2);
+            int segment = ((segmentLength[0] & 0xFF) << 8) | (segmentLength[1] & 0xFF);
+            boolean startOfFrame = type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC;
+            if (startOfFrame) {
+                byte[] frame = stream.read(5); // Precision, height, width
+                out[1] = ((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF);
+                out[0] = ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF);
+                return;
+            }
+            if (segment < 2) {
+                return;
+            }
+            stream.skipTo(stream.position + segment - 2);
+        }
+    }
+
+    private void load() {
+        if (indexFile == null || !indexFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                ArLog.w(TAG, "Ignoring model index with unknown format: " + indexFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long stamp = in.readLong();
+                long fileBytes = in.readLong();
+                int meshCount = in.readInt();
+                int primitiveCount = in.readInt();
+                int materialCount = in.readInt();
+                int vertexCount = in.readInt();
+                int triangleCount = in.readInt();
+                int jointCount = in.readInt();
+                boolean skinned = in.readBoolean();
+                long decodedBytes = in.readLong();
+                int textureCount = in.readUnsignedShort();
+                List<ModelInfo.Texture> textures = new ArrayList<>(textureCount);
+                for (int t = 0; t < textureCount; t++) {
+                    textures.add(new ModelInfo.Texture(in.readUTF(), in.readInt(), in.readInt(), in.readInt()));
+                }
+                int extensionCount = in.readUnsignedShort();
+                List<String> extensions = new ArrayList<>(extensionCount);
+                for (int e = 0; e < extensionCount; e++) {
+                    extensions.add(in.readUTF());
+                }
+                entries.put(path, new ModelInfo(path, stamp, fileBytes, meshCount, primitiveCount, materialCount,
+                        vertexCount, triangleCount, jointCount, skinned, decodedBytes, textures, extensions));
+            }
+            ArLog.d(TAG, "Loaded model index: " + count + " models");
+        } catch (IOException e) {
+            // Rebuilt by the scan
+            ArLog.w(TAG, "Discarding unreadable model index: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    // Written to a temporary file first so a crash never leaves a half-written index
+    private void save() {
+        if (indexFile == null) {
+            return;
+        }
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        List<ModelInfo> snapshot = new ArrayList<>(entries.values());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(snapshot.size());
+            for (ModelInfo info : snapshot) {
+                out.writeUTF(info.path);
+                out.writeLong(info.stamp);
+                out.writeLong(info.fileBytes);
+                out.writeInt(info.meshCount);
+                out.writeInt(info.primitiveCount);
+                out.writeInt(info.materialCount);
+                out.writeInt(info.vertexCount);
+                out.writeInt(info.triangleCount);
+                out.writeInt(info.jointCount);
+                out.writeBoolean(info.skinned);
+                out.writeLong(info.decodedBytes);
+                out.writeShort(info.textures.size());
+                for (ModelInfo.Texture texture : info.textures) {
+                    out.writeUTF(texture.mimeType);
+                    out.writeInt(texture.bytes);
+                    out.writeInt(texture.width);
+                    out.writeInt(texture.height);
+                }
+                out.writeShort(info.extensionsUsed.size());
+                for (String extension : info.extensionsUsed) {
+                    out.writeUTF(extension);
+                }
+            }
+        } catch (IOException e) {
+            ArLog.e(TAG, "Failed to write model index", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(indexFile)) {
+            ArLog.e(TAG, "Failed to replace model index " + indexFile);
+            tmp.delete();
+        }
+    }
+
+    /** Forward-only reader that tracks its offset in the file. */
+    private static final class PositionedStream {
+        private final InputStream in;
+        long position;
+
+        PositionedStream(InputStream in) {
+            this.in = in;
+        }
+
+        byte[] read(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int filled = 0;
+            while (filled < length) {
+                int n = in.read(bytes, filled, length - filled);
+                if (n < 0) {
+                    throw new EOFException("GLB ended at byte " + (position + filled));
+                }
+                filled += n;
+            }
+            position += length;
+            return bytes;
+        }
+
+        void skipTo(long target) throws IOException {
+            while (position < target) {
+                long skipped = in.skip(target - position);
+                if (skipped <= 0) {
+                    // Some streams only skip what is buffered; fall back to reading
+                    if (in.read() < 0) {
+                        throw new EOFException("GLB ended at byte " + position);
+                    }
+                    skipped = 1;
+                }
+                position += skipped;
+            }
+        }
+    }
+}
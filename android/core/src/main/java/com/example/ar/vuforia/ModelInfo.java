@@ -0,0 +1,217 @@
+package com.example.ar.vuforia;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a model costs, worked out from its GLB JSON chunk and image headers alone:
+ * geometry counts, embedded textures and the memory {@link GlbParser} would need
+ * to decode it.
+ */
+final class ModelInfo {
+    // glTF primitive modes
+    static final int PRIMITIVE_POINTS = 0;
+    static final int PRIMITIVE_LINES = 1;
+    static final int PRIMITIVE_LINE_LOOP = 2;
+    static final int PRIMITIVE_LINE_STRIP = 3;
+    static final int PRIMITIVE_TRIANGLES = 4;
+    static final int PRIMITIVE_TRIANGLE_STRIP = 5;
+    static final int PRIMITIVE_TRIANGLE_FAN = 6;
+
+    /** An embedded image; width and height are 0 when the format is not recognised. */
+    static final class Texture {
+        final String mimeType;
+        final int bytes;
+        final int width;
+        final int height;
+
+        Texture(String mimeType, int bytes, int width, int height) {
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    final String path;
+    final long stamp; // Change token of the source when it was indexed
+    final long fileBytes;
+    final int meshCount;
+    final int primitiveCount;
+    final int materialCount;
+    final int vertexCount;
+    final int triangleCount;
+    final int jointCount;
+    final boolean skinned;
+    final long decodedBytes; // Comparable to ModelAsset.getDecodedBytes()
+    final List<Texture> textures;
+    final List<String> extensionsUsed;
+    private volatile Map<String, Object> map;
+
+    ModelInfo(String path, long stamp, long fileBytes, int meshCount, int primitiveCount, int materialCount,
+              int vertexCount, int triangleCount, int jointCount, boolean skinned, long decodedBytes,
+              List<Texture> textures, List<String> extensionsUsed) {
+        this.path = path;
+        this.stamp = stamp;
+        this.fileBytes = fileBytes;
+        this.meshCount = meshCount;
+        this.primitiveCount = primitiveCount;
+        this.materialCount = materialCount;
+        this.vertexCount = vertexCount;
+        this.triangleCount = triangleCount;
+        this.jointCount = jointCount;
+        this.skinned = skinned;
+        this.decodedBytes = decodedBytes;
+        this.textures = Collections.unmodifiableList(textures);
+        this.extensionsUsed = Collections.unmodifiableList(extensionsUsed);
+    }
+
+    /**
+     * Summarises a parsed JSON chunk. {@code textures} holds the image headers read
+     * by the caller, in {@code images} order, for images stored in the BIN chunk.
+     */
+    static ModelInfo fromGltf(String path, long stamp, long fileBytes, JSONObject gltf, List<Texture> textures) {
+        JSONArray meshes = gltf.optJSONArray("meshes");
+        JSONArray accessors = gltf.optJSONArray("accessors");
+        int meshCount = meshes != null ? meshes.length() : 0;
+
+        // A mesh is skinned when some node pairs it with a skin, as in GlbParser
+        boolean[] meshSkinned = new boolean[meshCount];
+        JSONArray nodes = gltf.optJSONArray("nodes");
+        if (nodes != null) {
+            for (int n = 0; n < nodes.length(); n++) {
+                JSONObject node = nodes.getJSONObject(n);
+                int mesh = node.optInt("mesh", -1);
+                if (mesh >= 0 && mesh < meshCount && node.optInt("skin", -1) >= 0) {
+                    meshSkinned[mesh] = true;
+                }
+            }
+        }
+
+        int primitiveCount = 0;
+        long vertices = 0;
+        long triangles = 0;
+        long decoded = 0;
+        boolean skinned = false;
+        for (int m = 0; m < meshCount; m++) {
+            JSONArray primitives = meshes.getJSONObject(m).optJSONArray("primitives");
+            if (primitives == null) {
+                continue;
+            }
+            for (int p = 0; p < primitives.length(); p++) {
+                JSONObject primitive = primitives.getJSONObject(p);
+                JSONObject attributes = primitive.optJSONObject("attributes");
+                if (attributes == null || !attributes.has("POSITION")) {
+                    continue;
+                }
+                primitiveCount++;
+                int count = accessorCount(accessors, attributes.getInt("POSITION"));
+                int indexCount = primitive.has("indices") ? accessorCount(accessors, primitive.getInt("indices")) : 0;
+                vertices += count;
+                triangles += triangleCount(primitive.optInt("mode", PRIMITIVE_TRIANGLES),
+                        primitive.has("indices") ? indexCount : count);
+
+                long perVertex = 12;
+                if (attributes.has("NORMAL")) perVertex += 12;
+                if (attributes.has("TEXCOORD_0")) perVertex += 8;
+                if (meshSkinned[m] && attributes.has("JOINTS_0") && attributes.has("WEIGHTS_0")) {
+                    perVertex += 32;
+                    skinned = true;
+                }
+                decoded += count * perVertex + indexCount * 4L;
+            }
+        }
+
+        int jointCount = 0;
+        JSONArray skins = gltf.optJSONArray("skins");
+        if (skins != null) {
+            for (int s = 0; s < skins.length(); s++) {
+                JSONArray joints = skins.getJSONObject(s).optJSONArray("joints");
+                int count = joints != null ? joints.length() : 0;
+                jointCount += count;
+                decoded += count * 64L;
+            }
+        }
+        for (Texture texture : textures) {
+            decoded += texture.bytes;
+        }
+
+        List<String> extensions = new ArrayList<>();
+        JSONArray used = gltf.optJSONArray("extensionsUsed");
+        if (used != null) {
+            for (int i = 0; i < used.length(); i++) {
+                extensions.add(used.getString(i));
+            }
+        }
+        JSONArray materials = gltf.optJSONArray("materials");
+
+        return new ModelInfo(path, stamp, fileBytes, meshCount, primitiveCount,
+                materials != null ? materials.length() : 0, (int) vertices, (int) triangles, jointCount, skinned,
+                decoded, textures, extensions);
+    }
+
+    private static int accessorCount(JSONArray accessors, int index) {
+        JSONObject accessor = accessors != null ? accessors.optJSONObject(index) : null;
+        return accessor != null ? accessor.optInt("count", 0) : 0;
+    }
+
+    private static long triangleCount(int mode, int count) {
+        switch (mode) {
+            case PRIMITIVE_TRIANGLES:
+                return count / 3;
+            case PRIMITIVE_TRIANGLE_STRIP:
+            case PRIMITIVE_TRIANGLE_FAN:
+                return Math.max(0, count - 2);
+            default:
+                return 0; // Points and lines
+        }
+    }
+
+    /** Bytes the textures take once decoded to RGBA8 for upload. */
+    long getTextureMemoryBytes() {
+        long bytes = 0;
+        for (Texture texture : textures) {
+            bytes += (long) texture.width * texture.height * 4;
+        }
+        return bytes;
+    }
+
+    /** Built once; the same map is returned to every caller. */
+    Map<String, Object> toMap() {
+        Map<String, Object> result = map;
+        if (result == null) {
+            result = new HashMap<>();
+            result.put("modelPath", path);
+            result.put("fileBytes", fileBytes);
+            result.put("meshCount", meshCount);
+            result.put("primitiveCount", primitiveCount);
+            result.put("materialCount", materialCount);
+            result.put("vertexCount", vertexCount);
+            result.put("triangleCount", triangleCount);
+            result.put("skinned", skinned);
+            result.put("jointCount", jointCount);
+            result.put("decodedBytes", decodedBytes);
+            result.put("textureMemoryBytes", getTextureMemoryBytes());
+            List<Map<String, Object>> textureMaps = new ArrayList<>();
+            for (Texture texture : textures) {
+                Map<String, Object> textureMap = new HashMap<>();
+                textureMap.put("mimeType", texture.mimeType);
+                textureMap.put("bytes", texture.bytes);
+                textureMap.put("width", texture.width);
+                textureMap.put("height", texture.height);
+                textureMaps.add(textureMap);
+            }
+            result.put("textures", textureMaps);
+            result.put("extensionsUsed", new ArrayList<>(extensionsUsed));
+            result = Collections.unmodifiableMap(result);
+            map = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.ar.vuforia;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides how much of each loaded model stays in memory.
+ *
+ * A model is in one of four tiers, from most to least resident. Memory pressure
+ * ({@code onTrimMemory} levels) caps the tier of hidden and visible models, and a byte
+ * budget then pushes hidden models down in least-recently-shown order. Visible models
+ * are the working set and are never demoted by the budget, only by trim levels.
+ */
+final class ModelResidency {
+
+    enum Tier {
+        /** Decoded and uploaded for rendering, with deform buffers for skinning. */
+        GPU,
+        /** Decoded on the CPU only; showing it again needs an upload. */
+        DECODED,
+        /** Decoded data dropped, the source file kept memory-mapped. */
+        MAPPED,
+        /** Only what the manager knows without the source: ids, transform, sizes. */
+        METADATA;
+
+        Tier next(boolean canMap) {
+            switch (this) {
+                case GPU:
+                    return DECODED;
+                case DECODED:
+                    return canMap ? MAPPED : METADATA;
+                default:
+                    return METADATA;
+            }
+        }
+    }
+
+    // Same values as android.content.ComponentCallbacks2, which the core cannot reference
+    static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+    static final int TRIM_MEMORY_RUNNING_LOW = 10;
+    static final int TRIM_MEMORY_RUNNING_CRITICAL = 15;
+    static final int TRIM_MEMORY_UI_HIDDEN = 20;
+    static final int TRIM_MEMORY_BACKGROUND = 40;
+    static final int TRIM_MEMORY_MODERATE = 60;
+    static final int TRIM_MEMORY_COMPLETE = 80;
+
+    /** What the policy needs to know about a model. */
+    interface Resident {
+        String getPath();
+        boolean isVisible();
+        long getLastShownNanos();
+        Tier getTier();
+        /** Whether the source is a file that can be mapped, rather than a bundled asset. */
+        boolean canMap();
+        /** Bytes held for this model's source at {@code tier}, excluding mapped pages. */
+        long getBytes(Tier tier);
+    }
+
+    private ModelResidency() {
+    }
+
+    /** Most resident tier a hidden model may keep at {@code level}. */
+    static Tier hiddenCeiling(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            return Tier.METADATA;
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return Tier.MAPPED; // Backgrounded but not yet short of memory
+        }
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return Tier.METADATA;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return Tier.MAPPED;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return Tier.DECODED;
+        }
+        return Tier.GPU;
+    }
+
+    /** Most resident tier a visible model may keep at {@code level}. */
+    static Tier visibleCeiling(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            return Tier.METADATA;
+        }
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            return Tier.MAPPED;
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return Tier.DECODED; // Nothing is drawn while the UI is hidden
+        }
+        return Tier.GPU;
+    }
+
+    /**
+     * Returns the tier each resident should move to. Pass {@code 0} as the level to
+     * only enforce the budget. Tiers are never raised here; promotion is the caller's.
+     */
+    static <R extends Resident> Map<R, Tier> plan(Collection<R> residents, int trimLevel, long budgetBytes) {
+        Map<R, Tier> targets = new HashMap<>();
+        for (R resident : residents) {
+            Tier ceiling = resident.isVisible() ? visibleCeiling(trimLevel) : hiddenCeiling(trimLevel);
+            Tier tier = resident.getTier();
+            if (ceiling.ordinal() > tier.ordinal()) {
+                tier = ceiling == Tier.MAPPED && !resident.canMap() ? Tier.METADATA : ceiling;
+            }
+            targets.put(resident, tier);
+        }
+
+        while (footprint(targets) > budgetBytes) {
+            R oldest = null;
+            for (Map.Entry<R, Tier> entry : targets.entrySet()) {
+                R resident = entry.getKey();
+                if (resident.isVisible() || entry.getValue().ordinal() >= Tier.MAPPED.ordinal()) {
+                    continue; // Working set, or already holding nothing that counts
+                }
+                if (oldest == null || resident.getLastShownNanos() < oldest.getLastShownNanos()) {
+                    oldest = resident;
+                }
+            }
+            if (oldest == null) {
+                break; // Only visible models left; over budget until some are hidden
+            }
+            targets.put(oldest, targets.get(oldest).next(oldest.canMap()));
+        }
+        return targets;
+    }
+
+    /**
+     * Bytes held at the given tiers. Models loaded from the same path share their
+     * data, so each path counts once, at its most resident tier.
+     */
+    static <R extends Resident> long footprint(Map<R, Tier> tiers) {
+        Map<String, R> byPath = new HashMap<>();
+        Map<String, Tier> topTier = new HashMap<>();
+        for (Map.Entry<R, Tier> entry : tiers.entrySet()) {
+            String path = entry.getKey().getPath();
+            Tier top = topTier.get(path);
+            if (top == null || entry.getValue().ordinal() < top.ordinal()) {
+                topTier.put(path, entry.getValue());
+                byPath.put(path, entry.getKey());
+            }
+        }
+        long bytes = 0;
+        for (Map.Entry<String, R> entry : byPath.entrySet()) {
+            bytes += entry.getValue().getBytes(topTier.get(entry.getKey()));
+        }
+        return bytes;
+    }
+}
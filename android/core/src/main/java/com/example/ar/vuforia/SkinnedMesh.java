@@ -0,0 +1,52 @@
+package com.example.ar.vuforia;
+
+/**
+ * Double-buffered deformation output for one skinned mesh primitive.
+ *
+ * {@link SkinningEngine} writes into the back buffer and flips; the renderer reads
+ * the front buffer, which always holds a complete pose.
+ */
+final class SkinnedMesh {
+    private final ModelAsset.Mesh source;
+    private final float[][] positions;
+    private final float[][] normals;
+    private volatile int front;
+
+    SkinnedMesh(ModelAsset.Mesh source) {
+        this.source = source;
+        float[] bindPositions = source.getPositions();
+        float[] bindNormals = source.getNormals();
+        this.positions = new float[][]{bindPositions.clone(), bindPositions.clone()};
+        this.normals = bindNormals != null
+                ? new float[][]{bindNormals.clone(), bindNormals.clone()}
+                : new float[][]{null, null};
+    }
+
+    ModelAsset.Mesh getSource() { return source; }
+    int getVertexCount() { return source.getVertexCount(); }
+    int getSkinIndex() { return source.getSkinIndex(); }
+
+    float[] getBindPositions() { return source.getPositions(); }
+    float[] getBindNormals() { return source.getNormals(); }
+    int[] getJoints() { return source.getJoints(); }
+    float[] getWeights() { return source.getWeights(); }
+
+    float[] getBackPositions() { return positions[front ^ 1]; }
+    float[] getBackNormals() { return normals[front ^ 1]; }
+
+    /** Latest complete deformed positions. */
+    float[] getPositions() { return positions[front]; }
+    float[] getNormals() { return normals[front]; }
+
+    void flip() {
+        front ^= 1;
+    }
+
+    long getBufferBytes() {
+        long bytes = positions[0].length * 8L;
+        if (normals[0] != null) {
+            bytes += normals[0].length * 8L;
+        }
+        return bytes;
+    }
+}
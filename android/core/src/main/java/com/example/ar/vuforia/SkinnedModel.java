@@ -0,0 +1,119 @@
+package com.example.ar.vuforia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-model skinning state: the deform buffers of every skinned primitive and, for
+ * each skin, which tracked body joint drives each rig joint.
+ *
+ * The tracker reports where each joint is, not how the garment was rigged, so every
+ * skin matrix is the tracked joint transform times the rig's inverse bind matrix.
+ * An untracked joint moves rigidly with its nearest tracked ancestor in the
+ * {@link BodySkeleton}, which makes its skin matrix that ancestor's.
+ */
+final class SkinnedModel {
+    private final SkinnedMesh[] meshes;
+    private final int[][] jointMaps; // Skin joint -> BodySkeleton joint, or -1
+    private final int[][] skinJoints; // BodySkeleton joint -> first skin joint mapped to it, or -1
+    private final float[][] inverseBinds; // Column-major 4x4 per skin joint
+    private final float[][] skinMatrices; // Column-major 4x4 per skin joint
+    private final int mappedJoints;
+
+    private SkinnedModel(SkinnedMesh[] meshes, int[][] jointMaps, float[][] inverseBinds) {
+        this.meshes = meshes;
+        this.jointMaps = jointMaps;
+        this.inverseBinds = inverseBinds;
+        this.skinJoints = new int[jointMaps.length][BodySkeleton.JOINT_COUNT];
+        this.skinMatrices = new float[jointMaps.length][];
+        int mapped = 0;
+        for (int s = 0; s < jointMaps.length; s++) {
+            Arrays.fill(skinJoints[s], -1);
+            skinMatrices[s] = new float[jointMaps[s].length * 16];
+            for (int j = 0; j < jointMaps[s].length; j++) {
+                SkinningEngine.setIdentity(skinMatrices[s], j * 16);
+                int body = jointMaps[s][j];
+                if (body >= 0) {
+                    mapped++;
+                    if (skinJoints[s][body] < 0) {
+                        skinJoints[s][body] = j;
+                    }
+                }
+            }
+        }
+        this.mappedJoints = mapped;
+    }
+
+    /** Returns {@code null} when the asset has no skinned primitives. */
+    static SkinnedModel create(ModelAsset asset) {
+        if (!asset.isSkinned()) {
+            return null;
+        }
+
+        List<ModelAsset.Skin> skins = asset.getSkins();
+        int[][] jointMaps = new int[skins.size()][];
+        float[][] inverseBinds = new float[skins.size()][];
+        for (int s = 0; s < jointMaps.length; s++) {
+            String[] names = skins.get(s).getJointNames();
+            jointMaps[s] = new int[names.length];
+            for (int j = 0; j < names.length; j++) {
+                jointMaps[s][j] = BodySkeleton.jointForName(names[j]);
+            }
+            // A short accessor leaves the remaining joints at identity
+            float[] source = skins.get(s).getInverseBindMatrices();
+            inverseBinds[s] = new float[names.length * 16];
+            for (int j = 0; j < names.length; j++) {
+                SkinningEngine.setIdentity(inverseBinds[s], j * 16);
+            }
+            System.arraycopy(source, 0, inverseBinds[s], 0, Math.min(source.length, inverseBinds[s].length));
+        }
+
+        List<SkinnedMesh> meshes = new ArrayList<>();
+        for (ModelAsset.Mesh mesh : asset.getMeshes()) {
+            if (mesh.isSkinned() && mesh.getSkinIndex() < jointMaps.length) {
+                meshes.add(new SkinnedMesh(mesh));
+            }
+        }
+        return new SkinnedModel(meshes.toArray(new SkinnedMesh[0]), jointMaps, inverseBinds);
+    }
+
+    SkinnedMesh[] getMeshes() { return meshes; }
+    int getMappedJointCount() { return mappedJoints; }
+
+    int getVertexCount() {
+        int count = 0;
+        for (SkinnedMesh mesh : meshes) {
+            count += mesh.getVertexCount();
+        }
+        return count;
+    }
+
+    /**
+     * Pulls the tracked joint poses out of {@code frame} and re-skins every primitive.
+     * Untracked joints follow their nearest tracked ancestor that the skin rigs; with
+     * none, and for rig joints the tracker has no counterpart for, the bind pose.
+     */
+    void update(BodyFrame frame, SkinningEngine engine) {
+        for (int s = 0; s < jointMaps.length; s++) {
+            int[] map = jointMaps[s];
+            float[] matrices = skinMatrices[s];
+            for (int j = 0; j < map.length; j++) {
+                int body = map[j];
+                while (body >= 0 && !(frame.jointTracked[body] && skinJoints[s][body] >= 0)) {
+                    body = BodySkeleton.parent(body);
+                }
+                if (body >= 0) {
+                    int driver = body == map[j] ? j : skinJoints[s][body];
+                    SkinningEngine.multiply(matrices, j * 16, frame.jointPoses, body * 16,
+                            inverseBinds[s], driver * 16);
+                } else {
+                    SkinningEngine.setIdentity(matrices, j * 16);
+                }
+            }
+        }
+        for (SkinnedMesh mesh : meshes) {
+            engine.skin(mesh, skinMatrices[mesh.getSkinIndex()]);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.ar.vuforia;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU linear-blend skinning.
+ *
+ * Vertex ranges of a mesh are split across a fixed worker pool; the calling thread
+ * takes the first range itself. Workers write into the back buffer of a
+ * {@link SkinnedMesh}, which is flipped once every range is done, so readers always
+ * see a complete pose. The per-vertex loop does not allocate.
+ */
+final class SkinningEngine {
+    /** Meshes below this size are skinned on the calling thread. */
+    static final int MIN_PARALLEL_VERTICES = 4096;
+
+    private final ExecutorService workers;
+    private final int parallelism;
+    private final RangeTask[] tasks;
+    private final Phaser barrier;
+    private volatile Throwable workerFailure;
+
+    SkinningEngine(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.tasks = new RangeTask[this.parallelism];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new RangeTask();
+        }
+        // One party per worker range plus the caller
+        this.barrier = new Phaser(this.parallelism);
+        this.workers = this.parallelism > 1
+                ? Executors.newFixedThreadPool(this.parallelism - 1, new WorkerThreadFactory())
+                : null;
+    }
+
+    static int defaultParallelism() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Skins {@code mesh} with one column-major 4x4 matrix per skin joint and flips its
+     * buffers. Not re-entrant: callers serialise skinning on one engine.
+     */
+    synchronized void skin(SkinnedMesh mesh, float[] skinMatrices) {
+        int vertexCount = mesh.getVertexCount();
+        if (workers == null || vertexCount < MIN_PARALLEL_VERTICES) {
+            deform(mesh, skinMatrices, 0, vertexCount);
+            mesh.flip();
+            return;
+        }
+
+        int chunk = (vertexCount + parallelism - 1) / parallelism;
+        workerFailure = null;
+        for (int i = 1; i < parallelism; i++) {
+            RangeTask task = tasks[i];
+            task.mesh = mesh;
+            task.skinMatrices = skinMatrices;
+            task.start = Math.min(vertexCount, i * chunk);
+            task.end = Math.min(vertexCount, (i + 1) * chunk);
+            try {
+                workers.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Shut down: skin the range here, which also arrives for its party
+                task.run();
+            }
+        }
+
+        try {
+            deform(mesh, skinMatrices, 0, Math.min(vertexCount, chunk));
+        } finally {
+            barrier.arriveAndAwaitAdvance();
+        }
+
+        for (int i = 1; i < parallelism; i++) {
+            tasks[i].mesh = null;
+            tasks[i].skinMatrices = null;
+        }
+        Throwable failure = workerFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Skinning worker failed", failure);
+        }
+        mesh.flip();
+    }
+
+    // Synchronized with skin, so no range is left queued without arriving
+    synchronized void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /** Blends up to four joint matrices per vertex and transforms position and normal. */
+    static void deform(SkinnedMesh mesh, float[] m, int start, int end) {
+        final float[] srcPos = mesh.getBindPositions();
+        final float[] srcNrm = mesh.getBindNormals();
+        final int[] joints = mesh.getJoints();
+        final float[] weights = mesh.getWeights();
+        final float[] dstPos = mesh.getBackPositions();
+        final float[] dstNrm = mesh.getBackNormals();
+
+        for (int v = start; v < end; v++) {
+            int w4 = v * 4;
+            float m0 = 0, m1 = 0, m2 = 0, m4 = 0, m5 = 0, m6 = 0;
+            float m8 = 0, m9 = 0, m10 = 0, m12 = 0, m13 = 0, m14 = 0;
+            float total = 0;
+
+            for (int k = 0; k < 4; k++) {
+                float w = weights[w4 + k];
+                if (w == 0f) {
+                    continue;
+                }
+                int o = joints[w4 + k] * 16;
+                m0 += w * m[o];
+                m1 += w * m[o + 1];
+                m2 += w * m[o + 2];
+                m4 += w * m[o + 4];
+                m5 += w * m[o + 5];
+                m6 += w * m[o + 6];
+                m8 += w * m[o + 8];
+                m9 += w * m[o + 9];
+                m10 += w * m[o + 10];
+                m12 += w * m[o + 12];
+                m13 += w * m[o + 13];
+                m14 += w * m[o + 14];
+                total += w;
+            }
+
+            int p3 = v * 3;
+            float x = srcPos[p3];
+            float y = srcPos[p3 + 1];
+            float z = srcPos[p3 + 2];
+            if (total == 0f) {
+                // Unweighted vertex stays in bind pose
+                dstPos[p3] = x;
+                dstPos[p3 + 1] = y;
+                dstPos[p3 + 2] = z;
+                if (srcNrm != null) {
+                    dstNrm[p3] = srcNrm[p3];
+                    dstNrm[p3 + 1] = srcNrm[p3 + 1];
+                    dstNrm[p3 + 2] = srcNrm[p3 + 2];
+                }
+                continue;
+            }
+
+            dstPos[p3] = m0 * x + m4 * y + m8 * z + m12;
+            dstPos[p3 + 1] = m1 * x + m5 * y + m9 * z + m13;
+            dstPos[p3 + 2] = m2 * x + m6 * y + m10 * z + m14;
+
+            if (srcNrm != null) {
+                float nx = srcNrm[p3];
+                float ny = srcNrm[p3 + 1];
+                float nz = srcNrm[p3 + 2];
+                float tx = m0 * nx + m4 * ny + m8 * nz;
+                float ty = m1 * nx + m5 * ny + m9 * nz;
+                float tz = m2 * nx + m6 * ny + m10 * nz;
+                float len = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+                float inv = len > 1e-8f ? 1f / len : 0f;
+                dstNrm[p3] = tx * inv;
+                dstNrm[p3 + 1] = ty * inv;
+                dstNrm[p3 + 2] = tz * inv;
+            }
+        }
+    }
+
+    static void setIdentity(float[] m, int offset) {
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0f;
+        }
+        m[offset] = 1f;
+        m[offset + 5] = 1f;
+        m[offset + 10] = 1f;
+        m[offset + 15] = 1f;
+    }
+
+    /** {@code out = a * b} for column-major 4x4 matrices; {@code out} must not overlap either. */
+    static void multiply(float[] out, int o, float[] a, int ao, float[] b, int bo) {
+        for (int col = 0; col < 4; col++) {
+            float b0 = b[bo + col * 4];
+            float b1 = b[bo + col * 4 + 1];
+            float b2 = b[bo + col * 4 + 2];
+            float b3 = b[bo + col * 4 + 3];
+            for (int row = 0; row < 4; row++) {
+                out[o + col * 4 + row] = a[ao + row] * b0 + a[ao + 4 + row] * b1
+                        + a[ao + 8 + row] * b2 + a[ao + 12 + row] * b3;
+            }
+        }
+    }
+
+    private final class RangeTask implements Runnable {
+        SkinnedMesh mesh;
+        float[] skinMatrices;
+        int start;
+        int end;
+
+        @Override
+        public void run() {
+            try {
+                deform(mesh, skinMatrices, start, end);
+            } catch (Throwable t) {
+                workerFailure = t;
+            } finally {
+                barrier.arrive();
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "skinning-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ar.vuforia;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A named set of image targets with its own descriptor index.
+ *
+ * Datasets are built off the tracking thread and only become visible to recognition
+ * when {@link ImageTargetEngine} swaps them into its active set.
+ */
+final class TargetDataset {
+    private static final int INDEX_TABLES = 8;
+    private static final int INDEX_KEY_BITS = 16;
+
+    static final class Target {
+        final String id;
+        final String name;
+        final String dataset;
+        final int slot;
+        final int keypoints;
+        final int width;
+        final int height;
+
+        Target(String id, String name, String dataset, int slot, int keypoints, int width, int height) {
+            this.id = id;
+            this.name = name;
+            this.dataset = dataset;
+            this.slot = slot;
+            this.keypoints = keypoints;
+            this.width = width;
+            this.height = height;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("targetId", id);
+            map.put("name", name);
+            map.put("dataset", dataset);
+            map.put("keypoints", keypoints);
+            map.put("width", width);
+            map.put("height", height);
+            return map;
+        }
+    }
+
+    private final String key;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final DescriptorIndex index = new DescriptorIndex(INDEX_TABLES, INDEX_KEY_BITS, 0x1A5EEDL);
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+    private final List<Target> slots = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>(); // Removed and compacted away
+    private boolean[] removed = new boolean[0];
+    private int removedDescriptors;
+    volatile long lastUsedNanos = System.nanoTime();
+
+    TargetDataset(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /** Indexes extracted features, replacing any target with the same id. */
+    Target add(String id, String name, FeatureExtractor.Features features, int width, int height) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            Integer free = freeSlots.poll();
+            int slot = free != null ? free : slots.size();
+            Target target = new Target(id, name != null ? name : id, key, slot, features.count, width, height);
+            if (free != null) {
+                slots.set(slot, target);
+            } else {
+                slots.add(target);
+            }
+            targets.put(id, target);
+            if (removed.length < slots.size()) {
+                removed = Arrays.copyOf(removed, Math.max(16, slots.size() * 2));
+            }
+            index.add(target.slot, features.descriptors, features.count);
+            return target;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String id) {
+        Target target = targets.remove(id);
+        if (target == null) {
+            return false;
+        }
+        removed[target.slot] = true;
+        removedDescriptors += target.keypoints;
+
+        // Removed descriptors are skipped at query time; rebuild once they dominate.
+        // A removed slot is reused only after that, when no descriptor refers to it.
+        if (removedDescriptors * 2 > index.size()) {
+            index.compact(removed);
+            removedDescriptors = 0;
+            for (int slot = 0; slot < slots.size(); slot++) {
+                if (removed[slot]) {
+                    removed[slot] = false;
+                    slots.set(slot, null);
+                    freeSlots.push(slot);
+                }
+            }
+        }
+        return true;
+    }
+
+    Target get(String id) {
+        lock.readLock().lock();
+        try {
+            return targets.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Target> getTargets() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(targets.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int getTargetCount() {
+        lock.readLock().lock();
+        try {
+            return targets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return index.getMemoryBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Votes each query descriptor's accepted nearest neighbour onto its target and
+     * appends the targets with enough votes to {@code results}.
+     */
+    void match(FeatureExtractor.Features features, MatchScratch scratch, List<ImageTargetEngine.Match> results) {
+        lock.readLock().lock();
+        try {
+            int targetSlots = slots.size();
+            if (scratch.votes.length < targetSlots) {
+                scratch.votes = new int[targetSlots * 2];
+            }
+            int[] votes = scratch.votes;
+            Arrays.fill(votes, 0, targetSlots, 0);
+
+            for (int i = 0; i < features.count; i++) {
+                int best = index.nearest(features.descriptors, i * FeatureExtractor.DESCRIPTOR_LONGS, removed,
+                        scratch.index, scratch.distances);
+                if (best == DescriptorIndex.NO_MATCH) {
+                    continue;
+                }
+                int d1 = scratch.distances[0];
+                int d2 = scratch.distances[1];
+                if (d1 <= ImageTargetEngine.MAX_MATCH_DISTANCE
+                        && (d2 == Integer.MAX_VALUE || d1 < ImageTargetEngine.RATIO * d2)) {
+                    votes[index.ownerOf(best)]++;
+                }
+            }
+
+            boolean matched = false;
+            for (int slot = 0; slot < targetSlots; slot++) {
+                if (votes[slot] >= ImageTargetEngine.MIN_MATCHES && !removed[slot]) {
+                    results.add(new ImageTargetEngine.Match(slots.get(slot), votes[slot],
+                            votes[slot] / (float) Math.max(1, features.count)));
+                    matched = true;
+                }
+            }
+            if (matched) {
+                lastUsedNanos = System.nanoTime();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Per-thread query buffers. */
+    static final class MatchScratch {
+        final DescriptorIndex.Scratch index = new DescriptorIndex.Scratch();
+        final int[] distances = new int[2];
+        int[] votes = new int[0];
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.ar.vuforia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encoded thumbnails of catalog images: an in-memory LRU in front of a persistent
+ * disk cache, in front of a {@link Decoder} that only runs when both miss.
+ *
+ * Entries are keyed by source path, source stamp and requested size, so a changed
+ * source or a new size gets a fresh entry and stale ones age out of the disk budget.
+ * Concurrent requests for the same key share one decode.
+ */
+final class ThumbnailCache {
+    private static final String TAG = "ThumbnailCache";
+    private static final int FILE_MAGIC = 0x424D4854; // "THMB"
+    private static final String FILE_SUFFIX = ".thumb";
+
+    static final long DEFAULT_MEMORY_BUDGET_BYTES = 4L * 1024 * 1024;
+    static final long DEFAULT_DISK_BUDGET_BYTES = 32L * 1024 * 1024;
+
+    /** Produces an encoded image whose longer side is at most {@code size} pixels. */
+    interface Decoder {
+        Thumbnail decode(String path, int size) throws IOException;
+    }
+
+    /** Called once per request; on a worker thread unless the memory cache hit or the cache is shut down. */
+    interface Callback {
+        void onThumbnail(Thumbnail thumbnail, String source, Exception error);
+    }
+
+    static final class Thumbnail {
+        final byte[] bytes; // Encoded, e.g. JPEG
+        final int width;
+        final int height;
+
+        Thumbnail(byte[] bytes, int width, int height) {
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    static final String FROM_MEMORY = "memory";
+    static final String FROM_DISK = "disk";
+    static final String FROM_DECODE = "decoded";
+
+    private final Decoder decoder;
+    private final File directory; // Null disables the disk cache
+    private final long memoryBudgetBytes;
+    private final long diskBudgetBytes;
+    private final ExecutorService workers;
+
+    private final LinkedHashMap<String, Thumbnail> memory = new LinkedHashMap<>(64, 0.75f, true); // Guarded by itself
+    private long memoryBytes; // Guarded by memory
+    private final Map<String, List<Callback>> pending = new HashMap<>(); // Guarded by itself
+    private final AtomicLong diskBytes = new AtomicLong(-1); // -1 until the directory was scanned
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong decodes = new AtomicLong();
+    private final LatencyStats decodeLatency = new LatencyStats(64);
+
+    ThumbnailCache(Decoder decoder, File directory, int parallelism) {
+        this(decoder, directory, parallelism, DEFAULT_MEMORY_BUDGET_BYTES, DEFAULT_DISK_BUDGET_BYTES);
+    }
+
+    ThumbnailCache(Decoder decoder, File directory, int parallelism, long memoryBudgetBytes, long diskBudgetBytes) {
+        this.decoder = decoder;
+        this.directory = directory;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.diskBudgetBytes = diskBudgetBytes;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "thumbnail-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looks {@code path} up at {@code size}. A memory hit calls back before returning;
+     * everything else is read or decoded on a worker thread.
+     */
+    void get(String path, long stamp, int size, Callback callback) {
+        String key = path + '\n' + stamp + '\n' + size;
+        Thumbnail cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            callback.onThumbnail(cached, FROM_MEMORY, null);
+            return;
+        }
+
+        synchronized (pending) {
+            List<Callback> waiting = pending.get(key);
+            if (waiting != null) {
+                waiting.add(callback); // Same thumbnail already in flight
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            pending.put(key, waiting);
+        }
+        try {
+            workers.execute(new Load(key, path, stamp, size));
+        } catch (RejectedExecutionException e) {
+            // Shut down: fail the callbacks rather than leave the key pending for good
+            finish(key, null, null, e);
+        }
+    }
+
+    private void load(String key, String path, long stamp, int size) {
+        Thumbnail thumbnail = null;
+        String source = null;
+        Exception error = null;
+        try {
+            File file = directory != null ? new File(directory, fileName(key)) : null;
+            thumbnail = file != null ? readDisk(file, path, stamp, size) : null;
+            if (thumbnail != null) {
+                source = FROM_DISK;
+                diskHits.incrementAndGet();
+            } else {
+                long start = System.nanoTime();
+                thumbnail = decoder.decode(path, size);
+                decodeLatency.record(System.nanoTime() - start);
+                decodes.incrementAndGet();
+                source = FROM_DECODE;
+                if (file != null) {
+                    writeDisk(file, path, stamp, size, thumbnail);
+                }
+            }
+            remember(key, thumbnail);
+        } catch (Exception e) {
+            error = e;
+        }
+        finish(key, thumbnail, source, error);
+    }
+
+    private void finish(String key, Thumbnail thumbnail, String source, Exception error) {
+        List<Callback> waiting;
+        synchronized (pending) {
+            waiting = pending.remove(key);
+        }
+        for (Callback callback : waiting) {
+            callback.onThumbnail(thumbnail, source, error);
+        }
+    }
+
+    private void remember(String key, Thumbnail thumbnail) {
+        synchronized (memory) {
+            Thumbnail previous = memory.put(key, thumbnail);
+            memoryBytes += thumbnail.bytes.length - (previous != null ? previous.bytes.length : 0);
+            Iterator<Thumbnail> eldest = memory.values().iterator();
+            while (memoryBytes > memoryBudgetBytes && memory.size() > 1) {
+                memoryBytes -= eldest.next().bytes.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /** Null when there is no valid entry; a corrupt file is deleted. */
+    private Thumbnail readDisk(File file, String path, long stamp, int size) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            // The header guards against hash collisions in the file name
+            if (in.readInt() != FILE_MAGIC || !in.readUTF().equals(path) || in.readLong() != stamp
+                    || in.readInt() != size) {
+                return null;
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            file.setLastModified(System.currentTimeMillis()); // Recently used, for the disk budget
+            return new Thumbnail(bytes, width, height);
+        } catch (IOException | RuntimeException e) {
+            ArLog.w(TAG, "Discarding unreadable thumbnail " + file + ": " + e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeDisk(File file, String path, long stamp, int size, Thumbnail thumbnail) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            ArLog.w(TAG, "Cannot create thumbnail directory " + directory);
+            return;
+        }
+        // Written aside and renamed, so a crash never leaves a partial entry
+        File tmp = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeUTF(path);
+            out.writeLong(stamp);
+            out.writeInt(size);
+            out.writeInt(thumbnail.width);
+            out.writeInt(thumbnail.height);
+            out.writeInt(thumbnail.bytes.length);
+            out.write(thumbnail.bytes);
+        } catch (IOException e) {
+            ArLog.e(TAG, "Failed to write thumbnail for " + path, e);
+            tmp.delete();
+            return;
+        }
+        long length = tmp.length();
+        if (!tmp.renameTo(file)) {
+            ArLog.e(TAG, "Failed to store thumbnail " + file);
+            tmp.delete();
+            return;
+        }
+        if (diskBytes.get() < 0) {
+            diskBytes.compareAndSet(-1, directorySize());
+        } else {
+            diskBytes.addAndGet(length);
+        }
+        if (diskBytes.get() > diskBudgetBytes) {
+            trimDisk();
+        }
+    }
+
+    /** Deletes least recently used entries down to three quarters of the budget. */
+    private synchronized void trimDisk() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long total = 0;
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+            total += files[i].length();
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+        int deleted = 0;
+        for (int i = 0; i < order.length && total > diskBudgetBytes * 3 / 4; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                deleted++;
+            }
+        }
+        diskBytes.set(total);
+        ArLog.d(TAG, "Trimmed " + deleted + " thumbnails, " + total / 1024 + " KB left on disk");
+    }
+
+    private long directorySize() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        long total = 0;
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    /** 64-bit FNV-1a of the key; the header inside the file settles collisions. */
+    private static String fileName(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash) + FILE_SUFFIX;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        long disk = diskBytes.get();
+        stats.put("diskBytes", disk >= 0 ? disk : (directory != null ? directorySize() : 0));
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("decodes", decodes.get());
+        stats.put("decodeLatency", decodeLatency.toMap());
+        return stats;
+    }
+
+    /** Requests that have not started fail with a {@link RejectedExecutionException}. */
+    void shutdown() {
+        for (Runnable queued : workers.shutdownNow()) {
+            Load load = (Load) queued;
+            finish(load.key, null, null, new RejectedExecutionException("Thumbnail cache shut down"));
+        }
+    }
+
+    private final class Load implements Runnable {
+        final String key;
+        final String path;
+        final long stamp;
+        final int size;
+
+        Load(String key, String path, long stamp, int size) {
+            this.key = key;
+            this.path = path;
+            this.stamp = stamp;
+            this.size = size;
+        }
+
+        @Override
+        public void run() {
+            load(key, path, stamp, size);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.ar.vuforia;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of getTrackingResults for many targets per frame.
+ *
+ * Positions and quaternions are quantised to 16 bits, target ids are sent once and
+ * then referred to by index, and each target is delta-encoded against its state in
+ * the previous frame. The client passes the sequence number of the last frame it
+ * decoded as the baseline; when that is not the frame the encoder last produced,
+ * for example after a hot restart, the encoder sends a keyframe that restarts the
+ * id table. The Dart decoder is {@code lib/services/tracking_results_decoder.dart}.
+ *
+ * <pre>
+ * frame   version (u8), flags (u8, 1 = keyframe), sequence (u16), baseline (u16),
+ *         new id count (varint) then per id its UTF-8 length (varint) and bytes,
+ *         target count (varint) then per target:
+ * target  id index (varint), flags (u8), score (u8, 0..1 in 255 steps),
+ *         matches (varint, zig-zag delta when DELTA), then unless STILL or no pose:
+ *         DELTA: 6 zig-zag varints, the change of each quantised value below
+ *         else:  position xyz (3 x i16), smallest three quaternion components (3 x i16)
+ * </pre>
+ *
+ * Target flags: 1 has pose, 2 delta against the previous frame, 4 pose unchanged,
+ * bits 3-4 the index of the quaternion component left out. All fixed-size values
+ * are little-endian. Not thread-safe.
+ */
+final class TrackingResultCodec {
+    static final int VERSION = 1;
+    static final int FRAME_KEYFRAME = 1;
+
+    static final int TARGET_POSE = 1;
+    static final int TARGET_DELTA = 2;
+    static final int TARGET_STILL = 4;
+    static final int TARGET_LARGEST_SHIFT = 3;
+
+    /** Positions are clamped to this many metres from the camera; 16 bits give 0.25 mm steps. */
+    static final float POSITION_RANGE = 8.0f;
+    static final float QUATERNION_RANGE = (float) (1 / Math.sqrt(2)); // Bound of the three smallest
+
+    static final int MAX_IDS = 4096; // Past this the next frame is a keyframe
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> idList = new ArrayList<>(); // By index
+    private int sentIds; // Ids the client has been told about
+
+    // State of each id in the last frame, indexed by id
+    private long[] lastFrame = new long[16]; // Sequence counter of the frame the id was last in
+    private int[] lastMatches = new int[16];
+    private byte[] lastFlags = new byte[16];
+    private short[] lastPose = new short[16 * 6];
+
+    private long frameCounter; // Never wraps, unlike the u16 sequence
+    private int lastSequence = -1;
+
+    private byte[] buffer = new byte[256];
+    private int size;
+
+    private long frames;
+    private long keyframes;
+    private long totalBytes;
+
+    /**
+     * Encodes one frame of results. {@code baseline} is the sequence of the last frame
+     * the client decoded, or -1 if it has none.
+     */
+    byte[] encode(List<ImageTargetEngine.Match> results, int baseline) {
+        boolean keyframe = baseline != lastSequence || lastSequence < 0 || idList.size() > MAX_IDS;
+        if (keyframe) {
+            ids.clear();
+            idList.clear();
+            sentIds = 0;
+        }
+        long previousFrame = frameCounter;
+        long frame = ++frameCounter;
+        int sequence = (int) (frame & 0xFFFF);
+
+        // Intern first, so new ids go out ahead of the targets that use them
+        int count = results.size();
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = intern(results.get(i).target.id);
+        }
+
+        size = 0;
+        writeByte(VERSION);
+        writeByte(keyframe ? FRAME_KEYFRAME : 0);
+        writeShort(sequence);
+        writeShort(keyframe ? 0 : baseline);
+        writeVarInt(idList.size() - sentIds);
+        for (int i = sentIds; i < idList.size(); i++) {
+            byte[] utf8 = idList.get(i).getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buffer, size, utf8.length);
+            size += utf8.length;
+        }
+        sentIds = idList.size();
+        writeVarInt(count);
+
+        short[] pose = new short[6];
+        for (int i = 0; i < count; i++) {
+            ImageTargetEngine.Match match = results.get(i);
+            int id = indices[i];
+            boolean hasPose = match.position != null && match.rotation != null;
+            int largest = hasPose ? quantise(match.position, match.rotation, pose) : 0;
+
+            boolean seen = !keyframe && lastFrame[id] == previousFrame;
+            int flags = hasPose ? TARGET_POSE | largest << TARGET_LARGEST_SHIFT : 0;
+            boolean delta = seen && hasPose == ((lastFlags[id] & TARGET_POSE) != 0)
+                    && (!hasPose || largest == (lastFlags[id] & 0xFF) >> TARGET_LARGEST_SHIFT);
+            boolean still = delta && hasPose && samePose(id, pose);
+            if (delta) {
+                flags |= TARGET_DELTA;
+            }
+            if (still) {
+                flags |= TARGET_STILL;
+            }
+
+            writeVarInt(id);
+            writeByte(flags);
+            writeByte(Math.round(Math.max(0f, Math.min(1f, match.score)) * 255));
+            writeVarInt(delta ? zigZag(match.matches - lastMatches[id]) : match.matches);
+            if (hasPose && !still) {
+                for (int c = 0; c < 6; c++) {
+                    if (delta) {
+                        writeVarInt(zigZag(pose[c] - lastPose[id * 6 + c]));
+                    } else {
+                        writeShort(pose[c]);
+                    }
+                }
+            }
+
+            lastFrame[id] = frame;
+            lastMatches[id] = match.matches;
+            lastFlags[id] = (byte) flags;
+            System.arraycopy(pose, 0, lastPose, id * 6, 6);
+        }
+
+        lastSequence = sequence;
+        frames++;
+        if (keyframe) {
+            keyframes++;
+        }
+        totalBytes += size;
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private int intern(String id) {
+        Integer index = ids.get(id);
+        if (index != null) {
+            return index;
+        }
+        int created = idList.size();
+        ids.put(id, created);
+        idList.add(id);
+        if (created >= lastFrame.length) {
+            int capacity = lastFrame.length * 2;
+            lastFrame = Arrays.copyOf(lastFrame, capacity);
+            lastMatches = Arrays.copyOf(lastMatches, capacity);
+            lastFlags = Arrays.copyOf(lastFlags, capacity);
+            lastPose = Arrays.copyOf(lastPose, capacity * 6);
+        }
+        lastFrame[created] = 0;
+        return created;
+    }
+
+    private boolean samePose(int id, short[] pose) {
+        for (int c = 0; c < 6; c++) {
+            if (lastPose[id * 6 + c] != pose[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes position xyz and the smallest three quaternion components as 16-bit
+     * values. Returns the index of the largest component, which is left out.
+     */
+    static int quantise(float[] position, float[] rotation, short[] out) {
+        for (int c = 0; c < 3; c++) {
+            out[c] = toShort(position[c] / POSITION_RANGE);
+        }
+        float length = (float) Math.sqrt(rotation[0] * rotation[0] + rotation[1] * rotation[1]
+                + rotation[2] * rotation[2] + rotation[3] * rotation[3]);
+        int largest = 0;
+        for (int c = 1; c < 4; c++) {
+            if (Math.abs(rotation[c]) > Math.abs(rotation[largest])) {
+                largest = c;
+            }
+        }
+        // q and -q are the same rotation; make the dropped component positive
+        float sign = rotation[largest] < 0 ? -1 : 1;
+        for (int c = 0, o = 3; c < 4; c++) {
+            if (c != largest) {
+                out[o++] = toShort(sign * rotation[c] / (length * QUATERNION_RANGE));
+            }
+        }
+        return largest;
+    }
+
+    private static short toShort(float unit) {
+        return (short) Math.round(Math.max(-1f, Math.min(1f, unit)) * 32767);
+    }
+
+    int getLastSequence() { return lastSequence; }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("frames", frames);
+        stats.put("keyframes", keyframes);
+        stats.put("bytesPerFrame", frames > 0 ? totalBytes / (double) frames : 0.0);
+        stats.put("internedIds", idList.size());
+        return stats;
+    }
+
+    private void ensure(int bytes) {
+        if (size + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeShort(int value) {
+        ensure(2);
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >> 8);
+    }
+
+    private void writeVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
@@ -0,0 +1,1183 @@
+package com.example.ar.vuforia;
+
+// Vuforia imports (these would be available after adding Vuforia SDK)
+// import com.vuforia.Vuforia;
+// import com.vuforia.CameraDevice;
+// import com.vuforia.DataSet;
+// import com.vuforia.ObjectTracker;
+// import com.vuforia.TrackerManager;
+// import com.vuforia.Trackable;
+// import com.vuforia.TrackableResult;
+// import com.vuforia.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VuforiaARManager {
+    private static final String TAG = "VuforiaARManager";
+    
+    // Culling camera until Vuforia supplies one: portrait preview of a 4:3 camera
+    private static final float DEFAULT_CAMERA_FOV_DEGREES = 60.0f;
+    private static final float DEFAULT_CAMERA_ASPECT = 3.0f / 4.0f;
+    private static final float CAMERA_NEAR = 0.05f;
+    private static final float CAMERA_FAR = 20.0f;
+    // Skinned garments follow the body away from their bind pose; their bounds are padded by this share of their size
+    private static final float SKINNED_BOUNDS_MARGIN = 0.25f;
+    
+    private final AssetSource assets;
+    private String licenseKey;
+    private volatile boolean isInitialized = false;
+    private volatile boolean isARSessionActive = false;
+    private final Map<String, FashionModel> loadedModels;
+    private final ModelAssetCache assetCache;
+    private final BodyFrame bodyFrame = new BodyFrame(); // Latest body tracking sample
+    private final SkinningEngine skinningEngine;
+    
+    // Camera frame pipeline: source -> ring (newest frame only) -> tracker thread
+    private final FrameRing frameRing = new FrameRing(3);
+    private volatile FrameSource frameSource; // Null until a camera is wired up
+    private FrameSource runningSource; // The source the running pipeline started
+    private Thread trackerThread;
+    private ImageTargetEngine targetEngine;
+    private LumaImage frameLuma; // Reused greyscale copy of the camera Y plane
+    
+    // Tiered model residency: trim levels and the budget demote, showing a model promotes it
+    private final Object residencyLock = new Object(); // Guards model tiers; taken before bodyFrame
+    private final Map<String, ByteBuffer> mappedSources = new ConcurrentHashMap<>(); // For MAPPED models
+    private final ExecutorService residencyExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "model-residency");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long memoryBudgetBytes = Long.MAX_VALUE;
+    private volatile int lastTrimLevel;
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicLong demotions = new AtomicLong();
+    
+    // Frustum culling: visible models sit in a BVH that is culled once per body frame
+    private final ModelBvh<FashionModel> cullTree = new ModelBvh<>(); // Guarded by itself; taken after bodyFrame
+    private final Frustum frustum = new Frustum(); // Guarded by cullTree
+    private final float[] cullBounds = new float[6]; // Guarded by cullTree
+    private volatile long cullFrame; // Written under cullTree
+    private int drawnModels; // Guarded by cullTree
+    private int culledModels; // Guarded by cullTree
+    private int cullNodesVisited; // Guarded by cullTree
+    private final ModelBvh.Visitor<FashionModel> markDrawn = model -> {
+        model.setDrawnFrame(cullFrame);
+        drawnModels++;
+    };
+    
+    // Draw-call batching across the shown models; rebuilt only when they change
+    private final DrawBatcher batcher = new DrawBatcher(); // Guarded by cullTree
+    private volatile boolean batchesDirty;
+    private FashionModel[] batchModels = new FashionModel[0]; // Batcher source order; guarded by cullTree
+    private float[][] batchMatrices = new float[0][]; // Guarded by cullTree
+    private double lastBatchRebuildMs; // Guarded by cullTree
+    
+    // Vuforia objects (would be initialized with actual SDK)
+    // private DataSet dataSet;
+    // private ObjectTracker objectTracker;
+
+    public VuforiaARManager(AssetSource assets, String licenseKey) {
+        this.assets = assets;
+        this.licenseKey = licenseKey;
+        this.loadedModels = new ConcurrentHashMap<>();
+        this.assetCache = new ModelAssetCache(this::decodeModelAsset);
+        this.skinningEngine = new SkinningEngine(SkinningEngine.defaultParallelism());
+        
+        // TODO: Set the Vuforia camera feed as the frame source once CameraDevice is wired up
+        setCameraMatrices(null, null);
+    }
+
+    /** Image targets to look for in every tracked camera frame. */
+    public void setTargetEngine(ImageTargetEngine targetEngine) {
+        this.targetEngine = targetEngine;
+    }
+
+    /**
+     * Camera used for frustum culling, as column-major 4x4 OpenGL matrices. A null
+     * projection falls back to a default portrait perspective, a null view to a camera
+     * at the origin looking down -Z, the space model positions are given in.
+     */
+    public void setCameraMatrices(float[] projection, float[] view) {
+        // TODO: Feed Vuforia's projection and camera pose here every frame
+        float[] proj = projection;
+        if (proj == null) {
+            proj = new float[16];
+            Frustum.perspective(proj, DEFAULT_CAMERA_FOV_DEGREES, DEFAULT_CAMERA_ASPECT, CAMERA_NEAR, CAMERA_FAR);
+        }
+        float[] viewProjection = proj;
+        if (view != null) {
+            viewProjection = new float[16];
+            Frustum.multiply(viewProjection, proj, view);
+        }
+        synchronized (cullTree) {
+            frustum.set(viewProjection);
+        }
+    }
+
+    /**
+     * Swaps the camera frame producer; tests and benchmarks pass a synthetic one.
+     * Takes effect on the next startARSession. Without one the session runs no
+     * tracker thread.
+     */
+    public void setFrameSource(FrameSource frameSource) {
+        this.frameSource = frameSource;
+    }
+
+    public boolean initialize() {
+        try {
+            ArLog.d(TAG, "Initializing Vuforia Engine with license key");
+            
+            // Validate license key format
+            if (licenseKey == null || licenseKey.length() < 50) {
+                ArLog.e(TAG, "Invalid license key format");
+                return false;
+            }
+
+            // TODO: Replace with actual Vuforia initialization
+            // Vuforia.setInitParameters(activity, Vuforia.GL_20, licenseKey);
+            // int initResult = Vuforia.init();
+            
+            // For now, simulate successful initialization
+            // In production, check initResult == Vuforia.INIT_SUCCESS
+            
+            ArLog.d(TAG, "Vuforia Engine initialized successfully");
+            isInitialized = true;
+            
+            // Initialize object tracker
+            // TrackerManager trackerManager = TrackerManager.getInstance();
+            // objectTracker = (ObjectTracker) trackerManager.initTracker(ObjectTracker.getClassType());
+            
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to initialize Vuforia Engine", e);
+            return false;
+        }
+    }
+
+    public boolean startARSession() {
+        if (!isInitialized) {
+            ArLog.e(TAG, "Cannot start AR session - Vuforia not initialized");
+            return false;
+        }
+
+        try {
+            ArLog.d(TAG, "Starting AR session");
+            
+            // TODO: Replace with actual Vuforia camera start
+            // CameraDevice.getInstance().init(CameraDevice.CAMERA_DIRECTION.CAMERA_DIRECTION_DEFAULT);
+            // CameraDevice.getInstance().selectVideoMode(CameraDevice.MODE.MODE_DEFAULT);
+            // CameraDevice.getInstance().start();
+            
+            // Start object tracker
+            // if (objectTracker != null) {
+            //     objectTracker.start();
+            // }
+            
+            isARSessionActive = true;
+            
+            // Place attached garments on the current body estimate straight away
+            onBodyFrame(bodyFrame);
+            startFramePipeline();
+            
+            ArLog.d(TAG, "AR session started successfully");
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to start AR session", e);
+            return false;
+        }
+    }
+
+    public boolean stopARSession() {
+        try {
+            ArLog.d(TAG, "Stopping AR session");
+            
+            // TODO: Replace with actual Vuforia camera stop
+            // if (objectTracker != null) {
+            //     objectTracker.stop();
+            // }
+            // CameraDevice.getInstance().stop();
+            // CameraDevice.getInstance().deinit();
+            
+            isARSessionActive = false;
+            stopFramePipeline();
+            ArLog.d(TAG, "AR session stopped successfully");
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to stop AR session", e);
+            return false;
+        }
+    }
+
+    public boolean isARSessionActive() {
+        return isARSessionActive;
+    }
+
+    private synchronized void startFramePipeline() {
+        FrameSource source = frameSource;
+        if (trackerThread != null || source == null) {
+            return;
+        }
+        frameRing.reopen();
+        frameRing.resetStats();
+
+        Thread thread = new Thread(this::runTracker, "vuforia-tracker");
+        thread.setDaemon(true);
+        trackerThread = thread;
+        thread.start();
+        runningSource = source;
+        source.start(frameRing);
+    }
+
+    private synchronized void stopFramePipeline() {
+        if (runningSource == null) {
+            return;
+        }
+        runningSource.stop();
+        runningSource = null;
+        frameRing.close();
+
+        Thread thread = trackerThread;
+        trackerThread = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ArLog.d(TAG, "Frame pipeline stopped: " + frameRing.getFramesDelivered() + " frames tracked, "
+                + frameRing.getFramesDropped() + " dropped");
+    }
+
+    // Tracker loop: always works on the newest camera frame, stale ones are dropped by the ring
+    private void runTracker() {
+        while (trackerThread == Thread.currentThread()) {
+            CameraFrame frame;
+            try {
+                frame = frameRing.acquireLatest(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == null) {
+                continue;
+            }
+
+            try {
+                processFrame(frame);
+            } catch (RuntimeException e) {
+                ArLog.e(TAG, "Error processing camera frame " + frame.getSequence(), e);
+            } finally {
+                frameRing.release(frame);
+            }
+        }
+    }
+
+    private void processFrame(CameraFrame frame) {
+        ImageTargetEngine engine = targetEngine;
+        if (engine != null && engine.getTargetCount() > 0) {
+            // Half resolution is plenty for recognition and quarters the cost
+            frameLuma = LumaImage.fromPlane(frame.getYPlane(), frame.getWidth(), frame.getHeight(),
+                    frame.getYRowStride(), 2, frameLuma);
+            engine.recognize(frameLuma);
+        }
+
+        // TODO: Replace with actual Vuforia body tracking on the frame's Y plane
+        // The simulated body estimate is re-applied for every camera frame
+        synchronized (bodyFrame) {
+            bodyFrame.timestampNanos = frame.getCaptureNanos();
+            onBodyFrame(bodyFrame);
+        }
+    }
+
+    public boolean loadModel(String modelId, String modelPath, String modelName, String category) {
+        if (!isInitialized) {
+            ArLog.e(TAG, "Cannot load model - Vuforia not initialized");
+            return false;
+        }
+
+        try {
+            ArLog.d(TAG, "Loading 3D model: " + modelName + " (" + modelId + ")");
+            ArLog.d(TAG, "Model path: " + modelPath);
+            ArLog.d(TAG, "Category: " + category);
+
+            FashionModel existing = loadedModels.get(modelId);
+            if (existing != null && existing.getPath().equals(modelPath)) {
+                // Repeated load of the same id - keep the existing model and its reference
+                ArLog.d(TAG, "Model already loaded: " + modelId);
+                return true;
+            }
+
+            // Concurrent loads of the same path share one decode; each model holds one reference
+            ModelAsset asset = assetCache.acquire(modelPath);
+
+            // Create fashion model object
+            FashionModel model = new FashionModel(modelId, modelPath, modelName, category);
+            model.setLocalBounds(asset.getBounds(), asset.isSkinned() ? SKINNED_BOUNDS_MARGIN : 0);
+            model.setBinding(new AttachmentSolver.Binding(AttachmentSolver.anchorForCategory(category)));
+            model.setLoaded(true);
+            model.setVisible(false); // Initially hidden
+            model.markShown(System.nanoTime());
+            synchronized (residencyLock) {
+                model.setAsset(asset);
+                makeGpuResident(model);
+            }
+
+            // Store loaded model, unless a concurrent load of the same id and path won
+            FashionModel previous;
+            while (true) {
+                previous = loadedModels.get(modelId);
+                if (previous != null && previous.getPath().equals(modelPath)) {
+                    releaseResidency(model);
+                    ArLog.d(TAG, "Model already loaded: " + modelId);
+                    return true;
+                }
+                if (previous == null ? loadedModels.putIfAbsent(modelId, model) == null
+                        : loadedModels.replace(modelId, previous, model)) {
+                    break;
+                }
+            }
+            solveAttachment(model);
+
+            if (previous != null) {
+                // Same id re-pointed at a different file - drop the old source
+                setCullMember(previous, false);
+                releaseResidency(previous);
+            }
+            synchronized (residencyLock) {
+                applyResidency(0); // The new model may push older hidden ones over budget
+            }
+
+            ArLog.d(TAG, "Model loaded successfully: " + modelName
+                    + " (" + asset.getVertexCount() + " vertices, "
+                    + (asset.isSkinned() ? "skinned, " : "")
+                    + asset.getDecodedBytes() / 1024 + " KB decoded, "
+                    + assetCache.getRefCount(modelPath) + " users)");
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to load model: " + modelName, e);
+            return false;
+        }
+    }
+
+    private ModelAsset decodeModelAsset(String modelPath) throws IOException {
+        ArLog.d(TAG, "Decoding GLB: " + modelPath);
+        ByteBuffer mapped = mappedSources.get(modelPath);
+        return GlbParser.parse(modelPath, mapped != null ? mapped.duplicate() : readModelSource(modelPath));
+    }
+
+    /**
+     * Reads a model either from the file system (memory-mapped) or, for relative
+     * paths, from the app's assets.
+     */
+    private ByteBuffer readModelSource(String modelPath) throws IOException {
+        File file = new File(modelPath);
+        if (file.isAbsolute() && file.isFile()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        try (InputStream in = assets.open(modelPath)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 8192));
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    public boolean setModelVisibility(String modelId, boolean visible) {
+        FashionModel model = loadedModels.get(modelId);
+        if (model == null) {
+            ArLog.e(TAG, "Model not found: " + modelId);
+            return false;
+        }
+
+        try {
+            ArLog.d(TAG, "Setting model visibility: " + modelId + " = " + visible);
+            
+            // TODO: Replace with actual Vuforia visibility control
+            // This would involve:
+            // 1. Getting the 3D object from Vuforia scene
+            // 2. Setting visibility flag
+            // 3. Updating render state
+            
+            if (visible || model.isVisible()) {
+                model.markShown(System.nanoTime());
+            }
+            model.setVisible(visible);
+            setCullMember(model, visible); // Only shown models are culled and drawn
+            
+            if (visible) {
+                synchronized (residencyLock) {
+                    if (model.getTier() != ModelResidency.Tier.GPU) {
+                        // Demoted under memory pressure; bring it back without blocking the caller
+                        schedulePromotion(model);
+                    } else {
+                        // Skinning is skipped while hidden; catch up to the current pose on show
+                        synchronized (bodyFrame) {
+                            SkinnedModel skinned = model.getSkinnedModel();
+                            if (skinned != null) {
+                                skinned.update(bodyFrame, skinningEngine);
+                            }
+                        }
+                    }
+                }
+            }
+            
+            ArLog.d(TAG, "Model visibility updated successfully");
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to set model visibility", e);
+            return false;
+        }
+    }
+
+    public boolean updateModelTransform(String modelId, float[] position, float[] rotation, float[] scale) {
+        FashionModel model = loadedModels.get(modelId);
+        if (model == null) {
+            ArLog.e(TAG, "Model not found for transform update: " + modelId);
+            return false;
+        }
+
+        try {
+            // Called for every frame: no logging on the success path
+
+            // TODO: Replace with actual Vuforia transform update
+            // This would involve:
+            // 1. Getting the 3D object from Vuforia scene
+            // 2. Applying position, rotation, scale transforms
+            // 3. Updating model matrix
+            // 4. Body tracking integration for automatic positioning
+            
+            // An explicit pose from Dart takes over from the native attachment
+            if (model.getBinding().enabled) {
+                model.getBinding().enabled = false;
+                ArLog.d(TAG, "Detached model from body anchor: " + modelId);
+            }
+            
+            if (position != null) {
+                model.setPosition(position);
+            }
+            
+            if (rotation != null) {
+                model.setRotation(rotation);
+            }
+            
+            if (scale != null) {
+                model.setScale(scale);
+            }
+            
+            updateCullBounds(model);
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to update model transform", e);
+            return false;
+        }
+    }
+
+    /**
+     * Binds a model to a body anchor. Passing {@code null} for any argument keeps its
+     * current value. The pose is then solved natively for every body frame.
+     */
+    public boolean setModelAttachment(String modelId, String anchor, float[] offset, float[] rotation,
+                                      float[] scale, Boolean enabled) {
+        FashionModel model = loadedModels.get(modelId);
+        if (model == null) {
+            ArLog.e(TAG, "Model not found for attachment: " + modelId);
+            return false;
+        }
+
+        try {
+            AttachmentSolver.Binding binding = model.getBinding();
+            synchronized (bodyFrame) {
+                if (anchor != null) {
+                    binding.anchor = AttachmentSolver.Anchor.parse(anchor);
+                }
+                if (offset != null) {
+                    System.arraycopy(offset, 0, binding.offset, 0, 3);
+                }
+                if (rotation != null) {
+                    System.arraycopy(rotation, 0, binding.rotation, 0, 3);
+                }
+                if (scale != null) {
+                    System.arraycopy(scale, 0, binding.scale, 0, 3);
+                }
+                if (enabled != null) {
+                    binding.enabled = enabled;
+                }
+                solveAttachment(model);
+            }
+
+            ArLog.d(TAG, "Model attachment updated: " + modelId + " -> " + binding.anchor
+                    + (binding.enabled ? "" : " (disabled)"));
+            return true;
+
+        } catch (IllegalArgumentException e) {
+            ArLog.e(TAG, "Invalid attachment anchor: " + anchor, e);
+            return false;
+        }
+    }
+
+    /**
+     * Entry point for each body tracking frame. Re-solves every attached model and
+     * re-skins visible skinned garments, so Dart never has to send per-frame poses.
+     */
+    public void onBodyFrame(BodyFrame frame) {
+        synchronized (bodyFrame) {
+            if (frame != bodyFrame) {
+                bodyFrame.copyFrom(frame);
+            }
+            for (FashionModel model : loadedModels.values()) {
+                solveAttachment(model);
+            }
+
+            // Off-screen garments are neither drawn nor skinned this frame
+            cullModels();
+
+            long drawnFrame = cullFrame;
+            for (FashionModel model : loadedModels.values()) {
+                SkinnedModel skinned = model.getSkinnedModel();
+                if (skinned != null && model.isVisible() && model.getDrawnFrame() == drawnFrame) {
+                    try {
+                        skinned.update(bodyFrame, skinningEngine);
+                    } catch (RuntimeException e) {
+                        ArLog.e(TAG, "Skinning failed for model: " + model.getId(), e);
+                    }
+                }
+            }
+
+            updateBatches();
+        }
+    }
+
+    private void solveAttachment(FashionModel model) {
+        AttachmentSolver.Binding binding = model.getBinding();
+        if (binding == null || !binding.enabled) {
+            return;
+        }
+        synchronized (bodyFrame) {
+            AttachmentSolver.solve(bodyFrame, binding, model.getPosition(), model.getRotation(), model.getScale());
+        }
+        updateCullBounds(model);
+    }
+
+    /** Adds a model to the cull tree or takes it out. */
+    private void setCullMember(FashionModel model, boolean member) {
+        synchronized (cullTree) {
+            int proxy = model.getCullProxy();
+            if (member && proxy < 0) {
+                model.computeWorldBounds(cullBounds);
+                model.setCullProxy(cullTree.insert(model, cullBounds));
+                batchesDirty = true;
+            } else if (!member && proxy >= 0) {
+                cullTree.remove(proxy);
+                model.setCullProxy(-1);
+                batchesDirty = true;
+            }
+        }
+    }
+
+    /** Moves a model's leaf after its pose changed; the tree only changes if it left its fattened box. */
+    private void updateCullBounds(FashionModel model) {
+        synchronized (cullTree) {
+            int proxy = model.getCullProxy();
+            if (proxy >= 0) {
+                model.computeWorldBounds(cullBounds);
+                cullTree.move(proxy, cullBounds);
+            }
+        }
+    }
+
+    /** Marks the shown models inside the camera frustum as drawn for a new frame. */
+    private void cullModels() {
+        synchronized (cullTree) {
+            drawnModels = 0;
+            cullFrame++;
+            cullNodesVisited = cullTree.cull(frustum, markDrawn);
+            culledModels = cullTree.size() - drawnModels;
+        }
+    }
+
+    /**
+     * Hands this frame's model matrices to the batcher, after rebuilding the batches
+     * if a model was shown, hidden, removed, or gained or lost its GPU residency.
+     */
+    private void updateBatches() {
+        synchronized (cullTree) {
+            if (batchesDirty) {
+                rebuildBatches();
+            }
+            long drawnFrame = cullFrame;
+            for (int i = 0; i < batchModels.length; i++) {
+                FashionModel model = batchModels[i];
+                batchMatrices[i] = model.getDrawnFrame() == drawnFrame ? model.getModelMatrix() : null;
+            }
+            batcher.update(batchMatrices);
+        }
+    }
+
+    // Caller holds cullTree
+    private void rebuildBatches() {
+        batchesDirty = false; // Changes from here on are picked up by the next frame
+        long start = System.nanoTime();
+        List<FashionModel> members = new ArrayList<>();
+        List<DrawBatcher.Source> sources = new ArrayList<>();
+        for (FashionModel model : loadedModels.values()) {
+            ModelAsset asset = model.getAsset();
+            if (model.getCullProxy() >= 0 && model.getTier() == ModelResidency.Tier.GPU && asset != null) {
+                members.add(model);
+                sources.add(new DrawBatcher.Source(asset, model.getSkinnedModel()));
+            }
+        }
+        batcher.rebuild(sources);
+        batchModels = members.toArray(new FashionModel[0]);
+        batchMatrices = new float[batchModels.length][];
+        lastBatchRebuildMs = (System.nanoTime() - start) / 1_000_000.0;
+        ArLog.d(TAG, "Rebuilt " + batcher.getBatches().size() + " draw batches for " + batchModels.length
+                + " models in " + String.format(Locale.ROOT, "%.2f", lastBatchRebuildMs) + " ms");
+    }
+
+    /** Draw calls of the last frame with and without batching, and the batches themselves. */
+    public Map<String, Object> getBatchingState() {
+        Map<String, Object> state = new HashMap<>();
+        synchronized (cullTree) {
+            state.put("drawCallsUnbatched", batcher.getUnbatchedDrawCalls());
+            state.put("drawCalls", batcher.getDrawCalls());
+            state.put("batches", batcher.getBatches().size());
+            state.put("batchedModels", batchModels.length);
+            state.put("batchedVertices", batcher.getVertexCount());
+            state.put("rebuilds", batcher.getRebuilds());
+            state.put("lastRebuildMs", lastBatchRebuildMs);
+        }
+        return state;
+    }
+
+    /** Result of the last frustum cull and the shape of the cull tree. */
+    public Map<String, Object> getCullingState() {
+        Map<String, Object> state = new HashMap<>();
+        synchronized (cullTree) {
+            state.put("drawnModels", drawnModels);
+            state.put("culledModels", culledModels);
+            state.put("shownModels", cullTree.size());
+            state.put("nodesVisited", cullNodesVisited);
+            state.put("treeNodes", cullTree.getNodeCount());
+            state.put("treeHeight", cullTree.getHeight());
+            state.put("reinsertions", cullTree.getReinsertions());
+            state.put("frames", cullFrame);
+        }
+        return state;
+    }
+
+    public boolean removeModel(String modelId) {
+        FashionModel model = loadedModels.get(modelId);
+        if (model == null) {
+            ArLog.w(TAG, "Model not found for removal: " + modelId);
+            return true; // Consider it success if already removed
+        }
+
+        try {
+            ArLog.d(TAG, "Removing model: " + modelId);
+            
+            // TODO: Replace with actual Vuforia model removal
+            // This would involve:
+            // 1. Removing 3D object from Vuforia scene
+            // 2. Cleaning up GPU resources
+            
+            if (!loadedModels.remove(modelId, model)) {
+                return true; // Replaced or removed concurrently
+            }
+            setCullMember(model, false);
+
+            // Decoded data is only freed once no other model id shares the source
+            boolean freed = releaseResidency(model);
+            
+            ArLog.d(TAG, "Model removed successfully" + (freed ? " (asset freed)" : " (asset still shared)"));
+            return true;
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Failed to remove model", e);
+            return false;
+        }
+    }
+
+    /**
+     * Forwarded from {@code ComponentCallbacks2.onTrimMemory}. Demotes models to the
+     * tiers allowed at {@code level}, hidden ones first; see {@link ModelResidency}.
+     */
+    public void onTrimMemory(int level) {
+        lastTrimLevel = level;
+        long before;
+        long after;
+        synchronized (residencyLock) {
+            before = currentFootprint();
+            applyResidency(level);
+            after = currentFootprint();
+        }
+        ArLog.d(TAG, "Trim level " + level + ": model footprint " + before / 1024 + " KB -> " + after / 1024 + " KB");
+    }
+
+    /**
+     * Caps the bytes held by decoded and uploaded models. Hidden models beyond it are
+     * demoted, least recently shown first; {@code Long.MAX_VALUE} disables the cap.
+     */
+    public void setMemoryBudget(long bytes) {
+        memoryBudgetBytes = bytes;
+        synchronized (residencyLock) {
+            applyResidency(0);
+        }
+    }
+
+    public Map<String, Object> getResidencyState() {
+        Map<String, Object> state = new HashMap<>();
+        Map<String, Object> models = new HashMap<>();
+        Map<ModelResidency.Tier, Integer> counts = new EnumMap<>(ModelResidency.Tier.class);
+        long footprint;
+        synchronized (residencyLock) {
+            for (FashionModel model : loadedModels.values()) {
+                models.put(model.getId(), model.getTier().name());
+                counts.merge(model.getTier(), 1, Integer::sum);
+            }
+            footprint = currentFootprint();
+        }
+        Map<String, Object> tiers = new HashMap<>();
+        for (ModelResidency.Tier tier : ModelResidency.Tier.values()) {
+            tiers.put(tier.name(), counts.getOrDefault(tier, 0));
+        }
+        long mappedBytes = 0;
+        for (ByteBuffer source : mappedSources.values()) {
+            mappedBytes += source.capacity();
+        }
+
+        long budget = memoryBudgetBytes;
+        state.put("budgetBytes", budget == Long.MAX_VALUE ? -1 : budget);
+        state.put("footprintBytes", footprint);
+        state.put("decodedBytes", assetCache.getDecodedBytes());
+        state.put("mappedBytes", mappedBytes);
+        state.put("tiers", tiers);
+        state.put("models", models);
+        state.put("promotions", promotions.get());
+        state.put("demotions", demotions.get());
+        state.put("lastTrimLevel", lastTrimLevel);
+        return state;
+    }
+
+    // Caller holds residencyLock
+    private long currentFootprint() {
+        Map<FashionModel, ModelResidency.Tier> tiers = new HashMap<>();
+        for (FashionModel model : loadedModels.values()) {
+            tiers.put(model, model.getTier());
+        }
+        return ModelResidency.footprint(tiers);
+    }
+
+    // Caller holds residencyLock
+    private void applyResidency(int trimLevel) {
+        Map<FashionModel, ModelResidency.Tier> targets =
+                ModelResidency.plan(loadedModels.values(), trimLevel, memoryBudgetBytes);
+        for (Map.Entry<FashionModel, ModelResidency.Tier> entry : targets.entrySet()) {
+            demote(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Caller holds residencyLock and the model's asset reference
+    private void makeGpuResident(FashionModel model) {
+        ModelAsset asset = model.getAsset();
+        SkinnedModel skinned = SkinnedModel.create(asset);
+        long deformBytes = 0;
+        if (skinned != null) {
+            for (SkinnedMesh mesh : skinned.getMeshes()) {
+                deformBytes += mesh.getBufferBytes();
+            }
+        }
+        // TODO: Upload vertex buffers and textures once the renderer exists; until then
+        // the GPU copy is estimated as the size of the decoded data
+        model.setResidentBytes(asset.getDecodedBytes(), asset.getDecodedBytes() + deformBytes);
+
+        synchronized (bodyFrame) {
+            model.setSkinnedModel(skinned);
+            if (skinned != null && model.isVisible()) {
+                skinned.update(bodyFrame, skinningEngine);
+            }
+        }
+        model.setTier(ModelResidency.Tier.GPU);
+        batchesDirty = true;
+    }
+
+    // Caller holds residencyLock
+    private void demote(FashionModel model, ModelResidency.Tier target) {
+        ModelResidency.Tier tier = model.getTier();
+        if (target.ordinal() <= tier.ordinal()) {
+            return;
+        }
+        if (tier == ModelResidency.Tier.GPU) {
+            // TODO: Delete the model's GL buffers and textures here
+            synchronized (bodyFrame) {
+                model.setSkinnedModel(null);
+            }
+            batchesDirty = true;
+        }
+        if (target.ordinal() >= ModelResidency.Tier.MAPPED.ordinal() && model.getAsset() != null) {
+            if (target == ModelResidency.Tier.MAPPED) {
+                mapSource(model.getPath());
+            }
+            model.setAsset(null);
+            assetCache.release(model.getPath());
+        }
+        model.setTier(target);
+        if (target == ModelResidency.Tier.METADATA) {
+            unmapSourceIfUnused(model.getPath());
+        }
+        demotions.incrementAndGet();
+        ArLog.d(TAG, "Model " + model.getId() + " demoted: " + tier + " -> " + target);
+    }
+
+    // Caller holds residencyLock
+    private void schedulePromotion(FashionModel model) {
+        if (model.isPromoting()) {
+            return;
+        }
+        model.setPromoting(true);
+        residencyExecutor.execute(() -> promote(model));
+    }
+
+    private void promote(FashionModel model) {
+        boolean needsAsset;
+        synchronized (residencyLock) {
+            if (!model.isVisible() || model.getTier() == ModelResidency.Tier.GPU
+                    || loadedModels.get(model.getId()) != model) {
+                model.setPromoting(false);
+                return;
+            }
+            needsAsset = model.getAsset() == null;
+        }
+
+        try {
+            long start = System.nanoTime();
+            // Decode outside the lock; trims and other models carry on meanwhile
+            ModelAsset acquired = needsAsset ? assetCache.acquire(model.getPath()) : null;
+
+            synchronized (residencyLock) {
+                model.setPromoting(false);
+                if (acquired != null) {
+                    if (loadedModels.get(model.getId()) != model || model.getAsset() != null) {
+                        assetCache.release(model.getPath()); // Removed while decoding
+                        return;
+                    }
+                    model.setAsset(acquired);
+                    model.setTier(ModelResidency.Tier.DECODED);
+                    unmapSourceIfUnused(model.getPath());
+                }
+                if (!model.isVisible()) {
+                    return; // Hidden again while decoding; stays decoded
+                }
+                ModelResidency.Tier from = model.getTier();
+                makeGpuResident(model);
+                promotions.incrementAndGet();
+                applyResidency(0);
+                ArLog.d(TAG, "Model " + model.getId() + " promoted: " + from + " -> GPU in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (residencyLock) {
+                model.setPromoting(false);
+            }
+            ArLog.e(TAG, "Failed to promote model: " + model.getId(), e);
+        }
+    }
+
+    /** Drops everything a removed model holds. Returns true if its decoded asset was freed. */
+    private boolean releaseResidency(FashionModel model) {
+        synchronized (residencyLock) {
+            boolean freed = false;
+            synchronized (bodyFrame) {
+                model.setSkinnedModel(null);
+            }
+            if (model.getAsset() != null) {
+                model.setAsset(null);
+                freed = assetCache.release(model.getPath());
+            }
+            model.setTier(ModelResidency.Tier.METADATA);
+            unmapSourceIfUnused(model.getPath());
+            return freed;
+        }
+    }
+
+    // Caller holds residencyLock
+    private void mapSource(String path) {
+        if (mappedSources.containsKey(path) || !new File(path).isAbsolute()) {
+            return;
+        }
+        try {
+            mappedSources.put(path, readModelSource(path));
+        } catch (IOException e) {
+            ArLog.w(TAG, "Cannot map model source " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Caller holds residencyLock
+    private void unmapSourceIfUnused(String path) {
+        for (FashionModel model : loadedModels.values()) {
+            if (model.getPath().equals(path) && model.getTier() == ModelResidency.Tier.MAPPED) {
+                return;
+            }
+        }
+        mappedSources.remove(path);
+    }
+
+    public Map<String, Object> getTrackingState() {
+        Map<String, Object> trackingState = new HashMap<>();
+        
+        try {
+            // TODO: Replace with actual Vuforia tracking state
+            // This would involve:
+            // 1. Getting current State from Vuforia
+            // 2. Checking trackable results
+            // 3. Getting pose information
+            // 4. Calculating tracking quality
+            
+            // Simulate tracking state
+            trackingState.put("isTracking", isARSessionActive);
+            trackingState.put("trackingQuality", "GOOD");
+            trackingState.put("confidence", 0.95);
+            trackingState.put("numTrackedObjects", loadedModels.size());
+            trackingState.put("sharedAssets", assetCache.size());
+            trackingState.put("decodedAssetBytes", assetCache.getDecodedBytes());
+            trackingState.put("frames", frameRing.getStats());
+            trackingState.put("residency", getResidencyState());
+            trackingState.put("culling", getCullingState());
+            trackingState.put("batching", getBatchingState());
+            
+        } catch (Exception e) {
+            ArLog.e(TAG, "Error getting tracking state", e);
+            trackingState.put("isTracking", false);
+            trackingState.put("error", e.getMessage());
+        }
+        
+        return trackingState;
+    }
+
+    /**
+     * Fixed-layout form of {@link #getTrackingState()} for {@link BinaryProtocol}:
+     * isTracking (u8), confidence (f32), tracked objects, shared assets (i32),
+     * decoded asset bytes, frames delivered, frames dropped (i64), drawn models,
+     * culled models, draw calls without and with batching (i32).
+     */
+    void writeTrackingState(ByteBuffer out) {
+        // TODO: Replace with actual Vuforia tracking state, as in getTrackingState
+        out.put((byte) (isARSessionActive ? 1 : 0));
+        out.putFloat(0.95f);
+        out.putInt(loadedModels.size());
+        out.putInt(assetCache.size());
+        out.putLong(assetCache.getDecodedBytes());
+        out.putLong(frameRing.getFramesDelivered());
+        out.putLong(frameRing.getFramesDropped());
+        synchronized (cullTree) {
+            out.putInt(drawnModels);
+            out.putInt(culledModels);
+            out.putInt(batcher.getUnbatchedDrawCalls());
+            out.putInt(batcher.getDrawCalls());
+        }
+    }
+
+    /** Fixed-layout form of {@link #getBodyTrackingData()}; see {@link BodyFrame#write}. */
+    void writeBodyTrackingData(ByteBuffer out) {
+        synchronized (bodyFrame) {
+            bodyFrame.write(out);
+        }
+    }
+
+    public Map<String, Object> getBodyTrackingData() {
+        Map<String, Object> bodyData = new HashMap<>();
+        
+        try {
+            // TODO: Replace with actual Vuforia body tracking
+            // This would involve:
+            // 1. Using Vuforia's body tracking features
+            // 2. Getting skeleton/joint positions
+            // 3. Feeding each new sample through onBodyFrame()
+            
+            // Simulated body tracking data for fashion fitting
+            synchronized (bodyFrame) {
+                bodyData = bodyFrame.toMap();
+            }
+            
+        } catch (Exception e) {
+            ArLog.e(TAG, "Error getting body tracking data", e);
+            bodyData.put("error", e.getMessage());
+        }
+        
+        return bodyData;
+    }
+
+    public void dispose() {
+        try {
+            ArLog.d(TAG, "Disposing Vuforia AR Manager");
+            
+            // Stop AR session if active
+            if (isARSessionActive) {
+                stopARSession();
+            }
+            
+            // Clear loaded models
+            residencyExecutor.shutdownNow();
+            loadedModels.clear();
+            synchronized (cullTree) {
+                cullTree.clear();
+                batcher.clear();
+                batchModels = new FashionModel[0];
+                batchMatrices = new float[0][];
+            }
+            assetCache.clear();
+            mappedSources.clear();
+            skinningEngine.shutdown();
+            
+            // TODO: Replace with actual Vuforia cleanup
+            // This would involve:
+            // 1. Stopping all trackers
+            // 2. Unloading datasets
+            // 3. Deinitializing Vuforia
+            // 4. Cleaning up GPU resources
+            
+            // Vuforia.deinit();
+            
+            isInitialized = false;
+            
+            ArLog.d(TAG, "Vuforia AR Manager disposed successfully");
+
+        } catch (Exception e) {
+            ArLog.e(TAG, "Error disposing Vuforia AR Manager", e);
+        }
+    }
+
+    // Inner class for fashion model data
+    private static class FashionModel implements ModelResidency.Resident {
+        private String id;
+        private String path;
+        private String name;
+        private String category;
+        private boolean loaded;
+        private volatile boolean visible;
+        private volatile long lastShownNanos;
+        private float[] position = {0.0f, 0.0f, -1.0f};
+        private float[] rotation = {0.0f, 0.0f, 0.0f};
+        private float[] scale = {1.0f, 1.0f, 1.0f};
+        private ModelAsset asset;
+        private AttachmentSolver.Binding binding;
+        private SkinnedModel skinnedModel;
+        private volatile ModelResidency.Tier tier = ModelResidency.Tier.METADATA; // Written under residencyLock
+        private boolean promoting; // Guarded by residencyLock
+        private long decodedBytes; // Sizes as last decoded; kept when demoted
+        private long gpuBytes;
+        private final float[] localBounds = new float[6]; // Model space, min xyz, max xyz
+        private final float[] modelMatrix = new float[16]; // As of the last bounds update; guarded by cullTree
+        private int cullProxy = -1; // Leaf in the cull tree while shown; guarded by cullTree
+        private volatile long drawnFrame = -1; // Last cull frame that found the model on screen
+
+        public FashionModel(String id, String path, String name, String category) {
+            this.id = id;
+            this.path = path;
+            this.name = name;
+            this.category = category;
+            this.loaded = false;
+            this.visible = false;
+        }
+
+        // Getters and setters
+        public String getId() { return id; }
+        public String getPath() { return path; }
+        public String getName() { return name; }
+        public String getCategory() { return category; }
+        public boolean isLoaded() { return loaded; }
+        public void setLoaded(boolean loaded) { this.loaded = loaded; }
+        public boolean isVisible() { return visible; }
+        public void setVisible(boolean visible) { this.visible = visible; }
+        
+        public float[] getPosition() { return position; }
+        public void setPosition(float[] position) { this.position = position; }
+        public float[] getRotation() { return rotation; }
+        public void setRotation(float[] rotation) { this.rotation = rotation; }
+        public float[] getScale() { return scale; }
+        public void setScale(float[] scale) { this.scale = scale; }
+        public ModelAsset getAsset() { return asset; }
+        public void setAsset(ModelAsset asset) { this.asset = asset; }
+        public AttachmentSolver.Binding getBinding() { return binding; }
+        public void setBinding(AttachmentSolver.Binding binding) { this.binding = binding; }
+        public SkinnedModel getSkinnedModel() { return skinnedModel; }
+        public void setSkinnedModel(SkinnedModel skinnedModel) { this.skinnedModel = skinnedModel; }
+
+        public ModelResidency.Tier getTier() { return tier; }
+        public void setTier(ModelResidency.Tier tier) { this.tier = tier; }
+        public boolean isPromoting() { return promoting; }
+        public void setPromoting(boolean promoting) { this.promoting = promoting; }
+        public long getLastShownNanos() { return lastShownNanos; }
+        public void markShown(long nanos) { this.lastShownNanos = nanos; }
+        public boolean canMap() { return new File(path).isAbsolute(); }
+
+        /** Copies {@code bounds}, each side pushed out by {@code margin} times the box size. */
+        public void setLocalBounds(float[] bounds, float margin) {
+            for (int axis = 0; axis < 3; axis++) {
+                float pad = (bounds[axis + 3] - bounds[axis]) * margin;
+                localBounds[axis] = bounds[axis] - pad;
+                localBounds[axis + 3] = bounds[axis + 3] + pad;
+            }
+        }
+
+        /** Refreshes the model matrix from the current pose and writes the world box. */
+        public void computeWorldBounds(float[] out) {
+            ModelBvh.modelMatrix(modelMatrix, position, rotation, scale);
+            ModelBvh.transformBounds(localBounds, modelMatrix, out);
+        }
+
+        public float[] getModelMatrix() { return modelMatrix; }
+
+        public int getCullProxy() { return cullProxy; }
+        public void setCullProxy(int cullProxy) { this.cullProxy = cullProxy; }
+        public long getDrawnFrame() { return drawnFrame; }
+        public void setDrawnFrame(long drawnFrame) { this.drawnFrame = drawnFrame; }
+
+        public void setResidentBytes(long decodedBytes, long gpuBytes) {
+            this.decodedBytes = decodedBytes;
+            this.gpuBytes = gpuBytes;
+        }
+
+        public long getBytes(ModelResidency.Tier tier) {
+            switch (tier) {
+                case GPU:
+                    return decodedBytes + gpuBytes;
+                case DECODED:
+                    return decodedBytes;
+                default:
+                    return 0; // Mapped pages are clean and reclaimable by the kernel
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.ar.vuforia;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** Default anchors match whole words of the category, so sleeve lengths do not read as shorts. */
+public class AttachmentSolverTest {
+    @Test
+    public void topsAnchorToTheChest() {
+        assertEquals(AttachmentSolver.Anchor.CHEST, AttachmentSolver.anchorForCategory("Short Sleeve Shirt"));
+        assertEquals(AttachmentSolver.Anchor.CHEST, AttachmentSolver.anchorForCategory("t-shirt short"));
+        assertEquals(AttachmentSolver.Anchor.CHEST, AttachmentSolver.anchorForCategory("kemeja"));
+    }
+
+    @Test
+    public void bottomsAnchorToTheWaist() {
+        assertEquals(AttachmentSolver.Anchor.WAIST, AttachmentSolver.anchorForCategory("shorts"));
+        assertEquals(AttachmentSolver.Anchor.WAIST, AttachmentSolver.anchorForCategory("Bottoms"));
+        assertEquals(AttachmentSolver.Anchor.WAIST, AttachmentSolver.anchorForCategory("rok_panjang"));
+    }
+
+    @Test
+    public void othersHangFromTheTorso() {
+        assertEquals(AttachmentSolver.Anchor.TORSO, AttachmentSolver.anchorForCategory("dress"));
+        assertEquals(AttachmentSolver.Anchor.TORSO, AttachmentSolver.anchorForCategory("stopwatch"));
+        assertEquals(AttachmentSolver.Anchor.TORSO, AttachmentSolver.anchorForCategory(null));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Writes calls with every value type, reads them back, and damages the file. */
+public class ChannelLogTest {
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        ArLog.setSink(null);
+    }
+
+    @Test
+    public void everyValueTypeRoundTrips() throws IOException {
+        File file = directory.newFile("calls.arcl");
+        try (ChannelLog.Writer writer = new ChannelLog.Writer(file)) {
+            writer.record("vuforia_ar", "everything", everyValue());
+            writer.record("vuforia_ar", "everything", everyValue());
+            writer.record("vuforia_ar", "noArguments", null);
+            assertEquals(3, writer.getCount());
+        }
+
+        List<ChannelLog.Entry> entries = ChannelLog.read(file);
+        assertEquals(3, entries.size());
+        for (int i = 0; i < 2; i++) {
+            ChannelLog.Entry entry = entries.get(i);
+            assertEquals("vuforia_ar", entry.channel);
+            assertEquals("everything", entry.method);
+            checkEveryValue((Map<?, ?>) entry.arguments);
+        }
+        assertEquals("noArguments", entries.get(2).method);
+        assertNull(entries.get(2).arguments);
+        assertTrue(entries.get(0).offsetNanos >= 0);
+        assertTrue(entries.get(1).offsetNanos >= entries.get(0).offsetNanos);
+        assertTrue(entries.get(2).offsetNanos >= entries.get(1).offsetNanos);
+
+        // The second call refers to the strings of the first instead of repeating them
+        String bytes = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+        assertEquals(bytes.indexOf("modelId"), bytes.lastIndexOf("modelId"));
+        assertEquals(bytes.indexOf("vuforia_ar"), bytes.lastIndexOf("vuforia_ar"));
+    }
+
+    @Test
+    public void unsupportedTypeLeavesTheLogAsItWas() throws IOException {
+        File file = directory.newFile("calls.arcl");
+        try (ChannelLog.Writer writer = new ChannelLog.Writer(file)) {
+            writer.record("vuforia_ar", "loadModel", Collections.singletonMap("modelId", "shirt_01"));
+            long size = writer.getSize();
+
+            Map<String, Object> arguments = new LinkedHashMap<>();
+            arguments.put("modelId", "shirt_01");
+            arguments.put("fresh", "dress_02"); // New strings, added to the table before the failure
+            arguments.put("view", new Object());
+            try {
+                writer.record("vuforia_ar", "attachToBody", arguments);
+                fail("Recorded an Object");
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(1, writer.getCount());
+            assertEquals(size, writer.getSize());
+
+            // Had they stayed in the table these would be written as refs the reader never saw
+            arguments.remove("view");
+            writer.record("vuforia_ar", "attachToBody", arguments);
+        }
+
+        List<ChannelLog.Entry> entries = ChannelLog.read(file);
+        assertEquals(2, entries.size());
+        assertEquals("attachToBody", entries.get(1).method);
+        Map<?, ?> arguments = (Map<?, ?>) entries.get(1).arguments;
+        assertEquals(Arrays.asList("modelId", "fresh"), new ArrayList<>(arguments.keySet()));
+        assertEquals("shirt_01", arguments.get("modelId"));
+        assertEquals("dress_02", arguments.get("fresh"));
+    }
+
+    @Test
+    public void truncatedLastEntryIsDropped() throws IOException {
+        File file = directory.newFile("calls.arcl");
+        long complete;
+        long full;
+        try (ChannelLog.Writer writer = new ChannelLog.Writer(file)) {
+            writer.record("vuforia_ar", "updateModelTransform", Fixtures.transformArguments("model_0"));
+            writer.record("vuforia_ar", "updateModelTransform", Fixtures.transformArguments("model_1"));
+            complete = writer.getSize();
+            writer.record("vuforia_ar", "updateModelTransform", Fixtures.transformArguments("model_2"));
+            full = writer.getSize();
+        }
+        assertEquals(3, ChannelLog.read(file).size());
+
+        ArLog.setSink((priority, tag, message, error) -> {
+            if (priority == ArLog.WARN) {
+                warnings.add(message);
+            }
+        });
+        // Cut the last entry at every byte, as a crash mid-write would
+        for (long length = full - 1; length > complete; length--) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(length);
+            }
+            List<ChannelLog.Entry> entries = ChannelLog.read(file);
+            assertEquals("length " + length, 2, entries.size());
+            assertEquals("model_1", ((Map<?, ?>) entries.get(1).arguments).get("modelId"));
+        }
+        assertEquals(full - 1 - complete, warnings.size());
+        assertTrue(warnings.get(0), warnings.get(0).startsWith("Dropped truncated entry 2"));
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        File file = directory.newFile("calls.arcl");
+        Files.write(file.toPath(), "not a log".getBytes(StandardCharsets.US_ASCII));
+        try {
+            ChannelLog.read(file);
+            fail("Read a file without the header");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static Map<String, Object> everyValue() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("modelId", "shirt_01");
+        nested.put("visible", false);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("modelId", "shirt_01"); // Also a key: one table entry for both
+        values.put("null", null);
+        values.put("true", true);
+        values.put("false", false);
+        values.put("int", -123456);
+        values.put("intMin", Integer.MIN_VALUE);
+        values.put("short", (short) -7);
+        values.put("byte", (byte) 100);
+        values.put("long", Long.MAX_VALUE);
+        values.put("longMin", Long.MIN_VALUE);
+        values.put("float", 0.25f);
+        values.put("double", -1.5e300);
+        values.put("bytes", new byte[]{0, -1, 127, -128});
+        values.put("ints", new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE});
+        values.put("longs", new long[]{0, -1, Long.MAX_VALUE, Long.MIN_VALUE});
+        values.put("doubles", new double[]{0.0, -0.5, Double.MAX_VALUE, Double.NaN});
+        values.put("list", Arrays.asList("shirt_01", 1, null, Arrays.asList(2L, 3.0)));
+        values.put("map", nested);
+        values.put("emptyList", Collections.emptyList());
+        return values;
+    }
+
+    private static void checkEveryValue(Map<?, ?> values) {
+        assertEquals(new ArrayList<>(everyValue().keySet()), new ArrayList<>(values.keySet()));
+        assertEquals("shirt_01", values.get("modelId"));
+        assertNull(values.get("null"));
+        assertEquals(true, values.get("true"));
+        assertEquals(false, values.get("false"));
+        assertEquals(-123456, values.get("int"));
+        assertEquals(Integer.MIN_VALUE, values.get("intMin"));
+        assertEquals(-7, values.get("short")); // Narrow integers come back as Integer
+        assertEquals(100, values.get("byte"));
+        assertEquals(Long.MAX_VALUE, values.get("long"));
+        assertEquals(Long.MIN_VALUE, values.get("longMin"));
+        assertEquals(0.25, values.get("float")); // And floats as Double
+        assertEquals(-1.5e300, values.get("double"));
+        assertArrayEquals(new byte[]{0, -1, 127, -128}, (byte[]) values.get("bytes"));
+        assertArrayEquals(new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE}, (int[]) values.get("ints"));
+        assertArrayEquals(new long[]{0, -1, Long.MAX_VALUE, Long.MIN_VALUE}, (long[]) values.get("longs"));
+        assertArrayEquals(new double[]{0.0, -0.5, Double.MAX_VALUE, Double.NaN}, (double[]) values.get("doubles"), 0.0);
+        assertEquals(Arrays.asList("shirt_01", 1, null, Arrays.asList(2L, 3.0)), values.get("list"));
+        Map<?, ?> nested = (Map<?, ?>) values.get("map");
+        assertEquals("shirt_01", nested.get("modelId"));
+        assertEquals(false, nested.get("visible"));
+        assertEquals(Collections.emptyList(), values.get("emptyList"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays hand-made logs on the calling thread. Pacing is only checked from below,
+ * except where the recorded schedule is long enough that a replay following it
+ * could not pass.
+ */
+public class ChannelReplayerTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private final List<String> errors = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        ArLog.setSink(null);
+    }
+
+    @Test
+    public void speedZeroIgnoresTheSchedule() throws InterruptedException {
+        List<ChannelLog.Entry> entries = entries(0, 5000, 10_000); // Milliseconds
+        List<String> invoked = new ArrayList<>();
+        Map<String, Object> report = new ChannelReplayer((entry, completion) -> {
+            invoked.add(entry.method);
+            completion.complete(true);
+        }, Runnable::run).replay(entries, 0, TIMEOUT_MS);
+
+        assertEquals(Arrays.asList("call_0", "call_1", "call_2"), invoked);
+        assertEquals(false, report.get("timedOut"));
+        assertEquals(10_000.0, report.get("recordedMs"));
+        assertTrue(report.toString(), (Double) report.get("durationMs") < 5000);
+    }
+
+    @Test
+    public void speedOneKeepsTheRecordedSchedule() throws InterruptedException {
+        long[] offsets = {0, 40, 80, 120};
+        long[] invoked = replayTimes(entries(offsets), 1);
+        for (int i = 0; i < offsets.length; i++) {
+            assertTrue("call " + i + " at " + invoked[i] + " ns", invoked[i] >= TimeUnit.MILLISECONDS.toNanos(offsets[i]));
+        }
+    }
+
+    @Test
+    public void speedNCompressesTheSchedule() throws InterruptedException {
+        long[] offsets = {0, 1000, 2000, 3000};
+        long[] invoked = replayTimes(entries(offsets), 20);
+        for (int i = 0; i < offsets.length; i++) {
+            assertTrue("call " + i + " at " + invoked[i] + " ns",
+                    invoked[i] >= TimeUnit.MILLISECONDS.toNanos(offsets[i]) / 20);
+        }
+        assertTrue("replayed at the recorded speed", invoked[3] < TimeUnit.MILLISECONDS.toNanos(offsets[3]));
+    }
+
+    @Test
+    public void reportCountsEveryOutcome() throws InterruptedException {
+        ArLog.setSink((priority, tag, message, error) -> {
+            if (priority == ArLog.ERROR) {
+                errors.add(message);
+            }
+        });
+        List<ChannelLog.Entry> entries = Arrays.asList(
+                new ChannelLog.Entry(0, "vuforia_ar", "succeeds", null),
+                new ChannelLog.Entry(0, "vuforia_ar", "succeeds", null),
+                new ChannelLog.Entry(0, "vuforia_ar", "fails", null),
+                new ChannelLog.Entry(0, "vuforia_ar", "throws", null),
+                new ChannelLog.Entry(0, "vuforia_database", "completesTwice", null),
+                new ChannelLog.Entry(0, "vuforia_database", "neverCompletes", null));
+        Map<String, Object> report = new ChannelReplayer((entry, completion) -> {
+            switch (entry.method) {
+                case "succeeds":
+                    completion.complete(true);
+                    break;
+                case "fails":
+                    completion.complete(false);
+                    break;
+                case "throws":
+                    throw new IllegalStateException("Handler bug");
+                case "completesTwice":
+                    completion.complete(true);
+                    completion.complete(false);
+                    break;
+                default:
+                    break;
+            }
+        }, Runnable::run).replay(entries, 0, 50);
+
+        assertEquals(6, report.get("calls"));
+        assertEquals(5L, report.get("completed"));
+        assertEquals(2, report.get("failed"));
+        assertEquals(true, report.get("timedOut"));
+        assertEquals(0.0, report.get("speed"));
+        assertEquals(5L, stats(report, "latency").get("count"));
+        assertEquals(6L, stats(report, "queueDelay").get("count"));
+        Map<?, ?> methods = (Map<?, ?>) report.get("methods");
+        assertEquals(5, methods.size());
+        assertEquals(2L, ((Map<?, ?>) methods.get("vuforia_ar/succeeds")).get("count"));
+        assertEquals(1L, ((Map<?, ?>) methods.get("vuforia_database/completesTwice")).get("count"));
+        assertEquals(0L, ((Map<?, ?>) methods.get("vuforia_database/neverCompletes")).get("count"));
+        assertEquals(Arrays.asList("Replayed call threw: throws"), errors);
+    }
+
+    /** Nanoseconds from before the replay started to each call. */
+    private static long[] replayTimes(List<ChannelLog.Entry> entries, double speed) throws InterruptedException {
+        long[] invoked = new long[entries.size()];
+        long start = System.nanoTime();
+        Map<String, Object> report = new ChannelReplayer((entry, completion) -> {
+            invoked[entries.indexOf(entry)] = System.nanoTime() - start;
+            completion.complete(true);
+        }, Runnable::run).replay(entries, speed, TIMEOUT_MS);
+        assertEquals(report.toString(), (long) entries.size(), report.get("completed"));
+        return invoked;
+    }
+
+    private static List<ChannelLog.Entry> entries(long... offsetsMillis) {
+        List<ChannelLog.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < offsetsMillis.length; i++) {
+            entries.add(new ChannelLog.Entry(TimeUnit.MILLISECONDS.toNanos(offsetsMillis[i]),
+                    "vuforia_ar", "call_" + i, null));
+        }
+        return entries;
+    }
+
+    private static Map<?, ?> stats(Map<String, Object> report, String key) {
+        return (Map<?, ?>) report.get(key);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.ar.vuforia;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Strip, fan and loop primitives are unrolled and never merged with another mode;
+ * models that share a material key share a batch, each vertex selecting its model's
+ * matrix, and culled models draw nothing.
+ */
+public class DrawBatcherTest {
+    @Test
+    public void triangleStripKeepsWinding() {
+        assertArrayEquals(new int[]{0, 1, 2, 1, 3, 2, 2, 3, 4},
+                DrawBatcher.listIndices(mesh(5, null, ModelInfo.PRIMITIVE_TRIANGLE_STRIP)));
+    }
+
+    @Test
+    public void triangleFanUsesIndices() {
+        assertArrayEquals(new int[]{7, 5, 9, 5, 6, 9},
+                DrawBatcher.listIndices(mesh(10, new int[]{9, 7, 5, 6}, ModelInfo.PRIMITIVE_TRIANGLE_FAN)));
+    }
+
+    @Test
+    public void lineLoopIsClosed() {
+        assertArrayEquals(new int[]{0, 1, 1, 2, 2, 0},
+                DrawBatcher.listIndices(mesh(3, null, ModelInfo.PRIMITIVE_LINE_LOOP)));
+        assertArrayEquals(new int[]{0, 1, 1, 2},
+                DrawBatcher.listIndices(mesh(3, null, ModelInfo.PRIMITIVE_LINE_STRIP)));
+    }
+
+    @Test
+    public void modesAreBatchedSeparately() {
+        List<ModelAsset.Mesh> meshes = Arrays.asList(
+                mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES),
+                mesh(4, null, ModelInfo.PRIMITIVE_TRIANGLE_STRIP),
+                mesh(2, null, ModelInfo.PRIMITIVE_LINES),
+                mesh(3, null, ModelInfo.PRIMITIVE_POINTS));
+        ModelAsset asset = new ModelAsset("modes.glb", meshes, Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList());
+
+        DrawBatcher batcher = new DrawBatcher();
+        batcher.rebuild(Collections.singletonList(new DrawBatcher.Source(asset, null)));
+        float[] matrix = new float[16];
+        SkinningEngine.setIdentity(matrix, 0);
+        assertEquals(3, batcher.update(new float[][]{matrix}));
+        assertEquals(4, batcher.getUnbatchedDrawCalls());
+
+        List<DrawBatcher.Batch> batches = batcher.getBatches();
+        assertEquals(ModelInfo.PRIMITIVE_TRIANGLES, batches.get(0).mode);
+        // The strip's two triangles follow the list's one, offset past its vertices
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 4, 6, 5}, batches.get(0).indices);
+        assertEquals(ModelInfo.PRIMITIVE_LINES, batches.get(1).mode);
+        assertArrayEquals(new int[]{0, 1}, batches.get(1).indices);
+        assertEquals(ModelInfo.PRIMITIVE_POINTS, batches.get(2).mode);
+        assertEquals(batches.get(0).materialKey, batches.get(2).materialKey);
+    }
+
+    @Test
+    public void modelsSharingAMaterialKeyShareABatch() {
+        DrawBatcher batcher = new DrawBatcher();
+        batcher.rebuild(Arrays.asList(shirtAndLace(), trousers()));
+        float[] shirt = translation(1, 0, 0);
+        float[] trousers = translation(0, -1, 0);
+        assertEquals(3, batcher.update(new float[][]{shirt, trousers}));
+        assertEquals(3, batcher.getDrawCalls());
+        assertEquals(4, batcher.getUnbatchedDrawCalls());
+
+        List<DrawBatcher.Batch> batches = batcher.getBatches();
+        assertEquals(3, batches.size());
+        DrawBatcher.Batch cotton = batches.get(0);
+        assertEquals("cotton", cotton.materialKey);
+        assertArrayEquals(new int[]{0, 1}, cotton.instanceSources);
+        assertArrayEquals(new short[]{0, 0, 0, 1, 1, 1, 1}, cotton.instanceIds);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 4, 6, 5}, cotton.indices);
+        assertEquals(2f, cotton.positions[3 * 3], 0f); // First trousers vertex, after the shirt's three
+        assertArrayEquals(shirt, Arrays.copyOfRange(cotton.instanceMatrices, 0, 16), 0f);
+        assertArrayEquals(trousers, Arrays.copyOfRange(cotton.instanceMatrices, 16, 32), 0f);
+        assertEquals(2, cotton.drawnInstances);
+
+        assertEquals("lace", batches.get(1).materialKey);
+        assertArrayEquals(new int[]{0}, batches.get(1).instanceSources);
+        assertEquals(ModelAsset.Material.DEFAULT_KEY, batches.get(2).materialKey);
+        assertArrayEquals(new int[]{1}, batches.get(2).instanceSources);
+        assertArrayEquals(new short[]{0, 0, 0}, batches.get(2).instanceIds);
+    }
+
+    @Test
+    public void culledModelGetsAZeroMatrix() {
+        DrawBatcher batcher = new DrawBatcher();
+        batcher.rebuild(Arrays.asList(shirtAndLace(), trousers()));
+        float[] trousers = translation(0, -1, 0);
+        assertEquals(2, batcher.update(new float[][]{null, trousers}));
+        assertEquals(2, batcher.getDrawCalls()); // Cotton and default; lace only holds the shirt
+        assertEquals(2, batcher.getUnbatchedDrawCalls());
+
+        DrawBatcher.Batch cotton = batcher.getBatches().get(0);
+        assertArrayEquals(new float[16], Arrays.copyOfRange(cotton.instanceMatrices, 0, 16), 0f);
+        assertArrayEquals(trousers, Arrays.copyOfRange(cotton.instanceMatrices, 16, 32), 0f);
+        assertEquals(1, cotton.drawnInstances);
+        assertEquals(0, batcher.getBatches().get(1).drawnInstances);
+
+        float[] shirt = translation(1, 0, 0);
+        assertEquals(3, batcher.update(new float[][]{shirt, trousers}));
+        assertArrayEquals(shirt, Arrays.copyOfRange(cotton.instanceMatrices, 0, 16), 0f);
+    }
+
+    @Test
+    public void fullInstanceTableStartsANewBatch() {
+        int models = DrawBatcher.MAX_INSTANCES + 3;
+        List<DrawBatcher.Source> sources = new ArrayList<>();
+        float[][] matrices = new float[models][];
+        for (int s = 0; s < models; s++) {
+            // Two primitives each, which must stay in their model's batch
+            ModelAsset asset = new ModelAsset("model_" + s + ".glb",
+                    Arrays.asList(mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES, 0),
+                            mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES, 0)),
+                    Collections.emptyList(), Collections.emptyList(),
+                    Collections.singletonList(new ModelAsset.Material("cotton", "cotton")));
+            sources.add(new DrawBatcher.Source(asset, null));
+            matrices[s] = translation(s, 0, 0);
+        }
+
+        DrawBatcher batcher = new DrawBatcher();
+        batcher.rebuild(sources);
+        assertEquals(2, batcher.update(matrices));
+        assertEquals(2 * models, batcher.getUnbatchedDrawCalls());
+
+        List<DrawBatcher.Batch> batches = batcher.getBatches();
+        assertEquals(DrawBatcher.MAX_INSTANCES, batches.get(0).instanceSources.length);
+        assertEquals(DrawBatcher.MAX_INSTANCES * 6, batches.get(0).getVertexCount());
+        assertEquals(DrawBatcher.MAX_INSTANCES - 1, batches.get(0).instanceIds[batches.get(0).getVertexCount() - 1]);
+        assertArrayEquals(new int[]{32, 33, 34}, batches.get(1).instanceSources);
+        assertArrayEquals(new short[]{0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 2},
+                batches.get(1).instanceIds);
+        assertArrayEquals(matrices[32], Arrays.copyOfRange(batches.get(1).instanceMatrices, 0, 16), 0f);
+    }
+
+    @Test
+    public void culledSkinnedModelKeepsItsLastPose() {
+        ModelAsset.Mesh skinned = new ModelAsset.Mesh(0, new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, null, null, null, -1);
+        skinned.setSkin(0, new int[12], new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0});
+        float[] inverseBind = new float[16];
+        SkinningEngine.setIdentity(inverseBind, 0);
+        ModelAsset asset = new ModelAsset("rig.glb", Collections.singletonList(skinned), Collections.emptyList(),
+                Collections.singletonList(new ModelAsset.Skin(new String[]{"Hips"}, inverseBind)),
+                Collections.emptyList());
+        SkinnedModel model = SkinnedModel.create(asset);
+        SkinningEngine engine = new SkinningEngine(1);
+        try {
+            DrawBatcher batcher = new DrawBatcher();
+            batcher.rebuild(Collections.singletonList(new DrawBatcher.Source(asset, model)));
+            float[] identity = translation(0, 0, 0);
+
+            model.update(hipsAt(-1), engine);
+            batcher.update(new float[][]{identity});
+            float[] firstPose = model.getMeshes()[0].getPositions().clone();
+            DrawBatcher.Batch batch = batcher.getBatches().get(0);
+            assertArrayEquals(firstPose, batch.positions, 0f);
+            assertEquals(-1f, batch.positions[2], 0f);
+
+            // Culled: the batch keeps the last copied pose
+            model.update(hipsAt(-2), engine);
+            assertEquals(0, batcher.update(new float[][]{null}));
+            assertArrayEquals(firstPose, batch.positions, 0f);
+            assertArrayEquals(new float[16], batch.instanceMatrices, 0f);
+
+            batcher.update(new float[][]{identity});
+            assertArrayEquals(model.getMeshes()[0].getPositions(), batch.positions, 0f);
+            assertEquals(-2f, batch.positions[2], 0f);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /** A shirt in cotton with lace trim. */
+    private static DrawBatcher.Source shirtAndLace() {
+        return rigid(new ModelAsset("shirt.glb",
+                Arrays.asList(mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES, 0),
+                        mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES, 1)),
+                Collections.emptyList(), Collections.emptyList(),
+                Arrays.asList(new ModelAsset.Material("shirt_cotton", "cotton"),
+                        new ModelAsset.Material("trim", "lace"))));
+    }
+
+    /** Cotton trousers, under another material name, and a button without a material. */
+    private static DrawBatcher.Source trousers() {
+        ModelAsset.Mesh legs = mesh(4, null, ModelInfo.PRIMITIVE_TRIANGLE_STRIP, 0);
+        legs.getPositions()[0] = 2f;
+        return rigid(new ModelAsset("trousers.glb",
+                Arrays.asList(legs, mesh(3, null, ModelInfo.PRIMITIVE_TRIANGLES, -1)),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.singletonList(new ModelAsset.Material("trousers_cotton", "cotton"))));
+    }
+
+    private static DrawBatcher.Source rigid(ModelAsset asset) {
+        return new DrawBatcher.Source(asset, null);
+    }
+
+    private static BodyFrame hipsAt(float z) {
+        BodyFrame frame = new BodyFrame();
+        SkinningEngine.setIdentity(frame.jointPoses, BodySkeleton.HIPS * 16);
+        frame.jointPoses[BodySkeleton.HIPS * 16 + 14] = z;
+        frame.jointTracked[BodySkeleton.HIPS] = true;
+        return frame;
+    }
+
+    private static float[] translation(float x, float y, float z) {
+        float[] matrix = new float[16];
+        SkinningEngine.setIdentity(matrix, 0);
+        matrix[12] = x;
+        matrix[13] = y;
+        matrix[14] = z;
+        return matrix;
+    }
+
+    private static ModelAsset.Mesh mesh(int vertices, int[] indices, int mode) {
+        return mesh(vertices, indices, mode, -1);
+    }
+
+    private static ModelAsset.Mesh mesh(int vertices, int[] indices, int mode, int material) {
+        return new ModelAsset.Mesh(0, new float[vertices * 3], null, null, indices, material, mode);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ar.vuforia;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Shared setup for the benchmarks and unit tests. */
+final class Fixtures {
+    /** Passes the manager's license format check. */
+    static final String LICENSE_KEY = "BENCHMARK-LICENSE-KEY-0000000000000000000000000000000000000000";
+
+    private Fixtures() {
+    }
+
+    /**
+     * An initialised manager whose asset bundle serves the same GLB for every path.
+     * Logging is silenced so it does not dominate the measurements; the sink is
+     * global, so tests put it back with {@code ArLog.setSink(null)} in their teardown.
+     */
+    static VuforiaARManager newManager(byte[] glb) {
+        ArLog.setSink(ArLog.SILENT);
+        VuforiaARManager manager = new VuforiaARManager(path -> new ByteArrayInputStream(glb), LICENSE_KEY);
+        if (!manager.initialize()) {
+            throw new IllegalStateException("Manager failed to initialise");
+        }
+        return manager;
+    }
+
+    static void loadModels(VuforiaARManager manager, int count) {
+        String[] categories = {"dress", "top", "pants", "jacket"};
+        for (int i = 0; i < count; i++) {
+            String category = categories[i % categories.length];
+            if (!manager.loadModel("model_" + i, "models/" + category + "_" + i + ".glb", "Model " + i, category)) {
+                throw new IllegalStateException("Failed to load model_" + i);
+            }
+            manager.setModelVisibility("model_" + i, true);
+        }
+    }
+
+    /** Arguments of an updateModelTransform call as the standard codec decodes them. */
+    static Map<String, Object> transformArguments(String modelId) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("modelId", modelId);
+        arguments.put("position", doubles(0.05, -0.2, -1.1));
+        arguments.put("rotation", doubles(0.0, 12.5, 0.0));
+        arguments.put("scale", doubles(1.02, 1.02, 1.02));
+        return arguments;
+    }
+
+    private static List<Object> doubles(double... values) {
+        List<Object> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /** Every tracked joint rotated slightly about Z, so skinning does real work. */
+    static BodyFrame posedBodyFrame() {
+        BodyFrame frame = new BodyFrame();
+        Arrays.fill(frame.jointTracked, true);
+        for (int j = 0; j < BodySkeleton.JOINT_COUNT; j++) {
+            float angle = 0.05f * (j + 1);
+            float cos = (float) Math.cos(angle);
+            float sin = (float) Math.sin(angle);
+            int m = j * 16;
+            SkinningEngine.setIdentity(frame.jointPoses, m);
+            frame.jointPoses[m] = cos;
+            frame.jointPoses[m + 1] = sin;
+            frame.jointPoses[m + 4] = -sin;
+            frame.jointPoses[m + 5] = cos;
+            frame.jointPoses[m + 13] = 0.01f * j;
+        }
+        return frame;
+    }
+}
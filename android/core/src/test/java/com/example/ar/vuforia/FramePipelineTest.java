@@ -0,0 +1,146 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The camera frame ring fed by {@link SyntheticFrameSource}: newest-frame hand-off,
+ * drops under a slow tracker, and the manager running no camera thread until a
+ * frame source is set. Timing only bounds the waits; assertions are on sequences
+ * and counts.
+ */
+public class FramePipelineTest {
+    private static final long TIMEOUT_MS = 5000;
+    private static final int TRACKER_LAG = 5; // Frames captured while the tracker holds one
+
+    @After
+    public void tearDown() {
+        ArLog.setSink(null);
+    }
+
+    @Test
+    public void trackerGetsTheNewestFrameAndStaleOnesAreReleased() throws InterruptedException {
+        FrameRing ring = new FrameRing(3);
+        AtomicInteger released = new AtomicInteger();
+        ByteBuffer plane = ByteBuffer.allocateDirect(16);
+        for (int i = 0; i < 3; i++) {
+            ring.offer(plane, plane, plane, 4, 4, 4, 2, 1, System.nanoTime(), released::incrementAndGet);
+        }
+
+        CameraFrame frame = ring.acquireLatest(10, TimeUnit.MILLISECONDS);
+        assertNotNull(frame);
+        assertEquals(2, frame.getSequence());
+        assertEquals(2, released.get());
+        assertEquals(2, ring.getFramesDropped());
+
+        ring.release(frame);
+        assertEquals(3, released.get());
+        assertNull(ring.acquireLatest(10, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * A 200 fps camera against a tracker that holds each frame until five more were
+     * captured: every hand-off must skip to the newest frame, never queue old ones.
+     */
+    @Test
+    public void slowTrackerDropsFramesInsteadOfQueueingThem() throws InterruptedException {
+        FrameRing ring = new FrameRing(3);
+        SyntheticFrameSource source = new SyntheticFrameSource(64, 48, 200, 4);
+        source.start(ring);
+        long previous = -1;
+        try {
+            for (int i = 0; i < 10; i++) {
+                CameraFrame frame = ring.acquireLatest(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                assertNotNull(frame);
+                assertTrue(frame.getSequence() + " after " + previous, previous < 0
+                        || frame.getSequence() >= previous + TRACKER_LAG);
+                previous = frame.getSequence();
+                long target = frame.getSequence() + 1 + TRACKER_LAG;
+                awaitTrue("frames offered", () -> ring.getFramesOffered() >= target);
+                ring.release(frame);
+            }
+        } finally {
+            source.stop();
+            ring.close();
+        }
+
+        assertEquals(10, ring.getFramesDelivered());
+        // At least TRACKER_LAG - 1 frames are dropped per hand-off after the first
+        assertTrue(ring.getFramesDropped() + " dropped", ring.getFramesDropped() >= 9 * (TRACKER_LAG - 1));
+        assertTrue("drop rate " + ring.getDropRate(), ring.getDropRate() > 0.5);
+        assertEquals(ring.getFramesOffered(), ring.getFramesDelivered() + ring.getFramesDropped(), 1);
+    }
+
+    @Test
+    public void managerRunsNoCameraThreadWithoutAFrameSource() {
+        ArLog.setSink(ArLog.SILENT);
+        VuforiaARManager manager = newManager();
+        try {
+            assertTrue(manager.startARSession());
+            assertFalse(threadRunning("vuforia-tracker"));
+            assertFalse(threadRunning("synthetic-camera"));
+        } finally {
+            manager.dispose();
+        }
+    }
+
+    @Test
+    public void managerTracksInjectedFrames() throws InterruptedException {
+        ArLog.setSink(ArLog.SILENT);
+        VuforiaARManager manager = newManager();
+        try {
+            manager.setFrameSource(new SyntheticFrameSource(64, 48, 100, 4));
+            assertTrue(manager.startARSession());
+            awaitTrue("frames delivered", () -> (Long) frames(manager).get("framesDelivered") > 0);
+            assertTrue(manager.stopARSession());
+            assertFalse(threadRunning("synthetic-camera"));
+        } finally {
+            manager.dispose();
+        }
+    }
+
+    private static VuforiaARManager newManager() {
+        VuforiaARManager manager = new VuforiaARManager(path -> new ByteArrayInputStream(new byte[0]),
+                Fixtures.LICENSE_KEY);
+        assertTrue(manager.initialize());
+        return manager;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> frames(VuforiaARManager manager) {
+        return (Map<String, Object>) manager.getTrackingState().get("frames");
+    }
+
+    private static void awaitTrue(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail(what + ": not within " + TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static boolean threadRunning(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Activation returns at once and reports on the loader thread when the load is done. */
+public class ImageTargetEngineTest {
+    private final ImageTargetEngine engine = new ImageTargetEngine();
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void activationDoesNotWaitForThePendingLoad() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        ImageTargetEngine.DatasetSource source = sink -> {
+            try {
+                loading.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        engine.preload("db/slow", source);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<TargetDataset> activated = new AtomicReference<>();
+        AtomicReference<String> thread = new AtomicReference<>();
+        engine.activate("db/slow", source, true, (dataset, error) -> {
+            activated.set(dataset);
+            thread.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+        assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+
+        loading.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotNull(activated.get());
+        assertEquals("db/slow", activated.get().getKey());
+        assertEquals("dataset-loader", thread.get());
+    }
+
+    /** Room for one dataset only: the next one loads beside the tracking one, then replaces it. */
+    @Test
+    public void preloadOverBudgetKeepsTheActiveDataset() throws Exception {
+        engine.setMemoryBudget(new TargetDataset("probe").getMemoryBytes() * 3 / 2);
+        ImageTargetEngine.DatasetSource empty = sink -> { };
+        activate("db/current", empty);
+
+        engine.preload("db/next", empty).get(5, TimeUnit.SECONDS);
+        Map<String, Object> stats = engine.getDatasetStats();
+        assertEquals(Collections.singletonList("db/current"), stats.get("active"));
+        assertEquals(Arrays.asList("db/current", "db/next"), stats.get("resident"));
+        assertEquals(0, stats.get("evictions"));
+
+        activate("db/next", empty);
+        stats = engine.getDatasetStats();
+        assertEquals(Collections.singletonList("db/next"), stats.get("active"));
+        assertEquals(Collections.singletonList("db/next"), stats.get("resident"));
+        assertEquals(1, stats.get("evictions"));
+    }
+
+    @Test
+    public void unknownDatasetFailsWithoutLoading() {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicReference<TargetDataset> activated = new AtomicReference<>();
+        engine.activate("db/missing", null, true, (dataset, error) -> {
+            activated.set(dataset);
+            failure.set(error);
+        });
+        assertNull(activated.get());
+        assertTrue(failure.get() instanceof IllegalArgumentException);
+    }
+
+    private void activate(String key, ImageTargetEngine.DatasetSource source) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        engine.activate(key, source, true, (dataset, error) -> done.countDown());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ar.vuforia;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Random inserts, moves and removes, with the culled set checked after every step
+ * against {@link Frustum#classify} over every exact box.
+ */
+public class ModelBvhTest {
+    private static final int STEPS = 3000;
+    private static final float WORLD = 10f; // Boxes are centred in [-WORLD, WORLD]^3
+
+    private final Random random = new Random(38);
+    private final ModelBvh<Integer> bvh = new ModelBvh<>();
+    private final Map<Integer, float[]> boxes = new HashMap<>(); // Exact box by item
+    private final Map<Integer, Integer> proxies = new HashMap<>();
+    private final List<Integer> live = new ArrayList<>();
+    private final Frustum frustum = new Frustum();
+    private int partialCulls; // Steps where the camera saw some boxes but not all
+
+    @Test
+    public void cullMatchesClassifyAfterEveryOperation() {
+        int nextItem = 0;
+        for (int step = 0; step < STEPS; step++) {
+            int operation = random.nextInt(10);
+            if (live.size() < 8 || operation < 4 && live.size() < 400) {
+                Integer item = nextItem++;
+                float[] box = randomBox();
+                boxes.put(item, box);
+                proxies.put(item, bvh.insert(item, box.clone()));
+                live.add(item);
+            } else if (operation < 8) {
+                Integer item = live.get(random.nextInt(live.size()));
+                float[] box = operation < 6 ? nudged(boxes.get(item)) : randomBox();
+                boxes.put(item, box);
+                bvh.move(proxies.get(item), box.clone());
+            } else {
+                Integer item = live.remove(random.nextInt(live.size()));
+                bvh.remove(proxies.remove(item));
+                boxes.remove(item);
+            }
+
+            assertEquals(live.size(), bvh.size());
+            assertEquals(2 * live.size() - 1, bvh.getNodeCount());
+            checkCull(step);
+            checkBalanced(step);
+        }
+        assertTrue("moves never left the fattened box", bvh.getReinsertions() > 0);
+        assertTrue("cameras saw all or nothing: " + partialCulls, partialCulls > STEPS / 4);
+    }
+
+    @Test
+    public void growingTreeStaysBalanced() {
+        // Sorted inserts are the worst case for a tree without rotations
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            float x = i * 0.5f;
+            sorted.add(bvh.insert(i, new float[]{x, 0, 0, x + 0.4f, 0.4f, 0.4f}));
+            checkBalanced(i);
+        }
+        // And removing from one end
+        for (int i = 0; i < 1000; i++) {
+            bvh.remove(sorted.get(i));
+            checkBalanced(i);
+        }
+        assertEquals(24, bvh.size());
+    }
+
+    private void checkCull(int step) {
+        setRandomCamera();
+        Set<Integer> expected = new HashSet<>();
+        for (Integer item : live) {
+            if (frustum.classify(boxes.get(item), 0) != Frustum.OUTSIDE) {
+                expected.add(item);
+            }
+        }
+        Set<Integer> culled = new HashSet<>();
+        bvh.cull(frustum, item -> assertTrue("visited twice: " + item, culled.add(item)));
+        assertEquals("step " + step, expected, culled);
+        if (!expected.isEmpty() && expected.size() < live.size()) {
+            partialCulls++;
+        }
+    }
+
+    /** An AVL tree of n leaves is at most 1.44 log2(n + 2) high. */
+    private void checkBalanced(int step) {
+        int leaves = bvh.size();
+        double bound = leaves == 0 ? 0 : 1.4405 * Math.log(leaves + 2) / Math.log(2);
+        assertTrue("step " + step + ": height " + bvh.getHeight() + " for " + leaves + " leaves",
+                bvh.getHeight() <= bound);
+    }
+
+    /** Perspective camera at a random point in the world, looking a random way. */
+    private void setRandomCamera() {
+        float[] projection = new float[16];
+        Frustum.perspective(projection, 30 + random.nextFloat() * 60, 0.5f + random.nextFloat(), 0.1f,
+                2 + random.nextFloat() * 20);
+        float[] view = new float[16];
+        ModelBvh.modelMatrix(view,
+                new float[]{coordinate(), coordinate(), coordinate()},
+                new float[]{random.nextFloat() * 360, random.nextFloat() * 360, random.nextFloat() * 360},
+                new float[]{1, 1, 1});
+        float[] viewProjection = new float[16];
+        Frustum.multiply(viewProjection, projection, view);
+        frustum.set(viewProjection);
+    }
+
+    private float[] randomBox() {
+        float x = coordinate(), y = coordinate(), z = coordinate();
+        float w = 0.1f + random.nextFloat() * 1.5f;
+        float h = 0.1f + random.nextFloat() * 1.5f;
+        float d = 0.1f + random.nextFloat() * 1.5f;
+        return new float[]{x - w / 2, y - h / 2, z - d / 2, x + w / 2, y + h / 2, z + d / 2};
+    }
+
+    /** Moves a box by up to twice the fat margin, so some moves stay inside it and some leave. */
+    private float[] nudged(float[] box) {
+        float[] moved = box.clone();
+        for (int axis = 0; axis < 3; axis++) {
+            float delta = (random.nextFloat() * 2 - 1) * 2 * ModelBvh.FAT_MARGIN;
+            moved[axis] += delta;
+            moved[axis + 3] += delta;
+        }
+        return moved;
+    }
+
+    private float coordinate() {
+        return (random.nextFloat() * 2 - 1) * WORLD;
+    }
+}
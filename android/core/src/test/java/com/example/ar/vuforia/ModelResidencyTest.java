@@ -0,0 +1,153 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Replays memory trim events and budget changes against a manager with a mix of
+ * file and bundled models, and checks the tier of every model and the resulting
+ * footprint after each step.
+ *
+ * Models 0-2 are files (they can drop to MAPPED), 3-5 bundled assets (they skip it).
+ */
+public class ModelResidencyTest {
+    private static final int MODELS = 6;
+    private static final long PROMOTION_TIMEOUT_MS = 5000;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    private final byte[] glb = SyntheticGlb.bytes(4000, true, 64 * 1024);
+    private long decoded; // One model at DECODED
+    private long gpu;     // One model at GPU
+    private VuforiaARManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        ModelAsset asset = GlbParser.parse("probe.glb", ByteBuffer.wrap(glb));
+        long deform = 0;
+        for (SkinnedMesh mesh : SkinnedModel.create(asset).getMeshes()) {
+            deform += mesh.getBufferBytes();
+        }
+        decoded = asset.getDecodedBytes();
+        gpu = 2 * decoded + deform;
+        manager = load();
+    }
+
+    @After
+    public void tearDown() {
+        manager.dispose();
+        ArLog.setSink(null);
+    }
+
+    @Test
+    public void trimLevelsDemoteHiddenModels() throws InterruptedException {
+        manager.setModelVisibility("model_0", true);
+        manager.setModelVisibility("model_3", true);
+        check("loaded", "GGGGGG", 6 * gpu, 6 * decoded, 0);
+        manager.onTrimMemory(ModelResidency.TRIM_MEMORY_RUNNING_MODERATE);
+        check("running moderate", "GDDGDD", 2 * gpu + 4 * decoded, 6 * decoded, 0);
+        manager.onTrimMemory(ModelResidency.TRIM_MEMORY_RUNNING_LOW);
+        check("running low", "GMMGXX", 2 * gpu, 2 * decoded, 2L * glb.length);
+
+        manager.setModelVisibility("model_1", true);
+        awaitGpu("model_1");
+        check("model_1 shown", "GGMGXX", 3 * gpu, 3 * decoded, glb.length);
+
+        manager.onTrimMemory(ModelResidency.TRIM_MEMORY_UI_HIDDEN);
+        check("ui hidden", "DDMDXX", 3 * decoded, 3 * decoded, glb.length);
+        manager.onTrimMemory(ModelResidency.TRIM_MEMORY_BACKGROUND);
+        check("background", "MMXXXX", 0, 0, 2L * glb.length);
+        manager.onTrimMemory(ModelResidency.TRIM_MEMORY_COMPLETE);
+        check("complete", "XXXXXX", 0, 0, 0);
+
+        // Back in the foreground: visible models come back on their own when shown
+        for (String id : new String[]{"model_0", "model_1", "model_3"}) {
+            manager.setModelVisibility(id, true);
+            awaitGpu(id);
+        }
+        check("foreground", "GGXGXX", 3 * gpu, 3 * decoded, 0);
+    }
+
+    @Test
+    public void budgetEvictsLeastRecentlyShown() throws InterruptedException {
+        manager.setModelVisibility("model_0", true);
+
+        // Five hidden models over a three-model budget: the oldest go first
+        manager.setMemoryBudget(3 * gpu);
+        check("budget 3 models", "GMMXGG", 3 * gpu, 3 * decoded, 2L * glb.length);
+
+        // Showing one evicts the least recently shown of the rest
+        manager.setModelVisibility("model_1", true);
+        awaitGpu("model_1");
+        check("model_1 shown", "GGMXXG", 3 * gpu, 3 * decoded, glb.length);
+
+        // Visible models are kept even when they alone exceed the budget
+        manager.setMemoryBudget(gpu);
+        check("budget 1 model", "GGMXXX", 2 * gpu, 2 * decoded, glb.length);
+    }
+
+    /** Models 0-5, all hidden and GPU-resident, loaded in index order. */
+    private VuforiaARManager load() throws IOException {
+        VuforiaARManager loaded = Fixtures.newManager(glb);
+        for (int i = 0; i < MODELS; i++) {
+            String path = "models/garment_" + i + ".glb";
+            if (i < 3) {
+                File file = directory.newFile("garment_" + i + ".glb");
+                Files.write(file.toPath(), glb);
+                path = file.getAbsolutePath();
+            }
+            if (!loaded.loadModel("model_" + i, path, "Model " + i, "top")) {
+                loaded.dispose();
+                throw new IllegalStateException("Failed to load model_" + i);
+            }
+        }
+        return loaded;
+    }
+
+    private void awaitGpu(String modelId) throws InterruptedException {
+        long deadline = System.nanoTime() + PROMOTION_TIMEOUT_MS * 1_000_000;
+        while (!"GPU".equals(models().get(modelId))) {
+            if (System.nanoTime() > deadline) {
+                fail(modelId + " was not promoted within " + PROMOTION_TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * {@code tiers} has one letter per model: G(PU), D(ECODED), M(APPED) or X for
+     * METADATA. Byte counts are exact; every model decodes to the same size.
+     */
+    private void check(String step, String tiers, long footprint, long decodedBytes, long mappedBytes) {
+        Map<String, Object> state = manager.getResidencyState();
+        Map<String, Object> models = models();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < MODELS; i++) {
+            String tier = (String) models.get("model_" + i);
+            actual.append(tier.equals("METADATA") ? 'X' : tier.charAt(0));
+        }
+
+        assertEquals(step + ": tiers", tiers, actual.toString());
+        assertEquals(step + ": footprintBytes", footprint, state.get("footprintBytes"));
+        assertEquals(step + ": decodedBytes", decodedBytes, state.get("decodedBytes"));
+        assertEquals(step + ": mappedBytes", mappedBytes, state.get("mappedBytes"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> models() {
+        return (Map<String, Object>) manager.getResidencyState().get("models");
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A two-joint rig whose spine is bound one metre above the hips: the tracked joint
+ * transforms only give the right vertices once the inverse bind matrices are applied,
+ * and an untracked spine must move with the hips.
+ */
+public class SkinnedModelTest {
+    private static final float EPSILON = 1e-5f;
+
+    private SkinningEngine engine;
+    private ModelAsset.Mesh mesh;
+    private ModelAsset asset;
+
+    @Before
+    public void setUp() {
+        engine = new SkinningEngine(1);
+
+        float[] inverseBind = new float[32];
+        SkinningEngine.setIdentity(inverseBind, 0); // Hips bound at the origin
+        SkinningEngine.setIdentity(inverseBind, 16);
+        inverseBind[16 + 13] = -1.0f; // Spine bound at y = 1
+        ModelAsset.Skin skin = new ModelAsset.Skin(new String[]{"Hips", "Spine"}, inverseBind);
+
+        float[] positions = {
+                0.0f, 0.5f, 0.0f, // Hips only
+                0.0f, 1.5f, 0.0f, // Spine only
+                0.0f, 1.0f, 0.0f, // Half each, weights not normalised in the file
+                0.0f, 1.5f, 0.0f}; // Spine plus a joint the skin does not have
+        int[] joints = {
+                0, 0, 0, 0,
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                7, 1, 0, 0};
+        float[] weights = {
+                1.0f, 0.0f, 0.0f, 0.0f,
+                1.0f, 0.0f, 0.0f, 0.0f,
+                0.25f, 0.25f, 0.0f, 0.0f,
+                0.5f, 0.5f, 0.0f, 0.0f};
+        GlbParser.normaliseWeights(joints, weights, 4, skin.getJointCount());
+
+        mesh = new ModelAsset.Mesh(0, positions, null, null, null, -1);
+        mesh.setSkin(0, joints, weights);
+        asset = new ModelAsset("rig.glb", Collections.singletonList(mesh), Collections.emptyList(),
+                Collections.singletonList(skin), Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void normaliseWeightsDropsUnknownJointsAndRescales() {
+        assertArrayEquals(new float[]{0.5f, 0.5f, 0.0f, 0.0f}, slice(mesh.getWeights(), 8), EPSILON);
+        assertArrayEquals(new float[]{0.0f, 1.0f, 0.0f, 0.0f}, slice(mesh.getWeights(), 12), EPSILON);
+        assertEquals(0, mesh.getJoints()[12]);
+    }
+
+    @Test
+    public void skinAppliesInverseBindMatrices() {
+        BodyFrame frame = new BodyFrame();
+        // Hips a metre in front of the origin, spine above them and rolled 90 degrees about z
+        SkinningEngine.setIdentity(frame.jointPoses, BodySkeleton.HIPS * 16);
+        frame.jointPoses[BodySkeleton.HIPS * 16 + 14] = -1.0f;
+        int spine = BodySkeleton.SPINE * 16;
+        SkinningEngine.setIdentity(frame.jointPoses, spine);
+        frame.jointPoses[spine] = 0.0f;
+        frame.jointPoses[spine + 1] = 1.0f;
+        frame.jointPoses[spine + 4] = -1.0f;
+        frame.jointPoses[spine + 5] = 0.0f;
+        frame.jointPoses[spine + 13] = 1.0f;
+        frame.jointPoses[spine + 14] = -1.0f;
+        frame.jointTracked[BodySkeleton.HIPS] = true;
+        frame.jointTracked[BodySkeleton.SPINE] = true;
+
+        SkinnedModel model = SkinnedModel.create(asset);
+        assertEquals(2, model.getMappedJointCount());
+        model.update(frame, engine);
+
+        assertArrayEquals(new float[]{
+                0.0f, 0.5f, -1.0f,
+                -0.5f, 1.0f, -1.0f,
+                0.0f, 1.0f, -1.0f,
+                -0.5f, 1.0f, -1.0f}, model.getMeshes()[0].getPositions(), EPSILON);
+    }
+
+    @Test
+    public void untrackedJointsFollowTheirTrackedAncestor() {
+        BodyFrame frame = new BodyFrame();
+        SkinningEngine.setIdentity(frame.jointPoses, BodySkeleton.HIPS * 16);
+        frame.jointPoses[BodySkeleton.HIPS * 16 + 14] = -1.0f;
+        frame.jointTracked[BodySkeleton.HIPS] = true;
+
+        SkinnedModel model = SkinnedModel.create(asset);
+        model.update(frame, engine);
+
+        // The spine keeps its bind offset from the hips instead of snapping to the origin
+        float[] expected = mesh.getPositions().clone();
+        for (int v = 0; v < 4; v++) {
+            expected[v * 3 + 2] -= 1.0f;
+        }
+        assertArrayEquals(expected, model.getMeshes()[0].getPositions(), EPSILON);
+    }
+
+    @Test
+    public void nothingTrackedKeepsTheBindPose() {
+        SkinnedModel model = SkinnedModel.create(asset);
+        model.update(new BodyFrame(), engine);
+
+        assertArrayEquals(mesh.getPositions(), model.getMeshes()[0].getPositions(), EPSILON);
+    }
+
+    private static float[] slice(float[] values, int start) {
+        float[] slice = new float[4];
+        System.arraycopy(values, start, slice, 0, 4);
+        return slice;
+    }
+}
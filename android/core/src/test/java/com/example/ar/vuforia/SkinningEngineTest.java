@@ -0,0 +1,69 @@
+package com.example.ar.vuforia;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * The worker ranges of a large mesh give exactly the single-threaded result, also
+ * once the pool is shut down and every range runs on the caller.
+ */
+public class SkinningEngineTest {
+    private static final int VERTICES = 3 * SkinningEngine.MIN_PARALLEL_VERTICES + 7; // Uneven last range
+    private static final int JOINTS = 6;
+
+    @Test
+    public void parallelSkinningMatchesSingleThreaded() {
+        Random random = new Random(11);
+        ModelAsset.Mesh source = mesh(random);
+        float[] matrices = new float[JOINTS * 16];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = random.nextFloat() * 2 - 1;
+        }
+
+        SkinnedMesh expected = skin(new SkinningEngine(1), source, matrices, false);
+        SkinnedMesh parallel = skin(new SkinningEngine(4), source, matrices, false);
+        assertArrayEquals(expected.getPositions(), parallel.getPositions(), 0f);
+        assertArrayEquals(expected.getNormals(), parallel.getNormals(), 0f);
+
+        SkinnedMesh afterShutdown = skin(new SkinningEngine(4), source, matrices, true);
+        assertArrayEquals(expected.getPositions(), afterShutdown.getPositions(), 0f);
+        assertArrayEquals(expected.getNormals(), afterShutdown.getNormals(), 0f);
+    }
+
+    private static SkinnedMesh skin(SkinningEngine engine, ModelAsset.Mesh source, float[] matrices,
+                                    boolean shutDownFirst) {
+        SkinnedMesh mesh = new SkinnedMesh(source);
+        try {
+            if (shutDownFirst) {
+                engine.shutdown();
+            }
+            engine.skin(mesh, matrices);
+        } finally {
+            engine.shutdown();
+        }
+        return mesh;
+    }
+
+    private static ModelAsset.Mesh mesh(Random random) {
+        float[] positions = new float[VERTICES * 3];
+        float[] normals = new float[VERTICES * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 2 - 1;
+            normals[i] = random.nextFloat() * 2 - 1;
+        }
+        int[] joints = new int[VERTICES * 4];
+        float[] weights = new float[VERTICES * 4];
+        for (int i = 0; i < joints.length; i++) {
+            joints[i] = random.nextInt(JOINTS);
+            weights[i] = random.nextInt(4) == 0 ? 0f : random.nextFloat();
+        }
+        GlbParser.normaliseWeights(joints, weights, VERTICES, JOINTS);
+
+        ModelAsset.Mesh mesh = new ModelAsset.Mesh(0, positions, normals, null, null, -1);
+        mesh.setSkin(0, joints, weights);
+        return mesh;
+    }
+}
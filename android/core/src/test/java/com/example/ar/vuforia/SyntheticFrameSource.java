@@ -0,0 +1,134 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Stands in for the camera in tests and benchmarks: emits YUV_420 frames at a
+ * fixed rate from a small pool of pre-filled direct buffers. Buffers only return to
+ * the pool when the ring releases them, exactly like camera images, so pool
+ * exhaustion shows up as skipped captures rather than copies.
+ */
+final class SyntheticFrameSource implements FrameSource {
+    private final int width;
+    private final int height;
+    private final long frameIntervalNanos;
+    private final ArrayDeque<PooledFrame> pool = new ArrayDeque<>();
+    private volatile Thread thread;
+    private volatile long framesSkipped;
+
+    SyntheticFrameSource(int width, int height, int framesPerSecond, int poolSize) {
+        this.width = width;
+        this.height = height;
+        this.frameIntervalNanos = 1_000_000_000L / Math.max(1, framesPerSecond);
+
+        int uvWidth = (width + 1) / 2;
+        int uvHeight = (height + 1) / 2;
+        for (int i = 0; i < poolSize; i++) {
+            ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+            ByteBuffer u = ByteBuffer.allocateDirect(uvWidth * uvHeight);
+            ByteBuffer v = ByteBuffer.allocateDirect(uvWidth * uvHeight);
+            fillGradient(y, width, height, i);
+            fillConstant(u, (byte) 128);
+            fillConstant(v, (byte) 128);
+            pool.add(new PooledFrame(y, u, v));
+        }
+    }
+
+    @Override
+    public synchronized void start(FrameRing ring) {
+        if (thread != null) {
+            return;
+        }
+        Thread t = new Thread(() -> run(ring), "synthetic-camera");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Captures that could not happen because every pooled buffer was still held. */
+    long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    private void run(FrameRing ring) {
+        int uvWidth = (width + 1) / 2;
+        long next = System.nanoTime();
+        while (thread == Thread.currentThread()) {
+            PooledFrame frame;
+            synchronized (pool) {
+                frame = pool.poll();
+            }
+
+            if (frame == null) {
+                framesSkipped++;
+            } else {
+                frame.y.clear();
+                frame.u.clear();
+                frame.v.clear();
+                ring.offer(frame.y, frame.u, frame.v, width, height, width, uvWidth, 1,
+                        System.nanoTime(), frame.release);
+            }
+
+            next += frameIntervalNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                next = System.nanoTime(); // Fell behind; don't try to catch up
+            }
+        }
+    }
+
+    private final class PooledFrame {
+        final ByteBuffer y;
+        final ByteBuffer u;
+        final ByteBuffer v;
+        final Runnable release;
+
+        PooledFrame(ByteBuffer y, ByteBuffer u, ByteBuffer v) {
+            this.y = y;
+            this.u = u;
+            this.v = v;
+            this.release = () -> {
+                synchronized (pool) {
+                    pool.add(this);
+                }
+            };
+        }
+    }
+
+    private static void fillGradient(ByteBuffer plane, int width, int height, int seed) {
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                plane.put((byte) ((row + col + seed * 16) & 0xFF));
+            }
+        }
+        plane.flip();
+    }
+
+    private static void fillConstant(ByteBuffer plane, byte value) {
+        while (plane.hasRemaining()) {
+            plane.put(value);
+        }
+        plane.flip();
+    }
+}
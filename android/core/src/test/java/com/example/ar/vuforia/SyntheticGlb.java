@@ -0,0 +1,195 @@
+package com.example.ar.vuforia;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic GLB files for the benchmarks: a garment-like vertex grid with
+ * normals, UVs and indices, optionally skinned to a Mixamo-style rig, plus one
+ * embedded texture blob.
+ */
+final class SyntheticGlb {
+    static final String[] JOINT_NAMES = {
+        "mixamorig:Hips", "mixamorig:Spine", "mixamorig:Spine2", "mixamorig:Neck",
+        "mixamorig:LeftShoulder", "mixamorig:RightShoulder", "mixamorig:LeftArm", "mixamorig:RightArm",
+        "mixamorig:LeftForeArm", "mixamorig:RightForeArm", "mixamorig:LeftHand", "mixamorig:RightHand"
+    };
+
+    private SyntheticGlb() {
+    }
+
+    static ByteBuffer build(int vertexCount, boolean skinned, int textureBytes) {
+        byte[] texture = new byte[textureBytes];
+        new Random(textureBytes).nextBytes(texture);
+        return build(vertexCount, skinned, texture, "image/png");
+    }
+
+    /** Embeds {@code texture} as the model's only image. */
+    static ByteBuffer build(int vertexCount, boolean skinned, byte[] texture, String mimeType) {
+        Random random = new Random(vertexCount * 31L + (skinned ? 1 : 0));
+        int textureBytes = texture.length;
+        int columns = (int) Math.ceil(Math.sqrt(vertexCount));
+        int rows = (vertexCount + columns - 1) / columns;
+
+        // Two triangles per grid cell whose corners all exist
+        int quads = 0;
+        for (int r = 0; r + 1 < rows; r++) {
+            for (int c = 0; c + 1 < columns; c++) {
+                if ((r + 1) * columns + c + 1 < vertexCount) {
+                    quads++;
+                }
+            }
+        }
+        int indexCount = quads * 6;
+        boolean wideIndices = vertexCount > 0xFFFF;
+        int jointCount = JOINT_NAMES.length;
+
+        int positionsOffset = 0;
+        int normalsOffset = positionsOffset + vertexCount * 12;
+        int uvsOffset = normalsOffset + vertexCount * 12;
+        int indicesOffset = uvsOffset + vertexCount * 8;
+        int jointsOffset = align(indicesOffset + indexCount * (wideIndices ? 4 : 2));
+        int weightsOffset = jointsOffset + (skinned ? vertexCount * 4 : 0);
+        int inverseBindOffset = weightsOffset + (skinned ? vertexCount * 16 : 0);
+        int textureOffset = inverseBindOffset + (skinned ? jointCount * 64 : 0);
+        int binLength = align(textureOffset + textureBytes);
+
+        ByteBuffer bin = ByteBuffer.allocate(binLength).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < vertexCount; i++) {
+            float u = (i % columns) / (float) Math.max(1, columns - 1);
+            float v = (i / columns) / (float) Math.max(1, rows - 1);
+            bin.putFloat(positionsOffset + i * 12, (u - 0.5f) * 0.5f);
+            bin.putFloat(positionsOffset + i * 12 + 4, (0.5f - v) * 0.8f);
+            bin.putFloat(positionsOffset + i * 12 + 8, 0.05f * (float) Math.sin(u * Math.PI));
+            bin.putFloat(normalsOffset + i * 12 + 8, 1f);
+            bin.putFloat(uvsOffset + i * 8, u);
+            bin.putFloat(uvsOffset + i * 8 + 4, v);
+        }
+
+        int at = indicesOffset;
+        for (int r = 0; r + 1 < rows; r++) {
+            for (int c = 0; c + 1 < columns; c++) {
+                int a = r * columns + c;
+                int d = (r + 1) * columns + c + 1;
+                if (d >= vertexCount) {
+                    continue;
+                }
+                int[] quad = {a, a + columns, a + 1, a + 1, a + columns, d};
+                for (int index : quad) {
+                    if (wideIndices) {
+                        bin.putInt(at, index);
+                        at += 4;
+                    } else {
+                        bin.putShort(at, (short) index);
+                        at += 2;
+                    }
+                }
+            }
+        }
+
+        if (skinned) {
+            for (int i = 0; i < vertexCount; i++) {
+                // Four distinct joints with weights summing to one
+                int first = random.nextInt(jointCount);
+                float remaining = 1f;
+                for (int k = 0; k < 4; k++) {
+                    bin.put(jointsOffset + i * 4 + k, (byte) ((first + k * 3) % jointCount));
+                    float weight = k == 3 ? remaining : remaining * (0.4f + 0.4f * random.nextFloat());
+                    remaining -= weight;
+                    bin.putFloat(weightsOffset + i * 16 + k * 4, weight);
+                }
+            }
+            for (int j = 0; j < jointCount; j++) {
+                for (int e = 0; e < 16; e++) {
+                    bin.putFloat(inverseBindOffset + j * 64 + e * 4, e % 5 == 0 ? 1f : 0f);
+                }
+            }
+        }
+        for (int i = 0; i < textureBytes; i++) {
+            bin.put(textureOffset + i, texture[i]);
+        }
+
+        StringBuilder json = new StringBuilder(2048);
+        json.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"SyntheticGlb\"},");
+        json.append("\"buffers\":[{\"byteLength\":").append(binLength).append("}],");
+        json.append("\"bufferViews\":[");
+        view(json, positionsOffset, vertexCount * 12).append(',');
+        view(json, normalsOffset, vertexCount * 12).append(',');
+        view(json, uvsOffset, vertexCount * 8).append(',');
+        view(json, indicesOffset, indexCount * (wideIndices ? 4 : 2)).append(',');
+        view(json, textureOffset, textureBytes);
+        if (skinned) {
+            json.append(',');
+            view(json, jointsOffset, vertexCount * 4).append(',');
+            view(json, weightsOffset, vertexCount * 16).append(',');
+            view(json, inverseBindOffset, jointCount * 64);
+        }
+        json.append("],\"accessors\":[");
+        accessor(json, 0, 5126, vertexCount, "VEC3").append(',');
+        accessor(json, 1, 5126, vertexCount, "VEC3").append(',');
+        accessor(json, 2, 5126, vertexCount, "VEC2").append(',');
+        accessor(json, 3, wideIndices ? 5125 : 5123, indexCount, "SCALAR");
+        if (skinned) {
+            json.append(',');
+            accessor(json, 5, 5121, vertexCount, "VEC4").append(',');
+            accessor(json, 6, 5126, vertexCount, "VEC4").append(',');
+            accessor(json, 7, 5126, jointCount, "MAT4");
+        }
+        json.append("],\"images\":[{\"bufferView\":4,\"mimeType\":\"").append(mimeType).append("\"}],");
+        json.append("\"textures\":[{\"source\":0}],");
+        json.append("\"materials\":[{\"name\":\"fabric\",\"pbrMetallicRoughness\":{\"baseColorTexture\":{\"index\":0}}}],");
+        json.append("\"meshes\":[{\"name\":\"garment\",\"primitives\":[{\"attributes\":{");
+        json.append("\"POSITION\":0,\"NORMAL\":1,\"TEXCOORD_0\":2");
+        if (skinned) {
+            json.append(",\"JOINTS_0\":4,\"WEIGHTS_0\":5");
+        }
+        json.append("},\"indices\":3,\"material\":0}]}],");
+        json.append("\"nodes\":[{\"name\":\"garment\",\"mesh\":0");
+        if (skinned) {
+            json.append(",\"skin\":0}");
+            for (String name : JOINT_NAMES) {
+                json.append(",{\"name\":\"").append(name).append("\"}");
+            }
+            json.append("],\"skins\":[{\"inverseBindMatrices\":6,\"joints\":[");
+            for (int j = 0; j < jointCount; j++) {
+                json.append(j > 0 ? "," : "").append(j + 1);
+            }
+            json.append("]}]}");
+        } else {
+            json.append("}]}");
+        }
+
+        byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        int jsonLength = align(jsonBytes.length);
+        int total = GlbParser.HEADER_LENGTH + GlbParser.CHUNK_HEADER_LENGTH * 2 + jsonLength + binLength;
+        ByteBuffer glb = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        glb.putInt(GlbParser.GLB_MAGIC).putInt(2).putInt(total);
+        glb.putInt(jsonLength).putInt(GlbParser.CHUNK_JSON).put(jsonBytes);
+        for (int i = jsonBytes.length; i < jsonLength; i++) {
+            glb.put((byte) ' ');
+        }
+        glb.putInt(binLength).putInt(GlbParser.CHUNK_BIN).put(bin.array());
+        glb.flip();
+        return glb;
+    }
+
+    static byte[] bytes(int vertexCount, boolean skinned, int textureBytes) {
+        return build(vertexCount, skinned, textureBytes).array();
+    }
+
+    private static StringBuilder view(StringBuilder json, int offset, int length) {
+        return json.append("{\"buffer\":0,\"byteOffset\":").append(offset)
+                .append(",\"byteLength\":").append(length).append('}');
+    }
+
+    private static StringBuilder accessor(StringBuilder json, int view, int componentType, int count, String type) {
+        return json.append("{\"bufferView\":").append(view).append(",\"componentType\":").append(componentType)
+                .append(",\"count\":").append(count).append(",\"type\":\"").append(type).append("\"}");
+    }
+
+    private static int align(int length) {
+        return (length + 3) & ~3;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.ar.vuforia;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Replacing a target reuses the slots of removed ones once the index is compacted. */
+public class TargetDatasetTest {
+    private static final int KEYPOINTS = 64;
+
+    @Test
+    public void readdingATargetKeepsSlotsBounded() {
+        Random random = new Random(7);
+        FeatureExtractor.Features a = features(random);
+        FeatureExtractor.Features b = features(random);
+        TargetDataset dataset = new TargetDataset("test");
+        dataset.add("b", null, b, 640, 480);
+
+        int maxSlot = 0;
+        for (int i = 0; i < 100; i++) {
+            maxSlot = Math.max(maxSlot, dataset.add("a", null, a, 640, 480).slot);
+        }
+        assertTrue("slot " + maxSlot, maxSlot < 4);
+        assertEquals(2, dataset.getTargetCount());
+
+        assertMatches(dataset, a, "a");
+        assertMatches(dataset, b, "b");
+    }
+
+    private static void assertMatches(TargetDataset dataset, FeatureExtractor.Features query, String id) {
+        List<ImageTargetEngine.Match> results = new ArrayList<>();
+        dataset.match(query, new TargetDataset.MatchScratch(), results);
+        assertEquals(1, results.size());
+        assertEquals(id, results.get(0).target.id);
+        assertEquals(KEYPOINTS, results.get(0).matches);
+    }
+
+    private static FeatureExtractor.Features features(Random random) {
+        FeatureExtractor.Features features = new FeatureExtractor.Features(KEYPOINTS);
+        for (int i = 0; i < features.descriptors.length; i++) {
+            features.descriptors[i] = random.nextLong();
+        }
+        features.count = KEYPOINTS;
+        return features;
+    }
+}
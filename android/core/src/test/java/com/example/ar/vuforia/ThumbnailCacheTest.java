@@ -0,0 +1,226 @@
+package com.example.ar.vuforia;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Memory, disk and decode tiers over a fake decoder whose output is 100 bytes per image. */
+public class ThumbnailCacheTest {
+    private static final long TIMEOUT_MS = 5000;
+    private static final int BYTES = 100;
+
+    @Rule
+    public final TemporaryFolder directory = new TemporaryFolder();
+
+    private final AtomicInteger decodes = new AtomicInteger();
+    private final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+    private final List<ThumbnailCache> caches = new ArrayList<>();
+    private volatile CountDownLatch decoding = new CountDownLatch(0); // Decodes wait for it
+    private final CountDownLatch decodeStarted = new CountDownLatch(1);
+
+    private final ThumbnailCache.Decoder decoder = (path, size) -> {
+        decodeStarted.countDown();
+        try {
+            decoding.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted decoding " + path);
+        }
+        decodes.incrementAndGet();
+        byte[] bytes = new byte[BYTES];
+        bytes[0] = (byte) path.hashCode();
+        return new ThumbnailCache.Thumbnail(bytes, size, size / 2);
+    };
+
+    @After
+    public void tearDown() {
+        for (ThumbnailCache cache : caches) {
+            cache.shutdown();
+        }
+        ArLog.setSink(null);
+    }
+
+    @Test
+    public void memoryDiskAndDecodeHits() throws Exception {
+        File thumbnails = directory.newFolder("thumbnails");
+        ThumbnailCache cache = cache(thumbnails, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+
+        Result decoded = get(cache, "catalog/shirt.jpg", 1, 256);
+        assertEquals(ThumbnailCache.FROM_DECODE, decoded.source);
+        assertEquals(256, decoded.thumbnail.width);
+
+        // A memory hit calls back before get returns
+        cache.get("catalog/shirt.jpg", 1, 256, this::offer);
+        Result memory = results.poll();
+        assertNotNull(memory);
+        assertEquals(ThumbnailCache.FROM_MEMORY, memory.source);
+        assertSame(decoded.thumbnail, memory.thumbnail);
+
+        // A new stamp or size is a new entry
+        assertEquals(ThumbnailCache.FROM_DECODE, get(cache, "catalog/shirt.jpg", 2, 256).source);
+        assertEquals(ThumbnailCache.FROM_DECODE, get(cache, "catalog/shirt.jpg", 1, 128).source);
+        assertEquals(3, decodes.get());
+
+        ThumbnailCache restarted = cache(thumbnails, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+        Result disk = get(restarted, "catalog/shirt.jpg", 1, 256);
+        assertEquals(ThumbnailCache.FROM_DISK, disk.source);
+        assertEquals(256, disk.thumbnail.width);
+        assertEquals(128, disk.thumbnail.height);
+        assertEquals(decoded.thumbnail.bytes[0], disk.thumbnail.bytes[0]);
+        assertEquals(3, decodes.get());
+
+        assertEquals(1L, cache.getStats().get("memoryHits"));
+        assertEquals(3L, cache.getStats().get("decodes"));
+        assertEquals(1L, restarted.getStats().get("diskHits"));
+    }
+
+    @Test
+    public void concurrentRequestsShareOneDecode() throws Exception {
+        ThumbnailCache cache = cache(null, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+        decoding = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            cache.get("catalog/dress.jpg", 1, 256, this::offer);
+        }
+        decoding.countDown();
+
+        Result first = take();
+        for (int i = 0; i < 2; i++) {
+            Result next = take();
+            assertEquals(ThumbnailCache.FROM_DECODE, next.source);
+            assertSame(first.thumbnail, next.thumbnail);
+        }
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    public void memoryBudgetEvictsTheLeastRecentlyUsed() throws Exception {
+        ThumbnailCache cache = cache(null, 2 * BYTES + BYTES / 2);
+        get(cache, "a.jpg", 1, 64);
+        get(cache, "b.jpg", 1, 64);
+        assertEquals(ThumbnailCache.FROM_MEMORY, get(cache, "a.jpg", 1, 64).source); // b is now the eldest
+        get(cache, "c.jpg", 1, 64);
+
+        assertEquals(2, cache.getStats().get("memoryEntries"));
+        assertEquals(2L * BYTES, cache.getStats().get("memoryBytes"));
+        assertEquals(ThumbnailCache.FROM_MEMORY, get(cache, "a.jpg", 1, 64).source);
+        assertEquals(ThumbnailCache.FROM_MEMORY, get(cache, "c.jpg", 1, 64).source);
+        assertEquals(ThumbnailCache.FROM_DECODE, get(cache, "b.jpg", 1, 64).source);
+        assertEquals(4, decodes.get());
+    }
+
+    @Test
+    public void corruptDiskEntryIsDecodedAgain() throws Exception {
+        File thumbnails = directory.newFolder("thumbnails");
+        get(cache(thumbnails, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES), "catalog/jacket.jpg", 1, 256);
+        File[] entries = thumbnails.listFiles();
+        assertEquals(1, entries.length);
+        long length = entries[0].length();
+        try (RandomAccessFile file = new RandomAccessFile(entries[0], "rw")) {
+            file.setLength(length - BYTES / 2); // Cut into the image bytes
+        }
+
+        ArLog.setSink((priority, tag, message, error) -> {
+            if (priority == ArLog.WARN) {
+                warnings.add(message);
+            }
+        });
+        ThumbnailCache restarted = cache(thumbnails, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+        assertEquals(ThumbnailCache.FROM_DECODE, get(restarted, "catalog/jacket.jpg", 1, 256).source);
+        assertEquals(2, decodes.get());
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0), warnings.get(0).startsWith("Discarding unreadable thumbnail"));
+        assertEquals("rewritten", length, entries[0].length());
+
+        ThumbnailCache again = cache(thumbnails, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+        assertEquals(ThumbnailCache.FROM_DISK, get(again, "catalog/jacket.jpg", 1, 256).source);
+    }
+
+    @Test
+    public void requestsAfterShutdownFail() throws Exception {
+        ThumbnailCache cache = cache(null, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES);
+        cache.shutdown();
+        // The second request would wait forever behind the first if its key stayed pending
+        for (int i = 0; i < 2; i++) {
+            cache.get("catalog/skirt.jpg", 1, 256, this::offer);
+            Result result = results.poll();
+            assertNotNull("no callback for request " + i, result);
+            assertNull(result.thumbnail);
+            assertTrue(result.error instanceof RejectedExecutionException);
+        }
+        assertEquals(0, decodes.get());
+    }
+
+    @Test
+    public void queuedRequestsFailOnShutdown() throws Exception {
+        ThumbnailCache cache = cache(null, ThumbnailCache.DEFAULT_MEMORY_BUDGET_BYTES); // One worker
+        decoding = new CountDownLatch(1);
+        cache.get("catalog/coat.jpg", 1, 256, this::offer); // Holds the worker
+        assertTrue(decodeStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        cache.get("catalog/scarf.jpg", 1, 256, this::offer); // Queued behind it
+        cache.shutdown();
+
+        List<Exception> errors = new ArrayList<>();
+        errors.add(take().error);
+        errors.add(take().error);
+        assertTrue(errors.toString(), errors.stream().anyMatch(e -> e instanceof RejectedExecutionException));
+        assertTrue(errors.toString(), errors.stream().anyMatch(e -> e instanceof InterruptedIOException));
+    }
+
+    private ThumbnailCache cache(File thumbnails, long memoryBudgetBytes) {
+        ThumbnailCache cache = new ThumbnailCache(decoder, thumbnails, 1, memoryBudgetBytes,
+                ThumbnailCache.DEFAULT_DISK_BUDGET_BYTES);
+        caches.add(cache);
+        return cache;
+    }
+
+    private Result get(ThumbnailCache cache, String path, long stamp, int size) throws Exception {
+        cache.get(path, stamp, size, this::offer);
+        Result result = take();
+        if (result.error != null) {
+            throw result.error;
+        }
+        return result;
+    }
+
+    private void offer(ThumbnailCache.Thumbnail thumbnail, String source, Exception error) {
+        results.add(new Result(thumbnail, source, error));
+    }
+
+    private Result take() throws InterruptedException {
+        Result result = results.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("no callback within " + TIMEOUT_MS + " ms", result);
+        return result;
+    }
+
+    private static final class Result {
+        final ThumbnailCache.Thumbnail thumbnail;
+        final String source;
+        final Exception error;
+
+        Result(ThumbnailCache.Thumbnail thumbnail, String source, Exception error) {
+            this.thumbnail = thumbnail;
+            this.source = source;
+            this.error = error;
+        }
+    }
+}
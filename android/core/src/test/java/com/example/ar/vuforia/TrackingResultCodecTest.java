@@ -0,0 +1,241 @@
+package com.example.ar.vuforia;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips {@link TrackingResultCodec} frames through {@link TrackingResultDecoder},
+ * which reads them the way the Dart decoder does, and pins the byte layout to the
+ * golden frames that test/tracking_results_decoder_test.dart decodes.
+ */
+public class TrackingResultCodecTest {
+    // Shared with the Dart test; gradle runs the tests from android/core
+    private static final File GOLDEN_FRAMES = new File("../../test/fixtures/tracking_results_frames.json");
+    private static final float POSITION_STEP = TrackingResultCodec.POSITION_RANGE / 32767;
+
+    private static final TargetDataset.Target SHIRT = target("shirt_01");
+    private static final TargetDataset.Target DRESS = target("dress_02");
+    private static final float[] SHIRT_POSITION = {0.1f, -0.2f, 1.5f};
+    private static final float[] SHIRT_ROTATION = {0.0f, 0.3826834f, 0.0f, 0.9238795f}; // 45 degrees about y
+
+    private final TrackingResultCodec codec = new TrackingResultCodec();
+    private final TrackingResultDecoder decoder = new TrackingResultDecoder();
+
+    /**
+     * The four frames of the Dart test, encoded back to back by one codec. A change
+     * here breaks the layout the app decodes: update the fixture and the Dart decoder
+     * together, with the actual frames from the failure message.
+     */
+    @Test
+    public void framesMatchTheGoldenFixture() throws IOException {
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(codec.encode(Arrays.asList(
+                new ImageTargetEngine.Match(SHIRT, 40, 0.5f, SHIRT_POSITION, SHIRT_ROTATION),
+                new ImageTargetEngine.Match(DRESS, 20, 0.25f)), -1));
+        frames.add(codec.encode(Arrays.asList(
+                new ImageTargetEngine.Match(SHIRT, 42, 0.5f, SHIRT_POSITION, SHIRT_ROTATION),
+                new ImageTargetEngine.Match(DRESS, 18, 0.25f)), codec.getLastSequence()));
+        frames.add(codec.encode(Collections.singletonList( // 135 degrees about x: x is now the largest
+                new ImageTargetEngine.Match(SHIRT, 41, 0.5f, new float[]{0.12f, -0.2f, 1.4f},
+                        new float[]{0.9238795f, 0.0f, 0.0f, 0.3826834f})), codec.getLastSequence()));
+        frames.add(codec.encode(Collections.singletonList( // The client answers with frame 2, not 3
+                new ImageTargetEngine.Match(DRESS, 25, 1.0f)), 2));
+
+        String[] names = {"keyframe", "still", "largestChanged", "afterStaleBaseline"};
+        JSONObject golden = new JSONObject(new String(Files.readAllBytes(GOLDEN_FRAMES.toPath()),
+                StandardCharsets.UTF_8));
+        StringBuilder actual = new StringBuilder("{\n");
+        boolean same = true;
+        for (int f = 0; f < names.length; f++) {
+            JSONArray bytes = new JSONArray();
+            for (byte b : frames.get(f)) {
+                bytes.put(b & 0xFF);
+            }
+            actual.append("  \"").append(names[f]).append("\": ").append(bytes.toString().replace(",", ", "))
+                    .append(f + 1 < names.length ? ",\n" : "\n");
+            same &= bytes.similar(golden.getJSONArray(names[f]));
+        }
+        if (!same) {
+            fail("Frames differ from " + GOLDEN_FRAMES + "; actual:\n" + actual.append("}"));
+        }
+    }
+
+    @Test
+    public void deltaAndStillFramesKeepTheDecodedState() {
+        decoder.decode(encode(new ImageTargetEngine.Match(SHIRT, 40, 0.5f, SHIRT_POSITION, SHIRT_ROTATION)));
+        byte[] still = encode(new ImageTargetEngine.Match(SHIRT, 44, 0.5f, SHIRT_POSITION, SHIRT_ROTATION));
+        byte[] moved = encode(new ImageTargetEngine.Match(SHIRT, 43, 0.5f,
+                new float[]{0.1f, -0.19f, 1.5f}, SHIRT_ROTATION));
+        assertTrue("a STILL target carries no pose", still.length < moved.length);
+
+        TrackingResultDecoder.Target target = decoder.decode(still).get(0);
+        assertEquals(44, target.matches);
+        assertArrayEquals(SHIRT_POSITION, target.position, POSITION_STEP);
+        target = decoder.decode(moved).get(0);
+        assertEquals(43, target.matches);
+        assertEquals(-0.19f, target.position[1], POSITION_STEP);
+    }
+
+    @Test
+    public void staleBaselineGetsAKeyframe() {
+        byte[] first = encode(new ImageTargetEngine.Match(SHIRT, 40, 0.5f));
+        encode(new ImageTargetEngine.Match(SHIRT, 41, 0.5f)); // Lost on the way
+        decoder.decode(first);
+
+        byte[] next = codec.encode(Collections.singletonList(new ImageTargetEngine.Match(DRESS, 9, 0.5f)),
+                decoder.getBaseline());
+        assertEquals(TrackingResultCodec.FRAME_KEYFRAME, next[1]);
+        TrackingResultDecoder.Target target = decoder.decode(next).get(0);
+        assertEquals("dress_02", target.id);
+        assertEquals(9, target.matches);
+    }
+
+    @Test
+    public void deltaAgainstAnotherFrameIsRejected() {
+        decoder.decode(encode(new ImageTargetEngine.Match(SHIRT, 40, 0.5f)));
+        encode(new ImageTargetEngine.Match(SHIRT, 41, 0.5f));
+        byte[] delta = encode(new ImageTargetEngine.Match(SHIRT, 42, 0.5f));
+        try {
+            decoder.decode(delta);
+            fail("Decoded a delta against a frame it never saw");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    /** An id missing from a frame comes back with its full state, without being re-sent. */
+    @Test
+    public void reappearingIdIsSentInFull() {
+        decoder.decode(encode(
+                new ImageTargetEngine.Match(SHIRT, 40, 0.5f, SHIRT_POSITION, SHIRT_ROTATION),
+                new ImageTargetEngine.Match(DRESS, 20, 0.25f)));
+        decoder.decode(encode(new ImageTargetEngine.Match(DRESS, 21, 0.25f)));
+
+        byte[] back = encode(new ImageTargetEngine.Match(SHIRT, 7, 0.5f, SHIRT_POSITION, SHIRT_ROTATION));
+        assertFalse("id re-sent", new String(back, StandardCharsets.ISO_8859_1).contains("shirt_01"));
+        int flags = back[9] & 0xFF; // After the header, no new ids, one target, its index
+        assertEquals(0, flags & TrackingResultCodec.TARGET_DELTA);
+        TrackingResultDecoder.Target target = decoder.decode(back).get(0);
+        assertEquals("shirt_01", target.id);
+        assertEquals(7, target.matches);
+        assertArrayEquals(SHIRT_POSITION, target.position, POSITION_STEP);
+    }
+
+    @Test
+    public void idTableRollsOverPastMaxIds() {
+        int perFrame = 1000;
+        int frames = TrackingResultCodec.MAX_IDS / perFrame + 2;
+        int keyframes = 0;
+        for (int f = 0; f < frames; f++) {
+            List<ImageTargetEngine.Match> results = new ArrayList<>();
+            for (int i = 0; i < perFrame; i++) {
+                results.add(new ImageTargetEngine.Match(target("t" + (f * perFrame + i)), i, 0.5f));
+            }
+            byte[] encoded = codec.encode(results, decoder.getBaseline());
+            if (encoded[1] == TrackingResultCodec.FRAME_KEYFRAME) {
+                keyframes++;
+            }
+            List<TrackingResultDecoder.Target> decoded = decoder.decode(encoded);
+            assertEquals(perFrame, decoded.size());
+            assertEquals("t" + (f * perFrame + 999), decoded.get(999).id);
+        }
+        assertEquals("the first frame and the one after the table passed MAX_IDS", 2, keyframes);
+    }
+
+    /** Random targets and poses, including out-of-range positions that are clamped. */
+    @Test
+    public void randomRoundTripStaysWithinTheQuantisationBounds() {
+        Random random = new Random(5000);
+        TargetDataset.Target[] shelf = new TargetDataset.Target[40];
+        for (int t = 0; t < shelf.length; t++) {
+            shelf[t] = target("catalog/garment_" + t);
+        }
+        float positionError = 0;
+        float rotationError = 0;
+        for (int f = 0; f < 5000; f++) {
+            List<ImageTargetEngine.Match> results = new ArrayList<>();
+            for (TargetDataset.Target t : shelf) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                boolean posed = random.nextInt(8) != 0;
+                float[] position = posed ? new float[3] : null;
+                float[] rotation = posed ? randomRotation(random) : null;
+                for (int c = 0; posed && c < 3; c++) {
+                    position[c] = (random.nextFloat() * 2 - 1) * TrackingResultCodec.POSITION_RANGE * 1.1f;
+                }
+                results.add(new ImageTargetEngine.Match(t, random.nextInt(500), random.nextFloat(), position, rotation));
+            }
+            // Now and then the client misses a frame and sends a stale baseline
+            int baseline = random.nextInt(50) == 0 ? decoder.getBaseline() - 1 : decoder.getBaseline();
+            List<TrackingResultDecoder.Target> decoded = decoder.decode(codec.encode(results, baseline));
+
+            assertEquals(results.size(), decoded.size());
+            for (int i = 0; i < results.size(); i++) {
+                ImageTargetEngine.Match match = results.get(i);
+                TrackingResultDecoder.Target target = decoded.get(i);
+                assertEquals(match.target.id, target.id);
+                assertEquals(match.matches, target.matches);
+                assertEquals(match.score, target.score, 0.5f / 255 + 1e-6f);
+                if (match.position == null) {
+                    assertNull(target.position);
+                    continue;
+                }
+                for (int c = 0; c < 3; c++) {
+                    float clamped = Math.max(-TrackingResultCodec.POSITION_RANGE,
+                            Math.min(TrackingResultCodec.POSITION_RANGE, match.position[c]));
+                    positionError = Math.max(positionError, Math.abs(clamped - target.position[c]));
+                }
+                float dot = 0;
+                for (int c = 0; c < 4; c++) {
+                    dot += match.rotation[c] * target.rotation[c];
+                }
+                float sign = dot < 0 ? -1 : 1; // q and -q are the same rotation
+                for (int c = 0; c < 4; c++) {
+                    rotationError = Math.max(rotationError, Math.abs(match.rotation[c] - sign * target.rotation[c]));
+                }
+            }
+        }
+        assertTrue("position error " + positionError, positionError <= 0.5f * POSITION_STEP + 1e-6f);
+        assertTrue("rotation error " + rotationError, rotationError < 1e-4f);
+    }
+
+    private byte[] encode(ImageTargetEngine.Match... results) {
+        return codec.encode(Arrays.asList(results), codec.getLastSequence());
+    }
+
+    private static float[] randomRotation(Random random) {
+        float[] q = new float[4];
+        float length = 0;
+        for (int c = 0; c < 4; c++) {
+            q[c] = (float) random.nextGaussian();
+            length += q[c] * q[c];
+        }
+        length = (float) Math.sqrt(length);
+        for (int c = 0; c < 4; c++) {
+            q[c] /= length;
+        }
+        return q;
+    }
+
+    private static TargetDataset.Target target(String id) {
+        return new TargetDataset.Target(id, id, "catalog", 0, 100, 640, 480);
+    }
+}
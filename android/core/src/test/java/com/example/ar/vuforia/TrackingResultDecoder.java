@@ -0,0 +1,137 @@
+package com.example.ar.vuforia;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads {@link TrackingResultCodec} frames the way the Dart decoder does, so the
+ * tests can check the round trip and the quantisation error on a plain JVM.
+ */
+final class TrackingResultDecoder {
+    static final class Target {
+        final String id;
+        final int matches;
+        final float score;
+        final float[] position; // Null without a pose
+        final float[] rotation;
+
+        Target(String id, int matches, float score, float[] position, float[] rotation) {
+            this.id = id;
+            this.matches = matches;
+            this.score = score;
+            this.position = position;
+            this.rotation = rotation;
+        }
+    }
+
+    private final List<String> ids = new ArrayList<>();
+    private int[] lastMatches = new int[16];
+    private short[] lastPose = new short[16 * 6];
+    private int baseline = -1;
+
+    private byte[] frame;
+    private int offset;
+
+    /** Sequence of the last decoded frame, to send as the next request's baseline. */
+    int getBaseline() { return baseline; }
+
+    List<Target> decode(byte[] bytes) {
+        frame = bytes;
+        offset = 0;
+        int version = readByte();
+        if (version != TrackingResultCodec.VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + version);
+        }
+        boolean keyframe = (readByte() & TrackingResultCodec.FRAME_KEYFRAME) != 0;
+        int sequence = readShort() & 0xFFFF;
+        int frameBaseline = readShort() & 0xFFFF;
+        if (keyframe) {
+            ids.clear();
+        } else if (frameBaseline != baseline) {
+            throw new IllegalStateException("Delta against " + frameBaseline + ", last decoded " + baseline);
+        }
+
+        int newIds = readVarInt();
+        for (int i = 0; i < newIds; i++) {
+            int length = readVarInt();
+            ids.add(new String(frame, offset, length, StandardCharsets.UTF_8));
+            offset += length;
+        }
+        if (ids.size() > lastMatches.length) {
+            int capacity = Math.max(ids.size(), lastMatches.length * 2);
+            lastMatches = Arrays.copyOf(lastMatches, capacity);
+            lastPose = Arrays.copyOf(lastPose, capacity * 6);
+        }
+
+        int count = readVarInt();
+        List<Target> targets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = readVarInt();
+            int flags = readByte();
+            float score = readByte() / 255.0f;
+            boolean delta = (flags & TrackingResultCodec.TARGET_DELTA) != 0;
+            int matches = delta ? lastMatches[id] + unZigZag(readVarInt()) : readVarInt();
+            lastMatches[id] = matches;
+
+            float[] position = null;
+            float[] rotation = null;
+            if ((flags & TrackingResultCodec.TARGET_POSE) != 0) {
+                if ((flags & TrackingResultCodec.TARGET_STILL) == 0) {
+                    for (int c = 0; c < 6; c++) {
+                        lastPose[id * 6 + c] = delta
+                                ? (short) (lastPose[id * 6 + c] + unZigZag(readVarInt()))
+                                : readShort();
+                    }
+                }
+                position = new float[3];
+                rotation = new float[4];
+                dequantise(lastPose, id * 6, flags >> TrackingResultCodec.TARGET_LARGEST_SHIFT & 3, position, rotation);
+            }
+            targets.add(new Target(ids.get(id), matches, score, position, rotation));
+        }
+        baseline = sequence;
+        return targets;
+    }
+
+    static void dequantise(short[] pose, int offset, int largest, float[] position, float[] rotation) {
+        for (int c = 0; c < 3; c++) {
+            position[c] = pose[offset + c] / 32767.0f * TrackingResultCodec.POSITION_RANGE;
+        }
+        float sum = 0;
+        for (int c = 0, o = 3; c < 4; c++) {
+            if (c != largest) {
+                rotation[c] = pose[offset + o++] / 32767.0f * TrackingResultCodec.QUATERNION_RANGE;
+                sum += rotation[c] * rotation[c];
+            }
+        }
+        rotation[largest] = (float) Math.sqrt(Math.max(0, 1 - sum));
+    }
+
+    private int readByte() {
+        return frame[offset++] & 0xFF;
+    }
+
+    private short readShort() {
+        int value = (frame[offset] & 0xFF) | (frame[offset + 1] & 0xFF) << 8;
+        offset += 2;
+        return (short) value;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = frame[offset++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,187 @@
+import 'dart:convert';
+import 'dart:math' as math;
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:vector_math/vector_math.dart';
+
+/// One tracked image target from a binary getTrackingResults frame.
+class TrackedTarget {
+  const TrackedTarget({
+    required this.targetId,
+    required this.matches,
+    required this.score,
+    this.position,
+    this.rotation,
+  });
+
+  final String targetId;
+  final int matches;
+  final double score;
+
+  /// Metres in camera space, null until the engine estimates a pose.
+  final Vector3? position;
+  final Quaternion? rotation;
+}
+
+/// Decodes the quantised, delta-encoded frames of getTrackingResults.
+///
+/// Frames are deltas against the last frame this decoder read, so keep one
+/// decoder per stream and always send [baseline] with the next request; the
+/// plugin answers a stale baseline with a keyframe. The format is described in
+/// TrackingResultCodec.java in the Android core module.
+class TrackingResultsDecoder {
+  static const MethodChannel _channel = MethodChannel('vuforia_database');
+
+  static const int _version = 1;
+  static const int _frameKeyframe = 1;
+  static const int _targetPose = 1;
+  static const int _targetDelta = 2;
+  static const int _targetStill = 4;
+  static const int _targetLargestShift = 3;
+  static const double _positionRange = 8.0;
+  static final double _quaternionRange = 1 / math.sqrt2;
+
+  final List<String> _ids = [];
+  final List<int> _lastMatches = [];
+  final List<Int16List> _lastPoses = [];
+  int _baseline = -1;
+
+  /// Sequence of the last decoded frame, or -1 before the first.
+  int get baseline => _baseline;
+
+  /// Fetches and decodes the latest results.
+  Future<List<TrackedTarget>> fetch() async {
+    final response = await _channel.invokeMapMethod<String, dynamic>(
+      'getTrackingResults',
+      {'format': 'binary', 'baseline': _baseline},
+    );
+    return decode(response!['frame'] as Uint8List);
+  }
+
+  List<TrackedTarget> decode(Uint8List frame) {
+    final reader = _Reader(frame);
+    final version = reader.byte();
+    if (version != _version) {
+      throw FormatException('Unsupported tracking frame version $version');
+    }
+    final keyframe = reader.byte() & _frameKeyframe != 0;
+    final sequence = reader.uint16();
+    final frameBaseline = reader.uint16();
+    if (keyframe) {
+      _ids.clear();
+      _lastMatches.clear();
+      _lastPoses.clear();
+    } else if (frameBaseline != _baseline) {
+      throw StateError('Delta against $frameBaseline, last decoded $_baseline');
+    }
+
+    final newIds = reader.varInt();
+    for (var i = 0; i < newIds; i++) {
+      _ids.add(reader.utf8String(reader.varInt()));
+      _lastMatches.add(0);
+      _lastPoses.add(Int16List(6));
+    }
+
+    final count = reader.varInt();
+    final targets = <TrackedTarget>[];
+    for (var i = 0; i < count; i++) {
+      final id = reader.varInt();
+      final flags = reader.byte();
+      final score = reader.byte() / 255.0;
+      final delta = flags & _targetDelta != 0;
+      final matches = delta
+          ? _lastMatches[id] + _unZigZag(reader.varInt())
+          : reader.varInt();
+      _lastMatches[id] = matches;
+
+      Vector3? position;
+      Quaternion? rotation;
+      if (flags & _targetPose != 0) {
+        final pose = _lastPoses[id];
+        if (flags & _targetStill == 0) {
+          for (var c = 0; c < 6; c++) {
+            pose[c] = delta
+                ? (pose[c] + _unZigZag(reader.varInt())).toSigned(16)
+                : reader.int16();
+          }
+        }
+        position = Vector3(
+          pose[0] / 32767 * _positionRange,
+          pose[1] / 32767 * _positionRange,
+          pose[2] / 32767 * _positionRange,
+        );
+        rotation = _rotation(pose, flags >> _targetLargestShift & 3);
+      }
+      targets.add(
+        TrackedTarget(
+          targetId: _ids[id],
+          matches: matches,
+          score: score,
+          position: position,
+          rotation: rotation,
+        ),
+      );
+    }
+    _baseline = sequence;
+    return targets;
+  }
+
+  /// Rebuilds the component left out from the three smallest.
+  Quaternion _rotation(Int16List pose, int largest) {
+    final q = List<double>.filled(4, 0);
+    var sum = 0.0;
+    for (var c = 0, o = 3; c < 4; c++) {
+      if (c != largest) {
+        q[c] = pose[o++] / 32767 * _quaternionRange;
+        sum += q[c] * q[c];
+      }
+    }
+    q[largest] = math.sqrt(math.max(0, 1 - sum));
+    return Quaternion(q[0], q[1], q[2], q[3]);
+  }
+
+  static int _unZigZag(int value) => (value >> 1) ^ -(value & 1);
+}
+
+class _Reader {
+  _Reader(this._bytes) : _data = ByteData.sublistView(_bytes);
+
+  final Uint8List _bytes;
+  final ByteData _data;
+  int _offset = 0;
+
+  int byte() => _bytes[_offset++];
+
+  int uint16() {
+    final value = _data.getUint16(_offset, Endian.little);
+    _offset += 2;
+    return value;
+  }
+
+  int int16() {
+    final value = _data.getInt16(_offset, Endian.little);
+    _offset += 2;
+    return value;
+  }
+
+  int varInt() {
+    var value = 0;
+    var shift = 0;
+    int b;
+    do {
+      b = _bytes[_offset++];
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b & 0x80 != 0);
+    return value;
+  }
+
+  String utf8String(int length) {
+    final value = utf8.decode(
+      Uint8List.sublistView(_bytes, _offset, _offset + length),
+    );
+    _offset += length;
+    return value;
+  }
+}
@@ -0,0 +1,233 @@
+import 'dart:convert';
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:vector_math/vector_math.dart';
+
+/// Tracking state from the binary channel, the fixed-layout subset of the
+/// getTrackingState map.
+class BinaryTrackingState {
+  const BinaryTrackingState({
+    required this.isTracking,
+    required this.confidence,
+    required this.trackedObjects,
+    required this.sharedAssets,
+    required this.decodedAssetBytes,
+    required this.framesDelivered,
+    required this.framesDropped,
+    required this.drawnModels,
+    required this.culledModels,
+    required this.unbatchedDrawCalls,
+    required this.drawCalls,
+  });
+
+  final bool isTracking;
+  final double confidence;
+  final int trackedObjects;
+  final int sharedAssets;
+  final int decodedAssetBytes;
+  final int framesDelivered;
+  final int framesDropped;
+  final int drawnModels;
+  final int culledModels;
+  final int unbatchedDrawCalls;
+  final int drawCalls;
+}
+
+/// Body measurements from the binary channel; the getBodyTrackingData map in
+/// fixed layout, plus the capture time.
+class BinaryBodyData {
+  const BinaryBodyData({
+    required this.timestampNanos,
+    required this.bodyHeight,
+    required this.shoulderWidth,
+    required this.chest,
+    required this.torso,
+    required this.waist,
+    required this.confidence,
+  });
+
+  final int timestampNanos;
+
+  /// Centimetres.
+  final double bodyHeight;
+  final double shoulderWidth;
+  final Vector3 chest;
+  final Vector3 torso;
+  final Vector3 waist;
+  final double confidence;
+}
+
+/// Client for the `vuforia_ar/binary` message channel, which serves the
+/// per-frame vuforia_ar calls without the standard codec.
+///
+/// Messages are little-endian and start with an opcode byte; replies start
+/// with a status byte. Model ids are resolved to a handle once and cached, so
+/// transform and visibility updates carry no strings. The format is described
+/// in BinaryProtocol.java in the Android core module.
+class VuforiaBinaryChannel {
+  VuforiaBinaryChannel({BinaryMessenger? binaryMessenger})
+    : _channel = BasicMessageChannel<ByteData>(
+        'vuforia_ar/binary',
+        const BinaryCodec(),
+        binaryMessenger: binaryMessenger,
+      );
+
+  static const int resolveModelOp = 1;
+  static const int updateTransformOp = 2;
+  static const int setVisibilityOp = 3;
+  static const int trackingStateOp = 4;
+  static const int bodyDataOp = 5;
+
+  static const int statusOk = 0;
+  static const int statusFailed = 1;
+  static const int statusNotInitialized = 2;
+  static const int statusBadRequest = 3;
+
+  static const int _maskPosition = 1;
+  static const int _maskRotation = 2;
+  static const int _maskScale = 4;
+
+  final BasicMessageChannel<ByteData> _channel;
+  final Map<String, int> _handles = {};
+
+  /// Same as the updateModelTransform method call; null vectors are left as
+  /// they are. Returns false if the plugin rejected the call.
+  Future<bool> updateModelTransform(
+    String modelId, {
+    Vector3? position,
+    Vector3? rotation,
+    Vector3? scale,
+  }) async {
+    final handle = await _handle(modelId);
+    final reply = await _send(
+      encodeUpdateTransform(
+        handle,
+        position: position,
+        rotation: rotation,
+        scale: scale,
+      ),
+    );
+    return reply.getUint8(0) == statusOk;
+  }
+
+  /// Same as the setModelVisibility method call.
+  Future<bool> setModelVisibility(String modelId, bool visible) async {
+    final handle = await _handle(modelId);
+    final reply = await _send(encodeSetVisibility(handle, visible));
+    return reply.getUint8(0) == statusOk;
+  }
+
+  /// Null until the plugin is initialised.
+  Future<BinaryTrackingState?> getTrackingState() async =>
+      decodeTrackingState(await _send(_opcode(trackingStateOp)));
+
+  /// Null until the plugin is initialised.
+  Future<BinaryBodyData?> getBodyTrackingData() async =>
+      decodeBodyData(await _send(_opcode(bodyDataOp)));
+
+  Future<int> _handle(String modelId) async {
+    final cached = _handles[modelId];
+    if (cached != null) {
+      return cached;
+    }
+    final handle = decodeResolveModel(
+      await _send(encodeResolveModel(modelId)),
+    );
+    _handles[modelId] = handle;
+    return handle;
+  }
+
+  Future<ByteData> _send(ByteData message) async {
+    final reply = await _channel.send(message);
+    if (reply == null || reply.lengthInBytes == 0) {
+      throw StateError('No reply on vuforia_ar/binary');
+    }
+    return reply;
+  }
+
+  static ByteData encodeResolveModel(String modelId) {
+    final utf8Id = utf8.encode(modelId);
+    final message = ByteData(3 + utf8Id.length)
+      ..setUint8(0, resolveModelOp)
+      ..setUint16(1, utf8Id.length, Endian.little);
+    message.buffer.asUint8List(3).setAll(0, utf8Id);
+    return message;
+  }
+
+  static int decodeResolveModel(ByteData reply) {
+    final status = reply.getUint8(0);
+    if (status != statusOk) {
+      throw StateError('resolveModel failed with status $status');
+    }
+    return reply.getInt32(1, Endian.little);
+  }
+
+  static ByteData encodeUpdateTransform(
+    int handle, {
+    Vector3? position,
+    Vector3? rotation,
+    Vector3? scale,
+  }) {
+    final vectors = [position, rotation, scale];
+    final message = ByteData(6 + 12 * vectors.whereType<Vector3>().length)
+      ..setUint8(0, updateTransformOp)
+      ..setInt32(1, handle, Endian.little)
+      ..setUint8(
+        5,
+        (position != null ? _maskPosition : 0) |
+            (rotation != null ? _maskRotation : 0) |
+            (scale != null ? _maskScale : 0),
+      );
+    var offset = 6;
+    for (final vector in vectors.whereType<Vector3>()) {
+      for (var c = 0; c < 3; c++) {
+        message.setFloat32(offset, vector[c], Endian.little);
+        offset += 4;
+      }
+    }
+    return message;
+  }
+
+  static ByteData encodeSetVisibility(int handle, bool visible) => ByteData(6)
+    ..setUint8(0, setVisibilityOp)
+    ..setInt32(1, handle, Endian.little)
+    ..setUint8(5, visible ? 1 : 0);
+
+  static BinaryTrackingState? decodeTrackingState(ByteData reply) {
+    if (reply.getUint8(0) != statusOk) {
+      return null;
+    }
+    return BinaryTrackingState(
+      isTracking: reply.getUint8(1) != 0,
+      confidence: reply.getFloat32(2, Endian.little),
+      trackedObjects: reply.getInt32(6, Endian.little),
+      sharedAssets: reply.getInt32(10, Endian.little),
+      decodedAssetBytes: reply.getInt64(14, Endian.little),
+      framesDelivered: reply.getInt64(22, Endian.little),
+      framesDropped: reply.getInt64(30, Endian.little),
+      drawnModels: reply.getInt32(38, Endian.little),
+      culledModels: reply.getInt32(42, Endian.little),
+      unbatchedDrawCalls: reply.getInt32(46, Endian.little),
+      drawCalls: reply.getInt32(50, Endian.little),
+    );
+  }
+
+  static BinaryBodyData? decodeBodyData(ByteData reply) {
+    if (reply.getUint8(0) != statusOk) {
+      return null;
+    }
+    double value(int index) => reply.getFloat32(9 + index * 4, Endian.little);
+    return BinaryBodyData(
+      timestampNanos: reply.getInt64(1, Endian.little),
+      bodyHeight: value(0),
+      shoulderWidth: value(1),
+      chest: Vector3(value(2), value(3), value(4)),
+      torso: Vector3(value(5), value(6), value(7)),
+      waist: Vector3(value(8), value(9), value(10)),
+      confidence: value(11),
+    );
+  }
+
+  static ByteData _opcode(int opcode) => ByteData(1)..setUint8(0, opcode);
+}
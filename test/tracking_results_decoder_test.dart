@@ -0,0 +1,109 @@
+// Golden frames from test/fixtures/tracking_results_frames.json. The Java
+// TrackingResultCodecTest encodes the same results and fails when the codec no
+// longer produces these bytes. The frames were encoded one after another by one
+// codec instance:
+//   1. keyframe: shirt_01 with a pose (45 degrees about y, w dropped), dress_02
+//      without one
+//   2. delta: shirt_01 STILL with 2 more matches, dress_02 with 2 fewer
+//   3. delta: shirt_01 rotated 135 degrees about x, so x is now the dropped
+//      component and the pose is sent in full
+//   4. the client answered with baseline 2 instead of 3: a keyframe that restarts
+//      the id table with dress_02 only
+
+import 'dart:convert';
+import 'dart:io';
+import 'dart:typed_data';
+
+import 'package:flutter_test/flutter_test.dart';
+
+import 'package:ar/services/tracking_results_decoder.dart';
+
+final Map<String, Uint8List> frames = {
+  for (final entry in (jsonDecode(
+    File('test/fixtures/tracking_results_frames.json').readAsStringSync(),
+  ) as Map<String, dynamic>)
+      .entries)
+    entry.key: Uint8List.fromList((entry.value as List).cast<int>()),
+};
+final keyframe = frames['keyframe']!;
+final still = frames['still']!;
+final largestChanged = frames['largestChanged']!;
+final afterStaleBaseline = frames['afterStaleBaseline']!;
+
+const tolerance = 1e-3;
+
+void expectPose(TrackedTarget target, List<double> position, List<double> q) {
+  expect(target.position!.x, closeTo(position[0], tolerance));
+  expect(target.position!.y, closeTo(position[1], tolerance));
+  expect(target.position!.z, closeTo(position[2], tolerance));
+  expect(target.rotation!.x, closeTo(q[0], tolerance));
+  expect(target.rotation!.y, closeTo(q[1], tolerance));
+  expect(target.rotation!.z, closeTo(q[2], tolerance));
+  expect(target.rotation!.w, closeTo(q[3], tolerance));
+}
+
+void main() {
+  const shirtPosition = [0.1, -0.2, 1.5];
+  const shirtRotation = [0.0, 0.3826834, 0.0, 0.9238795];
+
+  test('keyframe carries ids, scores and poses', () {
+    final decoder = TrackingResultsDecoder();
+    final targets = decoder.decode(keyframe);
+
+    expect(decoder.baseline, 1);
+    expect(targets.map((t) => t.targetId), ['shirt_01', 'dress_02']);
+    expect(targets[0].matches, 40);
+    expect(targets[0].score, closeTo(0.5, 0.01));
+    expectPose(targets[0], shirtPosition, shirtRotation);
+    expect(targets[1].matches, 20);
+    expect(targets[1].score, closeTo(0.25, 0.01));
+    expect(targets[1].position, isNull);
+    expect(targets[1].rotation, isNull);
+  });
+
+  test('STILL target keeps its previous pose', () {
+    final decoder = TrackingResultsDecoder()..decode(keyframe);
+    final targets = decoder.decode(still);
+
+    expect(decoder.baseline, 2);
+    expect(targets[0].targetId, 'shirt_01');
+    expect(targets[0].matches, 42);
+    expectPose(targets[0], shirtPosition, shirtRotation);
+    expect(targets[1].matches, 18);
+    expect(targets[1].position, isNull);
+  });
+
+  test('change of the dropped quaternion component', () {
+    final decoder = TrackingResultsDecoder()
+      ..decode(keyframe)
+      ..decode(still);
+    final targets = decoder.decode(largestChanged);
+
+    expect(decoder.baseline, 3);
+    expect(targets, hasLength(1));
+    expect(targets[0].targetId, 'shirt_01');
+    expect(targets[0].matches, 41);
+    expectPose(targets[0], [0.12, -0.2, 1.4], [0.9238795, 0.0, 0.0, 0.3826834]);
+  });
+
+  test('delta against a stale baseline is rejected', () {
+    // Frame 3 is a delta against frame 2, which this decoder never saw
+    final decoder = TrackingResultsDecoder()..decode(keyframe);
+    expect(() => decoder.decode(largestChanged), throwsStateError);
+    expect(decoder.baseline, 1);
+  });
+
+  test('keyframe after a stale baseline restarts the id table', () {
+    final decoder = TrackingResultsDecoder()
+      ..decode(keyframe)
+      ..decode(still)
+      ..decode(largestChanged);
+    final targets = decoder.decode(afterStaleBaseline);
+
+    expect(decoder.baseline, 4);
+    expect(targets, hasLength(1));
+    expect(targets[0].targetId, 'dress_02');
+    expect(targets[0].matches, 25);
+    expect(targets[0].score, 1.0);
+  });
+}
@@ -0,0 +1,212 @@
+// Messages are checked byte for byte against the layout in BinaryProtocol.java,
+// and replies are built the way the plugin writes them.
+
+import 'dart:typed_data';
+
+import 'package:flutter/services.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:vector_math/vector_math.dart';
+
+import 'package:ar/services/vuforia_binary_channel.dart';
+
+Uint8List bytes(ByteData data) =>
+    data.buffer.asUint8List(data.offsetInBytes, data.lengthInBytes);
+
+/// Stands in for the plugin side of the channel.
+class FakePlugin {
+  final List<String> modelIds = [];
+  final List<Uint8List> messages = [];
+  bool initialized = true;
+
+  Future<ByteData?> handle(ByteData? message) async {
+    messages.add(Uint8List.fromList(bytes(message!)));
+    final opcode = message.getUint8(0);
+    if (opcode == VuforiaBinaryChannel.resolveModelOp) {
+      final length = message.getUint16(1, Endian.little);
+      final id = String.fromCharCodes(bytes(message).sublist(3, 3 + length));
+      var handle = modelIds.indexOf(id);
+      if (handle < 0) {
+        handle = modelIds.length;
+        modelIds.add(id);
+      }
+      return ByteData(5)
+        ..setUint8(0, VuforiaBinaryChannel.statusOk)
+        ..setInt32(1, handle, Endian.little);
+    }
+    if (!initialized) {
+      return ByteData(1)
+        ..setUint8(0, VuforiaBinaryChannel.statusNotInitialized);
+    }
+    switch (opcode) {
+      case VuforiaBinaryChannel.updateTransformOp:
+      case VuforiaBinaryChannel.setVisibilityOp:
+        final known = message.getInt32(1, Endian.little) < modelIds.length;
+        return ByteData(1)
+          ..setUint8(
+            0,
+            known
+                ? VuforiaBinaryChannel.statusOk
+                : VuforiaBinaryChannel.statusFailed,
+          );
+      case VuforiaBinaryChannel.trackingStateOp:
+        return trackingStateReply();
+      default:
+        return ByteData(1)..setUint8(0, VuforiaBinaryChannel.statusBadRequest);
+    }
+  }
+}
+
+ByteData trackingStateReply() => ByteData(54)
+  ..setUint8(0, VuforiaBinaryChannel.statusOk)
+  ..setUint8(1, 1)
+  ..setFloat32(2, 0.95, Endian.little)
+  ..setInt32(6, 3, Endian.little)
+  ..setInt32(10, 2, Endian.little)
+  ..setInt64(14, 5 << 32, Endian.little)
+  ..setInt64(22, 1200, Endian.little)
+  ..setInt64(30, 17, Endian.little)
+  ..setInt32(38, 2, Endian.little)
+  ..setInt32(42, 1, Endian.little)
+  ..setInt32(46, 9, Endian.little)
+  ..setInt32(50, 4, Endian.little);
+
+void main() {
+  TestWidgetsFlutterBinding.ensureInitialized();
+
+  group('encoding', () {
+    test('resolveModel sends the UTF-8 id after its length', () {
+      expect(bytes(VuforiaBinaryChannel.encodeResolveModel('shirt_01')), [
+        1,
+        8,
+        0,
+        ...'shirt_01'.codeUnits,
+      ]);
+      // Length is in bytes, not characters
+      expect(bytes(VuforiaBinaryChannel.encodeResolveModel('blusé')), [
+        1,
+        6,
+        0,
+        ...'blus'.codeUnits,
+        0xC3,
+        0xA9,
+      ]);
+    });
+
+    test('updateTransform sends only the vectors in its mask', () {
+      expect(
+        bytes(
+          VuforiaBinaryChannel.encodeUpdateTransform(
+            7,
+            position: Vector3(1, -2, 0.5),
+            scale: Vector3(1, 1, 1),
+          ),
+        ),
+        [
+          2, 7, 0, 0, 0, 5, // Position and scale
+          0, 0, 0x80, 0x3F, 0, 0, 0, 0xC0, 0, 0, 0, 0x3F,
+          0, 0, 0x80, 0x3F, 0, 0, 0x80, 0x3F, 0, 0, 0x80, 0x3F,
+        ],
+      );
+      expect(bytes(VuforiaBinaryChannel.encodeUpdateTransform(300)), [
+        2, 44, 1, 0, 0, 0,
+      ]);
+    });
+
+    test('setVisibility sends the handle and a flag', () {
+      expect(bytes(VuforiaBinaryChannel.encodeSetVisibility(2, true)), [
+        3, 2, 0, 0, 0, 1,
+      ]);
+      expect(bytes(VuforiaBinaryChannel.encodeSetVisibility(2, false)), [
+        3, 2, 0, 0, 0, 0,
+      ]);
+    });
+  });
+
+  group('decoding', () {
+    test('tracking state', () {
+      final state = VuforiaBinaryChannel.decodeTrackingState(
+        trackingStateReply(),
+      )!;
+      expect(state.isTracking, isTrue);
+      expect(state.confidence, closeTo(0.95, 1e-6));
+      expect(state.trackedObjects, 3);
+      expect(state.sharedAssets, 2);
+      expect(state.decodedAssetBytes, 5 << 32);
+      expect(state.framesDelivered, 1200);
+      expect(state.framesDropped, 17);
+      expect(state.drawnModels, 2);
+      expect(state.culledModels, 1);
+      expect(state.unbatchedDrawCalls, 9);
+      expect(state.drawCalls, 4);
+    });
+
+    test('body data', () {
+      final reply = ByteData(57)
+        ..setUint8(0, VuforiaBinaryChannel.statusOk)
+        ..setInt64(1, 123456789, Endian.little);
+      for (var i = 0; i < 12; i++) {
+        reply.setFloat32(9 + i * 4, i + 0.5, Endian.little);
+      }
+      final body = VuforiaBinaryChannel.decodeBodyData(reply)!;
+      expect(body.timestampNanos, 123456789);
+      expect(body.bodyHeight, 0.5);
+      expect(body.shoulderWidth, 1.5);
+      expect(body.chest, Vector3(2.5, 3.5, 4.5));
+      expect(body.torso, Vector3(5.5, 6.5, 7.5));
+      expect(body.waist, Vector3(8.5, 9.5, 10.5));
+      expect(body.confidence, 11.5);
+    });
+
+    test('a failed status gives null', () {
+      final failed = ByteData(1)
+        ..setUint8(0, VuforiaBinaryChannel.statusNotInitialized);
+      expect(VuforiaBinaryChannel.decodeTrackingState(failed), isNull);
+      expect(VuforiaBinaryChannel.decodeBodyData(failed), isNull);
+      expect(
+        () => VuforiaBinaryChannel.decodeResolveModel(failed),
+        throwsStateError,
+      );
+    });
+  });
+
+  group('channel', () {
+    late FakePlugin plugin;
+    late VuforiaBinaryChannel channel;
+
+    setUp(() {
+      plugin = FakePlugin();
+      TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger
+          .setMockMessageHandler('vuforia_ar/binary', plugin.handle);
+      channel = VuforiaBinaryChannel();
+    });
+
+    tearDown(() {
+      TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger
+          .setMockMessageHandler('vuforia_ar/binary', null);
+    });
+
+    test('model ids are resolved once', () async {
+      expect(
+        await channel.updateModelTransform(
+          'shirt_01',
+          position: Vector3(0, 1, 2),
+        ),
+        isTrue,
+      );
+      expect(await channel.setModelVisibility('shirt_01', true), isTrue);
+      expect(await channel.setModelVisibility('dress_02', false), isTrue);
+
+      expect(plugin.messages.map((m) => m[0]), [1, 2, 3, 1, 3]);
+      expect(plugin.messages[4].sublist(1, 5), [1, 0, 0, 0]);
+    });
+
+    test('replies are decoded, and null before initialisation', () async {
+      final state = await channel.getTrackingState();
+      expect(state!.drawCalls, 4);
+
+      plugin.initialized = false;
+      expect(await channel.getTrackingState(), isNull);
+      expect(await channel.setModelVisibility('shirt_01', true), isFalse);
+    });
+  });
+}